@@ -1,5 +1,7 @@
 package org.example;
 
+import org.example.api.RegisterProtocolServer;
+import org.example.api.StoreHttpServer;
 import org.example.model.store.Store;
 import org.example.model.store.Cashier;
 import org.example.model.store.CashRegister;
@@ -13,6 +15,7 @@ import org.example.config.StoreConfig;
 import org.example.util.StoreLogger;
 
 import java.io.File;
+import java.net.InetSocketAddress;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,6 +37,8 @@ public class Main {
                 StoreConfig.getExpirationWarningDays(),
                 StoreConfig.getExpirationDiscount()
             );
+            StoreConfig.addChangeListener(store::applyConfig);
+            StoreConfig.startWatching();
 
             Cashier cashier1 = new Cashier("Ivan Georgiev", 2000.0);
             Cashier cashier2 = new Cashier("Teodor Ivanov", 2200.0);
@@ -87,6 +92,25 @@ public class Main {
             System.out.println("\nInventory Report:");
             System.out.println(store.getInventoryReport());
 
+            int httpPort = port(args, "--http=");
+            if (httpPort >= 0) {
+                // JVM-wide and read when the first server is created; see StoreHttpServer.
+                if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                    System.setProperty("sun.net.httpserver.nodelay", "true");
+                }
+                StoreHttpServer server = new StoreHttpServer(store, new InetSocketAddress(httpPort));
+                Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+                server.start();
+                System.out.println("\nHTTP API listening on port " + server.getPort());
+            }
+            int registerPort = port(args, "--registers=");
+            if (registerPort >= 0) {
+                RegisterProtocolServer server = new RegisterProtocolServer(store, new InetSocketAddress(registerPort));
+                Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+                server.start();
+                System.out.println("\nRegister protocol listening on port " + server.getPort());
+            }
+
         } catch (StoreException e) {
             System.err.println("Store error: " + e.getMessage());
             e.printStackTrace();
@@ -96,6 +120,19 @@ public class Main {
         }
     }
 
+    /**
+     * Port given as {@code --http=PORT} or {@code --registers=PORT}, or -1 when
+     * that server is not requested.
+     */
+    private static int port(String[] args, String option) {
+        for (String arg : args) {
+            if (arg.startsWith(option)) {
+                return Integer.parseInt(arg.substring(option.length()));
+            }
+        }
+        return -1;
+    }
+
     private static void initializeReceiptsDirectory(String directory) {
         File dir = new File(directory);
         System.out.println("Initializing receipts directory: " + directory);
@@ -0,0 +1,82 @@
+package org.example.api;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format shared by {@link RegisterProtocolServer} and
+ * {@link RegisterProtocolClient}. All integers are big-endian and money is
+ * sent as whole cents.
+ * <p>
+ * A request frame is {@code length:int}, then {@code opcode:byte},
+ * {@code requestId:int}, {@code registerId:int} and the opcode's payload,
+ * where {@code length} counts the bytes after itself:
+ * <ul>
+ *   <li>{@link #SCAN} and {@link #REMOVE}: {@code productId:int quantity:int}</li>
+ *   <li>{@link #CHECKOUT}: {@code paymentCents:long}</li>
+ *   <li>{@link #RECEIPT_ACK}: {@code receiptNumber:int}</li>
+ * </ul>
+ * A response frame is {@code length:int}, then {@code status:byte},
+ * {@code requestId:int} and the status's payload:
+ * <ul>
+ *   <li>{@link #OK} after a scan or remove: {@code runningTotalCents:long}</li>
+ *   <li>{@link #OK} after a checkout: {@code receiptNumber:int totalCents:long changeCents:long}</li>
+ *   <li>{@link #OK} after a receipt ack: nothing</li>
+ *   <li>{@link #OUT_OF_STOCK}: {@code productId:int requested:int available:int}</li>
+ *   <li>{@link #UNDERPAID}: {@code requiredCents:long providedCents:long}</li>
+ *   <li>{@link #NOT_FOUND}, {@link #REJECTED} and {@link #ERROR}: a UTF-8 message</li>
+ * </ul>
+ * Responses come back in request order, so a client may pipeline any number
+ * of requests before reading.
+ */
+final class RegisterProtocol {
+    static final byte SCAN = 1;
+    static final byte REMOVE = 2;
+    static final byte CHECKOUT = 3;
+    static final byte RECEIPT_ACK = 4;
+
+    static final byte OK = 0;
+    static final byte OUT_OF_STOCK = 1;
+    static final byte UNDERPAID = 2;
+    static final byte NOT_FOUND = 3;
+    static final byte REJECTED = 4;
+    static final byte ERROR = 5;
+
+    static final int REQUEST_HEADER_SIZE = 1 + 2 * Integer.BYTES;
+    static final int RESPONSE_HEADER_SIZE = 1 + Integer.BYTES;
+    static final int MAX_FRAME_SIZE = 1024;
+    static final int MAX_MESSAGE_BYTES = MAX_FRAME_SIZE - RESPONSE_HEADER_SIZE;
+
+    private RegisterProtocol() {
+    }
+
+    static void writeItemRequest(ByteBuffer out, byte opcode, int requestId, int registerId,
+                                 int productId, int quantity) {
+        out.putInt(REQUEST_HEADER_SIZE + 2 * Integer.BYTES).put(opcode).putInt(requestId).putInt(registerId)
+            .putInt(productId).putInt(quantity);
+    }
+
+    static void writeCheckoutRequest(ByteBuffer out, int requestId, int registerId, long paymentCents) {
+        out.putInt(REQUEST_HEADER_SIZE + Long.BYTES).put(CHECKOUT).putInt(requestId).putInt(registerId)
+            .putLong(paymentCents);
+    }
+
+    static void writeReceiptAck(ByteBuffer out, int requestId, int registerId, int receiptNumber) {
+        out.putInt(REQUEST_HEADER_SIZE + Integer.BYTES).put(RECEIPT_ACK).putInt(requestId).putInt(registerId)
+            .putInt(receiptNumber);
+    }
+
+    static void writeMessage(ByteBuffer out, byte status, int requestId, String message) {
+        byte[] text = (message == null ? "" : message).getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(text.length, MAX_MESSAGE_BYTES);
+        out.putInt(RESPONSE_HEADER_SIZE + length).put(status).putInt(requestId).put(text, 0, length);
+    }
+
+    static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    static double fromCents(long cents) {
+        return cents / 100.0;
+    }
+}
@@ -0,0 +1,253 @@
+package org.example.api;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+import static org.example.api.RegisterProtocol.*;
+
+/**
+ * Blocking client for the binary {@link RegisterProtocol}, acting for one
+ * register. Not thread-safe.
+ * <p>
+ * The plain calls ({@link #scan}, {@link #checkout}, ...) send one request and
+ * wait for its response. To pipeline, queue requests with the {@code send}
+ * methods and then {@link #receive} the responses, which arrive in the same
+ * order. Requests are buffered until {@link #flush}, {@link #receive} or a
+ * full buffer; keep pipelines to a few thousand requests so neither side's
+ * buffers fill while the other is still writing.
+ */
+public class RegisterProtocolClient implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Status {
+        OK, OUT_OF_STOCK, UNDERPAID, NOT_FOUND, REJECTED, ERROR
+    }
+
+    private final SocketChannel channel;
+    private final int registerId;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ArrayDeque<Byte> outstanding = new ArrayDeque<>();
+    private int nextRequestId = 1;
+
+    public RegisterProtocolClient(InetSocketAddress address, int registerId) throws IOException {
+        if (address == null) {
+            throw new IllegalArgumentException("Address cannot be null");
+        }
+        this.channel = SocketChannel.open(address);
+        this.registerId = registerId;
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        in.flip();
+    }
+
+    public Response scan(int productId, int quantity) throws IOException {
+        sendScan(productId, quantity);
+        return receive();
+    }
+
+    public Response remove(int productId, int quantity) throws IOException {
+        sendRemove(productId, quantity);
+        return receive();
+    }
+
+    public Response checkout(double payment) throws IOException {
+        sendCheckout(payment);
+        return receive();
+    }
+
+    public Response acknowledgeReceipt(int receiptNumber) throws IOException {
+        sendReceiptAck(receiptNumber);
+        return receive();
+    }
+
+    public int sendScan(int productId, int quantity) throws IOException {
+        reserve(SCAN);
+        writeItemRequest(out, SCAN, nextRequestId, registerId, productId, quantity);
+        return nextRequestId++;
+    }
+
+    public int sendRemove(int productId, int quantity) throws IOException {
+        reserve(REMOVE);
+        writeItemRequest(out, REMOVE, nextRequestId, registerId, productId, quantity);
+        return nextRequestId++;
+    }
+
+    public int sendCheckout(double payment) throws IOException {
+        reserve(CHECKOUT);
+        writeCheckoutRequest(out, nextRequestId, registerId, toCents(payment));
+        return nextRequestId++;
+    }
+
+    public int sendReceiptAck(int receiptNumber) throws IOException {
+        reserve(RECEIPT_ACK);
+        writeReceiptAck(out, nextRequestId, registerId, receiptNumber);
+        return nextRequestId++;
+    }
+
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Waits for the response to the oldest request still outstanding.
+     */
+    public Response receive() throws IOException {
+        Byte opcode = outstanding.poll();
+        if (opcode == null) {
+            throw new IllegalStateException("No request is awaiting a response");
+        }
+        if (out.position() > 0) {
+            flush();
+        }
+        fill(Integer.BYTES);
+        int length = in.getInt();
+        if (length < RESPONSE_HEADER_SIZE || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        fill(length);
+        byte status = in.get();
+        int requestId = in.getInt();
+        int payload = length - RESPONSE_HEADER_SIZE;
+        if (status == OUT_OF_STOCK) {
+            return new Response(requestId, Status.OUT_OF_STOCK, new long[]{in.getInt(), in.getInt(), in.getInt()}, null);
+        }
+        if (status == OK && opcode == CHECKOUT) {
+            return new Response(requestId, Status.OK, new long[]{in.getInt(), in.getLong(), in.getLong()}, null);
+        }
+        if (status == OK || status == UNDERPAID) {
+            long[] values = new long[payload / Long.BYTES];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.getLong();
+            }
+            return new Response(requestId, status == OK ? Status.OK : Status.UNDERPAID, values, null);
+        }
+        byte[] message = new byte[payload];
+        in.get(message);
+        Status[] statuses = Status.values();
+        return new Response(requestId, status >= 0 && status < statuses.length ? statuses[status] : Status.ERROR,
+            new long[0], new String(message, StandardCharsets.UTF_8));
+    }
+
+    public int getRegisterId() {
+        return registerId;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void reserve(byte opcode) throws IOException {
+        if (out.remaining() < MAX_FRAME_SIZE) {
+            flush();
+        }
+        outstanding.add(opcode);
+    }
+
+    private void fill(int needed) throws IOException {
+        if (in.remaining() >= needed) {
+            return;
+        }
+        in.compact();
+        while (in.position() < needed) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Connection closed by server");
+            }
+        }
+        in.flip();
+    }
+
+    /**
+     * One decoded response. Which accessors apply depends on the request and
+     * the status, as described in {@link RegisterProtocol}.
+     */
+    public static final class Response {
+        private final int requestId;
+        private final Status status;
+        private final long[] values;
+        private final String message;
+
+        private Response(int requestId, Status status, long[] values, String message) {
+            this.requestId = requestId;
+            this.status = status;
+            this.values = values;
+            this.message = message;
+        }
+
+        public int getRequestId() {
+            return requestId;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isOk() {
+            return status == Status.OK;
+        }
+
+        /** Running total of the transaction after an accepted scan or remove. */
+        public double getRunningTotal() {
+            return fromCents(values[0]);
+        }
+
+        /** Receipt number of a completed checkout. */
+        public int getReceiptNumber() {
+            return (int) values[0];
+        }
+
+        /** Total of a completed checkout. */
+        public double getTotal() {
+            return fromCents(values[1]);
+        }
+
+        /** Change due after a completed checkout. */
+        public double getChange() {
+            return fromCents(values[2]);
+        }
+
+        /** Product that ran out, for {@link Status#OUT_OF_STOCK}. */
+        public int getProductId() {
+            return (int) values[0];
+        }
+
+        public int getRequested() {
+            return (int) values[1];
+        }
+
+        public int getAvailable() {
+            return (int) values[2];
+        }
+
+        /** Amount due, for {@link Status#UNDERPAID}. */
+        public double getRequired() {
+            return fromCents(values[0]);
+        }
+
+        public double getProvided() {
+            return fromCents(values[1]);
+        }
+
+        /** Explanation sent with {@code NOT_FOUND}, {@code REJECTED} and {@code ERROR}. */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Response{requestId=" + requestId + ", status=" + status
+                + (message != null ? ", message=" + message : "") + "}";
+        }
+    }
+}
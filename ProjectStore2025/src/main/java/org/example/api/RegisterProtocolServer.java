@@ -0,0 +1,379 @@
+package org.example.api;
+
+import org.example.exception.StoreException;
+import org.example.model.product.Product;
+import org.example.model.store.CashRegister;
+import org.example.model.store.SaleResult;
+import org.example.model.store.Store;
+import org.example.util.StoreLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.example.api.RegisterProtocol.*;
+
+/**
+ * Serves the binary {@link RegisterProtocol} for register terminals with
+ * non-blocking NIO. Connections are spread round-robin over a fixed number of
+ * event loops, each one thread with its own selector; requests run on the
+ * loop that read them, in order, against the register they name.
+ * <p>
+ * Every connection has a direct input and output buffer. The loop decodes as
+ * many complete frames as have arrived, so pipelined requests are answered in
+ * one write, and stops decoding while the output buffer is full until the
+ * client reads. A checkout writes the receipt to disk, which stalls the other
+ * connections on the same loop for that long.
+ */
+public class RegisterProtocolServer implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Store store;
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] loops;
+    private final Thread[] threads;
+    private int nextLoop;
+    private volatile boolean running;
+
+    public RegisterProtocolServer(Store store, InetSocketAddress address) throws IOException {
+        this(store, address, Runtime.getRuntime().availableProcessors());
+    }
+
+    public RegisterProtocolServer(Store store, InetSocketAddress address, int eventLoops) throws IOException {
+        if (store == null) {
+            throw new IllegalArgumentException("Store cannot be null");
+        }
+        if (address == null) {
+            throw new IllegalArgumentException("Address cannot be null");
+        }
+        if (eventLoops <= 0) {
+            throw new IllegalArgumentException("Event loop count must be positive");
+        }
+        this.store = store;
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        this.loops = new EventLoop[eventLoops];
+        this.threads = new Thread[eventLoops];
+        for (int i = 0; i < eventLoops; i++) {
+            loops[i] = new EventLoop(Selector.open());
+        }
+        serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public void start() {
+        running = true;
+        for (int i = 0; i < loops.length; i++) {
+            threads[i] = new Thread(loops[i], "register-protocol-" + (i + 1));
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        StoreLogger.info("Register protocol for store '" + store.getName() + "' listening on port " + getPort());
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        for (Thread thread : threads) {
+            if (thread == null) {
+                continue;
+            }
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            StoreLogger.warning("Failed to close register protocol socket: " + e.getMessage());
+        }
+        for (EventLoop loop : loops) {
+            loop.closeAll();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            EventLoop loop = loops[nextLoop];
+            nextLoop = (nextLoop + 1) % loops.length;
+            loop.pending.add(channel);
+            loop.selector.wakeup();
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    SocketChannel accepted;
+                    while ((accepted = pending.poll()) != null) {
+                        Connection connection = new Connection(accepted);
+                        connection.key = accepted.register(selector, SelectionKey.OP_READ, connection);
+                    }
+                    Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                    while (selected.hasNext()) {
+                        SelectionKey key = selected.next();
+                        selected.remove();
+                        if (key.isValid() && key.isAcceptable()) {
+                            try {
+                                accept();
+                            } catch (IOException e) {
+                                StoreLogger.warning("Failed to accept register connection: " + e.getMessage());
+                            }
+                        } else if (key.isValid()) {
+                            handle(key);
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    StoreLogger.error("Register protocol event loop stopped", e);
+                }
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    connection.onReadable();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.onWritable();
+                }
+            } catch (IOException e) {
+                StoreLogger.warning("Register connection " + connection.describe() + " closed: " + e.getMessage());
+                connection.close();
+            }
+        }
+
+        void closeAll() {
+            try {
+                SocketChannel unregistered;
+                while ((unregistered = pending.poll()) != null) {
+                    unregistered.close();
+                }
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            } catch (IOException | ClosedSelectorException e) {
+                StoreLogger.warning("Failed to close register protocol loop: " + e.getMessage());
+            }
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private SelectionKey key;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void onReadable() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            pump();
+        }
+
+        void onWritable() throws IOException {
+            flush();
+            if (out.position() == 0) {
+                // Frames held back while the output was full.
+                pump();
+            }
+        }
+
+        private void pump() throws IOException {
+            do {
+                processFrames();
+                flush();
+            } while (out.position() == 0 && hasCompleteFrame());
+        }
+
+        private boolean hasCompleteFrame() {
+            return in.position() >= Integer.BYTES && Integer.BYTES + in.getInt(0) <= in.position();
+        }
+
+        private void processFrames() throws IOException {
+            in.flip();
+            try {
+                while (in.remaining() >= Integer.BYTES && out.remaining() >= Integer.BYTES + MAX_FRAME_SIZE) {
+                    int length = in.getInt(in.position());
+                    if (length < REQUEST_HEADER_SIZE || length > MAX_FRAME_SIZE) {
+                        throw new IOException("Invalid frame length " + length);
+                    }
+                    if (in.remaining() < Integer.BYTES + length) {
+                        break;
+                    }
+                    int end = in.position() + Integer.BYTES + length;
+                    in.position(in.position() + Integer.BYTES);
+                    processRequest(length);
+                    in.position(end);
+                }
+            } finally {
+                in.compact();
+            }
+        }
+
+        private void processRequest(int length) {
+            byte opcode = in.get();
+            int requestId = in.getInt();
+            int registerId = in.getInt();
+            int payload = length - REQUEST_HEADER_SIZE;
+            if (payload != payloadSize(opcode)) {
+                writeMessage(out, ERROR, requestId, payloadSize(opcode) < 0
+                    ? "Unknown opcode: " + opcode : "Malformed request for opcode " + opcode);
+                return;
+            }
+            try {
+                CashRegister register = store.getRegister(registerId);
+                if (register == null) {
+                    writeMessage(out, NOT_FOUND, requestId, "Unknown register: " + registerId);
+                    return;
+                }
+                switch (opcode) {
+                    case SCAN:
+                    case REMOVE:
+                        updateTransaction(register, opcode, requestId);
+                        break;
+                    case CHECKOUT:
+                        checkout(register, requestId);
+                        break;
+                    default:
+                        int receiptNumber = in.getInt();
+                        if (store.getReceipt(receiptNumber) == null) {
+                            writeMessage(out, NOT_FOUND, requestId, "Receipt not found: #" + receiptNumber);
+                        } else {
+                            out.putInt(RESPONSE_HEADER_SIZE).put(OK).putInt(requestId);
+                        }
+                        break;
+                }
+            } catch (IllegalArgumentException | IllegalStateException | StoreException e) {
+                writeMessage(out, REJECTED, requestId, e.getMessage());
+            } catch (RuntimeException e) {
+                StoreLogger.error("Register request " + requestId + " from " + describe() + " failed", e);
+                writeMessage(out, ERROR, requestId, "Internal error");
+            }
+        }
+
+        private void updateTransaction(CashRegister register, byte opcode, int requestId) {
+            int productId = in.getInt();
+            int quantity = in.getInt();
+            Product product = store.getProduct(productId);
+            if (product == null) {
+                writeMessage(out, NOT_FOUND, requestId, "Unknown product: " + productId);
+                return;
+            }
+            if (opcode == SCAN) {
+                register.addToTransaction(product, quantity);
+            } else {
+                register.removeFromTransaction(product, quantity);
+            }
+            out.putInt(RESPONSE_HEADER_SIZE + Long.BYTES).put(OK).putInt(requestId)
+                .putLong(toCents(register.getCurrentTransactionTotal()));
+        }
+
+        private void checkout(CashRegister register, int requestId) {
+            long paymentCents = in.getLong();
+            SaleResult result = register.tryCheckout(store, fromCents(paymentCents));
+            if (result instanceof SaleResult.Completed) {
+                long totalCents = toCents(result.getReceiptOrThrow().getTotalAmount());
+                out.putInt(RESPONSE_HEADER_SIZE + Integer.BYTES + 2 * Long.BYTES).put(OK).putInt(requestId)
+                    .putInt(result.getReceiptOrThrow().getReceiptNumber())
+                    .putLong(totalCents).putLong(paymentCents - totalCents);
+            } else if (result instanceof SaleResult.OutOfStock) {
+                SaleResult.OutOfStock outOfStock = (SaleResult.OutOfStock) result;
+                out.putInt(RESPONSE_HEADER_SIZE + 3 * Integer.BYTES).put(OUT_OF_STOCK).putInt(requestId)
+                    .putInt(outOfStock.getProduct().getId()).putInt(outOfStock.getRequested())
+                    .putInt(outOfStock.getAvailable());
+            } else {
+                SaleResult.Underpaid underpaid = (SaleResult.Underpaid) result;
+                out.putInt(RESPONSE_HEADER_SIZE + 2 * Long.BYTES).put(UNDERPAID).putInt(requestId)
+                    .putLong(toCents(underpaid.getRequired())).putLong(toCents(underpaid.getProvided()));
+            }
+        }
+
+        /**
+         * Writes what the socket takes and waits for writability while
+         * anything is left over; reading resumes once the output drains.
+         */
+        private void flush() throws IOException {
+            if (out.position() > 0) {
+                out.flip();
+                channel.write(out);
+                out.compact();
+            }
+            if (key.isValid()) {
+                key.interestOps(out.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+        }
+
+        String describe() {
+            try {
+                return String.valueOf(channel.getRemoteAddress());
+            } catch (IOException e) {
+                return "(closed)";
+            }
+        }
+
+        void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                StoreLogger.warning("Failed to close register connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private static int payloadSize(byte opcode) {
+        switch (opcode) {
+            case SCAN:
+            case REMOVE:
+                return 2 * Integer.BYTES;
+            case CHECKOUT:
+                return Long.BYTES;
+            case RECEIPT_ACK:
+                return Integer.BYTES;
+            default:
+                return -1;
+        }
+    }
+}
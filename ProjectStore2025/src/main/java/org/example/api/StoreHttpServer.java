@@ -0,0 +1,406 @@
+package org.example.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.example.exception.StoreException;
+import org.example.model.inventory.InventoryReportQuery;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+import org.example.model.receipt.ReceiptRenderer;
+import org.example.model.store.Basket;
+import org.example.model.store.CashRegister;
+import org.example.model.store.SaleResult;
+import org.example.model.store.Store;
+import org.example.util.ReportFormat;
+import org.example.util.ReportWriter;
+import org.example.util.StoreLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP API for register terminals, built on the JDK's
+ * {@code com.sun.net.httpserver}. Each request runs on its own virtual thread
+ * when the runtime has them (Java 21+) and on a fixed pool otherwise.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *   <li>{@code POST /checkout} with form fields {@code register}, {@code payment}
+ *       and {@code items} ({@code productId:quantity,...}); an
+ *       {@code Idempotency-Key} header makes retries safe</li>
+ *   <li>{@code GET /stock?ids=1,2,3} and {@code POST /stock} with ids separated
+ *       by commas or whitespace in the body: stock levels of up to
+ *       {@value #MAX_BATCH_SIZE} products in one round trip</li>
+ *   <li>{@code GET /receipts/{number}}: the rendered receipt</li>
+ *   <li>{@code GET /reports/inventory} and {@code GET /reports/analytics}, with
+ *       an optional {@code format} of {@code text}, {@code csv} or {@code json_lines}</li>
+ * </ul>
+ * Responses other than receipts and reports are JSON.
+ * <p>
+ * The JDK server writes headers and body separately, so with Nagle's
+ * algorithm on every response waits for the client's delayed ACK (about
+ * 40 ms). Run the JVM with {@code -Dsun.net.httpserver.nodelay=true}, as
+ * {@link org.example.Main} does; the server reads it once per JVM.
+ */
+public class StoreHttpServer implements Closeable {
+    public static final int MAX_BATCH_SIZE = 10_000;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+
+    private final Store store;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public StoreHttpServer(Store store, InetSocketAddress address) throws IOException {
+        if (store == null) {
+            throw new IllegalArgumentException("Store cannot be null");
+        }
+        if (address == null) {
+            throw new IllegalArgumentException("Address cannot be null");
+        }
+        this.store = store;
+        this.server = HttpServer.create(address, 1024);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/checkout", handler("POST", this::checkout));
+        server.createContext("/stock", handler(null, this::stock));
+        server.createContext("/receipts/", handler("GET", this::receipt));
+        server.createContext("/reports/", handler("GET", this::report));
+    }
+
+    public void start() {
+        server.start();
+        StoreLogger.info("HTTP API for store '" + store.getName() + "' listening on port " + getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A virtual-thread-per-request executor where available. Looked up
+     * reflectively because the project still compiles for Java 17.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threads = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors() * 4), r -> {
+                Thread thread = new Thread(r, "store-http-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void checkout(HttpExchange exchange) throws IOException {
+        Map<String, String> form = parseForm(readBody(exchange));
+        CashRegister register = store.getRegister(parseInt(required(form, "register"), "register"));
+        if (register == null) {
+            sendJson(exchange, 404, error("Unknown register: " + form.get("register")));
+            return;
+        }
+        double payment = parseDouble(required(form, "payment"), "payment");
+        Basket basket = parseItems(required(form, "items"));
+
+        String transactionId = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        SaleResult result = transactionId == null
+            ? store.trySale(register, basket, payment)
+            : store.trySale(transactionId, register, basket, payment);
+
+        StringWriter body = new StringWriter();
+        ReportWriter json = new ReportWriter(body);
+        int status;
+        if (result instanceof SaleResult.Completed) {
+            Receipt receipt = ((SaleResult.Completed) result).getReceipt();
+            json.text("{\"status\":\"COMPLETED\",\"receipt\":").number(receipt.getReceiptNumber())
+                .text(",\"total\":").decimal(receipt.getTotalAmount())
+                .text(",\"change\":").decimal(payment - receipt.getTotalAmount()).character('}');
+            status = 200;
+        } else if (result instanceof SaleResult.OutOfStock) {
+            SaleResult.OutOfStock outOfStock = (SaleResult.OutOfStock) result;
+            json.text("{\"status\":\"OUT_OF_STOCK\",\"product\":").number(outOfStock.getProduct().getId())
+                .text(",\"requested\":").number(outOfStock.getRequested())
+                .text(",\"available\":").number(outOfStock.getAvailable()).character('}');
+            status = 409;
+        } else {
+            SaleResult.Underpaid underpaid = (SaleResult.Underpaid) result;
+            json.text("{\"status\":\"UNDERPAID\",\"required\":").decimal(underpaid.getRequired())
+                .text(",\"provided\":").decimal(underpaid.getProvided()).character('}');
+            status = 402;
+        }
+        json.flush();
+        sendJson(exchange, status, body.toString());
+    }
+
+    /**
+     * Answers any number of stock lookups with one pass and one response.
+     */
+    private void stock(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String ids;
+        if ("GET".equals(method)) {
+            ids = parseForm(exchange.getRequestURI().getRawQuery()).get("ids");
+        } else if ("POST".equals(method)) {
+            ids = readBody(exchange);
+        } else {
+            sendJson(exchange, 405, error("Method not allowed"));
+            return;
+        }
+        if (ids == null || ids.isBlank()) {
+            throw new IllegalArgumentException("No product ids given");
+        }
+
+        StringWriter body = new StringWriter();
+        ReportWriter json = new ReportWriter(body);
+        json.character('[');
+        int count = 0;
+        int length = ids.length();
+        int position = 0;
+        while (position < length) {
+            while (position < length && isSeparator(ids.charAt(position))) {
+                position++;
+            }
+            int start = position;
+            while (position < length && !isSeparator(ids.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                break;
+            }
+            if (++count > MAX_BATCH_SIZE) {
+                throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " ids per request");
+            }
+            int id = parseInt(ids.substring(start, position), "product id");
+            Product product = store.getProduct(id);
+            if (count > 1) {
+                json.character(',');
+            }
+            json.text("{\"id\":").number(id);
+            if (product == null) {
+                json.text(",\"stock\":null}");
+            } else {
+                json.text(",\"name\":").jsonString(product.getName())
+                    .text(",\"stock\":").number(store.getStockLevel(product))
+                    .text(",\"price\":").decimal(store.getSellingPrice(product)).character('}');
+            }
+        }
+        json.character(']');
+        json.flush();
+        sendJson(exchange, 200, body.toString());
+    }
+
+    private void receipt(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int number = parseInt(path.substring("/receipts/".length()), "receipt number");
+        Receipt receipt = store.getReceipt(number);
+        if (receipt == null) {
+            sendJson(exchange, 404, error("Receipt not found: #" + number));
+            return;
+        }
+        StringBuilder text = new StringBuilder(512);
+        ReceiptRenderer.render(receipt, text);
+        send(exchange, 200, "text/plain; charset=utf-8", text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a report into memory and only then sends it, so an error while
+     * generating it still reaches the client as an error status instead of a
+     * truncated 200.
+     */
+    private void report(HttpExchange exchange) throws IOException {
+        String name = exchange.getRequestURI().getPath().substring("/reports/".length());
+        String formatName = parseForm(exchange.getRequestURI().getRawQuery()).get("format");
+        ReportFormat format = formatName == null ? ReportFormat.TEXT
+            : ReportFormat.valueOf(formatName.toUpperCase(Locale.ROOT));
+        if (!name.equals("inventory") && !name.equals("analytics")) {
+            sendJson(exchange, 404, error("Unknown report: " + name));
+            return;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+        try (Writer out = new OutputStreamWriter(body, StandardCharsets.UTF_8)) {
+            if (name.equals("inventory")) {
+                store.writeInventoryReport(out, InventoryReportQuery.all().withFormat(format));
+            } else {
+                store.writeAnalyticsReport(out, format);
+            }
+        }
+        send(exchange, 200, contentType(format), body.toByteArray());
+    }
+
+    private interface Endpoint {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Wraps an endpoint with method checking and the mapping from exceptions
+     * to status codes: invalid input is a 400, a rejected store operation a
+     * 422, anything else a 500.
+     */
+    private static HttpHandler handler(String method, Endpoint endpoint) {
+        return exchange -> {
+            try {
+                if (method != null && !method.equals(exchange.getRequestMethod())) {
+                    sendJson(exchange, 405, error("Method not allowed"));
+                    return;
+                }
+                endpoint.handle(exchange);
+            } catch (IllegalArgumentException e) {
+                sendJson(exchange, 400, error(e.getMessage()));
+            } catch (StoreException e) {
+                sendJson(exchange, 422, error(e.getMessage()));
+            } catch (IOException e) {
+                StoreLogger.warning("HTTP request " + exchange.getRequestURI() + " failed: " + e.getMessage());
+            } catch (RuntimeException e) {
+                StoreLogger.error("HTTP request " + exchange.getRequestURI() + " failed", e);
+                sendJson(exchange, 500, error("Internal error"));
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private static Basket parseItems(String items) {
+        Basket basket = new Basket();
+        for (String item : items.split(",")) {
+            int colon = item.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Items must be productId:quantity pairs");
+            }
+            basket.add(parseInt(item.substring(0, colon).trim(), "product id"),
+                parseInt(item.substring(colon + 1).trim(), "quantity"));
+        }
+        return basket;
+    }
+
+    private static Map<String, String> parseForm(String encoded) {
+        Map<String, String> fields = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return fields;
+        }
+        for (String pair : encoded.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                fields.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return fields;
+    }
+
+    private static String required(Map<String, String> form, String name) {
+        String value = form.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing field: " + name);
+        }
+        return value;
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static double parseDouble(String value, String name) {
+        double parsed;
+        try {
+            parsed = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+        // "NaN" and "Infinity" parse, but compare false against any total.
+        if (!Double.isFinite(parsed)) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+        return parsed;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ',' || Character.isWhitespace(c);
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (body.size() + read > MAX_BODY_BYTES) {
+                    throw new IllegalArgumentException("Request body too large");
+                }
+                body.write(buffer, 0, read);
+            }
+            return body.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String contentType(ReportFormat format) {
+        switch (format) {
+            case CSV:
+                return "text/csv; charset=utf-8";
+            case JSON_LINES:
+                return "application/x-ndjson; charset=utf-8";
+            default:
+                return "text/plain; charset=utf-8";
+        }
+    }
+
+    private static String error(String message) {
+        StringWriter body = new StringWriter();
+        try {
+            ReportWriter json = new ReportWriter(body);
+            json.text("{\"error\":").jsonString(message == null ? "" : message).character('}');
+            json.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return body.toString();
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) {
+        try {
+            send(exchange, status, "application/json; charset=utf-8", json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            StoreLogger.warning("Failed to send HTTP response: " + e.getMessage());
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
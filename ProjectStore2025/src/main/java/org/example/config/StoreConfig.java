@@ -1,60 +1,357 @@
 package org.example.config;
 
+import org.example.util.StoreLogger;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
+/**
+ * Store configuration. Values are parsed and validated once into an immutable
+ * {@link Snapshot} published through a volatile reference, so every getter is
+ * a single field read. {@link #startWatching()} reloads the file when it
+ * changes on disk; invalid edits are logged and ignored, valid ones replace
+ * the snapshot and are passed to the registered change listeners.
+ */
 public class StoreConfig {
-    private static final Properties properties = new Properties();
     private static final String DEFAULT_RECEIPTS_DIR = System.getProperty("user.home") + File.separator + "store_receipts";
+    private static volatile File configFile = locateConfigFile();
+    private static final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    private static volatile Snapshot current = loadInitialSnapshot();
+    private static Thread watcherThread;
+    private static WatchService watchService;
+
+    public static Snapshot current() {
+        return current;
+    }
+
+    public static String getReceiptsDirectory() {
+        return current.getReceiptsDirectory();
+    }
+
+    public static double getFoodMarkup() {
+        return current.getFoodMarkup();
+    }
+
+    public static double getNonFoodMarkup() {
+        return current.getNonFoodMarkup();
+    }
+
+    public static int getExpirationWarningDays() {
+        return current.getExpirationWarningDays();
+    }
 
-    static {
+    public static double getExpirationDiscount() {
+        return current.getExpirationDiscount();
+    }
+
+    public static void addChangeListener(Consumer<Snapshot> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public static void removeChangeListener(Consumer<Snapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Re-reads the configuration file. Returns {@code true} if a new, valid
+     * snapshot that differs from the current one was published.
+     */
+    public static synchronized boolean reload() {
+        Snapshot updated;
         try {
-            File configFile = new File("store.properties");
-            if (configFile.exists()) {
-                try (FileInputStream fis = new FileInputStream(configFile)) {
-                    properties.load(fis);
-                }
-            } else {
-                try (FileInputStream fis = new FileInputStream("src/main/resources/store.properties")) {
-                    properties.load(fis);
-                }
+            updated = Snapshot.fromProperties(readProperties(configFile));
+        } catch (IOException | IllegalArgumentException e) {
+            StoreLogger.warning("Ignoring invalid configuration in " + configFile + ": " + e.getMessage());
+            return false;
+        }
+        if (updated.equals(current)) {
+            return false;
+        }
+        current = updated;
+        StoreLogger.info("Configuration reloaded from " + configFile + ": " + updated);
+        for (Consumer<Snapshot> listener : listeners) {
+            try {
+                listener.accept(updated);
+            } catch (RuntimeException e) {
+                StoreLogger.error("Configuration change listener failed", e);
             }
-        } catch (IOException e) {
-            System.err.println("Warning: Could not load store.properties, using default values");
-            e.printStackTrace();
         }
+        return true;
+    }
 
-        if (!properties.containsKey("receipts.directory")) {
-            properties.setProperty("receipts.directory", DEFAULT_RECEIPTS_DIR);
+    /**
+     * Switches to a different configuration file and loads it. If the file is
+     * being watched, the watcher moves to the new file.
+     */
+    public static synchronized boolean setConfigFile(File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Configuration file cannot be null");
+        }
+        boolean watching = watcherThread != null;
+        stopWatching();
+        configFile = file;
+        boolean reloaded = reload();
+        if (watching) {
+            startWatching();
         }
+        return reloaded;
     }
 
-    public static String getReceiptsDirectory() {
-        String dir = properties.getProperty("receipts.directory", DEFAULT_RECEIPTS_DIR).trim();
-        dir = dir.replace("${user.home}", System.getProperty("user.home"));
+    public static File getConfigFile() {
+        return configFile;
+    }
+
+    /**
+     * Starts a daemon thread that watches the configuration file and reloads
+     * it on change. Calling it again while watching has no effect.
+     */
+    public static synchronized void startWatching() {
+        if (watcherThread != null) {
+            return;
+        }
+        Path file = configFile.getAbsoluteFile().toPath();
+        Path directory = file.getParent();
         try {
-            File file = new File(dir);
-            return file.getCanonicalPath();
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
         } catch (IOException e) {
-            return new File(dir).getAbsolutePath();
+            StoreLogger.error("Failed to watch configuration file " + file, e);
+            return;
         }
+        WatchService service = watchService;
+        watcherThread = new Thread(() -> watch(service, file.getFileName()), "store-config-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        StoreLogger.info("Watching configuration file " + file);
     }
 
-    public static double getFoodMarkup() {
-        return Double.parseDouble(properties.getProperty("markup.food", "0.15"));
+    public static synchronized void stopWatching() {
+        if (watcherThread == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            StoreLogger.warning("Failed to close configuration watcher: " + e.getMessage());
+        }
+        watcherThread.interrupt();
+        watcherThread = null;
+        watchService = null;
     }
 
-    public static double getNonFoodMarkup() {
-        return Double.parseDouble(properties.getProperty("markup.nonfood", "0.20"));
+    private static void watch(WatchService service, Path fileName) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                changed |= fileName.equals(event.context());
+            }
+            if (changed) {
+                reload();
+            }
+            if (!key.reset()) {
+                return;
+            }
+        }
     }
 
-    public static int getExpirationWarningDays() {
-        return Integer.parseInt(properties.getProperty("expiration.warning.days", "7"));
+    private static File locateConfigFile() {
+        File configFile = new File("store.properties");
+        return configFile.exists() ? configFile : new File("src/main/resources/store.properties");
     }
 
-    public static double getExpirationDiscount() {
-        return Double.parseDouble(properties.getProperty("expiration.discount", "0.20"));
+    private static Snapshot loadInitialSnapshot() {
+        try {
+            return Snapshot.fromProperties(readProperties(configFile));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Warning: Could not load store.properties, using default values");
+            e.printStackTrace();
+            return Snapshot.fromProperties(new Properties());
+        }
+    }
+
+    private static Properties readProperties(File file) throws IOException {
+        Properties properties = new Properties();
+        try (FileInputStream fis = new FileInputStream(file)) {
+            properties.load(fis);
+        }
+        return properties;
+    }
+
+    /**
+     * Immutable, pre-parsed configuration values.
+     */
+    public static final class Snapshot {
+        private final String storeName;
+        private final double foodMarkup;
+        private final double nonFoodMarkup;
+        private final int expirationWarningDays;
+        private final double expirationDiscount;
+        private final String receiptsDirectory;
+        private final File receiptsDir;
+        private final boolean receiptText;
+
+        public Snapshot(String storeName, double foodMarkup, double nonFoodMarkup, int expirationWarningDays,
+                        double expirationDiscount, String receiptsDirectory) {
+            this(storeName, foodMarkup, nonFoodMarkup, expirationWarningDays, expirationDiscount, receiptsDirectory,
+                false);
+        }
+
+        /**
+         * @param receiptText whether each sale also writes a readable
+         *                    {@code receipt_N.txt} next to its serialized receipt
+         */
+        public Snapshot(String storeName, double foodMarkup, double nonFoodMarkup, int expirationWarningDays,
+                        double expirationDiscount, String receiptsDirectory, boolean receiptText) {
+            // NaN passes any comparison check, so finiteness is tested first.
+            if (!Double.isFinite(foodMarkup) || !Double.isFinite(nonFoodMarkup)) {
+                throw new IllegalArgumentException("Markup must be a finite number");
+            }
+            if (foodMarkup < 0 || nonFoodMarkup < 0) {
+                throw new IllegalArgumentException("Markup cannot be negative");
+            }
+            if (expirationWarningDays < 0) {
+                throw new IllegalArgumentException("Expiration warning days cannot be negative");
+            }
+            if (!Double.isFinite(expirationDiscount) || expirationDiscount < 0 || expirationDiscount > 1) {
+                throw new IllegalArgumentException("Expiration discount must be between 0 and 1");
+            }
+            if (receiptsDirectory == null || receiptsDirectory.trim().isEmpty()) {
+                throw new IllegalArgumentException("Receipts directory cannot be empty");
+            }
+            this.storeName = storeName == null ? "Default Store" : storeName;
+            this.foodMarkup = foodMarkup;
+            this.nonFoodMarkup = nonFoodMarkup;
+            this.expirationWarningDays = expirationWarningDays;
+            this.expirationDiscount = expirationDiscount;
+            this.receiptsDir = canonicalize(receiptsDirectory);
+            this.receiptsDirectory = receiptsDir.getPath();
+            this.receiptText = receiptText;
+        }
+
+        static Snapshot fromProperties(Properties properties) {
+            String dir = properties.getProperty("receipts.directory", DEFAULT_RECEIPTS_DIR).trim()
+                .replace("${user.home}", System.getProperty("user.home"));
+            return new Snapshot(
+                properties.getProperty("store.name", "Default Store").trim(),
+                parseDouble(properties, "markup.food", "0.15"),
+                parseDouble(properties, "markup.nonfood", "0.20"),
+                parseInt(properties, "expiration.warning.days", "7"),
+                parseDouble(properties, "expiration.discount", "0.20"),
+                dir,
+                Boolean.parseBoolean(properties.getProperty("receipts.text", "false").trim()));
+        }
+
+        private static double parseDouble(Properties properties, String key, String defaultValue) {
+            String value = properties.getProperty(key, defaultValue).trim();
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + key + ": " + value);
+            }
+        }
+
+        private static int parseInt(Properties properties, String key, String defaultValue) {
+            String value = properties.getProperty(key, defaultValue).trim();
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid integer for " + key + ": " + value);
+            }
+        }
+
+        private static File canonicalize(String dir) {
+            File file = new File(dir);
+            try {
+                return file.getCanonicalFile();
+            } catch (IOException e) {
+                return file.getAbsoluteFile();
+            }
+        }
+
+        public String getStoreName() {
+            return storeName;
+        }
+
+        public double getFoodMarkup() {
+            return foodMarkup;
+        }
+
+        public double getNonFoodMarkup() {
+            return nonFoodMarkup;
+        }
+
+        public int getExpirationWarningDays() {
+            return expirationWarningDays;
+        }
+
+        public double getExpirationDiscount() {
+            return expirationDiscount;
+        }
+
+        public String getReceiptsDirectory() {
+            return receiptsDirectory;
+        }
+
+        public File getReceiptsDir() {
+            return receiptsDir;
+        }
+
+        public boolean isReceiptTextEnabled() {
+            return receiptText;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Snapshot)) {
+                return false;
+            }
+            Snapshot other = (Snapshot) o;
+            return foodMarkup == other.foodMarkup
+                && nonFoodMarkup == other.nonFoodMarkup
+                && expirationWarningDays == other.expirationWarningDays
+                && expirationDiscount == other.expirationDiscount
+                && receiptText == other.receiptText
+                && storeName.equals(other.storeName)
+                && receiptsDirectory.equals(other.receiptsDirectory);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = storeName.hashCode();
+            result = 31 * result + Double.hashCode(foodMarkup);
+            result = 31 * result + Double.hashCode(nonFoodMarkup);
+            result = 31 * result + expirationWarningDays;
+            result = 31 * result + Double.hashCode(expirationDiscount);
+            result = 31 * result + receiptsDirectory.hashCode();
+            result = 31 * result + Boolean.hashCode(receiptText);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Snapshot{storeName='%s', foodMarkup=%s, nonFoodMarkup=%s, expirationWarningDays=%d, "
+                    + "expirationDiscount=%s, receiptsDirectory='%s', receiptText=%s}",
+                storeName, foodMarkup, nonFoodMarkup, expirationWarningDays, expirationDiscount, receiptsDirectory,
+                receiptText);
+        }
     }
-} 
\ No newline at end of file
+}
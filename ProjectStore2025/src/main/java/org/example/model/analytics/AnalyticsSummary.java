@@ -0,0 +1,185 @@
+package org.example.model.analytics;
+
+import org.example.model.product.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable snapshot of a store's sales aggregates: totals plus units sold
+ * per product. Summaries of different stores, or of the same store at
+ * different times, are combined with {@link #merge(AnalyticsSummary)}, which
+ * costs time in the number of products, not receipts.
+ * <p>
+ * Products are kept sorted by id in parallel arrays, so a merge is a single
+ * merge-join pass. Stores that share product objects are aggregated per
+ * product; products are matched by id.
+ */
+public final class AnalyticsSummary {
+    public static final AnalyticsSummary EMPTY =
+        new AnalyticsSummary(0, 0, 0, 0, 0, new Product[0], new long[0]);
+
+    private final long transactionCount;
+    private final double totalRevenue;
+    private final double totalExpenses;
+    private final double totalRefunds;
+    private final long returnedUnits;
+    private final Product[] products;
+    private final long[] unitsSold;
+
+    AnalyticsSummary(long transactionCount, double totalRevenue, double totalExpenses, double totalRefunds,
+                     long returnedUnits, Product[] products, long[] unitsSold) {
+        this.transactionCount = transactionCount;
+        this.totalRevenue = totalRevenue;
+        this.totalExpenses = totalExpenses;
+        this.totalRefunds = totalRefunds;
+        this.returnedUnits = returnedUnits;
+        this.products = products;
+        this.unitsSold = unitsSold;
+    }
+
+    public AnalyticsSummary merge(AnalyticsSummary other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Summary cannot be null");
+        }
+        if (this == EMPTY) {
+            return other;
+        }
+        if (other == EMPTY) {
+            return this;
+        }
+        Product[] mergedProducts = new Product[products.length + other.products.length];
+        long[] mergedUnits = new long[mergedProducts.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < products.length || j < other.products.length) {
+            int left = i < products.length ? products[i].getId() : Integer.MAX_VALUE;
+            int right = j < other.products.length ? other.products[j].getId() : Integer.MAX_VALUE;
+            if (left < right) {
+                mergedProducts[n] = products[i];
+                mergedUnits[n++] = unitsSold[i++];
+            } else if (right < left) {
+                mergedProducts[n] = other.products[j];
+                mergedUnits[n++] = other.unitsSold[j++];
+            } else {
+                mergedProducts[n] = products[i];
+                mergedUnits[n++] = unitsSold[i++] + other.unitsSold[j++];
+            }
+        }
+        if (n < mergedProducts.length) {
+            mergedProducts = Arrays.copyOf(mergedProducts, n);
+            mergedUnits = Arrays.copyOf(mergedUnits, n);
+        }
+        return new AnalyticsSummary(
+            transactionCount + other.transactionCount,
+            totalRevenue + other.totalRevenue,
+            totalExpenses + other.totalExpenses,
+            totalRefunds + other.totalRefunds,
+            returnedUnits + other.returnedUnits,
+            mergedProducts,
+            mergedUnits);
+    }
+
+    public long getTotalTransactions() {
+        return transactionCount;
+    }
+
+    public double getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public double getTotalExpenses() {
+        return totalExpenses;
+    }
+
+    public double getTotalRefunds() {
+        return totalRefunds;
+    }
+
+    public long getReturnedUnits() {
+        return returnedUnits;
+    }
+
+    public double getProfit() {
+        return totalRevenue - totalExpenses;
+    }
+
+    public double getProfitMargin() {
+        return totalRevenue > 0 ? (getProfit() / totalRevenue) * 100 : 0;
+    }
+
+    public double getAverageTransactionValue() {
+        return transactionCount > 0 ? totalRevenue / transactionCount : 0;
+    }
+
+    /**
+     * Number of distinct products with recorded sales.
+     */
+    public int getProductCount() {
+        return products.length;
+    }
+
+    public long getProductSales(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        int low = 0;
+        int high = products.length - 1;
+        int id = product.getId();
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = products[mid].getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return unitsSold[mid];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The {@code limit} products with the most units sold, best first.
+     */
+    public Map<Product, Long> getTopSellingProducts(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        Map<Product, Long> result = new LinkedHashMap<>();
+        if (limit == 0) {
+            return result;
+        }
+        // Bounded min-heap of indexes, as in StoreAnalytics.
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, Comparator.comparingLong(i -> unitsSold[i]));
+        for (int i = 0; i < products.length; i++) {
+            heap.offer(i);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Integer> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            top.add(heap.poll());
+        }
+        Collections.reverse(top);
+        for (int index : top) {
+            result.put(products[index], unitsSold[index]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AnalyticsSummary{transactions=%d, revenue=%.2f, expenses=%.2f, refunds=%.2f, products=%d}",
+            transactionCount, totalRevenue, totalExpenses, totalRefunds, products.length);
+    }
+}
@@ -0,0 +1,307 @@
+package org.example.model.analytics;
+
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how often pairs of products are bought together, in memory that is
+ * fixed up front no matter how large the catalog grows.
+ * <p>
+ * Every pair of distinct products on a receipt is added to a count-min sketch of {@code depth} rows
+ * by {@code width} counters. The sketch can overestimate a pair's count but
+ * never underestimates it. A table of the {@code capacity} most frequent pairs
+ * seen so far answers "top companions" queries. A pair enters the table once
+ * its sketch estimate beats the weakest pair in a full table, which then
+ * makes room.
+ * <p>
+ * Receipts are added by one thread at a time; {@link StoreAnalytics} adds
+ * them from a background thread. Queries may run alongside. The writer only
+ * locks the heavy-hitter table to change an entry, so readers see it whole,
+ * and finds the table's new weakest entry after letting go.
+ */
+public class CoOccurrenceTracker {
+    public static final int DEFAULT_WIDTH = 1 << 16;
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int MAX_DEPTH = 8;
+    private static final Comparator<Product> BY_ID = Comparator.comparingInt(Product::getId);
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+        0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L
+    };
+
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray sketch;
+    private final AtomicLong totalPairs;
+    private final HeavyHitters heavyHitters;
+    // The writer's copy of a receipt's products, sorted by id.
+    private Product[] basket = new Product[16];
+
+    public CoOccurrenceTracker() {
+        this(DEFAULT_WIDTH, DEFAULT_DEPTH, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param width    counters per sketch row, rounded up to a power of two
+     * @param depth    number of sketch rows, at most {@value #MAX_DEPTH}
+     * @param capacity number of pairs kept in the heavy-hitter table
+     */
+    public CoOccurrenceTracker(int width, int depth, int capacity) {
+        if (width <= 0 || depth <= 0 || depth > MAX_DEPTH || capacity <= 0) {
+            throw new IllegalArgumentException("Width, depth (1-" + MAX_DEPTH + ") and capacity must be positive");
+        }
+        int rounded = Integer.highestOneBit(width);
+        this.width = rounded < width ? rounded << 1 : rounded;
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.sketch = new AtomicLongArray(this.width * depth);
+        this.totalPairs = new AtomicLong();
+        this.heavyHitters = new HeavyHitters(capacity);
+    }
+
+    public void addReceipt(Receipt receipt) {
+        if (receipt == null) {
+            throw new IllegalArgumentException("Receipt cannot be null");
+        }
+        int lines = receipt.getLineCount();
+        if (lines < 2) {
+            return;
+        }
+        if (basket.length < lines) {
+            basket = new Product[Math.max(lines, basket.length * 2)];
+        }
+        for (int i = 0; i < lines; i++) {
+            basket[i] = receipt.getProduct(i);
+        }
+        Arrays.sort(basket, 0, lines, BY_ID);
+        // A product on several lines of one receipt still shares that receipt once.
+        int distinct = 1;
+        for (int i = 1; i < lines; i++) {
+            if (basket[i].getId() != basket[distinct - 1].getId()) {
+                basket[distinct++] = basket[i];
+            }
+        }
+        for (int i = 0; i < distinct; i++) {
+            for (int j = i + 1; j < distinct; j++) {
+                addPair(basket[i], basket[j]);
+            }
+        }
+        Arrays.fill(basket, 0, lines, null);
+    }
+
+    /**
+     * Estimated number of receipts on which both products appeared. Never
+     * lower than the true count.
+     */
+    public long estimatePairCount(Product first, Product second) {
+        if (first == null || second == null) {
+            throw new IllegalArgumentException("Products cannot be null");
+        }
+        return estimate(pairKey(first.getId(), second.getId()));
+    }
+
+    /**
+     * Products most often bought together with {@code product}, most frequent
+     * first. Only pairs in the heavy-hitter table are considered.
+     */
+    public List<Companion> getTopCompanions(Product product, int limit) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        List<Companion> companions = heavyHitters.companionsOf(product.getId());
+        companions.sort((a, b) -> Long.compare(b.count, a.count));
+        return companions.size() > limit ? new ArrayList<>(companions.subList(0, limit)) : companions;
+    }
+
+    public long getTotalPairs() {
+        return totalPairs.get();
+    }
+
+    /**
+     * Approximate bytes used by the sketch and heavy-hitter table; fixed at
+     * construction.
+     */
+    public long getMemoryBytes() {
+        return (long) width * depth * Long.BYTES + heavyHitters.memoryBytes();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    private void addPair(Product first, Product second) {
+        long key = pairKey(first.getId(), second.getId());
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, sketch.incrementAndGet(row * width + slot(key, row)));
+        }
+        totalPairs.incrementAndGet();
+        heavyHitters.offer(key, first, second, estimate);
+    }
+
+    private long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, sketch.get(row * width + slot(key, row)));
+        }
+        return estimate;
+    }
+
+    private int slot(long key, int row) {
+        long h = key ^ SEEDS[row];
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static long pairKey(int a, int b) {
+        int low = Math.min(a, b);
+        int high = Math.max(a, b);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A product and its estimated number of shared receipts.
+     */
+    public static final class Companion {
+        private final Product product;
+        private final long count;
+
+        Companion(Product product, long count) {
+            this.product = product;
+            this.count = count;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return product.getName() + "=" + count;
+        }
+    }
+
+    /**
+     * Fixed-size table of the most frequent pairs. Entries hold the latest
+     * sketch estimate of their pair.
+     */
+    private static final class HeavyHitters {
+        private final int capacity;
+        private final long[] keys;
+        private final long[] counts;
+        private final Product[] firsts;
+        private final Product[] seconds;
+        private final Map<Long, Integer> slots;
+        private int size;
+        private int weakest;
+        // Smallest count in a full table; pairs estimated below it are not looked up.
+        private volatile long threshold;
+
+        HeavyHitters(int capacity) {
+            this.capacity = capacity;
+            this.keys = new long[capacity];
+            this.counts = new long[capacity];
+            this.firsts = new Product[capacity];
+            this.seconds = new Product[capacity];
+            this.slots = new HashMap<>(capacity * 2);
+        }
+
+        /**
+         * Called by the writer only, which alone changes the table, so it can
+         * read the table without the lock.
+         */
+        void offer(long key, Product first, Product second, long estimate) {
+            if (estimate < threshold) {
+                return;
+            }
+            Integer slot = slots.get(key);
+            if (slot != null) {
+                synchronized (this) {
+                    counts[slot] = Math.max(counts[slot], estimate);
+                }
+                // Raising any other entry cannot change the minimum.
+                if (slot == weakest && size == capacity) {
+                    updateThreshold();
+                }
+                return;
+            }
+            if (size < capacity) {
+                synchronized (this) {
+                    put(size++, key, first, second, estimate);
+                }
+                if (size == capacity) {
+                    updateThreshold();
+                }
+                return;
+            }
+            if (counts[weakest] >= estimate) {
+                return;
+            }
+            synchronized (this) {
+                slots.remove(keys[weakest]);
+                put(weakest, key, first, second, estimate);
+            }
+            updateThreshold();
+        }
+
+        synchronized List<Companion> companionsOf(int productId) {
+            List<Companion> companions = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (firsts[i].getId() == productId) {
+                    companions.add(new Companion(seconds[i], counts[i]));
+                } else if (seconds[i].getId() == productId) {
+                    companions.add(new Companion(firsts[i], counts[i]));
+                }
+            }
+            return companions;
+        }
+
+        long memoryBytes() {
+            // Keys, counts, two references and a hash map entry per slot.
+            return (long) capacity * (Long.BYTES * 2 + 8 * 2 + 48);
+        }
+
+        private void put(int slot, long key, Product first, Product second, long estimate) {
+            keys[slot] = key;
+            counts[slot] = estimate;
+            firsts[slot] = first;
+            seconds[slot] = second;
+            slots.put(key, slot);
+        }
+
+        private void updateThreshold() {
+            int min = 0;
+            for (int i = 1; i < size; i++) {
+                if (counts[i] < counts[min]) {
+                    min = i;
+                }
+            }
+            weakest = min;
+            threshold = counts[min];
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.model.analytics;
+
+/**
+ * Column a {@link ReceiptLineStore} query can group by.
+ */
+public enum LineDimension {
+    PRODUCT,
+    CASHIER,
+    RECEIPT,
+    /** Start of the sale's hour, in epoch milliseconds. */
+    HOUR
+}
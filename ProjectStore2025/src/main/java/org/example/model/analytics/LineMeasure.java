@@ -0,0 +1,13 @@
+package org.example.model.analytics;
+
+/**
+ * Value summed by a {@link ReceiptLineStore} query.
+ */
+public enum LineMeasure {
+    /** Number of matching lines. */
+    LINES,
+    /** Units sold. */
+    QUANTITY,
+    /** Amount charged in cents: quantity times unit price, less the line's promotion discount. */
+    AMOUNT_CENTS
+}
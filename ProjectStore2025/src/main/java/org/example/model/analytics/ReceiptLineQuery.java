@@ -0,0 +1,103 @@
+package org.example.model.analytics;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Immutable filter over receipt lines: optional sets of product and cashier
+ * ids and a half-open sale time range {@code [from, until)}. Filters combine
+ * with AND; an unset filter matches every line.
+ */
+public final class ReceiptLineQuery {
+    private static final ReceiptLineQuery ALL = new ReceiptLineQuery(null, null, Long.MIN_VALUE, Long.MAX_VALUE);
+
+    private final int[] productIds;
+    private final int[] cashierIds;
+    private final long fromMillis;
+    private final long untilMillis;
+
+    private ReceiptLineQuery(int[] productIds, int[] cashierIds, long fromMillis, long untilMillis) {
+        this.productIds = productIds;
+        this.cashierIds = cashierIds;
+        this.fromMillis = fromMillis;
+        this.untilMillis = untilMillis;
+    }
+
+    public static ReceiptLineQuery all() {
+        return ALL;
+    }
+
+    public ReceiptLineQuery withProducts(int... productIds) {
+        return new ReceiptLineQuery(ids(productIds, "Product"), cashierIds, fromMillis, untilMillis);
+    }
+
+    public ReceiptLineQuery withCashiers(int... cashierIds) {
+        return new ReceiptLineQuery(productIds, ids(cashierIds, "Cashier"), fromMillis, untilMillis);
+    }
+
+    public ReceiptLineQuery withTimeRange(LocalDateTime from, LocalDateTime until) {
+        if (from == null || until == null) {
+            throw new IllegalArgumentException("Time range cannot be null");
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        return withTimeRange(from.atZone(zone).toInstant().toEpochMilli(), until.atZone(zone).toInstant().toEpochMilli());
+    }
+
+    public ReceiptLineQuery withTimeRange(long fromMillis, long untilMillis) {
+        if (untilMillis < fromMillis) {
+            throw new IllegalArgumentException("Time range ends before it starts");
+        }
+        return new ReceiptLineQuery(productIds, cashierIds, fromMillis, untilMillis);
+    }
+
+    long getFromMillis() {
+        return fromMillis;
+    }
+
+    long getUntilMillis() {
+        return untilMillis;
+    }
+
+    /**
+     * Product filter as a bit set indexed by id, or {@code null} if unset.
+     */
+    BitSet productFilter() {
+        return toBitSet(productIds);
+    }
+
+    BitSet cashierFilter() {
+        return toBitSet(cashierIds);
+    }
+
+    private static int[] ids(int[] ids, String kind) {
+        if (ids == null || ids.length == 0) {
+            throw new IllegalArgumentException(kind + " filter cannot be empty");
+        }
+        for (int id : ids) {
+            if (id <= 0) {
+                throw new IllegalArgumentException(kind + " ids must be positive");
+            }
+        }
+        return ids.clone();
+    }
+
+    private static BitSet toBitSet(int[] ids) {
+        if (ids == null) {
+            return null;
+        }
+        BitSet set = new BitSet();
+        for (int id : ids) {
+            set.set(id);
+        }
+        return set;
+    }
+
+    @Override
+    public String toString() {
+        return "ReceiptLineQuery{products=" + (productIds == null ? "*" : Arrays.toString(productIds))
+            + ", cashiers=" + (cashierIds == null ? "*" : Arrays.toString(cashierIds))
+            + ", from=" + fromMillis + ", until=" + untilMillis + "}";
+    }
+}
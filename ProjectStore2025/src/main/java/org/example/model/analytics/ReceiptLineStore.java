@@ -0,0 +1,436 @@
+package org.example.model.analytics;
+
+import org.example.model.receipt.Receipt;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Receipt lines stored column by column for ad-hoc aggregate queries. Lines
+ * are appended to fixed-size chunks of primitive arrays (sale time, receipt
+ * number, cashier id, product id, quantity, unit price and discount in cents)
+ * and each chunk keeps min/max statistics of its time, cashier, product and
+ * receipt columns. A query first drops chunks whose statistics cannot match
+ * its filters, then scans the remaining chunks in parallel, touching only the
+ * columns it needs.
+ * <p>
+ * Only the most recent lines are kept. The first chunk is small and each new
+ * one doubles up to the chunk size, so a quiet store does not hold full-size
+ * chunks, and once the lines held would exceed the maximum the oldest chunks
+ * are dropped, a whole chunk at a time. Nothing is persisted.
+ * <p>
+ * Appends are serialized; queries run without locking and see every line
+ * appended before they started that has not been dropped since.
+ */
+public class ReceiptLineStore {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+    // About 40 MB of columns.
+    public static final long DEFAULT_MAX_LINES = 1L << 20;
+    static final int INITIAL_CHUNK_SIZE = 1 << 10;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    // Above this many distinct keys in a chunk, group-by falls back from arrays to a map.
+    private static final int MAX_DENSE_GROUPS = 1 << 16;
+
+    private final int chunkSize;
+    private final long maxLines;
+    private volatile Chunk[] chunks;
+    private int chunkCount;
+    // Lines in the chunks held and lines dropped with old chunks, guarded by this.
+    private long lineCount;
+    private long droppedLines;
+
+    public ReceiptLineStore() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_MAX_LINES);
+    }
+
+    public ReceiptLineStore(int chunkSize) {
+        this(chunkSize, DEFAULT_MAX_LINES);
+    }
+
+    /**
+     * @param chunkSize largest number of lines per chunk
+     * @param maxLines  most lines kept; older chunks are dropped beyond it
+     */
+    public ReceiptLineStore(int chunkSize, long maxLines) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        if (maxLines <= 0) {
+            throw new IllegalArgumentException("Max lines must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.maxLines = maxLines;
+        this.chunks = new Chunk[0];
+    }
+
+    public void append(Receipt receipt) {
+        if (receipt == null) {
+            throw new IllegalArgumentException("Receipt cannot be null");
+        }
+        long timestamp = receipt.getDateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        int cashierId = receipt.getCashier().getId();
+        synchronized (this) {
+            for (int line = 0; line < receipt.getLineCount(); line++) {
+                addLine(timestamp, receipt.getReceiptNumber(), cashierId, receipt.getProduct(line).getId(),
+                    receipt.getQuantity(line), Math.round(receipt.getUnitPrice(line) * 100),
+                    Math.round(receipt.getDiscount(line) * 100));
+            }
+        }
+    }
+
+    /**
+     * Appends one line, for example when loading lines from an archive.
+     */
+    public synchronized void addLine(long timestampMillis, int receiptNumber, int cashierId, int productId,
+                                     int quantity, long unitPriceCents, long discountCents) {
+        Chunk chunk = chunkCount == 0 ? null : chunks[chunkCount - 1];
+        if (chunk == null || chunk.size == chunk.capacity()) {
+            long capacity = chunk == null ? INITIAL_CHUNK_SIZE : 2L * chunk.capacity();
+            chunk = new Chunk((int) Math.min(capacity, Math.min(chunkSize, maxLines)));
+            Chunk[] current = chunks;
+            int dropped = 0;
+            while (dropped < chunkCount && lineCount + chunk.capacity() > maxLines) {
+                lineCount -= current[dropped].size;
+                droppedLines += current[dropped].size;
+                dropped++;
+            }
+            chunkCount -= dropped;
+            Chunk[] grown = Arrays.copyOfRange(current, dropped, dropped + chunkCount + 1);
+            grown[chunkCount++] = chunk;
+            // Volatile write publishes the new chunk to readers.
+            chunks = grown;
+        }
+        chunk.add(timestampMillis, receiptNumber, cashierId, productId, quantity, unitPriceCents, discountCents);
+        lineCount++;
+    }
+
+    /**
+     * Lines dropped with old chunks to stay within the maximum.
+     */
+    public synchronized long getDroppedLineCount() {
+        return droppedLines;
+    }
+
+    /**
+     * Lines the chunks held have room for.
+     */
+    long capacity() {
+        long capacity = 0;
+        for (Chunk chunk : chunks) {
+            capacity += chunk.capacity();
+        }
+        return capacity;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Chunk chunk : chunks) {
+            size += chunk.size;
+        }
+        return size;
+    }
+
+    public int getChunkCount() {
+        return chunks.length;
+    }
+
+    public long count(ReceiptLineQuery query) {
+        return sum(query, LineMeasure.LINES);
+    }
+
+    public long sum(ReceiptLineQuery query, LineMeasure measure) {
+        return sum(query, measure, ForkJoinPool.commonPool());
+    }
+
+    public long sum(ReceiptLineQuery query, LineMeasure measure, ForkJoinPool pool) {
+        Long total = scan(query, null, measure, pool).get(0L);
+        return total == null ? 0 : total;
+    }
+
+    /**
+     * Sums {@code measure} over the matching lines per distinct value of
+     * {@code dimension}, in ascending key order. Groups without matching
+     * lines are left out.
+     */
+    public Map<Long, Long> sumBy(ReceiptLineQuery query, LineDimension dimension, LineMeasure measure) {
+        return sumBy(query, dimension, measure, ForkJoinPool.commonPool());
+    }
+
+    public Map<Long, Long> sumBy(ReceiptLineQuery query, LineDimension dimension, LineMeasure measure,
+                                 ForkJoinPool pool) {
+        if (dimension == null) {
+            throw new IllegalArgumentException("Dimension cannot be null");
+        }
+        return new TreeMap<>(scan(query, dimension, measure, pool));
+    }
+
+    /**
+     * Number of chunks whose statistics do not rule out {@code query}.
+     */
+    int countCandidateChunks(ReceiptLineQuery query) {
+        Filter filter = new Filter(query);
+        int candidates = 0;
+        for (Chunk chunk : chunks) {
+            if (filter.mayMatch(chunk, chunk.size)) {
+                candidates++;
+            }
+        }
+        return candidates;
+    }
+
+    private Map<Long, Long> scan(ReceiptLineQuery query, LineDimension dimension, LineMeasure measure,
+                                 ForkJoinPool pool) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (measure == null) {
+            throw new IllegalArgumentException("Measure cannot be null");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Fork/join pool cannot be null");
+        }
+        Chunk[] current = chunks;
+        // Sizes are read once so every task sees the same snapshot.
+        int[] sizes = new int[current.length];
+        for (int i = 0; i < current.length; i++) {
+            sizes[i] = current[i].size;
+        }
+        return pool.invoke(new ScanTask(current, sizes, 0, current.length, new Filter(query), dimension, measure));
+    }
+
+    /**
+     * Scans chunks {@code [from, to)}, one chunk per leaf, and merges the
+     * per-group totals.
+     */
+    private static final class ScanTask extends RecursiveTask<Map<Long, Long>> {
+        private static final long serialVersionUID = 1L;
+        private final Chunk[] chunks;
+        private final int[] sizes;
+        private final int from;
+        private final int to;
+        private final Filter filter;
+        private final LineDimension dimension;
+        private final LineMeasure measure;
+
+        ScanTask(Chunk[] chunks, int[] sizes, int from, int to, Filter filter, LineDimension dimension,
+                 LineMeasure measure) {
+            this.chunks = chunks;
+            this.sizes = sizes;
+            this.from = from;
+            this.to = to;
+            this.filter = filter;
+            this.dimension = dimension;
+            this.measure = measure;
+        }
+
+        @Override
+        protected Map<Long, Long> compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(chunks, sizes, from, middle, filter, dimension, measure);
+                ScanTask right = new ScanTask(chunks, sizes, middle, to, filter, dimension, measure);
+                left.fork();
+                Map<Long, Long> rightTotals = right.compute();
+                Map<Long, Long> leftTotals = left.join();
+                Map<Long, Long> smaller = leftTotals.size() < rightTotals.size() ? leftTotals : rightTotals;
+                Map<Long, Long> larger = smaller == leftTotals ? rightTotals : leftTotals;
+                smaller.forEach((key, value) -> larger.merge(key, value, Long::sum));
+                return larger;
+            }
+            Map<Long, Long> totals = new HashMap<>();
+            if (from < to && filter.mayMatch(chunks[from], sizes[from])) {
+                scanChunk(chunks[from], sizes[from], totals);
+            }
+            return totals;
+        }
+
+        private void scanChunk(Chunk chunk, int size, Map<Long, Long> totals) {
+            long base = dimension == null ? 0 : chunk.minKey(dimension);
+            long step = dimension == LineDimension.HOUR ? MILLIS_PER_HOUR : 1;
+            long range = dimension == null ? 1 : (chunk.maxKey(dimension) - base) / step + 1;
+            if (range > MAX_DENSE_GROUPS) {
+                for (int i = 0; i < size; i++) {
+                    if (filter.matches(chunk, i)) {
+                        totals.merge(chunk.key(dimension, i), value(chunk, i), Long::sum);
+                    }
+                }
+                return;
+            }
+            long[] sums = new long[(int) range];
+            int[] lines = new int[(int) range];
+            for (int i = 0; i < size; i++) {
+                if (filter.matches(chunk, i)) {
+                    int slot = dimension == null ? 0 : (int) ((chunk.key(dimension, i) - base) / step);
+                    sums[slot] += value(chunk, i);
+                    lines[slot]++;
+                }
+            }
+            for (int slot = 0; slot < sums.length; slot++) {
+                if (lines[slot] > 0) {
+                    totals.put(base + slot * step, sums[slot]);
+                }
+            }
+        }
+
+        private long value(Chunk chunk, int i) {
+            switch (measure) {
+                case QUANTITY:
+                    return chunk.quantities[i];
+                case AMOUNT_CENTS:
+                    return chunk.quantities[i] * chunk.unitPriceCents[i] - chunk.discountCents[i];
+                default:
+                    return 1;
+            }
+        }
+    }
+
+    /**
+     * A query's filters in the form the scan loop tests them.
+     */
+    private static final class Filter {
+        private final long fromMillis;
+        private final long untilMillis;
+        private final BitSet products;
+        private final BitSet cashiers;
+
+        Filter(ReceiptLineQuery query) {
+            this.fromMillis = query.getFromMillis();
+            this.untilMillis = query.getUntilMillis();
+            this.products = query.productFilter();
+            this.cashiers = query.cashierFilter();
+        }
+
+        boolean mayMatch(Chunk chunk, int size) {
+            if (size == 0) {
+                return false;
+            }
+            if (chunk.maxTimestamp < fromMillis || chunk.minTimestamp >= untilMillis) {
+                return false;
+            }
+            if (products != null && !anyInRange(products, chunk.minProduct, chunk.maxProduct)) {
+                return false;
+            }
+            return cashiers == null || anyInRange(cashiers, chunk.minCashier, chunk.maxCashier);
+        }
+
+        boolean matches(Chunk chunk, int i) {
+            long timestamp = chunk.timestamps[i];
+            return timestamp >= fromMillis && timestamp < untilMillis
+                && (products == null || products.get(chunk.productIds[i]))
+                && (cashiers == null || cashiers.get(chunk.cashierIds[i]));
+        }
+
+        private static boolean anyInRange(BitSet ids, int min, int max) {
+            int next = ids.nextSetBit(min);
+            return next >= 0 && next <= max;
+        }
+    }
+
+    /**
+     * Up to {@code capacity} lines in parallel primitive columns. Statistics
+     * are written before {@link #size} and readers read {@link #size} first,
+     * so the statistics a reader sees always cover the lines it scans.
+     */
+    private static final class Chunk {
+        private final long[] timestamps;
+        private final int[] receiptNumbers;
+        private final int[] cashierIds;
+        private final int[] productIds;
+        private final int[] quantities;
+        private final long[] unitPriceCents;
+        private final long[] discountCents;
+        private long minTimestamp = Long.MAX_VALUE;
+        private long maxTimestamp = Long.MIN_VALUE;
+        private int minReceipt = Integer.MAX_VALUE;
+        private int maxReceipt = Integer.MIN_VALUE;
+        private int minCashier = Integer.MAX_VALUE;
+        private int maxCashier = Integer.MIN_VALUE;
+        private int minProduct = Integer.MAX_VALUE;
+        private int maxProduct = Integer.MIN_VALUE;
+        private volatile int size;
+
+        Chunk(int capacity) {
+            this.timestamps = new long[capacity];
+            this.receiptNumbers = new int[capacity];
+            this.cashierIds = new int[capacity];
+            this.productIds = new int[capacity];
+            this.quantities = new int[capacity];
+            this.unitPriceCents = new long[capacity];
+            this.discountCents = new long[capacity];
+        }
+
+        int capacity() {
+            return timestamps.length;
+        }
+
+        void add(long timestamp, int receiptNumber, int cashierId, int productId, int quantity, long priceCents,
+                 long discount) {
+            int i = size;
+            timestamps[i] = timestamp;
+            receiptNumbers[i] = receiptNumber;
+            cashierIds[i] = cashierId;
+            productIds[i] = productId;
+            quantities[i] = quantity;
+            unitPriceCents[i] = priceCents;
+            discountCents[i] = discount;
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            minReceipt = Math.min(minReceipt, receiptNumber);
+            maxReceipt = Math.max(maxReceipt, receiptNumber);
+            minCashier = Math.min(minCashier, cashierId);
+            maxCashier = Math.max(maxCashier, cashierId);
+            minProduct = Math.min(minProduct, productId);
+            maxProduct = Math.max(maxProduct, productId);
+            size = i + 1;
+        }
+
+        long key(LineDimension dimension, int i) {
+            switch (dimension) {
+                case PRODUCT:
+                    return productIds[i];
+                case CASHIER:
+                    return cashierIds[i];
+                case RECEIPT:
+                    return receiptNumbers[i];
+                default:
+                    return hourOf(timestamps[i]);
+            }
+        }
+
+        long minKey(LineDimension dimension) {
+            switch (dimension) {
+                case PRODUCT:
+                    return minProduct;
+                case CASHIER:
+                    return minCashier;
+                case RECEIPT:
+                    return minReceipt;
+                default:
+                    return hourOf(minTimestamp);
+            }
+        }
+
+        long maxKey(LineDimension dimension) {
+            switch (dimension) {
+                case PRODUCT:
+                    return maxProduct;
+                case CASHIER:
+                    return maxCashier;
+                case RECEIPT:
+                    return maxReceipt;
+                default:
+                    return hourOf(maxTimestamp);
+            }
+        }
+
+        private static long hourOf(long timestamp) {
+            return timestamp - Math.floorMod(timestamp, MILLIS_PER_HOUR);
+        }
+    }
+}
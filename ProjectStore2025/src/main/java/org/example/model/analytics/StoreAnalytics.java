@@ -7,68 +7,228 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicReference;
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import org.example.util.ReportFormat;
+import org.example.util.ReportWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 
 public class StoreAnalytics {
-    private final List<Receipt> receipts;
+    // Receipts that may wait for bought-together tracking; beyond this they are skipped.
+    public static final int MAX_UNTRACKED_RECEIPTS = 1 << 16;
+
+    private final AtomicInteger transactionCount;
     private final Map<Product, AtomicInteger> productSales;
     private final Map<Cashier, AtomicInteger> cashierTransactions;
-    private final Map<Cashier, AtomicReference<Double>> cashierRevenue;
-    private final AtomicReference<Double> totalRevenue;
-    private final AtomicReference<Double> totalExpenses;
+    private final Map<Cashier, DoubleAdder> cashierRevenue;
+    private final DoubleAdder totalRevenue;
+    private final DoubleAdder totalExpenses;
+    private final DoubleAdder totalRefunds;
+    private final AtomicInteger returnedUnits;
+    private final CoOccurrenceTracker coOccurrence;
+    // Receipts waiting for the tracking thread, how many (reserved before
+    // adding), and whether a drain is queued there.
+    private final Queue<Receipt> untracked;
+    private final AtomicInteger untrackedCount;
+    private final AtomicBoolean drainScheduled;
+    private final LongAdder skippedTracking;
+    private final ReceiptLineStore lines;
+    private final int maxUntracked;
     private final LocalDateTime startDate;
-    private static final NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.US);
-    private static final NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.US);
     private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public StoreAnalytics() {
-        this.receipts = new CopyOnWriteArrayList<>();
+        this(MAX_UNTRACKED_RECEIPTS);
+    }
+
+    StoreAnalytics(int maxUntracked) {
+        this.maxUntracked = maxUntracked;
+        this.transactionCount = new AtomicInteger();
         this.productSales = new ConcurrentHashMap<>();
         this.cashierTransactions = new ConcurrentHashMap<>();
         this.cashierRevenue = new ConcurrentHashMap<>();
-        this.totalRevenue = new AtomicReference<>(0.0);
-        this.totalExpenses = new AtomicReference<>(0.0);
+        this.totalRevenue = new DoubleAdder();
+        this.totalExpenses = new DoubleAdder();
+        this.totalRefunds = new DoubleAdder();
+        this.returnedUnits = new AtomicInteger();
+        this.coOccurrence = new CoOccurrenceTracker();
+        this.untracked = new ConcurrentLinkedQueue<>();
+        this.untrackedCount = new AtomicInteger();
+        this.drainScheduled = new AtomicBoolean();
+        this.skippedTracking = new LongAdder();
+        this.lines = new ReceiptLineStore();
         this.startDate = LocalDateTime.now();
     }
 
+    /**
+     * Records a sale. Pairs bought together are counted on a background
+     * thread, so the quadratic pair update stays off the checkout path. If
+     * that thread falls {@value #MAX_UNTRACKED_RECEIPTS} receipts behind,
+     * further receipts are left out of pair tracking and counted in
+     * {@link #getSkippedTrackingCount()} rather than queued without limit.
+     */
     public void addReceipt(Receipt receipt) {
         if (receipt == null) {
             throw new IllegalArgumentException("Receipt cannot be null");
         }
-        receipts.add(receipt);
-        totalRevenue.updateAndGet(current -> current + receipt.getTotalAmount());
-        
-        for (Map.Entry<Product, Integer> entry : receipt.getItems().entrySet()) {
-            Product product = entry.getKey();
-            int quantity = entry.getValue();
-            productSales.computeIfAbsent(product, k -> new AtomicInteger(0))
-                       .addAndGet(quantity);
+        transactionCount.incrementAndGet();
+        totalRevenue.add(receipt.getTotalAmount());
+
+        for (int line = 0; line < receipt.getLineCount(); line++) {
+            productSales.computeIfAbsent(receipt.getProduct(line), k -> new AtomicInteger(0))
+                       .addAndGet(receipt.getQuantity(line));
         }
         
         Cashier cashier = receipt.getCashier();
         cashierTransactions.computeIfAbsent(cashier, k -> new AtomicInteger(0))
                           .incrementAndGet();
-        cashierRevenue.computeIfAbsent(cashier, k -> new AtomicReference<>(0.0))
-                     .updateAndGet(current -> current + receipt.getTotalAmount());
+        cashierRevenue.computeIfAbsent(cashier, k -> new DoubleAdder())
+                     .add(receipt.getTotalAmount());
+        if (untrackedCount.incrementAndGet() > maxUntracked) {
+            untrackedCount.decrementAndGet();
+            skippedTracking.increment();
+        } else {
+            untracked.add(receipt);
+            if (drainScheduled.compareAndSet(false, true)) {
+                TrackingThread.EXECUTOR.execute(this::drainUntracked);
+            }
+        }
+        lines.append(receipt);
+    }
+
+    /**
+     * Receipts left out of bought-together tracking because it had fallen
+     * too far behind.
+     */
+    public long getSkippedTrackingCount() {
+        return skippedTracking.sum();
+    }
+
+    private void drainUntracked() {
+        // Cleared first: a receipt queued during the drain schedules another.
+        drainScheduled.set(false);
+        trackQueued();
+    }
+
+    /**
+     * Feeds this store's queued receipts to its co-occurrence tracker. Runs
+     * on the tracking thread, or on a querying thread catching up; the lock
+     * keeps the tracker to a single writer at a time.
+     */
+    private void trackQueued() {
+        synchronized (coOccurrence) {
+            Receipt receipt;
+            while ((receipt = untracked.poll()) != null) {
+                untrackedCount.decrementAndGet();
+                coOccurrence.addReceipt(receipt);
+            }
+        }
+    }
+
+    /**
+     * Reverses {@code quantity} units of a sale: revenue, product sales and the
+     * cashier's revenue drop by the refunded amount. The transaction count is
+     * left alone since the original sale still happened.
+     */
+    public void addReturn(Cashier cashier, Product product, int quantity, double refundAmount) {
+        if (cashier == null || product == null) {
+            throw new IllegalArgumentException("Cashier and product cannot be null");
+        }
+        if (quantity <= 0 || refundAmount < 0) {
+            throw new IllegalArgumentException("Returned quantity must be positive and refund non-negative");
+        }
+        productSales.computeIfAbsent(product, k -> new AtomicInteger(0)).addAndGet(-quantity);
+        cashierRevenue.computeIfAbsent(cashier, k -> new DoubleAdder()).add(-refundAmount);
+        totalRevenue.add(-refundAmount);
+        totalRefunds.add(refundAmount);
+        returnedUnits.addAndGet(quantity);
+    }
+
+    /**
+     * Recently sold receipt lines in columnar form, for ad-hoc aggregate
+     * queries; older lines are dropped past {@link ReceiptLineStore#DEFAULT_MAX_LINES}.
+     * Returns are not recorded here.
+     */
+    public ReceiptLineStore getReceiptLines() {
+        return lines;
+    }
+
+    /**
+     * Products most often bought together with {@code product}, most frequent
+     * first, with the estimated number of shared receipts.
+     */
+    public Map<Product, Long> getFrequentlyBoughtTogether(Product product, int limit) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        // Catch up with this store's receipts here rather than queue behind
+        // other stores' backlogs on the tracking thread.
+        trackQueued();
+        Map<Product, Long> result = new LinkedHashMap<>();
+        for (CoOccurrenceTracker.Companion companion : coOccurrence.getTopCompanions(product, limit)) {
+            result.put(companion.getProduct(), companion.getCount());
+        }
+        return result;
+    }
+
+    /**
+     * Snapshot of the totals and per-product unit sales, to be merged with
+     * other stores' without going back to receipts. Sales may continue while
+     * it is taken; each figure is as of when it was read.
+     */
+    public AnalyticsSummary summarize() {
+        List<Map.Entry<Product, AtomicInteger>> sales = new ArrayList<>(productSales.entrySet());
+        sales.sort(Comparator.comparingInt(e -> e.getKey().getId()));
+        Product[] products = new Product[sales.size()];
+        long[] units = new long[sales.size()];
+        for (int i = 0; i < products.length; i++) {
+            products[i] = sales.get(i).getKey();
+            units[i] = sales.get(i).getValue().get();
+        }
+        return new AnalyticsSummary(transactionCount.get(), totalRevenue.sum(), totalExpenses.sum(),
+            totalRefunds.sum(), returnedUnits.get(), products, units);
+    }
+
+    public double getTotalRefunds() {
+        return totalRefunds.sum();
+    }
+
+    public int getReturnedUnits() {
+        return returnedUnits.get();
     }
 
     public void addExpense(double amount) {
         if (amount < 0) {
             throw new IllegalArgumentException("Expense amount cannot be negative");
         }
-        totalExpenses.updateAndGet(current -> current + amount);
+        totalExpenses.add(amount);
+    }
+
+    /**
+     * Takes back an expense recorded earlier, e.g. the salary of a cashier who
+     * was removed.
+     */
+    public void reverseExpense(double amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Expense amount cannot be negative");
+        }
+        totalExpenses.add(-amount);
     }
 
     public double getProfit() {
-        return totalRevenue.get() - totalExpenses.get();
+        return totalRevenue.sum() - totalExpenses.sum();
     }
 
     public double getProfitMargin() {
-        double revenue = totalRevenue.get();
+        double revenue = totalRevenue.sum();
         return revenue > 0 ? (getProfit() / revenue) * 100 : 0;
     }
 
@@ -76,29 +236,53 @@ public class StoreAnalytics {
         if (limit < 0) {
             throw new IllegalArgumentException("Limit cannot be negative");
         }
-        return productSales.entrySet().stream()
-            .sorted(Map.Entry.<Product, AtomicInteger>comparingByValue(Comparator.comparingInt(AtomicInteger::get)).reversed())
-            .limit(limit)
-            .collect(HashMap::new, (m, e) -> m.put(e.getKey(), e.getValue().get()), HashMap::putAll);
+        Map<Product, Integer> result = new LinkedHashMap<>();
+        topEntries(productSales, limit, Comparator.comparingInt(e -> e.getValue().get()))
+            .forEach(e -> result.put(e.getKey(), e.getValue().get()));
+        return result;
     }
 
     public Map<Cashier, Double> getTopPerformingCashiers(int limit) {
         if (limit < 0) {
             throw new IllegalArgumentException("Limit cannot be negative");
         }
-        return cashierRevenue.entrySet().stream()
-            .sorted(Map.Entry.<Cashier, AtomicReference<Double>>comparingByValue(Comparator.comparingDouble(AtomicReference<Double>::get)).reversed())
-            .limit(limit)
-            .collect(HashMap::new, (m, e) -> m.put(e.getKey(), e.getValue().get()), HashMap::putAll);
+        Map<Cashier, Double> result = new LinkedHashMap<>();
+        topEntries(cashierRevenue, limit, Comparator.comparingDouble(e -> e.getValue().sum()))
+            .forEach(e -> result.put(e.getKey(), e.getValue().sum()));
+        return result;
+    }
+
+    /**
+     * Selects the {@code limit} largest entries with a bounded heap instead of
+     * sorting the whole map, returning them largest first.
+     */
+    private static <K, V> List<Map.Entry<K, V>> topEntries(Map<K, V> source, int limit,
+                                                           Comparator<Map.Entry<K, V>> order) {
+        if (limit == 0) {
+            return Collections.emptyList();
+        }
+        PriorityQueue<Map.Entry<K, V>> heap = new PriorityQueue<>(limit + 1, order);
+        for (Map.Entry<K, V> entry : source.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<K, V>> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            top.add(heap.poll());
+        }
+        Collections.reverse(top);
+        return top;
     }
 
     public double getAverageTransactionValue() {
-        int size = receipts.size();
-        return size > 0 ? totalRevenue.get() / size : 0;
+        int size = transactionCount.get();
+        return size > 0 ? totalRevenue.sum() / size : 0;
     }
 
     public int getTotalTransactions() {
-        return receipts.size();
+        return transactionCount.get();
     }
 
     public LocalDateTime getStartDate() {
@@ -106,11 +290,11 @@ public class StoreAnalytics {
     }
 
     public double getTotalExpenses() {
-        return totalExpenses.get();
+        return totalExpenses.sum();
     }
 
     public double getTotalRevenue() {
-        return totalRevenue.get();
+        return totalRevenue.sum();
     }
 
     public int getProductSales(Product product) {
@@ -131,41 +315,163 @@ public class StoreAnalytics {
         if (cashier == null) {
             throw new IllegalArgumentException("Cashier cannot be null");
         }
-        return cashierRevenue.getOrDefault(cashier, new AtomicReference<>(0.0)).get();
+        DoubleAdder revenue = cashierRevenue.get(cashier);
+        return revenue == null ? 0.0 : revenue.sum();
     }
 
     public String generateReport() {
-        StringBuilder report = new StringBuilder();
-        report.append("Store Analytics Report\n");
-        report.append("=====================\n");
-        report.append("Period: ").append(startDate.format(dateFormatter))
-              .append(" to ").append(LocalDateTime.now().format(dateFormatter)).append("\n\n");
-        
-        report.append("Financial Summary:\n");
-        report.append("-----------------\n");
-        report.append(String.format("Total Revenue: %s\n", currencyFormat.format(getTotalRevenue())));
-        report.append(String.format("Total Expenses: %s\n", currencyFormat.format(getTotalExpenses())));
-        report.append(String.format("Net Profit: %s\n", currencyFormat.format(getProfit())));
-        report.append(String.format("Profit Margin: %.2f%%\n\n", getProfitMargin()));
-        
-        report.append("Sales Performance:\n");
-        report.append("-----------------\n");
-        report.append(String.format("Total Transactions: %d\n", getTotalTransactions()));
-        report.append(String.format("Average Transaction Value: %s\n\n", 
-            currencyFormat.format(getAverageTransactionValue())));
-        
-        report.append("Top Selling Products:\n");
-        report.append("--------------------\n");
-        getTopSellingProducts(5).forEach((product, quantity) ->
-            report.append(String.format("- %s: %d units\n", product.getName(), quantity)));
-        report.append("\n");
-        
-        report.append("Top Performing Cashiers:\n");
-        report.append("----------------------\n");
-        getTopPerformingCashiers(3).forEach((cashier, sales) ->
-            report.append(String.format("- %s: %s in sales\n", 
-                cashier.getName(), currencyFormat.format(sales))));
-        
-        return report.toString();
+        StringWriter buffer = new StringWriter();
+        try {
+            writeReport(buffer, ReportFormat.TEXT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Streams the analytics report to {@code out}. The writer is flushed but
+     * not closed.
+     */
+    public void writeReport(Writer out, ReportFormat format) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Report format cannot be null");
+        }
+        ReportWriter report = new ReportWriter(out);
+        switch (format) {
+            case TEXT:
+                writeTextReport(report);
+                break;
+            case CSV:
+                report.text("section,name,value\n");
+                writeRows(report, format);
+                break;
+            case JSON_LINES:
+                writeRows(report, format);
+                break;
+        }
+        report.flush();
+    }
+
+    /**
+     * Streams units sold per product, largest first, one row per product. Use
+     * {@code offset} and {@code limit} to page through large catalogs.
+     */
+    public void writeProductSales(Writer out, ReportFormat format, int offset, int limit) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Report format cannot be null");
+        }
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+        ReportWriter report = new ReportWriter(out);
+        if (format == ReportFormat.CSV) {
+            report.text("section,name,value\n");
+        }
+        int wanted = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        List<Map.Entry<Product, AtomicInteger>> page =
+            topEntries(productSales, wanted, Comparator.comparingInt(e -> e.getValue().get()));
+        for (int i = offset; i < page.size(); i++) {
+            Map.Entry<Product, AtomicInteger> entry = page.get(i);
+            if (format == ReportFormat.TEXT) {
+                report.text("- ").text(entry.getKey().getName()).text(": ")
+                    .number(entry.getValue().get()).text(" units\n");
+            } else {
+                writeRow(report, format, "product_sales", entry.getKey().getName(), entry.getValue().get());
+            }
+        }
+        report.flush();
+    }
+
+    private void writeTextReport(ReportWriter report) throws IOException {
+        report.text("Store Analytics Report\n");
+        report.text("=====================\n");
+        report.text("Period: ").text(startDate.format(dateFormatter))
+              .text(" to ").text(LocalDateTime.now().format(dateFormatter)).text("\n\n");
+
+        report.text("Financial Summary:\n");
+        report.text("-----------------\n");
+        report.text("Total Revenue: ").currency(getTotalRevenue()).newline();
+        report.text("Total Expenses: ").currency(getTotalExpenses()).newline();
+        report.text("Net Profit: ").currency(getProfit()).newline();
+        report.text("Profit Margin: ").decimal(getProfitMargin()).text("%\n\n");
+
+        report.text("Sales Performance:\n");
+        report.text("-----------------\n");
+        report.text("Total Transactions: ").number(getTotalTransactions()).newline();
+        report.text("Average Transaction Value: ").currency(getAverageTransactionValue()).text("\n\n");
+
+        report.text("Top Selling Products:\n");
+        report.text("--------------------\n");
+        for (Map.Entry<Product, Integer> entry : getTopSellingProducts(5).entrySet()) {
+            report.text("- ").text(entry.getKey().getName()).text(": ").number(entry.getValue()).text(" units\n");
+        }
+        report.newline();
+
+        report.text("Top Performing Cashiers:\n");
+        report.text("----------------------\n");
+        for (Map.Entry<Cashier, Double> entry : getTopPerformingCashiers(3).entrySet()) {
+            report.text("- ").text(entry.getKey().getName()).text(": ").currency(entry.getValue()).text(" in sales\n");
+        }
+    }
+
+    private void writeRows(ReportWriter report, ReportFormat format) throws IOException {
+        writeRow(report, format, "summary", "total_revenue", getTotalRevenue());
+        writeRow(report, format, "summary", "total_expenses", getTotalExpenses());
+        writeRow(report, format, "summary", "net_profit", getProfit());
+        writeRow(report, format, "summary", "profit_margin", getProfitMargin());
+        writeRow(report, format, "summary", "total_transactions", getTotalTransactions());
+        writeRow(report, format, "summary", "average_transaction_value", getAverageTransactionValue());
+        for (Map.Entry<Product, Integer> entry : getTopSellingProducts(5).entrySet()) {
+            writeRow(report, format, "top_product", entry.getKey().getName(), entry.getValue());
+        }
+        for (Map.Entry<Cashier, Double> entry : getTopPerformingCashiers(3).entrySet()) {
+            writeRow(report, format, "top_cashier", entry.getKey().getName(), entry.getValue());
+        }
+    }
+
+    private static void writeRow(ReportWriter report, ReportFormat format, String section, String name, long value)
+            throws IOException {
+        writeRowStart(report, format, section, name);
+        report.number(value);
+        writeRowEnd(report, format);
+    }
+
+    private static void writeRow(ReportWriter report, ReportFormat format, String section, String name, double value)
+            throws IOException {
+        writeRowStart(report, format, section, name);
+        report.decimal(value);
+        writeRowEnd(report, format);
+    }
+
+    private static void writeRowStart(ReportWriter report, ReportFormat format, String section, String name)
+            throws IOException {
+        if (format == ReportFormat.CSV) {
+            report.text(section).character(',').csvField(name).character(',');
+        } else {
+            report.text("{\"section\":\"").text(section).text("\",\"name\":").jsonString(name).text(",\"value\":");
+        }
+    }
+
+    private static void writeRowEnd(ReportWriter report, ReportFormat format) throws IOException {
+        report.text(format == ReportFormat.CSV ? "\n" : "}\n");
+    }
+
+    /**
+     * The thread that updates the co-occurrence trackers of stores nobody is
+     * querying. A single daemon thread, created on first use.
+     */
+    private static final class TrackingThread {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "store-analytics-tracking");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package org.example.model.inventory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Assigns product ids to inventory nodes by consistent hashing. Each node is
+ * placed at {@code virtualNodes} points on a 64-bit ring and owns the ids
+ * that hash to just before one of its points, so adding a node only takes
+ * over roughly {@code 1/n} of the ids and leaves every other assignment
+ * alone.
+ * <p>
+ * Rings are immutable; {@link #withNode} returns a new one. Node names are
+ * the {@code host:port} addresses of {@link InventoryNode}s, which is what
+ * the partitioned inventory and its nodes exchange.
+ */
+public final class ConsistentHashRing {
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final List<String> nodes;
+    private final int virtualNodes;
+    // Sorted ring points and the node owning each one.
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            throw new IllegalArgumentException("Ring needs at least one node");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual node count must be positive");
+        }
+        List<String> distinct = new ArrayList<>();
+        for (String node : nodes) {
+            if (node == null || node.isEmpty()) {
+                throw new IllegalArgumentException("Node name cannot be empty");
+            }
+            if (!distinct.contains(node)) {
+                distinct.add(node);
+            }
+        }
+        this.nodes = Collections.unmodifiableList(distinct);
+        this.virtualNodes = virtualNodes;
+
+        int size = distinct.size() * virtualNodes;
+        long[] hashed = new long[size];
+        String[] hashedOwners = new String[size];
+        int i = 0;
+        for (String node : distinct) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashed[i] = hashNode(node, v);
+                hashedOwners[i] = node;
+                i++;
+            }
+        }
+        // Sort points and owners together; ties are broken by node name so every
+        // process that builds the same ring gets the same order.
+        Integer[] order = new Integer[size];
+        for (int j = 0; j < size; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byPoint = Long.compareUnsigned(hashed[a], hashed[b]);
+            return byPoint != 0 ? byPoint : hashedOwners[a].compareTo(hashedOwners[b]);
+        });
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int j = 0; j < size; j++) {
+            points[j] = hashed[order[j]];
+            owners[j] = hashedOwners[order[j]];
+        }
+    }
+
+    /**
+     * Node responsible for the given product id.
+     */
+    public String ownerOf(int productId) {
+        long key = mix(productId);
+        int low = 0;
+        int high = points.length;
+        // First point at or after the key, wrapping to the start of the ring.
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[mid], key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    public ConsistentHashRing withNode(String node) {
+        if (nodes.contains(node)) {
+            return this;
+        }
+        List<String> grown = new ArrayList<>(nodes);
+        grown.add(node);
+        return new ConsistentHashRing(grown, virtualNodes);
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    private static long hashNode(String node, int virtualNode) {
+        // FNV-1a over the name, then the virtual node index mixed in.
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : node.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash ^ (virtualNode * 0x9e3779b97f4a7c15L));
+    }
+
+    /**
+     * MurmurHash3's 64-bit finalizer, which spreads consecutive ids evenly
+     * around the ring.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -3,26 +3,54 @@ package org.example.model.inventory;
 import org.example.model.product.Product;
 import org.example.model.product.FoodProduct;
 import org.example.exception.ProductException;
+import org.example.util.ReportFormat;
+import org.example.util.ReportWriter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 public class InventoryManager {
-    private final Map<Product, AtomicInteger> stockLevels;
-    private final Map<Product, Integer> reorderPoints;
-    private final Map<Product, Integer> reorderQuantities;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int PARALLEL_LEAF_SIZE = 4096;
+    private static final int PARALLEL_WINDOW_LEAVES = 64;
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+    public static final Duration DEFAULT_VELOCITY_HALF_LIFE = Duration.ofHours(24);
+    public static final double DEFAULT_STOCKOUT_HORIZON_HOURS = 24;
+    private static final AtomicIntegerFieldUpdater<StockEntry> STOCK =
+        AtomicIntegerFieldUpdater.newUpdater(StockEntry.class, "stock");
+    private static final AtomicLongFieldUpdater<StockEntry> VELOCITY =
+        AtomicLongFieldUpdater.newUpdater(StockEntry.class, "velocity");
+
+    // Indexed by product id; ids are dense, so this doubles as a stable SKU order for reports.
+    private volatile StockEntry[] entries;
     private final List<Product> lowStockProducts;
-    private final List<Product> expiredProducts;
-    private static final NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.US);
+    private final CopyOnWriteArrayList<Product> expiredProducts;
+    private volatile StockListener stockListener;
+    // Decay rate of the sales velocity average, per millisecond.
+    private final double velocityDecay;
 
     public InventoryManager() {
-        this.stockLevels = new ConcurrentHashMap<>();
-        this.reorderPoints = new ConcurrentHashMap<>();
-        this.reorderQuantities = new ConcurrentHashMap<>();
+        this(DEFAULT_VELOCITY_HALF_LIFE);
+    }
+
+    /**
+     * @param velocityHalfLife how long it takes a sale to count half as much
+     *                         towards a product's sales velocity
+     */
+    public InventoryManager(Duration velocityHalfLife) {
+        if (velocityHalfLife == null || velocityHalfLife.isNegative() || velocityHalfLife.isZero()) {
+            throw new ProductException("Velocity half-life must be positive");
+        }
+        this.velocityDecay = Math.log(2) / velocityHalfLife.toMillis();
+        this.entries = new StockEntry[INITIAL_CAPACITY];
         this.lowStockProducts = new CopyOnWriteArrayList<>();
         this.expiredProducts = new CopyOnWriteArrayList<>();
     }
@@ -40,11 +68,34 @@ public class InventoryManager {
         if (reorderQuantity <= 0) {
             throw new ProductException("Reorder quantity must be positive");
         }
+        if (product.getId() <= 0) {
+            throw new ProductException("Product has no valid id: " + product.getName());
+        }
+
+        StockEntry entry = new StockEntry(product, initialStock, reorderPoint, reorderQuantity);
+        StockEntry replaced;
+        synchronized (this) {
+            StockEntry[] current = entries;
+            int id = product.getId();
+            if (id >= current.length) {
+                current = Arrays.copyOf(current, Math.max(id + 1, current.length * 2));
+            }
+            replaced = current[id];
+            current[id] = entry;
+            // Volatile write publishes the new entry to lock-free readers.
+            entries = current;
+        }
+        int previousStock = replaced != null && replaced.product == product ? replaced.stock : 0;
+        stockChanged(entry, previousStock, initialStock);
+        checkStockLevel(entry);
+    }
 
-        stockLevels.put(product, new AtomicInteger(initialStock));
-        reorderPoints.put(product, reorderPoint);
-        reorderQuantities.put(product, reorderQuantity);
-        checkStockLevel(product);
+    /**
+     * Installs the listener told about stock changes and newly expired
+     * products, replacing any previous one; {@code null} removes it.
+     */
+    public void setStockListener(StockListener listener) {
+        this.stockListener = listener;
     }
 
     public void updateStock(Product product, int quantity) {
@@ -52,58 +103,193 @@ public class InventoryManager {
             throw new ProductException("Product cannot be null");
         }
 
-        AtomicInteger currentStock = stockLevels.get(product);
-        if (currentStock == null) {
+        StockEntry entry = findEntry(product);
+        if (entry == null) {
             throw new ProductException("Product not found in inventory");
         }
 
-        int newStock = currentStock.addAndGet(quantity);
+        int newStock = STOCK.addAndGet(entry, quantity);
         if (newStock < 0) {
-            currentStock.addAndGet(-quantity);
+            STOCK.addAndGet(entry, -quantity);
             throw new ProductException("Insufficient stock for product: " + product.getName());
         }
 
-        checkStockLevel(product);
+        stockChanged(entry, newStock - quantity, newStock);
+        checkStockLevel(entry);
     }
 
-    public int getStockLevel(Product product) {
-        if (product == null) {
-            throw new ProductException("Product cannot be null");
+    /**
+     * Takes {@code quantity} units out of stock if that many are available.
+     * Unlike {@link #updateStock} a shortage is reported by returning
+     * {@code false} and never leaves the stock level briefly negative.
+     */
+    public boolean tryReserve(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new ProductException("Quantity must be positive");
         }
+        StockEntry entry = requireEntry(product);
+        int stock;
+        while (true) {
+            stock = entry.stock;
+            if (stock < quantity) {
+                return false;
+            }
+            if (STOCK.compareAndSet(entry, stock, stock - quantity)) {
+                break;
+            }
+        }
+        stockChanged(entry, stock, stock - quantity);
+        checkStockLevel(entry);
+        return true;
+    }
 
-        AtomicInteger stock = stockLevels.get(product);
-        if (stock == null) {
-            throw new ProductException("Product not found in inventory");
+    /**
+     * Returns units taken by {@link #tryReserve} to stock.
+     */
+    public void release(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new ProductException("Quantity must be positive");
         }
+        StockEntry entry = requireEntry(product);
+        int newStock = STOCK.addAndGet(entry, quantity);
+        stockChanged(entry, newStock - quantity, newStock);
+        checkStockLevel(entry);
+    }
 
-        return stock.get();
+    /**
+     * Looks up a stocked product by its id, or returns {@code null}.
+     */
+    public Product getProduct(int productId) {
+        StockEntry[] current = entries;
+        if (productId <= 0 || productId >= current.length) {
+            return null;
+        }
+        StockEntry entry = current[productId];
+        return entry == null ? null : entry.product;
     }
 
-    public boolean needsReorder(Product product) {
-        if (product == null) {
-            throw new ProductException("Product cannot be null");
+    public int getStockLevel(Product product) {
+        return requireEntry(product).stock;
+    }
+
+    /**
+     * Feeds a completed sale into the product's sales velocity. Units that are
+     * later returned still count, as they did leave the shelf.
+     */
+    public void recordSale(Product product, int quantity) {
+        recordSale(product, quantity, System.currentTimeMillis());
+    }
+
+    public void recordSale(Product product, int quantity, long nowMillis) {
+        if (quantity <= 0) {
+            throw new ProductException("Quantity must be positive");
         }
+        requireEntry(product).recordSale(quantity, nowMillis, velocityDecay);
+    }
 
-        AtomicInteger stock = stockLevels.get(product);
-        Integer reorderPoint = reorderPoints.get(product);
-        if (stock == null || reorderPoint == null) {
-            throw new ProductException("Product not found in inventory");
+    /**
+     * Exponentially weighted sales rate of the product in units per hour.
+     */
+    public double getSalesVelocity(Product product) {
+        return getSalesVelocity(product, System.currentTimeMillis());
+    }
+
+    public double getSalesVelocity(Product product, long nowMillis) {
+        return requireEntry(product).velocity(nowMillis, velocityDecay);
+    }
+
+    /**
+     * Hours until the product sells out at its current velocity: 0 if it is
+     * already out of stock, {@link Double#POSITIVE_INFINITY} if it is not
+     * selling.
+     */
+    public double getHoursToStockout(Product product) {
+        return getHoursToStockout(product, System.currentTimeMillis());
+    }
+
+    public double getHoursToStockout(Product product, long nowMillis) {
+        StockEntry entry = requireEntry(product);
+        return hoursToStockout(entry.stock, entry.velocity(nowMillis, velocityDecay));
+    }
+
+    /**
+     * Products predicted to sell out within {@code hours}, soonest first. The
+     * SKU space is scanned on the common fork/join pool.
+     */
+    public List<Product> getProductsRunningOutWithin(double hours) {
+        return getProductsRunningOutWithin(hours, System.currentTimeMillis(), ForkJoinPool.commonPool());
+    }
+
+    public List<Product> getProductsRunningOutWithin(double hours, long nowMillis, ForkJoinPool pool) {
+        if (hours < 0 || Double.isNaN(hours)) {
+            throw new ProductException("Hours cannot be negative");
         }
+        if (pool == null) {
+            throw new ProductException("Fork/join pool cannot be null");
+        }
+        StockEntry[] current = entries;
+        double[] forecast = new double[current.length];
+        pool.invoke(new StockoutTask(current, 0, current.length, forecast, nowMillis, velocityDecay));
 
-        return stock.get() <= reorderPoint;
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < current.length; id++) {
+            if (current[id] != null && forecast[id] <= hours) {
+                ids.add(id);
+            }
+        }
+        ids.sort((a, b) -> Double.compare(forecast[a], forecast[b]));
+        List<Product> products = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            products.add(current[id].product);
+        }
+        return products;
     }
 
-    public int getReorderQuantity(Product product) {
-        if (product == null) {
-            throw new ProductException("Product cannot be null");
+    private static double hoursToStockout(int stock, double velocity) {
+        if (stock <= 0) {
+            return 0;
         }
+        return velocity > 0 ? stock / velocity : Double.POSITIVE_INFINITY;
+    }
 
-        Integer quantity = reorderQuantities.get(product);
-        if (quantity == null) {
-            throw new ProductException("Product not found in inventory");
+    public boolean needsReorder(Product product) {
+        StockEntry entry = requireEntry(product);
+        return entry.stock <= entry.reorderPoint;
+    }
+
+    public int getReorderPoint(Product product) {
+        return requireEntry(product).reorderPoint;
+    }
+
+    public int getReorderQuantity(Product product) {
+        return requireEntry(product).reorderQuantity;
+    }
+
+    public boolean containsProduct(Product product) {
+        return product != null && findEntry(product) != null;
+    }
+
+    /**
+     * Every stocked product, in id order.
+     */
+    public List<Product> getProducts() {
+        List<Product> result = new ArrayList<>();
+        for (StockEntry entry : entries) {
+            if (entry != null) {
+                result.add(entry.product);
+            }
         }
+        return result;
+    }
 
-        return quantity;
+    public int getProductCount() {
+        int count = 0;
+        for (StockEntry entry : entries) {
+            if (entry != null) {
+                count++;
+            }
+        }
+        return count;
     }
 
     public List<Product> getLowStockProducts() {
@@ -114,11 +300,47 @@ public class InventoryManager {
         return Collections.unmodifiableList(expiredProducts);
     }
 
-    private void checkStockLevel(Product product) {
-        int currentStock = getStockLevel(product);
-        int reorderPoint = reorderPoints.get(product);
+    /**
+     * Adds products that have expired by {@code today} to the expired list.
+     * Expiry is otherwise only noticed when a product's stock changes, so
+     * this is meant to run once a day; each product is reported to the
+     * {@link StockListener} the first time it is found expired.
+     */
+    public void checkExpirations(LocalDate today) {
+        if (today == null) {
+            throw new ProductException("Date cannot be null");
+        }
+        for (StockEntry entry : entries) {
+            if (entry != null && entry.product.isExpired(today)) {
+                markExpired(entry);
+            }
+        }
+    }
+
+    private StockEntry findEntry(Product product) {
+        StockEntry[] current = entries;
+        int id = product.getId();
+        if (id <= 0 || id >= current.length) {
+            return null;
+        }
+        StockEntry entry = current[id];
+        return entry != null && entry.product == product ? entry : null;
+    }
 
-        if (currentStock <= reorderPoint) {
+    private StockEntry requireEntry(Product product) {
+        if (product == null) {
+            throw new ProductException("Product cannot be null");
+        }
+        StockEntry entry = findEntry(product);
+        if (entry == null) {
+            throw new ProductException("Product not found in inventory");
+        }
+        return entry;
+    }
+
+    private void checkStockLevel(StockEntry entry) {
+        Product product = entry.product;
+        if (entry.stock <= entry.reorderPoint) {
             if (!lowStockProducts.contains(product)) {
                 lowStockProducts.add(product);
             }
@@ -127,90 +349,538 @@ public class InventoryManager {
         }
 
         if (product.isExpired()) {
-            if (!expiredProducts.contains(product)) {
-                expiredProducts.add(product);
-            }
+            markExpired(entry);
         } else {
             expiredProducts.remove(product);
         }
     }
 
+    private void markExpired(StockEntry entry) {
+        if (expiredProducts.addIfAbsent(entry.product)) {
+            StockListener listener = stockListener;
+            if (listener != null) {
+                listener.productExpired(entry.product, entry.stock);
+            }
+        }
+    }
+
+    private void stockChanged(StockEntry entry, int previousStock, int newStock) {
+        StockListener listener = stockListener;
+        if (listener != null) {
+            listener.stockChanged(entry.product, previousStock, newStock, entry.reorderPoint);
+        }
+    }
+
+    private static int statusMask(StockEntry entry, int stock, int warningDays, LocalDate today) {
+        int mask = 0;
+        if (stock <= entry.reorderPoint) {
+            mask |= StockStatus.LOW.mask();
+        }
+        if (entry.product.isNearExpiration(warningDays, today)) {
+            mask |= StockStatus.NEAR_EXPIRY.mask();
+        }
+        if (entry.product.isExpired(today)) {
+            mask |= StockStatus.EXPIRED.mask();
+        }
+        return mask == 0 ? StockStatus.OK.mask() : mask;
+    }
+
     public String generateInventoryReport() {
-        StringBuilder report = new StringBuilder();
-        report.append("Inventory Report:\n");
-        report.append("----------------\n");
+        StringWriter buffer = new StringWriter();
+        try {
+            writeInventoryReport(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toString();
+    }
 
-        for (Map.Entry<Product, AtomicInteger> entry : stockLevels.entrySet()) {
-            Product product = entry.getKey();
-            int stock = entry.getValue().get();
-            int reorderPoint = reorderPoints.get(product);
-            int reorderQuantity = reorderQuantities.get(product);
+    /**
+     * Streams the stock, low stock, predicted stockout and expiry summary of
+     * {@link #generateInventoryReport()}. The writer is flushed but not
+     * closed.
+     */
+    public void writeInventoryReport(Writer out) throws IOException {
+        if (out == null) {
+            throw new ProductException("Writer cannot be null");
+        }
+        ReportWriter report = new ReportWriter(out);
+        report.text("Inventory Report:\n");
+        report.text("----------------\n");
 
-            report.append(String.format("%s:\n", product.getName()));
-            report.append(String.format("  Current Stock: %d\n", stock));
-            report.append(String.format("  Reorder Point: %d\n", reorderPoint));
-            report.append(String.format("  Reorder Quantity: %d\n", reorderQuantity));
-            report.append(String.format("  Status: %s\n", 
-                stock <= reorderPoint ? "Needs Reorder" : "OK"));
-            report.append("\n");
+        for (StockEntry entry : entries) {
+            if (entry == null) {
+                continue;
+            }
+            int stock = entry.stock;
+            report.text(entry.product.getName()).text(":\n");
+            report.text("  Current Stock: ").number(stock).newline();
+            report.text("  Reorder Point: ").number(entry.reorderPoint).newline();
+            report.text("  Reorder Quantity: ").number(entry.reorderQuantity).newline();
+            report.text("  Status: ").text(stock <= entry.reorderPoint ? "Needs Reorder" : "OK").newline();
+            report.newline();
         }
 
         if (!lowStockProducts.isEmpty()) {
-            report.append("Low Stock Products:\n");
-            report.append("------------------\n");
-            lowStockProducts.forEach(product ->
-                report.append(String.format("- %s: %d units (Reorder Point: %d)\n",
-                    product.getName(),
-                    getStockLevel(product),
-                    reorderPoints.get(product))));
-            report.append("\n");
+            report.text("Low Stock Products:\n");
+            report.text("------------------\n");
+            for (Product product : lowStockProducts) {
+                StockEntry entry = findEntry(product);
+                if (entry == null) {
+                    continue;
+                }
+                report.text("- ").text(product.getName()).text(": ").number(entry.stock)
+                    .text(" units (Reorder Point: ").number(entry.reorderPoint).text(")\n");
+            }
+            report.newline();
+        }
+
+        List<Product> runningOut = getProductsRunningOutWithin(DEFAULT_STOCKOUT_HORIZON_HOURS);
+        if (!runningOut.isEmpty()) {
+            long now = System.currentTimeMillis();
+            report.text("Predicted Stockouts:\n");
+            report.text("-------------------\n");
+            for (Product product : runningOut) {
+                report.text("- ").text(product.getName()).text(": ").decimal(getHoursToStockout(product, now))
+                    .text(" hours (").decimal(getSalesVelocity(product, now)).text(" units/hour)\n");
+            }
+            report.newline();
         }
 
         if (!expiredProducts.isEmpty()) {
-            report.append("Expired Products:\n");
-            report.append("----------------\n");
-            expiredProducts.forEach(product -> {
-                report.append(String.format("- %s: %d units", product.getName(), getStockLevel(product)));
+            report.text("Expired Products:\n");
+            report.text("----------------\n");
+            for (Product product : expiredProducts) {
+                StockEntry entry = findEntry(product);
+                if (entry == null) {
+                    continue;
+                }
+                report.text("- ").text(product.getName()).text(": ").number(entry.stock).text(" units");
                 if (product instanceof FoodProduct) {
-                    report.append(" (Expired on: ").append(((FoodProduct) product).getExpirationDate()).append(")");
+                    report.text(" (Expired on: ").text(((FoodProduct) product).getExpirationDate().toString()).text(")");
                 }
-                report.append("\n");
-            });
+                report.newline();
+            }
         }
-
-        return report.toString();
+        report.flush();
     }
 
     public String generateReport() {
-        StringBuilder report = new StringBuilder();
-        report.append("Inventory Report\n");
-        report.append("================\n\n");
-        
-        report.append("Current Stock Levels:\n");
-        report.append("--------------------\n");
-        
-        for (Map.Entry<Product, AtomicInteger> entry : stockLevels.entrySet()) {
-            Product product = entry.getKey();
-            int stock = entry.getValue().get();
-            int reorderPoint = reorderPoints.get(product);
-            int reorderQuantity = reorderQuantities.get(product);
-            
-            report.append(String.format("%s:\n", product.getName()));
-            report.append(String.format("  Current Stock: %d units\n", stock));
-            report.append(String.format("  Reorder Point: %d units\n", reorderPoint));
-            report.append(String.format("  Reorder Quantity: %d units\n", reorderQuantity));
-            
-            if (stock <= reorderPoint) {
-                report.append("  STATUS: LOW STOCK - Reorder needed!\n");
-            }
-            
-            if (product.isNearExpiration(7)) {
-                report.append("  STATUS: NEAR EXPIRATION - Consider discounting!\n");
-            }
-            
-            report.append("\n");
-        }
-        
-        return report.toString();
-    }
-} 
\ No newline at end of file
+        StringWriter buffer = new StringWriter();
+        try {
+            writeReport(buffer, InventoryReportQuery.all());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Streams the inventory report row by row in product id order. Only a
+     * fixed-size character buffer is held in memory, whatever the number of
+     * SKUs. The writer is flushed but not closed.
+     */
+    public void writeReport(Writer out, InventoryReportQuery query) throws IOException {
+        if (out == null) {
+            throw new ProductException("Writer cannot be null");
+        }
+        if (query == null) {
+            throw new ProductException("Report query cannot be null");
+        }
+        ReportWriter report = new ReportWriter(out);
+        writeHeader(report, query.getFormat());
+
+        LocalDate today = LocalDate.now();
+        long now = System.currentTimeMillis();
+        int warningDays = query.getExpirationWarningDays();
+        int toSkip = query.getOffset();
+        long remaining = query.getLimit() == InventoryReportQuery.NO_LIMIT ? Long.MAX_VALUE : query.getLimit();
+        StockEntry[] current = entries;
+        for (int id = 0; id < current.length && remaining > 0; id++) {
+            StockEntry entry = current[id];
+            if (entry == null) {
+                continue;
+            }
+            int stock = entry.stock;
+            int mask = statusMask(entry, stock, warningDays, today);
+            if (!query.matches(mask)) {
+                continue;
+            }
+            if (toSkip > 0) {
+                toSkip--;
+                continue;
+            }
+            writeRow(report, query.getFormat(), entry, stock, mask, entry.velocity(now, velocityDecay));
+            remaining--;
+        }
+        report.flush();
+    }
+
+    /**
+     * Streams the report as UTF-8 to {@code out}. The stream is flushed but not
+     * closed.
+     */
+    public void writeReport(OutputStream out, InventoryReportQuery query) throws IOException {
+        if (out == null) {
+            throw new ProductException("Output stream cannot be null");
+        }
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writeReport(writer, query);
+        writer.flush();
+    }
+
+    /**
+     * Counts rows per status over the whole SKU space on the common fork/join
+     * pool. Stock is read with plain atomic reads, so sales can keep running.
+     */
+    public InventorySummary summarize(int expirationWarningDays) {
+        return summarize(expirationWarningDays, ForkJoinPool.commonPool());
+    }
+
+    public InventorySummary summarize(int expirationWarningDays, ForkJoinPool pool) {
+        if (expirationWarningDays < 0) {
+            throw new ProductException("Expiration warning days cannot be negative");
+        }
+        if (pool == null) {
+            throw new ProductException("Fork/join pool cannot be null");
+        }
+        StockEntry[] current = entries;
+        return pool.invoke(new StatusTask(current, 0, current.length, 0, null, null,
+            expirationWarningDays, LocalDate.now()));
+    }
+
+    /**
+     * Parallel variant of {@link #writeReport(Writer, InventoryReportQuery)}.
+     * The SKU space is processed in windows; within a window, partitions
+     * evaluate stock and status on {@code pool} into reusable snapshot arrays,
+     * and rows are then written sequentially in product id order, so the output
+     * is identical to the sequential report taken at the same instant. Memory
+     * is bounded by the window size. Returns the summary of the scanned rows.
+     */
+    public InventorySummary writeReportParallel(Writer out, InventoryReportQuery query, ForkJoinPool pool)
+            throws IOException {
+        if (out == null) {
+            throw new ProductException("Writer cannot be null");
+        }
+        if (query == null) {
+            throw new ProductException("Report query cannot be null");
+        }
+        if (pool == null) {
+            throw new ProductException("Fork/join pool cannot be null");
+        }
+        ReportWriter report = new ReportWriter(out);
+        writeHeader(report, query.getFormat());
+
+        LocalDate today = LocalDate.now();
+        long now = System.currentTimeMillis();
+        int warningDays = query.getExpirationWarningDays();
+        StockEntry[] current = entries;
+        int windowSize = PARALLEL_LEAF_SIZE * Math.max(PARALLEL_WINDOW_LEAVES, pool.getParallelism() * 4);
+        int[] stocks = new int[Math.min(windowSize, current.length)];
+        int[] masks = new int[stocks.length];
+
+        InventorySummary summary = InventorySummary.EMPTY;
+        int toSkip = query.getOffset();
+        long remaining = query.getLimit() == InventoryReportQuery.NO_LIMIT ? Long.MAX_VALUE : query.getLimit();
+        for (int windowStart = 0; windowStart < current.length; windowStart += stocks.length) {
+            int windowEnd = Math.min(windowStart + stocks.length, current.length);
+            summary = summary.merge(pool.invoke(new StatusTask(current, windowStart, windowEnd, windowStart,
+                stocks, masks, warningDays, today)));
+
+            for (int id = windowStart; id < windowEnd && remaining > 0; id++) {
+                StockEntry entry = current[id];
+                int mask = masks[id - windowStart];
+                if (entry == null || !query.matches(mask)) {
+                    continue;
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                writeRow(report, query.getFormat(), entry, stocks[id - windowStart], mask,
+                    entry.velocity(now, velocityDecay));
+                remaining--;
+            }
+        }
+        report.flush();
+        return summary;
+    }
+
+    /**
+     * Evaluates stock and status for the ids in {@code [from, to)}, optionally
+     * recording them into the snapshot arrays at {@code id - base}, and counts
+     * statuses. Splits in halves down to {@link #PARALLEL_LEAF_SIZE} ids.
+     */
+    private static final class StatusTask extends RecursiveTask<InventorySummary> {
+        private static final long serialVersionUID = 1L;
+        private final StockEntry[] entries;
+        private final int from;
+        private final int to;
+        private final int base;
+        private final int[] stocks;
+        private final int[] masks;
+        private final int warningDays;
+        private final LocalDate today;
+
+        StatusTask(StockEntry[] entries, int from, int to, int base, int[] stocks, int[] masks,
+                   int warningDays, LocalDate today) {
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+            this.base = base;
+            this.stocks = stocks;
+            this.masks = masks;
+            this.warningDays = warningDays;
+            this.today = today;
+        }
+
+        @Override
+        protected InventorySummary compute() {
+            if (to - from > PARALLEL_LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                StatusTask left = new StatusTask(entries, from, middle, base, stocks, masks, warningDays, today);
+                StatusTask right = new StatusTask(entries, middle, to, base, stocks, masks, warningDays, today);
+                left.fork();
+                InventorySummary rightSummary = right.compute();
+                return left.join().merge(rightSummary);
+            }
+
+            int products = 0;
+            long units = 0;
+            int low = 0;
+            int nearExpiry = 0;
+            int expired = 0;
+            int ok = 0;
+            for (int id = from; id < to; id++) {
+                StockEntry entry = entries[id];
+                if (entry == null) {
+                    if (masks != null) {
+                        masks[id - base] = 0;
+                    }
+                    continue;
+                }
+                int stock = entry.stock;
+                int mask = statusMask(entry, stock, warningDays, today);
+                if (masks != null) {
+                    stocks[id - base] = stock;
+                    masks[id - base] = mask;
+                }
+                products++;
+                units += stock;
+                if ((mask & StockStatus.LOW.mask()) != 0) {
+                    low++;
+                }
+                if ((mask & StockStatus.NEAR_EXPIRY.mask()) != 0) {
+                    nearExpiry++;
+                }
+                if ((mask & StockStatus.EXPIRED.mask()) != 0) {
+                    expired++;
+                }
+                if (mask == StockStatus.OK.mask()) {
+                    ok++;
+                }
+            }
+            return new InventorySummary(products, units, low, nearExpiry, expired, ok);
+        }
+    }
+
+    /**
+     * Writes each product's predicted hours to stockout for the ids in
+     * {@code [from, to)} into {@code forecast}, splitting like {@link StatusTask}.
+     */
+    private static final class StockoutTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final StockEntry[] entries;
+        private final int from;
+        private final int to;
+        private final double[] forecast;
+        private final long nowMillis;
+        private final double decay;
+
+        StockoutTask(StockEntry[] entries, int from, int to, double[] forecast, long nowMillis, double decay) {
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+            this.forecast = forecast;
+            this.nowMillis = nowMillis;
+            this.decay = decay;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new StockoutTask(entries, from, middle, forecast, nowMillis, decay),
+                    new StockoutTask(entries, middle, to, forecast, nowMillis, decay));
+                return;
+            }
+            for (int id = from; id < to; id++) {
+                StockEntry entry = entries[id];
+                forecast[id] = entry == null ? Double.POSITIVE_INFINITY
+                    : hoursToStockout(entry.stock, entry.velocity(nowMillis, decay));
+            }
+        }
+    }
+
+    private static void writeHeader(ReportWriter report, ReportFormat format) throws IOException {
+        switch (format) {
+            case TEXT:
+                report.text("Inventory Report\n");
+                report.text("================\n\n");
+                report.text("Current Stock Levels:\n");
+                report.text("--------------------\n");
+                break;
+            case CSV:
+                report.text("id,name,stock,reorder_point,reorder_quantity,low_stock,near_expiry,expired,expiration_date\n");
+                break;
+            case JSON_LINES:
+                break;
+        }
+    }
+
+    private static void writeRow(ReportWriter report, ReportFormat format, StockEntry entry, int stock, int mask,
+                                 double velocity) throws IOException {
+        Product product = entry.product;
+        boolean low = (mask & StockStatus.LOW.mask()) != 0;
+        boolean nearExpiry = (mask & StockStatus.NEAR_EXPIRY.mask()) != 0;
+        boolean expired = (mask & StockStatus.EXPIRED.mask()) != 0;
+        LocalDate expirationDate = product instanceof FoodProduct ? ((FoodProduct) product).getExpirationDate() : null;
+
+        switch (format) {
+            case TEXT:
+                report.text(product.getName()).text(":\n");
+                report.text("  Current Stock: ").number(stock).text(" units\n");
+                report.text("  Reorder Point: ").number(entry.reorderPoint).text(" units\n");
+                report.text("  Reorder Quantity: ").number(entry.reorderQuantity).text(" units\n");
+                if (velocity > 0) {
+                    report.text("  Sales Velocity: ").decimal(velocity).text(" units/hour\n");
+                    double hours = hoursToStockout(stock, velocity);
+                    if (hours <= DEFAULT_STOCKOUT_HORIZON_HOURS) {
+                        report.text("  STATUS: STOCKOUT RISK - Sells out in ").decimal(hours).text(" hours!\n");
+                    }
+                }
+                if (low) {
+                    report.text("  STATUS: LOW STOCK - Reorder needed!\n");
+                }
+                if (nearExpiry) {
+                    report.text("  STATUS: NEAR EXPIRATION - Consider discounting!\n");
+                }
+                report.newline();
+                break;
+            case CSV:
+                report.number(product.getId()).character(',')
+                    .csvField(product.getName()).character(',')
+                    .number(stock).character(',')
+                    .number(entry.reorderPoint).character(',')
+                    .number(entry.reorderQuantity).character(',')
+                    .text(low ? "true" : "false").character(',')
+                    .text(nearExpiry ? "true" : "false").character(',')
+                    .text(expired ? "true" : "false").character(',');
+                if (expirationDate != null) {
+                    report.text(expirationDate.toString());
+                }
+                report.newline();
+                break;
+            case JSON_LINES:
+                report.text("{\"id\":").number(product.getId())
+                    .text(",\"name\":").jsonString(product.getName())
+                    .text(",\"stock\":").number(stock)
+                    .text(",\"reorderPoint\":").number(entry.reorderPoint)
+                    .text(",\"reorderQuantity\":").number(entry.reorderQuantity)
+                    .text(",\"statuses\":[");
+                boolean first = true;
+                for (StockStatus status : StockStatus.values()) {
+                    if ((mask & status.mask()) != 0) {
+                        if (!first) {
+                            report.character(',');
+                        }
+                        report.character('"').text(status.name()).character('"');
+                        first = false;
+                    }
+                }
+                report.character(']');
+                if (expirationDate != null) {
+                    report.text(",\"expirationDate\":\"").text(expirationDate.toString()).character('"');
+                }
+                report.text("}\n");
+                break;
+        }
+    }
+
+    /**
+     * Told about every change of a stock level, on the thread that made it and
+     * after it took effect. Calls sit on the checkout path, so they must be
+     * quick and must not block.
+     */
+    public interface StockListener {
+        void stockChanged(Product product, int previousStock, int newStock, int reorderPoint);
+
+        void productExpired(Product product, int stock);
+    }
+
+    /**
+     * One per stocked product per store, so kept small: the stock level is a
+     * plain volatile field updated through {@link #STOCK} rather than a
+     * separate atomic object.
+     */
+    private static final class StockEntry {
+        private final Product product;
+        private volatile int stock;
+        private final int reorderPoint;
+        private final int reorderQuantity;
+        // Units sold, each weighted by exp(-decay * age), as a float in the
+        // high half, and the epoch second they are as of in the low half, so
+        // a sale updates both with one compare-and-set. A float's seven
+        // digits are plenty for a rate, and the second lasts until 2106.
+        private volatile long velocity;
+
+        StockEntry(Product product, int initialStock, int reorderPoint, int reorderQuantity) {
+            this.product = product;
+            this.stock = initialStock;
+            this.reorderPoint = reorderPoint;
+            this.reorderQuantity = reorderQuantity;
+        }
+
+        void recordSale(int quantity, long nowMillis, double decay) {
+            long nowSecond = Math.max(0, nowMillis / 1000);
+            while (true) {
+                long current = velocity;
+                double units = decayedUnits(current);
+                long asOf = asOfSecond(current);
+                if (nowSecond > asOf) {
+                    units *= Math.exp(-decay * (nowSecond - asOf) * 1000);
+                    asOf = nowSecond;
+                }
+                if (VELOCITY.compareAndSet(this, current, pack(units + quantity, asOf))) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Units per hour. For a steady rate r the decayed sum converges to
+         * r / decay, so multiplying back by the decay recovers the rate.
+         */
+        double velocity(long nowMillis, double decay) {
+            long current = velocity;
+            double units = decayedUnits(current);
+            if (units == 0) {
+                return 0;
+            }
+            long age = Math.max(0, nowMillis - asOfSecond(current) * 1000);
+            return units * Math.exp(-decay * age) * decay * MILLIS_PER_HOUR;
+        }
+
+        private static long pack(double units, long asOfSecond) {
+            return (long) Float.floatToRawIntBits((float) units) << 32 | (asOfSecond & 0xFFFFFFFFL);
+        }
+
+        private static double decayedUnits(long packed) {
+            return Float.intBitsToFloat((int) (packed >>> 32));
+        }
+
+        private static long asOfSecond(long packed) {
+            return packed & 0xFFFFFFFFL;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package org.example.model.inventory;
+
+import org.example.model.product.Product;
+import org.example.util.StoreLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One partition of a {@link PartitionedInventory}: a process holding the
+ * stock of the products the ring assigns to it, served over a socket with
+ * one thread per connection.
+ * <p>
+ * When a node joins, the router sends every node the new ring and each one
+ * hands the products it no longer owns to their new owner in small batches,
+ * carrying on serving the rest meanwhile. A batch is copied and marked as
+ * moved under a write lock that stock operations take for reading, so no
+ * update is lost between the copy and the handover; requests for a moved
+ * product are answered with its new owner.
+ */
+public class InventoryNode implements Closeable {
+    static final int HANDOFF_BATCH = 256;
+
+    private final InventoryManager inventory = new InventoryManager();
+    private final ServerSocket serverSocket;
+    private final Set<Integer> owned = ConcurrentHashMap.newKeySet();
+    // Products handed to another node, and which one.
+    private final Map<Integer, String> movedTo = new ConcurrentHashMap<>();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    // Set by the first rebalance; until then the node takes every product sent to it.
+    private volatile ConsistentHashRing ring;
+    private volatile String self;
+    private Thread acceptor;
+    private volatile boolean closed;
+
+    public InventoryNode(InetSocketAddress address) throws IOException {
+        if (address == null) {
+            throw new IllegalArgumentException("Address cannot be null");
+        }
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+    }
+
+    public synchronized void start() {
+        if (acceptor != null) {
+            throw new IllegalStateException("Inventory node already started");
+        }
+        acceptor = new Thread(this::acceptLoop, "inventory-node-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        StoreLogger.info("Inventory node listening on port " + getPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Number of products this node currently owns.
+     */
+    public int getProductCount() {
+        return owned.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            StoreLogger.warning("Failed to close inventory node socket: " + e.getMessage());
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                StoreLogger.warning("Failed to close inventory connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!closed) {
+                    StoreLogger.error("Inventory node stopped accepting connections", e);
+                }
+                return;
+            }
+            connections.add(socket);
+            Thread handler = new Thread(() -> serve(socket), "inventory-node-" + connectionCount.incrementAndGet());
+            handler.setDaemon(true);
+            handler.start();
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            InventoryNodeProtocol.Frame frame = new InventoryNodeProtocol.Frame();
+            while (!closed) {
+                byte op;
+                try {
+                    op = InventoryNodeProtocol.readFrame(in, frame);
+                } catch (EOFException e) {
+                    return;
+                }
+                try {
+                    handle(op, frame, out);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    InventoryNodeProtocol.writeMessage(out, InventoryNodeProtocol.ERROR, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                StoreLogger.warning("Inventory connection dropped: " + e.getMessage());
+            }
+        } finally {
+            connections.remove(socket);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                StoreLogger.warning("Failed to close inventory connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handle(byte op, InventoryNodeProtocol.Frame frame, DataOutputStream out) throws Exception {
+        switch (op) {
+            case InventoryNodeProtocol.ADD_PRODUCTS:
+            case InventoryNodeProtocol.IMPORT:
+                addProducts(decodeEntries(frame), op == InventoryNodeProtocol.IMPORT, out);
+                return;
+            case InventoryNodeProtocol.UPDATE_STOCK:
+            case InventoryNodeProtocol.GET_STOCK:
+            case InventoryNodeProtocol.TRY_RESERVE:
+            case InventoryNodeProtocol.RELEASE:
+                stockOperation(op, frame, out);
+                return;
+            case InventoryNodeProtocol.REBALANCE:
+                int moved = rebalance(frame);
+                InventoryNodeProtocol.writeInts(out, InventoryNodeProtocol.OK, moved);
+                return;
+            default:
+                InventoryNodeProtocol.writeMessage(out, InventoryNodeProtocol.ERROR, "Unknown operation " + op);
+        }
+    }
+
+    private void addProducts(List<InventoryNodeProtocol.Entry> entries, boolean handover, DataOutputStream out)
+            throws IOException {
+        lock.readLock().lock();
+        try {
+            ConsistentHashRing current = ring;
+            if (!handover && current != null) {
+                for (InventoryNodeProtocol.Entry entry : entries) {
+                    String owner = current.ownerOf(entry.product.getId());
+                    if (!owner.equals(self)) {
+                        InventoryNodeProtocol.writeMessage(out, InventoryNodeProtocol.MOVED, owner);
+                        return;
+                    }
+                }
+            }
+            for (InventoryNodeProtocol.Entry entry : entries) {
+                inventory.addProduct(entry.product, entry.stock, entry.reorderPoint, entry.reorderQuantity);
+                int id = entry.product.getId();
+                movedTo.remove(id);
+                owned.add(id);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        InventoryNodeProtocol.writeInts(out, InventoryNodeProtocol.OK, entries.size());
+    }
+
+    private void stockOperation(byte op, InventoryNodeProtocol.Frame frame, DataOutputStream out)
+            throws IOException {
+        int productId = frame.intAt(0);
+        byte status;
+        int value;
+        String owner = null;
+        lock.readLock().lock();
+        try {
+            owner = movedTo.get(productId);
+            Product product = owner == null && owned.contains(productId) ? inventory.getProduct(productId) : null;
+            if (owner != null) {
+                status = InventoryNodeProtocol.MOVED;
+                value = 0;
+            } else if (product == null) {
+                status = InventoryNodeProtocol.NOT_FOUND;
+                value = 0;
+            } else {
+                int quantity = op == InventoryNodeProtocol.GET_STOCK ? 0 : frame.intAt(1);
+                if (op == InventoryNodeProtocol.TRY_RESERVE || op == InventoryNodeProtocol.RELEASE) {
+                    if (quantity <= 0) {
+                        throw new IllegalArgumentException("Quantity must be positive");
+                    }
+                    quantity = op == InventoryNodeProtocol.TRY_RESERVE ? -quantity : quantity;
+                }
+                // Shortages are checked atomically rather than by letting the level dip below zero.
+                if (quantity < 0 && !inventory.tryReserve(product, -quantity)) {
+                    status = InventoryNodeProtocol.INSUFFICIENT;
+                } else {
+                    if (quantity > 0) {
+                        inventory.release(product, quantity);
+                    }
+                    status = InventoryNodeProtocol.OK;
+                }
+                value = inventory.getStockLevel(product);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (status == InventoryNodeProtocol.MOVED) {
+            InventoryNodeProtocol.writeMessage(out, status, owner);
+        } else if (status == InventoryNodeProtocol.NOT_FOUND) {
+            InventoryNodeProtocol.writeInts(out, status);
+        } else {
+            InventoryNodeProtocol.writeInts(out, status, value);
+        }
+    }
+
+    /**
+     * Adopts the ring in the frame and hands every product it now assigns
+     * elsewhere to its new owner.
+     *
+     * @return the number of products handed over
+     */
+    private int rebalance(InventoryNodeProtocol.Frame frame) throws IOException {
+        String name;
+        ConsistentHashRing next;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame.payload, 0, frame.length))) {
+            name = in.readUTF();
+            int virtualNodes = in.readInt();
+            int count = in.readInt();
+            List<String> nodes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                nodes.add(in.readUTF());
+            }
+            next = new ConsistentHashRing(nodes, virtualNodes);
+        }
+
+        Map<String, List<Integer>> leaving = new LinkedHashMap<>();
+        lock.writeLock().lock();
+        try {
+            ring = next;
+            self = name;
+            for (Integer id : owned) {
+                String owner = next.ownerOf(id);
+                if (!owner.equals(name)) {
+                    leaving.computeIfAbsent(owner, key -> new ArrayList<>()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int moved = 0;
+        for (Map.Entry<String, List<Integer>> target : leaving.entrySet()) {
+            moved += handOver(target.getKey(), target.getValue());
+        }
+        if (moved > 0) {
+            StoreLogger.info("Inventory node " + name + " handed " + moved + " products to "
+                + leaving.keySet());
+        }
+        return moved;
+    }
+
+    private int handOver(String target, List<Integer> ids) throws IOException {
+        int moved = 0;
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(InventoryNodeProtocol.address(target));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            InventoryNodeProtocol.Frame response = new InventoryNodeProtocol.Frame();
+            for (int start = 0; start < ids.size(); start += HANDOFF_BATCH) {
+                List<Integer> batch = ids.subList(start, Math.min(ids.size(), start + HANDOFF_BATCH));
+                // Held across the round trip, so the copy stays current until it is marked moved.
+                lock.writeLock().lock();
+                try {
+                    List<InventoryNodeProtocol.Entry> entries = new ArrayList<>(batch.size());
+                    for (int id : batch) {
+                        Product product = inventory.getProduct(id);
+                        if (product != null && owned.contains(id)) {
+                            entries.add(new InventoryNodeProtocol.Entry(product, inventory.getStockLevel(product),
+                                inventory.getReorderPoint(product), inventory.getReorderQuantity(product)));
+                        }
+                    }
+                    if (entries.isEmpty()) {
+                        continue;
+                    }
+                    InventoryNodeProtocol.writeFrame(out, InventoryNodeProtocol.IMPORT,
+                        InventoryNodeProtocol.encodeEntries(entries));
+                    byte status = InventoryNodeProtocol.readFrame(in, response);
+                    if (status != InventoryNodeProtocol.OK) {
+                        throw new IOException("Node " + target + " refused the handover");
+                    }
+                    for (InventoryNodeProtocol.Entry entry : entries) {
+                        int id = entry.product.getId();
+                        movedTo.put(id, target);
+                        owned.remove(id);
+                    }
+                    moved += entries.size();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static List<InventoryNodeProtocol.Entry> decodeEntries(InventoryNodeProtocol.Frame frame)
+            throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(frame.payload, 0, frame.length))) {
+            int count = in.readInt();
+            List<InventoryNodeProtocol.Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int stock = in.readInt();
+                int reorderPoint = in.readInt();
+                int reorderQuantity = in.readInt();
+                entries.add(new InventoryNodeProtocol.Entry((Product) in.readObject(), stock, reorderPoint,
+                    reorderQuantity));
+            }
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.model.inventory;
+
+import org.example.model.product.Product;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Wire format between {@link PartitionedInventory} and its
+ * {@link InventoryNode}s, and between nodes handing products over. Every
+ * frame is {@code [int length][byte code][payload]}, where the length counts
+ * the bytes after itself; each request gets exactly one response.
+ * <p>
+ * Requests:
+ * <ul>
+ *   <li>{@link #ADD_PRODUCTS} and {@link #IMPORT}: a serialization stream
+ *       with the entry count, then per entry the stock, reorder point and
+ *       reorder quantity as ints and the product. Imports are handovers from
+ *       another node and are taken even if this node's ring disagrees.</li>
+ *   <li>{@link #UPDATE_STOCK}, {@link #TRY_RESERVE} and {@link #RELEASE}:
+ *       {@code productId:int quantity:int}</li>
+ *   <li>{@link #GET_STOCK}: {@code productId:int}</li>
+ *   <li>{@link #REBALANCE}: the receiving node's own name, the virtual node
+ *       count and the ring's node names, as {@code UTF int int UTF...}</li>
+ * </ul>
+ * Responses:
+ * <ul>
+ *   <li>{@link #OK}: {@code value:int}, the stock level after the operation,
+ *       or the number of products added or moved</li>
+ *   <li>{@link #INSUFFICIENT}: {@code available:int}</li>
+ *   <li>{@link #NOT_FOUND}: no payload</li>
+ *   <li>{@link #MOVED}: the UTF name of the node that owns the product now</li>
+ *   <li>{@link #ERROR}: a UTF message</li>
+ * </ul>
+ */
+final class InventoryNodeProtocol {
+    static final byte ADD_PRODUCTS = 1;
+    static final byte IMPORT = 2;
+    static final byte UPDATE_STOCK = 3;
+    static final byte GET_STOCK = 4;
+    static final byte TRY_RESERVE = 5;
+    static final byte RELEASE = 6;
+    static final byte REBALANCE = 7;
+
+    static final byte OK = 0;
+    static final byte INSUFFICIENT = 1;
+    static final byte NOT_FOUND = 2;
+    static final byte MOVED = 3;
+    static final byte ERROR = 4;
+
+    static final int MAX_FRAME_SIZE = 16 << 20;
+
+    private InventoryNodeProtocol() {
+    }
+
+    /**
+     * Name a node goes by on the ring, {@code host:port}.
+     */
+    static String nodeName(InetSocketAddress address) {
+        return address.getHostString() + ":" + address.getPort();
+    }
+
+    static InetSocketAddress address(String nodeName) {
+        int colon = nodeName.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Node name is not host:port: " + nodeName);
+        }
+        return new InetSocketAddress(nodeName.substring(0, colon), Integer.parseInt(nodeName.substring(colon + 1)));
+    }
+
+    static void writeInts(DataOutputStream out, byte code, int... values) throws IOException {
+        out.writeInt(1 + values.length * Integer.BYTES);
+        out.writeByte(code);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+        out.flush();
+    }
+
+    static void writeMessage(DataOutputStream out, byte code, String message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream payload = new DataOutputStream(bytes)) {
+            payload.writeUTF(message == null ? "" : message);
+        }
+        writeFrame(out, code, bytes.toByteArray());
+    }
+
+    static void writeFrame(DataOutputStream out, byte code, byte[] payload) throws IOException {
+        out.writeInt(1 + payload.length);
+        out.writeByte(code);
+        out.write(payload);
+        out.flush();
+    }
+
+    static byte[] encodeRebalance(String self, ConsistentHashRing ring) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(self);
+            out.writeInt(ring.getVirtualNodes());
+            List<String> nodes = ring.getNodes();
+            out.writeInt(nodes.size());
+            for (String node : nodes) {
+                out.writeUTF(node);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeEntries(List<Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * entries.size());
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeInt(entry.stock);
+                out.writeInt(entry.reorderPoint);
+                out.writeInt(entry.reorderQuantity);
+                out.writeObject(entry.product);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads one frame, returning its code; the payload is left in
+     * {@code frame}, which is grown as needed.
+     */
+    static byte readFrame(DataInputStream in, Frame frame) throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid inventory frame length " + length);
+        }
+        byte code = in.readByte();
+        frame.length = length - 1;
+        if (frame.payload.length < frame.length) {
+            frame.payload = new byte[Math.max(frame.length, frame.payload.length * 2)];
+        }
+        in.readFully(frame.payload, 0, frame.length);
+        return code;
+    }
+
+    static final class Frame {
+        byte[] payload = new byte[64];
+        int length;
+
+        int intAt(int index) {
+            int offset = index * Integer.BYTES;
+            return (payload[offset] & 0xff) << 24 | (payload[offset + 1] & 0xff) << 16
+                | (payload[offset + 2] & 0xff) << 8 | (payload[offset + 3] & 0xff);
+        }
+    }
+
+    /**
+     * A product with its stock settings, as added or handed over.
+     */
+    static final class Entry {
+        final Product product;
+        final int stock;
+        final int reorderPoint;
+        final int reorderQuantity;
+
+        Entry(Product product, int stock, int reorderPoint, int reorderQuantity) {
+            this.product = product;
+            this.stock = stock;
+            this.reorderPoint = reorderPoint;
+            this.reorderQuantity = reorderQuantity;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.model.inventory;
+
+import org.example.exception.ProductException;
+import org.example.util.ReportFormat;
+
+/**
+ * Immutable description of which inventory rows to stream and how to format
+ * them. Rows are always visited in product id order, so {@code offset} and
+ * {@code limit} page through a stable sequence of matching rows.
+ */
+public final class InventoryReportQuery {
+    public static final int NO_LIMIT = -1;
+    private static final int DEFAULT_WARNING_DAYS = 7;
+
+    private final ReportFormat format;
+    private final int statusMask;
+    private final int offset;
+    private final int limit;
+    private final int expirationWarningDays;
+
+    private InventoryReportQuery(ReportFormat format, int statusMask, int offset, int limit,
+                                 int expirationWarningDays) {
+        this.format = format;
+        this.statusMask = statusMask;
+        this.offset = offset;
+        this.limit = limit;
+        this.expirationWarningDays = expirationWarningDays;
+    }
+
+    public static InventoryReportQuery all() {
+        return new InventoryReportQuery(ReportFormat.TEXT, 0, 0, NO_LIMIT, DEFAULT_WARNING_DAYS);
+    }
+
+    public InventoryReportQuery withFormat(ReportFormat format) {
+        if (format == null) {
+            throw new ProductException("Report format cannot be null");
+        }
+        return new InventoryReportQuery(format, statusMask, offset, limit, expirationWarningDays);
+    }
+
+    /**
+     * Restricts the report to rows in at least one of the given statuses.
+     */
+    public InventoryReportQuery withStatus(StockStatus... statuses) {
+        int mask = 0;
+        for (StockStatus status : statuses) {
+            if (status == null) {
+                throw new ProductException("Status filter cannot contain null");
+            }
+            mask |= status.mask();
+        }
+        return new InventoryReportQuery(format, mask, offset, limit, expirationWarningDays);
+    }
+
+    public InventoryReportQuery withPage(int offset, int limit) {
+        if (offset < 0) {
+            throw new ProductException("Offset cannot be negative");
+        }
+        if (limit < 0 && limit != NO_LIMIT) {
+            throw new ProductException("Limit cannot be negative");
+        }
+        return new InventoryReportQuery(format, statusMask, offset, limit, expirationWarningDays);
+    }
+
+    public InventoryReportQuery withExpirationWarningDays(int days) {
+        if (days < 0) {
+            throw new ProductException("Expiration warning days cannot be negative");
+        }
+        return new InventoryReportQuery(format, statusMask, offset, limit, days);
+    }
+
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getExpirationWarningDays() {
+        return expirationWarningDays;
+    }
+
+    boolean matches(int rowStatusMask) {
+        return statusMask == 0 || (statusMask & rowStatusMask) != 0;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.model.inventory;
+
+/**
+ * Immutable per-status counts over a set of inventory rows. Summaries of
+ * disjoint partitions are combined with {@link #merge(InventorySummary)}.
+ */
+public final class InventorySummary {
+    static final InventorySummary EMPTY = new InventorySummary(0, 0, 0, 0, 0, 0);
+
+    private final int productCount;
+    private final long totalUnits;
+    private final int lowStockCount;
+    private final int nearExpiryCount;
+    private final int expiredCount;
+    private final int okCount;
+
+    InventorySummary(int productCount, long totalUnits, int lowStockCount, int nearExpiryCount,
+                     int expiredCount, int okCount) {
+        this.productCount = productCount;
+        this.totalUnits = totalUnits;
+        this.lowStockCount = lowStockCount;
+        this.nearExpiryCount = nearExpiryCount;
+        this.expiredCount = expiredCount;
+        this.okCount = okCount;
+    }
+
+    public InventorySummary merge(InventorySummary other) {
+        return new InventorySummary(
+            productCount + other.productCount,
+            totalUnits + other.totalUnits,
+            lowStockCount + other.lowStockCount,
+            nearExpiryCount + other.nearExpiryCount,
+            expiredCount + other.expiredCount,
+            okCount + other.okCount);
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public long getTotalUnits() {
+        return totalUnits;
+    }
+
+    public int getLowStockCount() {
+        return lowStockCount;
+    }
+
+    public int getNearExpiryCount() {
+        return nearExpiryCount;
+    }
+
+    public int getExpiredCount() {
+        return expiredCount;
+    }
+
+    public int getOkCount() {
+        return okCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("InventorySummary{products=%d, units=%d, low=%d, nearExpiry=%d, expired=%d, ok=%d}",
+            productCount, totalUnits, lowStockCount, nearExpiryCount, expiredCount, okCount);
+    }
+}
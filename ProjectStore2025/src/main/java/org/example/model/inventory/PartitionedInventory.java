@@ -0,0 +1,332 @@
+package org.example.model.inventory;
+
+import org.example.exception.ProductException;
+import org.example.exception.StoreException;
+import org.example.model.product.Product;
+import org.example.util.StoreLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inventory spread over several {@link InventoryNode} processes. Each
+ * product lives on the node a {@link ConsistentHashRing} assigns its id to,
+ * and stock calls go straight to that node, so the catalog is bounded by the
+ * nodes' combined memory rather than one process's.
+ * <p>
+ * Stock operations mirror {@link InventoryManager}'s and fail the same way,
+ * with a {@link ProductException} for unknown products and shortages. A
+ * node that cannot be reached is reported with a {@link StoreException}.
+ * <p>
+ * {@link #addNode} grows the ring. Only the products the new node takes over
+ * move, a batch at a time, while every node keeps serving; a request that
+ * reaches a product's old node is redirected to the new one. Several routers
+ * may share the same nodes, but nodes should be added through one of them:
+ * the others keep their old ring and are redirected for every moved product.
+ * Concurrent callers share a pool of connections per node.
+ */
+public class PartitionedInventory implements Closeable {
+    private static final int MAX_REDIRECTS = 4;
+
+    private final Map<String, NodeClient> clients = new ConcurrentHashMap<>();
+    private final AtomicLong redirects = new AtomicLong();
+    private volatile ConsistentHashRing ring;
+
+    public PartitionedInventory(List<InetSocketAddress> nodes) {
+        this(nodes, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+    }
+
+    public PartitionedInventory(List<InetSocketAddress> nodes, int virtualNodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            throw new IllegalArgumentException("Partitioned inventory needs at least one node");
+        }
+        List<String> names = new ArrayList<>();
+        for (InetSocketAddress node : nodes) {
+            names.add(InventoryNodeProtocol.nodeName(node));
+        }
+        this.ring = new ConsistentHashRing(names, virtualNodes);
+    }
+
+    public void addProduct(Product product, int initialStock, int reorderPoint, int reorderQuantity) {
+        if (product == null) {
+            throw new ProductException("Product cannot be null");
+        }
+        if (initialStock < 0) {
+            throw new ProductException("Initial stock cannot be negative");
+        }
+        if (reorderPoint < 0) {
+            throw new ProductException("Reorder point cannot be negative");
+        }
+        if (reorderQuantity <= 0) {
+            throw new ProductException("Reorder quantity must be positive");
+        }
+        if (product.getId() <= 0) {
+            throw new ProductException("Product has no valid id: " + product.getName());
+        }
+        byte[] payload;
+        try {
+            payload = InventoryNodeProtocol.encodeEntries(Collections.singletonList(
+                new InventoryNodeProtocol.Entry(product, initialStock, reorderPoint, reorderQuantity)));
+        } catch (IOException e) {
+            throw new ProductException("Product cannot be serialized: " + product.getName());
+        }
+        check(product, send(product.getId(), InventoryNodeProtocol.ADD_PRODUCTS, payload));
+    }
+
+    /**
+     * Adds {@code quantity} units to stock, or takes them out if negative.
+     *
+     * @throws ProductException if there are fewer units than would be taken
+     */
+    public void updateStock(Product product, int quantity) {
+        check(product, send(requireId(product), InventoryNodeProtocol.UPDATE_STOCK, quantity));
+    }
+
+    public int getStockLevel(Product product) {
+        return check(product, send(requireId(product), InventoryNodeProtocol.GET_STOCK));
+    }
+
+    /**
+     * Takes {@code quantity} units out of stock if that many are available.
+     */
+    public boolean tryReserve(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new ProductException("Quantity must be positive");
+        }
+        Response response = send(requireId(product), InventoryNodeProtocol.TRY_RESERVE, quantity);
+        if (response.status == InventoryNodeProtocol.INSUFFICIENT) {
+            return false;
+        }
+        check(product, response);
+        return true;
+    }
+
+    /**
+     * Returns units taken by {@link #tryReserve} to stock.
+     */
+    public void release(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new ProductException("Quantity must be positive");
+        }
+        check(product, send(requireId(product), InventoryNodeProtocol.RELEASE, quantity));
+    }
+
+    /**
+     * Adds a node to the ring and moves the products it now owns to it from
+     * the other nodes. Requests keep being served during the move.
+     *
+     * @return the number of products moved
+     */
+    public synchronized int addNode(InetSocketAddress node) {
+        if (node == null) {
+            throw new IllegalArgumentException("Node cannot be null");
+        }
+        ConsistentHashRing current = ring;
+        ConsistentHashRing next = current.withNode(InventoryNodeProtocol.nodeName(node));
+        if (next == current) {
+            return 0;
+        }
+        int moved = 0;
+        // Each node adopts the new ring and pushes what it no longer owns to the new node.
+        for (String name : next.getNodes()) {
+            byte[] payload;
+            try {
+                payload = InventoryNodeProtocol.encodeRebalance(name, next);
+            } catch (IOException e) {
+                throw new StoreException("Failed to encode the ring", e);
+            }
+            Response response = client(name).call(InventoryNodeProtocol.REBALANCE, payload);
+            if (response.status != InventoryNodeProtocol.OK) {
+                throw new StoreException("Inventory node " + name + " failed to rebalance: " + response.message);
+            }
+            moved += response.value;
+        }
+        ring = next;
+        return moved;
+    }
+
+    /**
+     * The {@code host:port} of the node the current ring assigns the product to.
+     */
+    public String getOwner(Product product) {
+        return ring.ownerOf(requireId(product));
+    }
+
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * Requests that reached a node no longer owning the product and were sent on.
+     */
+    public long getRedirectCount() {
+        return redirects.get();
+    }
+
+    @Override
+    public void close() {
+        for (NodeClient client : clients.values()) {
+            client.close();
+        }
+        clients.clear();
+    }
+
+    private Response send(int productId, byte op, int... values) {
+        byte[] payload = new byte[(1 + values.length) * Integer.BYTES];
+        putInt(payload, 0, productId);
+        for (int i = 0; i < values.length; i++) {
+            putInt(payload, (i + 1) * Integer.BYTES, values[i]);
+        }
+        return send(productId, op, payload);
+    }
+
+    private Response send(int productId, byte op, byte[] payload) {
+        String owner = ring.ownerOf(productId);
+        for (int attempt = 0; ; attempt++) {
+            Response response = client(owner).call(op, payload);
+            if (response.status != InventoryNodeProtocol.MOVED) {
+                return response;
+            }
+            if (attempt == MAX_REDIRECTS) {
+                throw new StoreException("Product " + productId + " keeps moving between inventory nodes");
+            }
+            redirects.incrementAndGet();
+            owner = response.message;
+        }
+    }
+
+    private NodeClient client(String name) {
+        return clients.computeIfAbsent(name, NodeClient::new);
+    }
+
+    private static int check(Product product, Response response) {
+        switch (response.status) {
+            case InventoryNodeProtocol.OK:
+                return response.value;
+            case InventoryNodeProtocol.INSUFFICIENT:
+                throw new ProductException("Insufficient stock for product: " + product.getName());
+            case InventoryNodeProtocol.NOT_FOUND:
+                throw new ProductException("Product not found in inventory");
+            default:
+                throw new StoreException("Inventory node failed: " + response.message);
+        }
+    }
+
+    private static int requireId(Product product) {
+        if (product == null) {
+            throw new ProductException("Product cannot be null");
+        }
+        return product.getId();
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static final class Response {
+        final byte status;
+        final int value;
+        final String message;
+
+        Response(byte status, int value, String message) {
+            this.status = status;
+            this.value = value;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Pooled blocking connections to one node. A connection is taken for one
+     * request and response and then handed back, or dropped if it failed.
+     */
+    private static final class NodeClient {
+        private final String name;
+        private final Queue<Connection> idle = new ConcurrentLinkedQueue<>();
+
+        NodeClient(String name) {
+            this.name = name;
+        }
+
+        Response call(byte op, byte[] payload) {
+            Connection connection = idle.poll();
+            try {
+                if (connection == null) {
+                    connection = new Connection(InventoryNodeProtocol.address(name));
+                }
+                Response response = connection.call(op, payload);
+                idle.offer(connection);
+                return response;
+            } catch (IOException e) {
+                if (connection != null) {
+                    connection.close();
+                }
+                throw new StoreException("Inventory node " + name + " unreachable", e);
+            }
+        }
+
+        void close() {
+            Connection connection;
+            while ((connection = idle.poll()) != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private static final class Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final InventoryNodeProtocol.Frame frame = new InventoryNodeProtocol.Frame();
+
+        Connection(InetSocketAddress address) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(address);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        Response call(byte op, byte[] payload) throws IOException {
+            InventoryNodeProtocol.writeFrame(out, op, payload);
+            byte status = InventoryNodeProtocol.readFrame(in, frame);
+            switch (status) {
+                case InventoryNodeProtocol.OK:
+                case InventoryNodeProtocol.INSUFFICIENT:
+                    return new Response(status, frame.intAt(0), null);
+                case InventoryNodeProtocol.NOT_FOUND:
+                    return new Response(status, 0, null);
+                default:
+                    try (DataInputStream message = new DataInputStream(
+                            new ByteArrayInputStream(frame.payload, 0, frame.length))) {
+                        return new Response(status, 0, message.readUTF());
+                    }
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                StoreLogger.warning("Failed to close inventory connection: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.model.inventory;
+
+/**
+ * Conditions an inventory row can be in. A row may be in several at once
+ * (for example low on stock and near expiration); {@link #OK} is used only
+ * when none of the others apply.
+ */
+public enum StockStatus {
+    OK,
+    LOW,
+    NEAR_EXPIRY,
+    EXPIRED;
+
+    int mask() {
+        return 1 << ordinal();
+    }
+}
@@ -19,13 +19,15 @@ public class FoodProduct extends Product implements Serializable {
         return expirationDate;
     }
 
-    public boolean isExpired() {
-        return LocalDate.now().isAfter(expirationDate);
+    @Override
+    public boolean isExpired(LocalDate today) {
+        return today.isAfter(expirationDate);
     }
 
-    public boolean isNearExpiration(int warningDays) {
-        LocalDate warningDate = LocalDate.now().plusDays(warningDays);
-        return !isExpired() && LocalDate.now().isBefore(expirationDate) && !expirationDate.isAfter(warningDate);
+    @Override
+    public boolean isNearExpiration(int warningDays, LocalDate today) {
+        LocalDate warningDate = today.plusDays(warningDays);
+        return !isExpired(today) && today.isBefore(expirationDate) && !expirationDate.isAfter(warningDate);
     }
 
     @Override
@@ -39,6 +41,11 @@ public class FoodProduct extends Product implements Serializable {
         return basePrice;
     }
 
+    @Override
+    public ProductCategory getCategory() {
+        return ProductCategory.FOOD;
+    }
+
     @Override
     public String toString() {
         return String.format("%s{name='%s', deliveryPrice=%s, quantity=%d, expirationDate=%s}",
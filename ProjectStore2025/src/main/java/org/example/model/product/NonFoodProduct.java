@@ -15,6 +15,11 @@ public class NonFoodProduct extends Product implements Serializable {
         return getDeliveryPrice() * (1 + markup);
     }
 
+    @Override
+    public ProductCategory getCategory() {
+        return ProductCategory.NON_FOOD;
+    }
+
     @Override
     public String toString() {
         return String.format("%s{name='%s', deliveryPrice=%s, quantity=%d}",
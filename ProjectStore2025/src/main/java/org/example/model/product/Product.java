@@ -1,16 +1,17 @@
 package org.example.model.product;
 
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.text.NumberFormat;
-import java.util.Locale;
+import org.example.util.CurrencyFormatter;
 
 public abstract class Product implements Serializable {
     private static final long serialVersionUID = 1L;
+    private static final AtomicInteger nextId = new AtomicInteger(1);
+    private final int id;
     private final String name;
     private final double deliveryPrice;
     private final AtomicInteger quantity;
-    private static final NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.US);
 
     public Product(String name, double deliveryPrice, int quantity) {
         if (name == null || name.trim().isEmpty()) {
@@ -22,11 +23,33 @@ public abstract class Product implements Serializable {
         if (quantity < 0) {
             throw new IllegalArgumentException("Quantity cannot be negative");
         }
+        this.id = nextId.getAndIncrement();
         this.name = name;
         this.deliveryPrice = deliveryPrice;
         this.quantity = new AtomicInteger(quantity);
     }
 
+    /**
+     * Makes products created from now on get ids above {@code id}, for a
+     * process taking over a catalog created elsewhere.
+     */
+    public static void continueIdsAfter(int id) {
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Identifies the product across runs. Ids follow the order products are
+     * created in a process, so data kept on disk or matched against receipts
+     * from an earlier run uses the category and name instead.
+     */
+    public String getSku() {
+        return getCategory() + ":" + name;
+    }
+
     public String getName() {
         return name;
     }
@@ -61,17 +84,48 @@ public abstract class Product implements Serializable {
 
     public abstract double calculateSellingPrice();
 
+    public abstract ProductCategory getCategory();
+
+    /**
+     * Price with the given markup applied. Products that are expired or within
+     * {@code expirationWarningDays} of expiring get {@code expirationDiscount}
+     * off.
+     */
+    public double calculateSellingPrice(double markup, int expirationWarningDays, double expirationDiscount) {
+        return applyExpirationDiscount(deliveryPrice * (1 + markup), expirationWarningDays, expirationDiscount);
+    }
+
+    /**
+     * Takes {@code expirationDiscount} off {@code price} if this product is
+     * expired or within {@code expirationWarningDays} of expiring.
+     */
+    public double applyExpirationDiscount(double price, int expirationWarningDays, double expirationDiscount) {
+        LocalDate today = LocalDate.now();
+        if (isExpired(today) || isNearExpiration(expirationWarningDays, today)) {
+            price *= 1 - expirationDiscount;
+        }
+        return price;
+    }
+
     public boolean isExpired() {
+        return isExpired(LocalDate.now());
+    }
+
+    public boolean isExpired(LocalDate today) {
         return false; // Default implementation for non-food products
     }
 
     public boolean isNearExpiration(int warningDays) {
+        return isNearExpiration(warningDays, LocalDate.now());
+    }
+
+    public boolean isNearExpiration(int warningDays, LocalDate today) {
         return false; // Default implementation for non-food products
     }
 
     @Override
     public String toString() {
         return String.format("%s{name='%s', deliveryPrice=%s, quantity=%d}",
-            getClass().getSimpleName(), name, currencyFormat.format(deliveryPrice), quantity.get());
+            getClass().getSimpleName(), name, CurrencyFormatter.format(deliveryPrice), quantity.get());
     }
 } 
\ No newline at end of file
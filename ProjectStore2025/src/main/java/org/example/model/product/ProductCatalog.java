@@ -0,0 +1,201 @@
+package org.example.model.product;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Process-wide catalog of products shared by every store, so a chain with
+ * many locations holds one {@link Product} object per SKU instead of one per
+ * store. Stores keep only their own state (stock, local prices) and look
+ * the rest up here.
+ * <p>
+ * A catalog is an immutable version. Changes such as new delivery prices
+ * produce a new version through {@link #update}, which is published with a
+ * single reference swap: stores pick it up on their next price lookup and
+ * nothing per store is copied. Products and prices are held by id in pages
+ * of {@value #PAGE_SIZE}, and a new version shares every page it did not
+ * change, so repricing one product copies one page of prices.
+ * <p>
+ * Product objects never change between versions; the delivery price in the
+ * catalog takes precedence over the one the product was created with.
+ */
+public final class ProductCatalog {
+    private static final int PAGE_SHIFT = 10;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    public static final ProductCatalog EMPTY = new ProductCatalog(0, 0, new Product[0][], new double[0][]);
+
+    private static final AtomicReference<ProductCatalog> current = new AtomicReference<>(EMPTY);
+
+    private final long version;
+    private final int size;
+    private final Product[][] products;
+    private final double[][] deliveryPrices;
+
+    private ProductCatalog(long version, int size, Product[][] products, double[][] deliveryPrices) {
+        this.version = version;
+        this.size = size;
+        this.products = products;
+        this.deliveryPrices = deliveryPrices;
+    }
+
+    /**
+     * The catalog version in force.
+     */
+    public static ProductCatalog current() {
+        return current.get();
+    }
+
+    /**
+     * Applies {@code change} to the current version and publishes the result.
+     * Concurrent updates are retried, so {@code change} may run more than once
+     * and must not have side effects.
+     *
+     * @return the version published
+     */
+    public static ProductCatalog update(UnaryOperator<ProductCatalog> change) {
+        if (change == null) {
+            throw new IllegalArgumentException("Catalog change cannot be null");
+        }
+        while (true) {
+            ProductCatalog base = current.get();
+            ProductCatalog next = change.apply(base);
+            if (next == null) {
+                throw new IllegalArgumentException("Catalog change cannot return null");
+            }
+            if (current.compareAndSet(base, next)) {
+                return next;
+            }
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Number of products in this version.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Looks up a product by id, or returns {@code null}.
+     */
+    public Product getProduct(int productId) {
+        if (productId <= 0) {
+            return null;
+        }
+        int page = productId >>> PAGE_SHIFT;
+        return page < products.length && products[page] != null ? products[page][productId & PAGE_MASK] : null;
+    }
+
+    /**
+     * Whether this exact product object is in the catalog.
+     */
+    public boolean contains(Product product) {
+        return product != null && getProduct(product.getId()) == product;
+    }
+
+    /**
+     * The catalog's delivery price for {@code product}, or the product's own
+     * if it is not in the catalog.
+     */
+    public double getDeliveryPrice(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        if (!contains(product)) {
+            return product.getDeliveryPrice();
+        }
+        int id = product.getId();
+        return deliveryPrices[id >>> PAGE_SHIFT][id & PAGE_MASK];
+    }
+
+    public ProductCatalog withProduct(Product product) {
+        return withProducts(Arrays.asList(product));
+    }
+
+    /**
+     * Adds products at the delivery price they were created with. Products
+     * already in the catalog keep their current price.
+     */
+    public ProductCatalog withProducts(Collection<? extends Product> added) {
+        if (added == null) {
+            throw new IllegalArgumentException("Products cannot be null");
+        }
+        Product[][] nextProducts = products;
+        double[][] nextPrices = deliveryPrices;
+        boolean[] copied = new boolean[0];
+        int nextSize = size;
+        for (Product product : added) {
+            if (product == null) {
+                throw new IllegalArgumentException("Product cannot be null");
+            }
+            if (contains(product)) {
+                continue;
+            }
+            int id = product.getId();
+            int page = id >>> PAGE_SHIFT;
+            if (page >= nextProducts.length || nextProducts == products) {
+                int length = Math.max(nextProducts.length, page + 1);
+                nextProducts = Arrays.copyOf(nextProducts, length);
+                nextPrices = Arrays.copyOf(nextPrices, length);
+                copied = Arrays.copyOf(copied, length);
+            }
+            if (!copied[page]) {
+                nextProducts[page] = nextProducts[page] == null ? new Product[PAGE_SIZE] : nextProducts[page].clone();
+                nextPrices[page] = nextPrices[page] == null ? new double[PAGE_SIZE] : nextPrices[page].clone();
+                copied[page] = true;
+            }
+            if (nextProducts[page][id & PAGE_MASK] == null) {
+                nextSize++;
+            }
+            nextProducts[page][id & PAGE_MASK] = product;
+            nextPrices[page][id & PAGE_MASK] = product.getDeliveryPrice();
+        }
+        return nextProducts == products ? this : new ProductCatalog(version + 1, nextSize, nextProducts, nextPrices);
+    }
+
+    public ProductCatalog withDeliveryPrice(Product product, double deliveryPrice) {
+        return withDeliveryPrices(Map.of(product, deliveryPrice));
+    }
+
+    /**
+     * Changes delivery prices of products in the catalog. Only the pages of
+     * prices that change are copied; products are shared with this version.
+     */
+    public ProductCatalog withDeliveryPrices(Map<? extends Product, Double> prices) {
+        if (prices == null) {
+            throw new IllegalArgumentException("Prices cannot be null");
+        }
+        double[][] nextPrices = null;
+        boolean[] copied = new boolean[deliveryPrices.length];
+        for (Map.Entry<? extends Product, Double> entry : prices.entrySet()) {
+            Product product = entry.getKey();
+            Double price = entry.getValue();
+            if (!contains(product)) {
+                throw new IllegalArgumentException("Product is not in the catalog: " + product);
+            }
+            if (price == null || !(price > 0) || !Double.isFinite(price)) {
+                throw new IllegalArgumentException("Delivery price must be a positive finite amount");
+            }
+            if (nextPrices == null) {
+                nextPrices = deliveryPrices.clone();
+            }
+            int id = product.getId();
+            int page = id >>> PAGE_SHIFT;
+            if (!copied[page]) {
+                nextPrices[page] = nextPrices[page].clone();
+                copied[page] = true;
+            }
+            nextPrices[page][id & PAGE_MASK] = price;
+        }
+        return nextPrices == null ? this : new ProductCatalog(version + 1, size, products, nextPrices);
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.model.promotion;
+
+import org.example.model.product.Product;
+import org.example.model.product.ProductCategory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Promotion rules compiled into lookup tables: one array of rules per product
+ * id and one per {@link ProductCategory}. Pricing a basket line only visits
+ * the rules that target its product or category, so the cost of a basket
+ * does not grow with the number of unrelated promotions.
+ * <p>
+ * Promotions do not stack; each line gets the single largest discount among
+ * the rules active for it. Instances are immutable and safe to share.
+ * <p>
+ * Rule files have one promotion per line, fields separated by {@code |}:
+ * <pre>
+ * # id | target | discount | valid from | valid until
+ * milk-10   | product:12     | percent:10   | 2025-06-01T00:00 | 2025-06-30T23:59
+ * food-3for2| category:FOOD  | multibuy:3:2 |                  |
+ * </pre>
+ * Empty window fields leave that side of the window open.
+ */
+public final class PromotionEngine {
+    private static final PromotionRule[] NO_RULES = new PromotionRule[0];
+    public static final PromotionEngine EMPTY = compile(Collections.emptyList());
+
+    private final PromotionRule[][] productRules;
+    private final PromotionRule[][] categoryRules;
+    private final int ruleCount;
+
+    private PromotionEngine(PromotionRule[][] productRules, PromotionRule[][] categoryRules, int ruleCount) {
+        this.productRules = productRules;
+        this.categoryRules = categoryRules;
+        this.ruleCount = ruleCount;
+    }
+
+    public static PromotionEngine compile(List<PromotionRule> rules) {
+        int maxProductId = 0;
+        for (PromotionRule rule : rules) {
+            maxProductId = Math.max(maxProductId, rule.getProductId());
+        }
+        List<List<PromotionRule>> byProduct = new ArrayList<>(Collections.nCopies(maxProductId + 1, null));
+        List<List<PromotionRule>> byCategory = new ArrayList<>(Collections.nCopies(ProductCategory.values().length, null));
+        for (PromotionRule rule : rules) {
+            if (rule.getCategory() != null) {
+                add(byCategory, rule.getCategory().ordinal(), rule);
+            } else {
+                add(byProduct, rule.getProductId(), rule);
+            }
+        }
+        return new PromotionEngine(toTable(byProduct), toTable(byCategory), rules.size());
+    }
+
+    public static PromotionEngine load(File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Parses and compiles a rule file.
+     *
+     * @throws IllegalArgumentException naming the offending line if a rule is invalid
+     */
+    public static PromotionEngine parse(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        List<PromotionRule> rules = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            try {
+                rules.add(parseRule(trimmed));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid promotion on line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return compile(rules);
+    }
+
+    private static PromotionRule parseRule(String line) {
+        String[] fields = line.split("\\|", -1);
+        if (fields.length < 3 || fields.length > 5) {
+            throw new IllegalArgumentException("expected id | target | discount | from | until");
+        }
+        String id = fields[0].trim();
+        String target = fields[1].trim();
+        String discount = fields[2].trim();
+        LocalDateTime from = fields.length > 3 ? parseTime(fields[3]) : null;
+        LocalDateTime until = fields.length > 4 ? parseTime(fields[4]) : null;
+
+        int productId = 0;
+        ProductCategory category = null;
+        if (target.startsWith("product:")) {
+            productId = Integer.parseInt(target.substring("product:".length()).trim());
+            if (productId <= 0) {
+                throw new IllegalArgumentException("product id must be positive");
+            }
+        } else if (target.startsWith("category:")) {
+            category = ProductCategory.valueOf(target.substring("category:".length()).trim());
+        } else {
+            throw new IllegalArgumentException("unknown target " + target);
+        }
+
+        String[] parts = discount.split(":");
+        if (parts[0].equals("percent") && parts.length == 2) {
+            return PromotionRule.percentOff(id, productId, category, Double.parseDouble(parts[1]), from, until);
+        }
+        if (parts[0].equals("multibuy") && parts.length == 3) {
+            return PromotionRule.multiBuy(id, productId, category, Integer.parseInt(parts[1]),
+                Integer.parseInt(parts[2]), from, until);
+        }
+        throw new IllegalArgumentException("unknown discount " + discount);
+    }
+
+    private static LocalDateTime parseTime(String field) {
+        String value = field.trim();
+        return value.isEmpty() ? null : LocalDateTime.parse(value);
+    }
+
+    /**
+     * Prices the first {@code lineCount} lines, writing each line's discount to
+     * {@code discounts} and the id of the rule that gave it (or {@code null}) to
+     * {@code promotionIds}. Returns the total discount.
+     */
+    public double apply(Product[] products, int[] quantities, double[] unitPrices, int lineCount, long nowMillis,
+                        double[] discounts, String[] promotionIds) {
+        double total = 0;
+        for (int line = 0; line < lineCount; line++) {
+            Product product = products[line];
+            int id = product.getId();
+            PromotionRule best = null;
+            double bestDiscount = 0;
+            if (id < productRules.length) {
+                for (PromotionRule rule : productRules[id]) {
+                    double discount = rule.discount(quantities[line], unitPrices[line], nowMillis);
+                    if (discount > bestDiscount) {
+                        bestDiscount = discount;
+                        best = rule;
+                    }
+                }
+            }
+            for (PromotionRule rule : categoryRules[product.getCategory().ordinal()]) {
+                double discount = rule.discount(quantities[line], unitPrices[line], nowMillis);
+                if (discount > bestDiscount) {
+                    bestDiscount = discount;
+                    best = rule;
+                }
+            }
+            discounts[line] = bestDiscount;
+            promotionIds[line] = best == null ? null : best.getId();
+            total += bestDiscount;
+        }
+        return total;
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    public boolean isEmpty() {
+        return ruleCount == 0;
+    }
+
+    private static void add(List<List<PromotionRule>> table, int index, PromotionRule rule) {
+        List<PromotionRule> rules = table.get(index);
+        if (rules == null) {
+            rules = new ArrayList<>(1);
+            table.set(index, rules);
+        }
+        rules.add(rule);
+    }
+
+    private static PromotionRule[][] toTable(List<List<PromotionRule>> table) {
+        PromotionRule[][] compiled = new PromotionRule[table.size()][];
+        for (int i = 0; i < compiled.length; i++) {
+            List<PromotionRule> rules = table.get(i);
+            compiled[i] = rules == null ? NO_RULES : rules.toArray(NO_RULES);
+        }
+        return compiled;
+    }
+
+    @Override
+    public String toString() {
+        return "PromotionEngine{rules=" + ruleCount + ", indexedProducts=" + Arrays.stream(productRules)
+            .filter(rules -> rules.length > 0).count() + "}";
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.model.promotion;
+
+import org.example.model.product.ProductCategory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * One promotion: a percentage off or a multi-buy ("buy 3, pay for 2") that
+ * targets either a single product id or a whole {@link ProductCategory},
+ * optionally limited to a time window.
+ */
+public final class PromotionRule {
+    public enum Type {
+        PERCENT_OFF,
+        MULTI_BUY
+    }
+
+    private final String id;
+    private final Type type;
+    private final int productId;
+    private final ProductCategory category;
+    private final double percent;
+    private final int buyQuantity;
+    private final int payQuantity;
+    private final LocalDateTime validFrom;
+    private final LocalDateTime validUntil;
+    // Window bounds as epoch millis so evaluation compares longs.
+    private final long validFromMillis;
+    private final long validUntilMillis;
+
+    private PromotionRule(String id, Type type, int productId, ProductCategory category, double percent,
+                          int buyQuantity, int payQuantity, LocalDateTime validFrom, LocalDateTime validUntil) {
+        if (id == null || id.trim().isEmpty()) {
+            throw new IllegalArgumentException("Promotion id cannot be empty");
+        }
+        if ((productId > 0) == (category != null)) {
+            throw new IllegalArgumentException("Promotion " + id + " must target exactly one product or category");
+        }
+        if (validFrom != null && validUntil != null && validUntil.isBefore(validFrom)) {
+            throw new IllegalArgumentException("Promotion " + id + " ends before it starts");
+        }
+        this.id = id;
+        this.type = type;
+        this.productId = productId;
+        this.category = category;
+        this.percent = percent;
+        this.buyQuantity = buyQuantity;
+        this.payQuantity = payQuantity;
+        this.validFrom = validFrom;
+        this.validUntil = validUntil;
+        ZoneId zone = ZoneId.systemDefault();
+        this.validFromMillis = validFrom == null ? Long.MIN_VALUE : validFrom.atZone(zone).toInstant().toEpochMilli();
+        this.validUntilMillis = validUntil == null ? Long.MAX_VALUE : validUntil.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    public static PromotionRule percentOff(String id, int productId, ProductCategory category, double percent,
+                                           LocalDateTime validFrom, LocalDateTime validUntil) {
+        if (percent <= 0 || percent > 100) {
+            throw new IllegalArgumentException("Promotion " + id + " percent must be in (0, 100]");
+        }
+        return new PromotionRule(id, Type.PERCENT_OFF, productId, category, percent, 0, 0, validFrom, validUntil);
+    }
+
+    /**
+     * Every {@code buyQuantity} units of a line are charged as
+     * {@code payQuantity} units.
+     */
+    public static PromotionRule multiBuy(String id, int productId, ProductCategory category, int buyQuantity,
+                                         int payQuantity, LocalDateTime validFrom, LocalDateTime validUntil) {
+        if (buyQuantity <= 1 || payQuantity < 0 || payQuantity >= buyQuantity) {
+            throw new IllegalArgumentException("Promotion " + id + " must pay for fewer units than it buys");
+        }
+        return new PromotionRule(id, Type.MULTI_BUY, productId, category, 0, buyQuantity, payQuantity,
+            validFrom, validUntil);
+    }
+
+    /**
+     * Discount this rule gives on a line of {@code quantity} units at
+     * {@code unitPrice}, or 0 if the rule is not active at {@code nowMillis}.
+     */
+    double discount(int quantity, double unitPrice, long nowMillis) {
+        if (nowMillis < validFromMillis || nowMillis > validUntilMillis) {
+            return 0;
+        }
+        if (type == Type.PERCENT_OFF) {
+            return unitPrice * quantity * percent / 100.0;
+        }
+        return (quantity / buyQuantity) * (buyQuantity - payQuantity) * unitPrice;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Targeted product id, or 0 for a category promotion.
+     */
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Targeted category, or {@code null} for a product promotion.
+     */
+    public ProductCategory getCategory() {
+        return category;
+    }
+
+    public double getPercent() {
+        return percent;
+    }
+
+    public int getBuyQuantity() {
+        return buyQuantity;
+    }
+
+    public int getPayQuantity() {
+        return payQuantity;
+    }
+
+    public LocalDateTime getValidFrom() {
+        return validFrom;
+    }
+
+    public LocalDateTime getValidUntil() {
+        return validUntil;
+    }
+
+    @Override
+    public String toString() {
+        String target = category != null ? "category:" + category : "product:" + productId;
+        String discount = type == Type.PERCENT_OFF ? "percent:" + percent : "multibuy:" + buyQuantity + ":" + payQuantity;
+        return "PromotionRule{" + id + ", " + target + ", " + discount + "}";
+    }
+}
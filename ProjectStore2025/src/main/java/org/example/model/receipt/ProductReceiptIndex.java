@@ -0,0 +1,391 @@
+package org.example.model.receipt;
+
+import org.example.exception.ReceiptException;
+import org.example.model.product.Product;
+import org.example.util.StoreLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Inverted index from product to the numbers of the receipts that sold it.
+ * Products are keyed by {@link Product#getSku()}, since product ids depend on
+ * the order products were created in and differ from one run to the next.
+ * <p>
+ * New postings collect in memory until {@link #seal} writes them to an
+ * immutable segment file. A segment holds, per product, the sorted receipt
+ * numbers as varint-encoded deltas, behind a directory of SKUs, and is
+ * memory-mapped for reading. Opening a segment loads its directory into a
+ * map; a lookup merges the lists decoded from every segment. {@link #compact}
+ * merges all segments into one.
+ * <p>
+ * Receipts are added in the order the archive stored them, each with its
+ * storage position, and a segment records the position of the last receipt
+ * it covers. Postings that were never sealed are lost in a crash, so the
+ * archive re-indexes every receipt stored after {@link #getSealedThrough()}
+ * when it is opened.
+ */
+final class ProductReceiptIndex {
+    private static final String SEGMENT_FILE_PREFIX = "products-";
+    private static final String SEGMENT_FILE_FORMAT = SEGMENT_FILE_PREFIX + "%05d.pidx";
+    private static final int MAGIC = 0x50494433;
+    // Magic, position of the last receipt covered and product count, followed
+    // by a directory entry per product: the SKU's length and UTF-8 bytes, the
+    // posting count and the data length.
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+    static final int DEFAULT_SEAL_THRESHOLD = 1 << 20;
+    static final int MAX_SEGMENTS = 16;
+    private static final int[] NO_RECEIPTS = new int[0];
+
+    private final File directory;
+    private final int sealThreshold;
+    private volatile Segment[] segments;
+    private int nextSegmentNumber;
+    // Unsealed postings per SKU, guarded by this.
+    private Map<String, Postings> active;
+    private int activePostings;
+    // Storage position of the last receipt added, guarded by this.
+    private long addedThrough;
+
+    ProductReceiptIndex(File directory, int sealThreshold) throws IOException {
+        this.directory = directory;
+        this.sealThreshold = sealThreshold;
+        this.active = new HashMap<>();
+        this.segments = openSegments();
+        this.addedThrough = getSealedThrough();
+    }
+
+    /**
+     * Storage position of the last receipt covered by a segment, or -1 if
+     * there are no segments.
+     */
+    long getSealedThrough() {
+        long sealedThrough = -1;
+        for (Segment segment : segments) {
+            sealedThrough = Math.max(sealedThrough, segment.coveredThrough());
+        }
+        return sealedThrough;
+    }
+
+    /**
+     * Records that {@code receipt}, stored at {@code position}, sold each of
+     * its products. Positions must grow from one call to the next. Seals the
+     * in-memory postings into a segment once they reach the threshold.
+     */
+    synchronized void add(Receipt receipt, long position) throws IOException {
+        addedThrough = Math.max(addedThrough, position);
+        int receiptNumber = receipt.getReceiptNumber();
+        for (int line = 0; line < receipt.getLineCount(); line++) {
+            Postings postings = active.computeIfAbsent(receipt.getProduct(line).getSku(), sku -> new Postings());
+            if (postings.add(receiptNumber)) {
+                activePostings++;
+            }
+        }
+        if (activePostings >= sealThreshold) {
+            seal();
+        }
+    }
+
+    /**
+     * Sorted, distinct numbers of the receipts that sold {@code product}.
+     */
+    int[] receiptNumbers(Product product) {
+        String sku = product.getSku();
+        Segment[] current;
+        int[] unsealed;
+        synchronized (this) {
+            current = segments;
+            Postings postings = active.get(sku);
+            unsealed = postings == null ? NO_RECEIPTS : postings.copy();
+        }
+        int[] merged = unsealed;
+        boolean sorted = false;
+        for (Segment segment : current) {
+            int[] postings = segment.postings(sku);
+            if (postings.length == 0) {
+                continue;
+            }
+            if (merged.length == 0) {
+                merged = postings;
+                sorted = true;
+            } else {
+                merged = concat(merged, postings);
+                sorted = false;
+            }
+        }
+        return sorted ? merged : sortDistinct(merged, merged.length);
+    }
+
+    /**
+     * Writes the in-memory postings to a new segment file. Merges all segments
+     * when there are more than {@link #MAX_SEGMENTS}.
+     */
+    synchronized void seal() throws IOException {
+        if (activePostings == 0) {
+            return;
+        }
+        List<String> skus = new ArrayList<>(new TreeSet<>(active.keySet()));
+        List<int[]> postings = new ArrayList<>(skus.size());
+        for (String sku : skus) {
+            int[] unsealed = active.get(sku).copy();
+            postings.add(sortDistinct(unsealed, unsealed.length));
+        }
+        Segment segment = writeSegment(skus, postings, addedThrough);
+        Segment[] grown = Arrays.copyOf(segments, segments.length + 1);
+        grown[segments.length] = segment;
+        segments = grown;
+        active = new HashMap<>();
+        activePostings = 0;
+        if (grown.length > MAX_SEGMENTS) {
+            compact();
+        }
+    }
+
+    /**
+     * Seals pending postings and merges every segment into a single one.
+     */
+    synchronized void compact() throws IOException {
+        Segment[] current = segments;
+        if (current.length == 0 || (current.length == 1 && activePostings == 0)) {
+            seal();
+            return;
+        }
+        TreeSet<String> allSkus = new TreeSet<>(active.keySet());
+        for (Segment segment : current) {
+            allSkus.addAll(segment.entries.keySet());
+        }
+        List<String> skus = new ArrayList<>(allSkus);
+        List<int[]> postings = new ArrayList<>(skus.size());
+        for (String sku : skus) {
+            Postings unsealed = active.get(sku);
+            int[] merged = unsealed == null ? NO_RECEIPTS : unsealed.copy();
+            for (Segment segment : current) {
+                int[] segmentPostings = segment.postings(sku);
+                if (segmentPostings.length > 0) {
+                    merged = merged.length == 0 ? segmentPostings : concat(merged, segmentPostings);
+                }
+            }
+            postings.add(sortDistinct(merged, merged.length));
+        }
+        Segment compacted = writeSegment(skus, postings, Math.max(addedThrough, getSealedThrough()));
+        segments = new Segment[]{compacted};
+        active = new HashMap<>();
+        activePostings = 0;
+        for (Segment segment : current) {
+            // Readers still holding the old mapping keep working until it is collected.
+            if (!segment.file.delete()) {
+                StoreLogger.warning("Could not delete merged product index segment " + segment.file);
+            }
+        }
+    }
+
+    int getSegmentCount() {
+        return segments.length;
+    }
+
+    private Segment[] openSegments() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_FILE_PREFIX) && name.endsWith(".pidx"));
+        if (files == null || files.length == 0) {
+            return new Segment[0];
+        }
+        Arrays.sort(files);
+        Segment[] opened = new Segment[files.length];
+        try {
+            for (int i = 0; i < files.length; i++) {
+                opened[i] = Segment.open(files[i]);
+            }
+        } catch (ReceiptException e) {
+            // The index only holds what the archive can rebuild, so start over
+            // rather than mix in segments that say nothing about their coverage.
+            StoreLogger.warning(e.getMessage() + ", rebuilding the product index");
+            for (File file : files) {
+                if (!file.delete()) {
+                    throw new IOException("Could not delete product index segment " + file);
+                }
+            }
+            return new Segment[0];
+        }
+        String last = files[files.length - 1].getName();
+        nextSegmentNumber = Integer.parseInt(last.substring(SEGMENT_FILE_PREFIX.length(), last.length() - 5)) + 1;
+        return opened;
+    }
+
+    private Segment writeSegment(List<String> skus, List<int[]> postings, long coveredThrough)
+            throws IOException {
+        File file = new File(directory, String.format(SEGMENT_FILE_FORMAT, nextSegmentNumber++));
+        File temp = new File(file.getPath() + ".tmp");
+        byte[][] encoded = new byte[postings.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = encode(postings.get(i));
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeLong(coveredThrough);
+            out.writeInt(skus.size());
+            for (int i = 0; i < encoded.length; i++) {
+                byte[] sku = skus.get(i).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(sku.length);
+                out.write(sku);
+                out.writeInt(postings.get(i).length);
+                out.writeInt(encoded[i].length);
+            }
+            for (byte[] data : encoded) {
+                out.write(data);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Segment.open(file);
+    }
+
+    /**
+     * Encodes ascending numbers as the first number followed by the gaps
+     * between neighbours, each as an unsigned LEB128 varint.
+     */
+    static byte[] encode(int[] sorted) {
+        byte[] out = new byte[sorted.length * 5];
+        int position = 0;
+        int previous = 0;
+        for (int value : sorted) {
+            int delta = value - previous;
+            previous = value;
+            while ((delta & ~0x7F) != 0) {
+                out[position++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            out[position++] = (byte) delta;
+        }
+        return Arrays.copyOf(out, position);
+    }
+
+    static int[] decode(ByteBuffer data, int offset, int count) {
+        int[] values = new int[count];
+        int position = offset;
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(position++);
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += delta;
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    private static int[] sortDistinct(int[] values, int count) {
+        int[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (distinct == 0 || sorted[i] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+    }
+
+    /**
+     * Unsealed receipt numbers of one product, in the order they were added.
+     */
+    private static final class Postings {
+        private int[] numbers = new int[4];
+        private int count;
+
+        boolean add(int receiptNumber) {
+            if (count > 0 && numbers[count - 1] == receiptNumber) {
+                return false;
+            }
+            if (count == numbers.length) {
+                numbers = Arrays.copyOf(numbers, count * 2);
+            }
+            numbers[count++] = receiptNumber;
+            return true;
+        }
+
+        int[] copy() {
+            return Arrays.copyOf(numbers, count);
+        }
+    }
+
+    /**
+     * One immutable, memory-mapped segment file.
+     */
+    private static final class Segment {
+        private final File file;
+        private final MappedByteBuffer buffer;
+        // Per SKU, the offset of its data in the high half and its posting count in the low half.
+        private final Map<String, Long> entries;
+
+        private Segment(File file, MappedByteBuffer buffer, Map<String, Long> entries) {
+            this.file = file;
+            this.buffer = buffer;
+            this.entries = entries;
+        }
+
+        static Segment open(File file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                    throw new ReceiptException("Not a product index segment: " + file);
+                }
+                int productCount = buffer.getInt(Integer.BYTES + Long.BYTES);
+                String[] skus = new String[productCount];
+                int[] counts = new int[productCount];
+                int[] lengths = new int[productCount];
+                int position = HEADER_SIZE;
+                for (int i = 0; i < productCount; i++) {
+                    byte[] sku = new byte[buffer.getInt(position)];
+                    buffer.get(position + Integer.BYTES, sku);
+                    position += Integer.BYTES + sku.length;
+                    skus[i] = new String(sku, StandardCharsets.UTF_8);
+                    counts[i] = buffer.getInt(position);
+                    lengths[i] = buffer.getInt(position + Integer.BYTES);
+                    position += 2 * Integer.BYTES;
+                }
+                Map<String, Long> entries = new HashMap<>(productCount * 2);
+                for (int i = 0; i < productCount; i++) {
+                    entries.put(skus[i], ((long) position << 32) | counts[i]);
+                    position += lengths[i];
+                }
+                return new Segment(file, buffer, entries);
+            } catch (IndexOutOfBoundsException e) {
+                throw new ReceiptException("Truncated product index segment: " + file);
+            }
+        }
+
+        int[] postings(String sku) {
+            Long entry = entries.get(sku);
+            return entry == null ? NO_RECEIPTS : decode(buffer, (int) (entry >>> 32), (int) (long) entry);
+        }
+
+        long coveredThrough() {
+            return buffer.getLong(Integer.BYTES);
+        }
+    }
+}
@@ -5,45 +5,111 @@ import org.example.model.store.Cashier;
 import org.example.exception.ReceiptException;
 import java.io.Serializable;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.io.IOException;
-import java.text.NumberFormat;
-import java.util.Locale;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class Receipt implements Serializable {
     private static final long serialVersionUID = 1L;
     private static final AtomicInteger nextReceiptNumber = new AtomicInteger(1);
     private static final int MAX_RECEIPT_NUMBER = Integer.MAX_VALUE;
-    private final int receiptNumber;
-    private final Cashier cashier;
-    private final LocalDateTime dateTime;
-    private final Map<Product, Integer> items;
-    private final double totalAmount;
-    private static final NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.US);
-    private static final NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.US);
-    private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Not final so readObject can also rebuild receipts serialized in the older map-based form.
+    private int receiptNumber;
+    private Cashier cashier;
+    private LocalDateTime dateTime;
+    private Product[] products;
+    private int[] quantities;
+    private double[] linePrices;
+    private double[] lineDiscounts;
+    private String[] linePromotions;
+    private double totalAmount;
 
     public Receipt(Cashier cashier, Map<Product, Integer> items, double totalAmount) {
-        if (cashier == null) {
-            throw new ReceiptException("Cashier cannot be null");
-        }
+        this(cashier, items, null, totalAmount);
+    }
+
+    /**
+     * Creates a receipt that records the unit price each product was sold at.
+     * Products missing from {@code unitPrices} fall back to
+     * {@link Product#calculateSellingPrice()}.
+     */
+    public Receipt(Cashier cashier, Map<Product, Integer> items, Map<Product, Double> unitPrices, double totalAmount) {
         if (items == null) {
             throw new ReceiptException("Items cannot be null");
         }
-        if (items.isEmpty()) {
+        validate(cashier, items.size(), totalAmount);
+
+        int lineCount = items.size();
+        Product[] lineProducts = new Product[lineCount];
+        int[] lineQuantities = new int[lineCount];
+        double[] prices = new double[lineCount];
+        int line = 0;
+        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
+            Product product = entry.getKey();
+            Double price = unitPrices == null ? null : unitPrices.get(product);
+            lineProducts[line] = product;
+            lineQuantities[line] = entry.getValue();
+            prices[line] = price != null ? price : product.calculateSellingPrice();
+            line++;
+        }
+        init(cashier, lineProducts, lineQuantities, prices, new double[lineCount], new String[lineCount], totalAmount);
+    }
+
+    /**
+     * Creates a receipt from the first {@code lineCount} entries of parallel
+     * line arrays. The arrays are copied, so callers may reuse them.
+     */
+    public Receipt(Cashier cashier, Product[] products, int[] quantities, double[] unitPrices, int lineCount,
+                   double totalAmount) {
+        this(cashier, products, quantities, unitPrices, null, null, lineCount, totalAmount);
+    }
+
+    /**
+     * Creates a receipt whose lines carry promotion discounts. {@code discounts}
+     * and {@code promotionIds} may be {@code null} when no line is discounted;
+     * {@code totalAmount} is the amount charged after discounts.
+     */
+    public Receipt(Cashier cashier, Product[] products, int[] quantities, double[] unitPrices, double[] discounts,
+                   String[] promotionIds, int lineCount, double totalAmount) {
+        if (products == null || quantities == null || unitPrices == null) {
+            throw new ReceiptException("Items cannot be null");
+        }
+        if (lineCount < 0 || lineCount > products.length || lineCount > quantities.length
+                || lineCount > unitPrices.length || (discounts != null && lineCount > discounts.length)
+                || (promotionIds != null && lineCount > promotionIds.length)) {
+            throw new ReceiptException("Invalid line count: " + lineCount);
+        }
+        validate(cashier, lineCount, totalAmount);
+        init(cashier, Arrays.copyOf(products, lineCount), Arrays.copyOf(quantities, lineCount),
+            Arrays.copyOf(unitPrices, lineCount),
+            discounts == null ? new double[lineCount] : Arrays.copyOf(discounts, lineCount),
+            promotionIds == null ? new String[lineCount] : Arrays.copyOf(promotionIds, lineCount), totalAmount);
+    }
+
+    private static void validate(Cashier cashier, int lineCount, double totalAmount) {
+        if (cashier == null) {
+            throw new ReceiptException("Cashier cannot be null");
+        }
+        if (lineCount == 0) {
             throw new ReceiptException("Items cannot be empty");
         }
         if (totalAmount < 0) {
             throw new ReceiptException("Total amount cannot be negative");
         }
+    }
 
+    private void init(Cashier cashier, Product[] products, int[] quantities, double[] prices, double[] discounts,
+                      String[] promotions, double totalAmount) {
         this.receiptNumber = generateReceiptNumber();
         this.cashier = cashier;
         this.dateTime = LocalDateTime.now();
-        this.items = new HashMap<>(items);
+        this.products = products;
+        this.quantities = quantities;
+        this.linePrices = prices;
+        this.lineDiscounts = discounts;
+        this.linePromotions = promotions;
         this.totalAmount = totalAmount;
     }
 
@@ -56,6 +122,16 @@ public class Receipt implements Serializable {
         return nextReceiptNumber.getAndIncrement();
     }
 
+    /**
+     * Makes receipts created from now on number above {@code receiptNumber},
+     * for a process taking over from another that already issued it.
+     */
+    public static synchronized void continueNumberingAfter(int receiptNumber) {
+        if (receiptNumber < MAX_RECEIPT_NUMBER && nextReceiptNumber.get() <= receiptNumber) {
+            nextReceiptNumber.set(receiptNumber + 1);
+        }
+    }
+
     public int getReceiptNumber() {
         return receiptNumber;
     }
@@ -69,7 +145,58 @@ public class Receipt implements Serializable {
     }
 
     public Map<Product, Integer> getItems() {
-        return new HashMap<>(items);
+        Map<Product, Integer> items = new HashMap<>();
+        for (int i = 0; i < products.length; i++) {
+            items.merge(products[i], quantities[i], Integer::sum);
+        }
+        return items;
+    }
+
+    public int getLineCount() {
+        return products.length;
+    }
+
+    public Product getProduct(int line) {
+        return products[line];
+    }
+
+    public int getQuantity(int line) {
+        return quantities[line];
+    }
+
+    public double getUnitPrice(int line) {
+        return linePrices[line];
+    }
+
+    /**
+     * Promotion discount taken off this line, or 0.
+     */
+    public double getDiscount(int line) {
+        return lineDiscounts[line];
+    }
+
+    /**
+     * Id of the promotion applied to this line, or {@code null}.
+     */
+    public String getPromotionId(int line) {
+        return linePromotions[line];
+    }
+
+    public double getTotalDiscount() {
+        double total = 0;
+        for (double discount : lineDiscounts) {
+            total += discount;
+        }
+        return total;
+    }
+
+    public double getUnitPrice(Product product) {
+        for (int i = 0; i < products.length; i++) {
+            if (products[i] == product) {
+                return linePrices[i];
+            }
+        }
+        return product.calculateSellingPrice();
     }
 
     public double getTotalAmount() {
@@ -78,25 +205,12 @@ public class Receipt implements Serializable {
 
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Receipt #").append(receiptNumber).append("\n");
-        sb.append("Date: ").append(dateTime.format(dateFormatter)).append("\n");
-        sb.append("Cashier: ").append(cashier.getName()).append("\n");
-        sb.append("Items:\n");
-        
-        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
-            Product product = entry.getKey();
-            int quantity = entry.getValue();
-            double price = product.calculateSellingPrice();
-            double subtotal = price * quantity;
-            sb.append(String.format("- %s x%d (%s each) = %s\n",
-                product.getName(),
-                quantity,
-                currencyFormat.format(price),
-                currencyFormat.format(subtotal)));
-        }
-        
-        sb.append("Total Amount: ").append(currencyFormat.format(totalAmount));
+        StringBuilder sb = new StringBuilder(128 + products.length * 48);
+        try {
+            ReceiptRenderer.render(this, sb);
+        } catch (IOException e) {
+            throw new ReceiptException("Failed to render receipt: " + e.getMessage(), e);
+        }
         return sb.toString();
     }
 
@@ -104,10 +218,58 @@ public class Receipt implements Serializable {
         out.defaultWriteObject();
     }
 
+    @SuppressWarnings("unchecked")
     private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
-        in.defaultReadObject();
-        if (cashier == null || items == null || dateTime == null) {
+        java.io.ObjectInputStream.GetField fields = in.readFields();
+        receiptNumber = fields.get("receiptNumber", 0);
+        cashier = (Cashier) fields.get("cashier", null);
+        dateTime = (LocalDateTime) fields.get("dateTime", null);
+        totalAmount = fields.get("totalAmount", 0.0);
+        products = (Product[]) optionalField(fields, "products");
+        quantities = (int[]) optionalField(fields, "quantities");
+        linePrices = (double[]) optionalField(fields, "linePrices");
+        lineDiscounts = (double[]) optionalField(fields, "lineDiscounts");
+        linePromotions = (String[]) optionalField(fields, "linePromotions");
+
+        if (products == null) {
+            // Receipts written before line arrays were introduced keep their lines in maps.
+            Map<Product, Integer> items = (Map<Product, Integer>) optionalField(fields, "items");
+            Map<Product, Double> unitPrices = (Map<Product, Double>) optionalField(fields, "unitPrices");
+            if (items != null) {
+                products = new Product[items.size()];
+                quantities = new int[items.size()];
+                linePrices = new double[items.size()];
+                int line = 0;
+                for (Map.Entry<Product, Integer> entry : items.entrySet()) {
+                    Double price = unitPrices == null ? null : unitPrices.get(entry.getKey());
+                    products[line] = entry.getKey();
+                    quantities[line] = entry.getValue();
+                    linePrices[line] = price != null ? price : entry.getKey().calculateSellingPrice();
+                    line++;
+                }
+            }
+        }
+
+        if (products != null && lineDiscounts == null) {
+            lineDiscounts = new double[products.length];
+        }
+        if (products != null && linePromotions == null) {
+            linePromotions = new String[products.length];
+        }
+
+        if (cashier == null || products == null || quantities == null || linePrices == null || dateTime == null
+                || quantities.length != products.length || linePrices.length != products.length
+                || lineDiscounts.length != products.length || linePromotions.length != products.length) {
             throw new ReceiptException("Invalid receipt data during deserialization");
         }
     }
-} 
\ No newline at end of file
+
+    private static Object optionalField(java.io.ObjectInputStream.GetField fields, String name) throws IOException {
+        try {
+            return fields.get(name, null);
+        } catch (IllegalArgumentException e) {
+            // Older serialized forms do not carry every field.
+            return null;
+        }
+    }
+}
@@ -0,0 +1,614 @@
+package org.example.model.receipt;
+
+import org.example.exception.ReceiptException;
+import org.example.model.product.Product;
+import org.example.util.StoreLogger;
+
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-optimized, append-only archive of sealed receipts.
+ *
+ * Receipt data lives in fixed-size memory-mapped segment files. A fixed-width
+ * index file maps a receipt number straight to its segment, offset, length and
+ * timestamp, and an in-memory sparse timestamp index keeps the min/max time of
+ * every block of {@value #TIMESTAMP_BLOCK_SIZE} receipt numbers so range queries
+ * only visit blocks that can match. Reads never copy the stored bytes.
+ *
+ * A {@link ProductReceiptIndex} kept next to the segments maps each product
+ * to the receipts that sold it, for recalls and audits. Receipts the index
+ * had not yet written to disk when the process stopped are indexed again
+ * when the archive is opened.
+ *
+ * Each receipt number is archived once; appending a number that is already
+ * there is refused rather than overwriting history. Receipt numbers restart
+ * from 1 in every JVM, so a process writing to an existing archive must first
+ * continue numbering after {@link #getHighestReceiptNumber()}, as
+ * {@code Store.setReceiptArchive} does.
+ */
+public class ReceiptArchive implements Closeable {
+    private static final String INDEX_FILE = "receipts.idx";
+    private static final String SEGMENT_FILE_FORMAT = "receipts-%05d.seg";
+    private static final int INDEX_ENTRY_SIZE = 24;
+    private static final int ENTRIES_PER_INDEX_CHUNK = 1 << 20;
+    private static final int SEGMENT_HEADER_SIZE = Long.BYTES;
+    static final int TIMESTAMP_BLOCK_SIZE = 1024;
+    private static final long DEFAULT_SEGMENT_SIZE = 256L << 20;
+    // An index entry's length is written last with release semantics and read
+    // with acquire, so a reader that sees it also sees the entry's location.
+    private static final VarHandle INDEX_INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final File directory;
+    private final long segmentSize;
+    private final FileChannel indexChannel;
+    private final List<FileChannel> segmentChannels;
+    private final ExecutorService appendExecutor;
+    private final ProductReceiptIndex productIndex;
+
+    private volatile MappedByteBuffer[] indexChunks;
+    private volatile MappedByteBuffer[] segments;
+    private volatile long[] blockMinTimestamps;
+    private volatile long[] blockMaxTimestamps;
+    private volatile int highestReceiptNumber;
+    private long writePosition;
+    private boolean closed;
+
+    public ReceiptArchive(File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    ReceiptArchive(File directory, long segmentSize) {
+        if (directory == null) {
+            throw new ReceiptException("Archive directory cannot be null");
+        }
+        if (segmentSize <= SEGMENT_HEADER_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new ReceiptException("Invalid archive segment size: " + segmentSize);
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new ReceiptException("Failed to create archive directory: " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segmentChannels = new ArrayList<>();
+        this.indexChunks = new MappedByteBuffer[0];
+        this.segments = new MappedByteBuffer[0];
+        this.blockMinTimestamps = new long[0];
+        this.blockMaxTimestamps = new long[0];
+        this.appendExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "receipt-archive-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            this.indexChannel = FileChannel.open(new File(directory, INDEX_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            openExistingSegments();
+            rebuildTimestampIndex();
+            this.productIndex = new ProductReceiptIndex(directory, ProductReceiptIndex.DEFAULT_SEAL_THRESHOLD);
+            indexReceiptsStoredAfter(productIndex.getSealedThrough());
+        } catch (IOException e) {
+            throw new ReceiptException("Failed to open receipt archive: " + e.getMessage(), e);
+        }
+        StoreLogger.info("Receipt archive opened at " + directory + " with " + highestReceiptNumber
+            + " as highest receipt number");
+    }
+
+    /**
+     * Appends a receipt synchronously. The receipt is visible to readers once
+     * this method returns.
+     *
+     * @throws ReceiptException if a receipt with the same number is archived
+     */
+    public synchronized void append(Receipt receipt) {
+        if (receipt == null) {
+            throw new ReceiptException("Receipt cannot be null");
+        }
+        ensureOpen();
+        if (contains(receipt.getReceiptNumber())) {
+            throw new ReceiptException("Receipt #" + receipt.getReceiptNumber() + " is already archived");
+        }
+        byte[] data = serialize(receipt);
+        if (data.length > segmentSize - SEGMENT_HEADER_SIZE) {
+            throw new ReceiptException("Receipt #" + receipt.getReceiptNumber() + " is too large for the archive");
+        }
+
+        try {
+            MappedByteBuffer[] currentSegments = segments;
+            if (currentSegments.length == 0 || writePosition + data.length > segmentSize) {
+                currentSegments = addSegment();
+            }
+            int segmentIndex = currentSegments.length - 1;
+            MappedByteBuffer segment = currentSegments[segmentIndex];
+            int offset = (int) writePosition;
+            long location = ((long) segmentIndex << 32) | offset;
+            segment.put(offset, data);
+            writePosition += data.length;
+            segment.putLong(0, writePosition);
+
+            int receiptNumber = receipt.getReceiptNumber();
+            long timestamp = toEpochMillis(receipt.getDateTime());
+            int slot = receiptNumber - 1;
+            MappedByteBuffer chunk = indexChunkForWrite(slot);
+            int position = (slot % ENTRIES_PER_INDEX_CHUNK) * INDEX_ENTRY_SIZE;
+            chunk.putLong(position, location);
+            chunk.putLong(position + 8, timestamp);
+            INDEX_INT.setRelease(chunk, position + 16, data.length);
+
+            recordTimestamp(slot, timestamp);
+            productIndex.add(receipt, location);
+            // Always a volatile write: it publishes the entry to lock-free readers.
+            highestReceiptNumber = Math.max(highestReceiptNumber, receiptNumber);
+        } catch (IOException e) {
+            throw new ReceiptException("Failed to archive receipt #" + receipt.getReceiptNumber() + ": "
+                + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Queues a receipt for archiving on the archive's background writer so the
+     * caller (usually a checkout) does not pay for serialization and I/O.
+     */
+    public CompletableFuture<Void> appendAsync(Receipt receipt) {
+        if (receipt == null) {
+            throw new ReceiptException("Receipt cannot be null");
+        }
+        return CompletableFuture.runAsync(() -> append(receipt), appendExecutor)
+            .whenComplete((ignored, error) -> {
+                if (error != null) {
+                    StoreLogger.error("Failed to archive receipt #" + receipt.getReceiptNumber(), error);
+                }
+            });
+    }
+
+    /**
+     * Builds the archive from the {@code receipt_N.ser} journal written by the
+     * store, skipping receipts that are already archived. Returns the number
+     * of receipts imported.
+     */
+    public int importDirectory(File receiptsDirectory) {
+        if (receiptsDirectory == null || !receiptsDirectory.isDirectory()) {
+            throw new ReceiptException("Receipts directory does not exist: " + receiptsDirectory);
+        }
+        File[] files = receiptsDirectory.listFiles((dir, name) -> name.startsWith("receipt_") && name.endsWith(".ser"));
+        if (files == null) {
+            return 0;
+        }
+        List<Receipt> loaded = new ArrayList<>(files.length);
+        for (File file : files) {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                Receipt receipt = (Receipt) in.readObject();
+                if (!contains(receipt.getReceiptNumber())) {
+                    loaded.add(receipt);
+                }
+            } catch (IOException | ClassNotFoundException | ClassCastException | ReceiptException e) {
+                StoreLogger.warning("Skipping unreadable receipt file " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        loaded.sort((a, b) -> a.getDateTime().compareTo(b.getDateTime()));
+        loaded.forEach(this::append);
+        return loaded.size();
+    }
+
+    /**
+     * Returns a read-only view of the stored receipt bytes, or {@code null} if
+     * the receipt is not archived. The buffer is backed by the mapped file.
+     */
+    public ByteBuffer getReceiptData(int receiptNumber) {
+        if (receiptNumber <= 0 || receiptNumber > highestReceiptNumber) {
+            return null;
+        }
+        int slot = receiptNumber - 1;
+        MappedByteBuffer[] chunks = indexChunks;
+        int chunkIndex = slot / ENTRIES_PER_INDEX_CHUNK;
+        if (chunkIndex >= chunks.length) {
+            return null;
+        }
+        MappedByteBuffer chunk = chunks[chunkIndex];
+        int position = (slot % ENTRIES_PER_INDEX_CHUNK) * INDEX_ENTRY_SIZE;
+        int length = (int) INDEX_INT.getAcquire(chunk, position + 16);
+        if (length == 0) {
+            return null;
+        }
+        long location = chunk.getLong(position);
+        return segments[(int) (location >>> 32)]
+            .slice((int) location, length)
+            .asReadOnlyBuffer();
+    }
+
+    public Receipt getReceipt(int receiptNumber) {
+        ByteBuffer data = getReceiptData(receiptNumber);
+        return data == null ? null : deserialize(data);
+    }
+
+    public boolean contains(int receiptNumber) {
+        return getReceiptData(receiptNumber) != null;
+    }
+
+    /**
+     * Returns all archived receipts with a timestamp in {@code [from, to]},
+     * ordered by receipt number.
+     */
+    public List<Receipt> getReceipts(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new ReceiptException("Date range cannot be null");
+        }
+        if (from.isAfter(to)) {
+            throw new ReceiptException("Invalid date range: " + from + " is after " + to);
+        }
+        long fromMillis = toEpochMillis(from);
+        long toMillis = toEpochMillis(to);
+        int highest = highestReceiptNumber;
+        long[] minTimestamps = blockMinTimestamps;
+        long[] maxTimestamps = blockMaxTimestamps;
+        MappedByteBuffer[] chunks = indexChunks;
+
+        List<Receipt> result = new ArrayList<>();
+        int blocks = Math.min(minTimestamps.length, (highest + TIMESTAMP_BLOCK_SIZE - 1) / TIMESTAMP_BLOCK_SIZE);
+        for (int block = 0; block < blocks; block++) {
+            if (maxTimestamps[block] < fromMillis || minTimestamps[block] > toMillis) {
+                continue;
+            }
+            int firstSlot = block * TIMESTAMP_BLOCK_SIZE;
+            int lastSlot = Math.min(firstSlot + TIMESTAMP_BLOCK_SIZE, highest);
+            for (int slot = firstSlot; slot < lastSlot; slot++) {
+                MappedByteBuffer chunk = chunks[slot / ENTRIES_PER_INDEX_CHUNK];
+                int position = (slot % ENTRIES_PER_INDEX_CHUNK) * INDEX_ENTRY_SIZE;
+                if ((int) INDEX_INT.getAcquire(chunk, position + 16) == 0) {
+                    continue;
+                }
+                long timestamp = chunk.getLong(position + 8);
+                if (timestamp >= fromMillis && timestamp <= toMillis) {
+                    result.add(getReceipt(slot + 1));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Numbers of the archived receipts that sold {@code product}, ascending,
+     * matched by {@link Product#getSku()} so receipts from earlier runs are
+     * found too. Answered from the product index without reading any receipt.
+     */
+    public int[] getReceiptNumbers(Product product) {
+        if (product == null) {
+            throw new ReceiptException("Product cannot be null");
+        }
+        return productIndex.receiptNumbers(product);
+    }
+
+    /**
+     * Numbers of the archived receipts that sold {@code product} with a
+     * timestamp in {@code [from, to]}, ascending.
+     */
+    public int[] getReceiptNumbers(Product product, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new ReceiptException("Date range cannot be null");
+        }
+        if (from.isAfter(to)) {
+            throw new ReceiptException("Invalid date range: " + from + " is after " + to);
+        }
+        long fromMillis = toEpochMillis(from);
+        long toMillis = toEpochMillis(to);
+        int[] candidates = getReceiptNumbers(product);
+        int matched = 0;
+        for (int receiptNumber : candidates) {
+            long timestamp = getTimestamp(receiptNumber);
+            if (timestamp >= fromMillis && timestamp <= toMillis) {
+                candidates[matched++] = receiptNumber;
+            }
+        }
+        return Arrays.copyOf(candidates, matched);
+    }
+
+    /**
+     * Archived receipts that sold {@code product} with a timestamp in
+     * {@code [from, to]}, ordered by receipt number.
+     */
+    public List<Receipt> getReceiptsContaining(Product product, LocalDateTime from, LocalDateTime to) {
+        List<Receipt> result = new ArrayList<>();
+        for (int receiptNumber : getReceiptNumbers(product, from, to)) {
+            Receipt receipt = getReceipt(receiptNumber);
+            if (receipt != null) {
+                result.add(receipt);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merges the product index segments into one.
+     */
+    public void compactProductIndex() {
+        try {
+            productIndex.compact();
+        } catch (IOException e) {
+            throw new ReceiptException("Failed to compact product index: " + e.getMessage(), e);
+        }
+    }
+
+    int getProductIndexSegmentCount() {
+        return productIndex.getSegmentCount();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public int getHighestReceiptNumber() {
+        return highestReceiptNumber;
+    }
+
+    /**
+     * Waits for queued background appends and forces mapped data to disk.
+     */
+    public void flush() {
+        try {
+            appendExecutor.submit(() -> { }).get();
+        } catch (Exception e) {
+            throw new ReceiptException("Failed to flush receipt archive: " + e.getMessage(), e);
+        }
+        synchronized (this) {
+            for (MappedByteBuffer chunk : indexChunks) {
+                chunk.force();
+            }
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            sealProductIndex();
+        }
+    }
+
+    @Override
+    public void close() {
+        appendExecutor.shutdown();
+        try {
+            if (!appendExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                StoreLogger.warning("Receipt archive writer did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            sealProductIndex();
+            for (MappedByteBuffer chunk : indexChunks) {
+                chunk.force();
+            }
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            try {
+                indexChannel.close();
+                for (FileChannel channel : segmentChannels) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                throw new ReceiptException("Failed to close receipt archive: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void sealProductIndex() {
+        try {
+            productIndex.seal();
+        } catch (IOException e) {
+            throw new ReceiptException("Failed to write product index: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Indexes, in storage order, every receipt stored after {@code sealedThrough}:
+     * the postings a crash lost before they were sealed, or the whole archive
+     * if it has no product index yet.
+     */
+    private void indexReceiptsStoredAfter(long sealedThrough) throws IOException {
+        List<long[]> unindexed = new ArrayList<>();
+        MappedByteBuffer[] chunks = indexChunks;
+        for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+            MappedByteBuffer chunk = chunks[chunkIndex];
+            for (int entry = 0; entry < ENTRIES_PER_INDEX_CHUNK; entry++) {
+                int position = entry * INDEX_ENTRY_SIZE;
+                long location = chunk.getLong(position);
+                if (chunk.getInt(position + 16) != 0 && location > sealedThrough) {
+                    unindexed.add(new long[]{location, chunkIndex * (long) ENTRIES_PER_INDEX_CHUNK + entry + 1});
+                }
+            }
+        }
+        if (unindexed.isEmpty()) {
+            return;
+        }
+        unindexed.sort((a, b) -> Long.compare(a[0], b[0]));
+        for (long[] stored : unindexed) {
+            Receipt receipt = getReceipt((int) stored[1]);
+            if (receipt != null) {
+                productIndex.add(receipt, stored[0]);
+            }
+        }
+        productIndex.seal();
+        StoreLogger.info("Indexed " + unindexed.size() + " archived receipts missing from the product index");
+    }
+
+    private long getTimestamp(int receiptNumber) {
+        if (receiptNumber <= 0 || receiptNumber > highestReceiptNumber) {
+            return Long.MIN_VALUE;
+        }
+        int slot = receiptNumber - 1;
+        MappedByteBuffer[] chunks = indexChunks;
+        int chunkIndex = slot / ENTRIES_PER_INDEX_CHUNK;
+        if (chunkIndex >= chunks.length) {
+            return Long.MIN_VALUE;
+        }
+        int position = (slot % ENTRIES_PER_INDEX_CHUNK) * INDEX_ENTRY_SIZE;
+        MappedByteBuffer chunk = chunks[chunkIndex];
+        return (int) INDEX_INT.getAcquire(chunk, position + 16) == 0 ? Long.MIN_VALUE : chunk.getLong(position + 8);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new ReceiptException("Receipt archive is closed");
+        }
+    }
+
+    private void openExistingSegments() throws IOException {
+        List<MappedByteBuffer> mapped = new ArrayList<>();
+        for (int i = 0; ; i++) {
+            File file = segmentFile(i);
+            if (!file.exists()) {
+                break;
+            }
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segmentChannels.add(channel);
+            mapped.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        }
+        segments = mapped.toArray(new MappedByteBuffer[0]);
+        writePosition = segments.length == 0 ? 0 : segments[segments.length - 1].getLong(0);
+
+        long indexSize = indexChannel.size();
+        int chunkBytes = ENTRIES_PER_INDEX_CHUNK * INDEX_ENTRY_SIZE;
+        int chunkCount = (int) ((indexSize + chunkBytes - 1) / chunkBytes);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i] = indexChannel.map(FileChannel.MapMode.READ_WRITE, (long) i * chunkBytes, chunkBytes);
+        }
+        indexChunks = chunks;
+    }
+
+    private void rebuildTimestampIndex() {
+        MappedByteBuffer[] chunks = indexChunks;
+        int highest = 0;
+        for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+            MappedByteBuffer chunk = chunks[chunkIndex];
+            for (int entry = 0; entry < ENTRIES_PER_INDEX_CHUNK; entry++) {
+                int position = entry * INDEX_ENTRY_SIZE;
+                if (chunk.getInt(position + 16) == 0) {
+                    continue;
+                }
+                int slot = chunkIndex * ENTRIES_PER_INDEX_CHUNK + entry;
+                recordTimestamp(slot, chunk.getLong(position + 8));
+                highest = slot + 1;
+            }
+        }
+        highestReceiptNumber = highest;
+    }
+
+    private void recordTimestamp(int slot, long timestamp) {
+        int block = slot / TIMESTAMP_BLOCK_SIZE;
+        long[] minTimestamps = blockMinTimestamps;
+        long[] maxTimestamps = blockMaxTimestamps;
+        if (block >= minTimestamps.length) {
+            int newLength = Math.max(block + 1, minTimestamps.length * 2);
+            minTimestamps = Arrays.copyOf(minTimestamps, newLength);
+            maxTimestamps = Arrays.copyOf(maxTimestamps, newLength);
+            Arrays.fill(minTimestamps, blockMinTimestamps.length, newLength, Long.MAX_VALUE);
+            Arrays.fill(maxTimestamps, blockMaxTimestamps.length, newLength, Long.MIN_VALUE);
+        }
+        minTimestamps[block] = Math.min(minTimestamps[block], timestamp);
+        maxTimestamps[block] = Math.max(maxTimestamps[block], timestamp);
+        blockMinTimestamps = minTimestamps;
+        blockMaxTimestamps = maxTimestamps;
+    }
+
+    private MappedByteBuffer[] addSegment() throws IOException {
+        int index = segments.length;
+        FileChannel channel = FileChannel.open(segmentFile(index).toPath(),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentChannels.add(channel);
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.putLong(0, SEGMENT_HEADER_SIZE);
+        writePosition = SEGMENT_HEADER_SIZE;
+        MappedByteBuffer[] grown = Arrays.copyOf(segments, index + 1);
+        grown[index] = segment;
+        segments = grown;
+        return grown;
+    }
+
+    private MappedByteBuffer indexChunkForWrite(int slot) throws IOException {
+        int chunkIndex = slot / ENTRIES_PER_INDEX_CHUNK;
+        MappedByteBuffer[] chunks = indexChunks;
+        if (chunkIndex >= chunks.length) {
+            int chunkBytes = ENTRIES_PER_INDEX_CHUNK * INDEX_ENTRY_SIZE;
+            MappedByteBuffer[] grown = Arrays.copyOf(chunks, chunkIndex + 1);
+            for (int i = chunks.length; i <= chunkIndex; i++) {
+                grown[i] = indexChannel.map(FileChannel.MapMode.READ_WRITE, (long) i * chunkBytes, chunkBytes);
+            }
+            indexChunks = grown;
+            chunks = grown;
+        }
+        return chunks[chunkIndex];
+    }
+
+    private File segmentFile(int index) {
+        return new File(directory, String.format(SEGMENT_FILE_FORMAT, index));
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static byte[] serialize(Receipt receipt) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(receipt);
+        } catch (IOException e) {
+            throw new ReceiptException("Failed to serialize receipt: " + e.getMessage(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Receipt deserialize(ByteBuffer data) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteBufferInputStream(data))) {
+            return (Receipt) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new ReceiptException("Failed to read archived receipt: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.model.receipt;
+
+import org.example.exception.ReceiptException;
+import org.example.util.CurrencyFormatter;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+
+/**
+ * Renders the text form of a {@link Receipt} straight into a caller-supplied
+ * {@link Appendable} or {@link ByteBuffer} (UTF-8) without building a
+ * {@code String} per line. The output is identical to {@link Receipt#toString()}.
+ */
+public final class ReceiptRenderer {
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    private static final ThreadLocal<ByteBuffer> textBuffer =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    private ReceiptRenderer() {
+    }
+
+    public static void render(Receipt receipt, Appendable out) throws IOException {
+        if (receipt == null) {
+            throw new ReceiptException("Receipt cannot be null");
+        }
+        out.append("Receipt #");
+        appendInt(out, receipt.getReceiptNumber());
+        out.append("\nDate: ");
+        appendDateTime(out, receipt.getDateTime());
+        out.append("\nCashier: ").append(receipt.getCashier().getName());
+        out.append("\nItems:\n");
+
+        for (int line = 0; line < receipt.getLineCount(); line++) {
+            int quantity = receipt.getQuantity(line);
+            double price = receipt.getUnitPrice(line);
+            out.append("- ").append(receipt.getProduct(line).getName()).append(" x");
+            appendInt(out, quantity);
+            out.append(" (");
+            CurrencyFormatter.appendCents(out, CurrencyFormatter.toCents(price));
+            out.append(" each) = ");
+            CurrencyFormatter.appendCents(out, CurrencyFormatter.toCents(price * quantity));
+            out.append('\n');
+            double discount = receipt.getDiscount(line);
+            if (discount > 0) {
+                out.append("  Promotion ");
+                String promotion = receipt.getPromotionId(line);
+                if (promotion != null) {
+                    out.append(promotion).append(' ');
+                }
+                CurrencyFormatter.appendCents(out, -CurrencyFormatter.toCents(discount));
+                out.append('\n');
+            }
+        }
+
+        double totalDiscount = receipt.getTotalDiscount();
+        if (totalDiscount > 0) {
+            out.append("Total Discount: ");
+            CurrencyFormatter.appendCents(out, -CurrencyFormatter.toCents(totalDiscount));
+            out.append('\n');
+        }
+        out.append("Total Amount: ");
+        CurrencyFormatter.appendCents(out, CurrencyFormatter.toCents(receipt.getTotalAmount()));
+    }
+
+    /**
+     * Renders the receipt as UTF-8 into {@code target} starting at its current
+     * position and returns the number of bytes written.
+     *
+     * @throws BufferOverflowException if {@code target} has too little room left
+     */
+    public static int render(Receipt receipt, ByteBuffer target) {
+        int start = target.position();
+        try {
+            render(receipt, new Utf8Appendable(target));
+        } catch (IOException e) {
+            throw new ReceiptException("Failed to render receipt: " + e.getMessage(), e);
+        }
+        return target.position() - start;
+    }
+
+    /**
+     * Renders the receipt into a per-thread reusable buffer and writes it to
+     * {@code channel}. The buffer grows when a receipt does not fit and is kept
+     * for the next call.
+     */
+    public static void writeTo(Receipt receipt, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = textBuffer.get();
+        while (true) {
+            buffer.clear();
+            try {
+                render(receipt, buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                textBuffer.set(buffer);
+            }
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void appendDateTime(Appendable out, LocalDateTime dateTime) throws IOException {
+        appendPadded(out, dateTime.getYear(), 4);
+        out.append('-');
+        appendPadded(out, dateTime.getMonthValue(), 2);
+        out.append('-');
+        appendPadded(out, dateTime.getDayOfMonth(), 2);
+        out.append(' ');
+        appendPadded(out, dateTime.getHour(), 2);
+        out.append(':');
+        appendPadded(out, dateTime.getMinute(), 2);
+        out.append(':');
+        appendPadded(out, dateTime.getSecond(), 2);
+    }
+
+    private static void appendPadded(Appendable out, int value, int width) throws IOException {
+        int divisor = 1;
+        for (int i = 1; i < width; i++) {
+            divisor *= 10;
+        }
+        while (divisor > value && divisor > 1) {
+            out.append('0');
+            divisor /= 10;
+        }
+        appendInt(out, value);
+    }
+
+    private static void appendInt(Appendable out, int value) throws IOException {
+        if (value < 0) {
+            out.append('-');
+            if (value == Integer.MIN_VALUE) {
+                out.append("2147483648");
+                return;
+            }
+            value = -value;
+        }
+        int divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            out.append((char) ('0' + value / divisor % 10));
+            divisor /= 10;
+        }
+    }
+
+    /**
+     * Encodes appended characters as UTF-8 directly into a byte buffer.
+     */
+    private static final class Utf8Appendable implements Appendable {
+        private final ByteBuffer target;
+        private char pendingHighSurrogate;
+
+        Utf8Appendable(ByteBuffer target) {
+            this.target = target;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            for (int i = start; i < end; i++) {
+                append(csq.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    target.put((byte) (0xF0 | (codePoint >> 18)));
+                    target.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    target.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    target.put((byte) (0x80 | (codePoint & 0x3F)));
+                    return this;
+                }
+                target.put((byte) '?');
+            }
+            if (c < 0x80) {
+                target.put((byte) c);
+            } else if (c < 0x800) {
+                target.put((byte) (0xC0 | (c >> 6)));
+                target.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c)) {
+                pendingHighSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                target.put((byte) '?');
+            } else {
+                target.put((byte) (0xE0 | (c >> 12)));
+                target.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                target.put((byte) (0x80 | (c & 0x3F)));
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.model.returns;
+
+import org.example.model.product.Product;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A completed return against one receipt.
+ */
+public class Refund {
+    private final int receiptNumber;
+    private final Map<Product, Integer> items;
+    private final double amount;
+    private final LocalDateTime dateTime;
+
+    Refund(int receiptNumber, Map<Product, Integer> items, double amount) {
+        this.receiptNumber = receiptNumber;
+        this.items = Collections.unmodifiableMap(new LinkedHashMap<>(items));
+        this.amount = amount;
+        this.dateTime = LocalDateTime.now();
+    }
+
+    public int getReceiptNumber() {
+        return receiptNumber;
+    }
+
+    public Map<Product, Integer> getItems() {
+        return items;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Refund{receiptNumber=%d, lines=%d, amount=%.2f}", receiptNumber, items.size(), amount);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.model.returns;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Totals of a bulk return file. Rejected lines do not stop the batch; the
+ * first {@link ReturnsProcessor#MAX_REPORTED_ERRORS} of them are listed.
+ */
+public class ReturnBatchResult {
+    private final int acceptedLines;
+    private final int rejectedLines;
+    private final long unitsReturned;
+    private final double refundTotal;
+    private final List<String> errors;
+
+    ReturnBatchResult(int acceptedLines, int rejectedLines, long unitsReturned, double refundTotal,
+                      List<String> errors) {
+        this.acceptedLines = acceptedLines;
+        this.rejectedLines = rejectedLines;
+        this.unitsReturned = unitsReturned;
+        this.refundTotal = refundTotal;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public int getAcceptedLines() {
+        return acceptedLines;
+    }
+
+    public int getRejectedLines() {
+        return rejectedLines;
+    }
+
+    public long getUnitsReturned() {
+        return unitsReturned;
+    }
+
+    public double getRefundTotal() {
+        return refundTotal;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReturnBatchResult{accepted=%d, rejected=%d, units=%d, refundTotal=%.2f}",
+            acceptedLines, rejectedLines, unitsReturned, refundTotal);
+    }
+}
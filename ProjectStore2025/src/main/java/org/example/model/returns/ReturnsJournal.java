@@ -0,0 +1,104 @@
+package org.example.model.returns;
+
+import org.example.exception.StoreException;
+import org.example.util.StoreLogger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only log of accepted returns, one {@code receiptNumber,line,quantity}
+ * line per returned item, so what was already returned against a receipt
+ * survives a restart. Items are named by their line on the receipt rather
+ * than by product id: an archived receipt keeps its lines, while product ids
+ * depend on the order products were created in and change between runs. A return is written with a
+ * single channel write and forced to disk before it is applied; a crash can
+ * only leave a torn last line, which is ignored when the log is read back.
+ * <p>
+ * Receipt numbers are only unique across runs for receipts kept in a
+ * receipt archive, so the store keeps this log next to its archive.
+ */
+public class ReturnsJournal implements Closeable {
+    private final File file;
+    private final FileChannel channel;
+
+    public ReturnsJournal(File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Returns journal file cannot be null");
+        }
+        this.file = file;
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+            dropTornLine();
+        } catch (IOException e) {
+            throw new StoreException("Failed to open returns journal " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Told about every complete line of the log.
+     */
+    interface Sink {
+        void returned(int receiptNumber, int line, int quantity);
+    }
+
+    /**
+     * Passes every complete line of the log to {@code sink}.
+     */
+    void load(Sink sink) throws IOException {
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        int[] fields = new int[3];
+        int start = 0;
+        for (int end = text.indexOf('\n'); end >= 0; start = end + 1, end = text.indexOf('\n', start)) {
+            if (ReturnsProcessor.parseLine(text.substring(start, end), fields)) {
+                sink.returned(fields[0], fields[1], fields[2]);
+            } else {
+                StoreLogger.warning("Skipping unreadable line in " + file + ": " + text.substring(start, end));
+            }
+        }
+    }
+
+    synchronized void append(int receiptNumber, int[] lines, int[] quantities, int count) throws IOException {
+        StringBuilder text = new StringBuilder(count * 24);
+        for (int i = 0; i < count; i++) {
+            text.append(receiptNumber).append(',').append(lines[i]).append(',').append(quantities[i]).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Cuts off a line left unfinished by a crash, so the next return does not
+     * run into it.
+     */
+    private void dropTornLine() throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        if (end < bytes.length) {
+            StoreLogger.warning("Dropping torn line at the end of " + file);
+            channel.truncate(end);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            StoreLogger.warning("Failed to close returns journal " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package org.example.model.returns;
+
+import org.example.exception.ReceiptException;
+import org.example.exception.StoreException;
+import org.example.model.analytics.StoreAnalytics;
+import org.example.model.inventory.InventoryManager;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Reverses sales, fully or in part. A return names the original receipt by
+ * number and is checked against what that receipt sold minus what has already
+ * been returned, tracked per receipt line with atomic counters so concurrent
+ * returns of the same receipt cannot over-refund. Accepted returns restock the
+ * inventory and apply negative deltas to revenue, product sales and cashier
+ * revenue.
+ * <p>
+ * With a {@link ReturnsJournal} set, every accepted return is journaled before
+ * it is applied and the counters of receipts from earlier runs start from what
+ * the journal recorded, so a receipt cannot be refunded twice across a
+ * restart. Without one, returns are only tracked for the life of the process.
+ * <p>
+ * Returned products are matched to receipt lines by {@link Product#getSku()},
+ * not by id: ids depend on the order products were created in, so a receipt
+ * archived by an earlier run carries ids that may now belong to other
+ * products.
+ */
+public class ReturnsProcessor {
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private final InventoryManager inventory;
+    private final StoreAnalytics analytics;
+    private final IntFunction<Receipt> receiptLookup;
+    private final DoubleConsumer revenueAdjustment;
+    private final LineListener lineListener;
+    private final Map<Integer, AtomicIntegerArray> returnedQuantities;
+    // Quantities read from the journal, by receipt number and receipt line, for
+    // receipts whose counters have not been created yet.
+    private final Map<Integer, Map<Integer, Integer>> journaledQuantities;
+    private volatile ReturnsJournal journal;
+
+    /**
+     * Told about every accepted return line once it has been applied.
+     */
+    public interface LineListener {
+        void returned(int receiptNumber, int productId, int quantity);
+    }
+
+    /**
+     * @param receiptLookup     finds a receipt by number, or returns {@code null}
+     * @param revenueAdjustment receives the negative revenue delta of each return
+     */
+    public ReturnsProcessor(InventoryManager inventory, StoreAnalytics analytics, IntFunction<Receipt> receiptLookup,
+                            DoubleConsumer revenueAdjustment) {
+        this(inventory, analytics, receiptLookup, revenueAdjustment, (receiptNumber, productId, quantity) -> { });
+    }
+
+    public ReturnsProcessor(InventoryManager inventory, StoreAnalytics analytics, IntFunction<Receipt> receiptLookup,
+                            DoubleConsumer revenueAdjustment, LineListener lineListener) {
+        if (inventory == null || analytics == null || receiptLookup == null || revenueAdjustment == null
+                || lineListener == null) {
+            throw new IllegalArgumentException("Returns processor dependencies cannot be null");
+        }
+        this.inventory = inventory;
+        this.analytics = analytics;
+        this.receiptLookup = receiptLookup;
+        this.revenueAdjustment = revenueAdjustment;
+        this.lineListener = lineListener;
+        this.returnedQuantities = new ConcurrentHashMap<>();
+        this.journaledQuantities = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Records returns in {@code journal} from now on and counts the returns
+     * it already holds against their receipts. Meant to be set up before
+     * returns are processed. Closes the journal it replaces.
+     */
+    public void setJournal(ReturnsJournal journal) {
+        if (journal != null) {
+            try {
+                journal.load((receiptNumber, line, quantity) -> journaledQuantities
+                    .computeIfAbsent(receiptNumber, n -> new ConcurrentHashMap<>())
+                    .merge(line, quantity, Integer::sum));
+            } catch (IOException e) {
+                throw new StoreException("Failed to read returns journal: " + e.getMessage(), e);
+            }
+        }
+        ReturnsJournal previous = this.journal;
+        this.journal = journal;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    public Refund processReturn(int receiptNumber, Product product, int quantity) {
+        Map<Product, Integer> items = new LinkedHashMap<>();
+        items.put(product, quantity);
+        return processReturn(receiptNumber, items);
+    }
+
+    /**
+     * Returns {@code items} from receipt {@code receiptNumber}. Either every line
+     * is accepted or none is.
+     *
+     * @throws ReceiptException if the receipt is unknown
+     * @throws StoreException   if a line was not sold on the receipt or exceeds
+     *                          the quantity still returnable
+     */
+    public Refund processReturn(int receiptNumber, Map<Product, Integer> items) {
+        if (items == null || items.isEmpty()) {
+            throw new StoreException("Returned items cannot be null or empty");
+        }
+        Receipt receipt = requireReceipt(receiptNumber);
+
+        int count = items.size();
+        int[] lines = new int[count];
+        int[] quantities = new int[count];
+        Product[] stocked = new Product[count];
+        int i = 0;
+        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
+            Product product = entry.getKey();
+            Integer quantity = entry.getValue();
+            if (product == null || quantity == null || quantity <= 0) {
+                throw new StoreException("Returned products must be non-null with a positive quantity");
+            }
+            Product stockedProduct = stocked(product);
+            String error = validateLine(receipt, product, stockedProduct, quantity);
+            if (error != null) {
+                throw new StoreException(error);
+            }
+            lines[i] = findLine(receipt, product);
+            quantities[i] = quantity;
+            stocked[i] = stockedProduct;
+            i++;
+        }
+
+        AtomicIntegerArray returned = returnedFor(receipt);
+        for (int reserved = 0; reserved < count; reserved++) {
+            if (!reserveReturn(receipt, returned, lines[reserved], quantities[reserved])) {
+                unreserve(returned, lines, quantities, reserved);
+                Product product = receipt.getProduct(lines[reserved]);
+                throw new StoreException("Cannot return " + quantities[reserved] + " x " + product.getName()
+                    + ": only " + remaining(receipt, returned, lines[reserved])
+                    + " left to return on receipt #" + receiptNumber);
+            }
+        }
+        String journalError = journal(receipt, lines, quantities, count);
+        if (journalError != null) {
+            unreserve(returned, lines, quantities, count);
+            throw new StoreException("Return not applied: " + journalError);
+        }
+
+        Map<Product, Integer> refunded = new LinkedHashMap<>();
+        double amount = 0;
+        for (int line = 0; line < count; line++) {
+            amount += apply(receipt, lines[line], stocked[line], quantities[line]);
+            refunded.merge(stocked[line], quantities[line], Integer::sum);
+        }
+        return new Refund(receiptNumber, refunded, amount);
+    }
+
+    public int getReturnedQuantity(int receiptNumber, Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        Receipt receipt = receiptLookup.apply(receiptNumber);
+        int line = receipt == null ? -1 : findLine(receipt, product);
+        return line < 0 ? 0 : returnedFor(receipt).get(line);
+    }
+
+    /**
+     * Processes a bulk return file with one {@code receiptNumber,productId,quantity}
+     * line per returned item. Blank lines, lines starting with {@code #} and a
+     * non-numeric header line are skipped. Invalid lines are rejected and
+     * reported without stopping the batch.
+     */
+    public ReturnBatchResult processBatch(Reader source) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader
+            ? (BufferedReader) source : new BufferedReader(source, 1 << 16);
+        int[] fields = new int[3];
+        List<String> errors = new ArrayList<>();
+        int accepted = 0;
+        int rejected = 0;
+        long units = 0;
+        double refundTotal = 0;
+        int cachedNumber = -1;
+        Receipt cachedReceipt = null;
+        int line = -1;
+
+        String text;
+        int lineNumber = 0;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            if (text.isEmpty() || text.charAt(0) == '#') {
+                continue;
+            }
+            String error;
+            if (!parseLine(text, fields)) {
+                if (lineNumber == 1) {
+                    continue;
+                }
+                error = "expected receiptNumber,productId,quantity";
+            } else {
+                // Bulk files are usually grouped by receipt, so remember the last lookup.
+                if (fields[0] != cachedNumber) {
+                    cachedNumber = fields[0];
+                    cachedReceipt = receiptLookup.apply(cachedNumber);
+                }
+                Product product = inventory.getProduct(fields[1]);
+                line = cachedReceipt == null || product == null ? -1 : findLine(cachedReceipt, product);
+                error = returnBatchLine(cachedReceipt, fields[0], fields[1], product, line, fields[2]);
+            }
+
+            if (error == null) {
+                accepted++;
+                units += fields[2];
+                refundTotal += refundPerUnit(cachedReceipt, line) * fields[2];
+            } else {
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("line " + lineNumber + ": " + error);
+                }
+            }
+        }
+        return new ReturnBatchResult(accepted, rejected, units, refundTotal, errors);
+    }
+
+    /**
+     * Returns one line of a bulk file. Product ids in the file are those of
+     * the products stocked now; {@code product} is the stocked product, if
+     * any, and {@code line} its line on the receipt, if any.
+     */
+    private String returnBatchLine(Receipt receipt, int receiptNumber, int productId, Product product, int line,
+                                   int quantity) {
+        if (receipt == null) {
+            return "receipt #" + receiptNumber + " not found";
+        }
+        if (quantity <= 0) {
+            return "quantity must be positive";
+        }
+        if (product == null) {
+            return "product " + productId + " is not stocked";
+        }
+        String error = validateLine(receipt, product, product, quantity);
+        if (error != null) {
+            return error;
+        }
+        AtomicIntegerArray returned = returnedFor(receipt);
+        if (!reserveReturn(receipt, returned, line, quantity)) {
+            return "only " + remaining(receipt, returned, line) + " of product " + productId
+                + " left to return on receipt #" + receiptNumber;
+        }
+        int[] lines = {line};
+        int[] quantities = {quantity};
+        String journalError = journal(receipt, lines, quantities, 1);
+        if (journalError != null) {
+            unreserve(returned, lines, quantities, 1);
+            return journalError;
+        }
+        apply(receipt, line, product, quantity);
+        return null;
+    }
+
+    /**
+     * The stocked product with the same SKU as {@code product}, or {@code null}.
+     * Looked up by id first, since callers usually pass the stocked product.
+     */
+    private Product stocked(Product product) {
+        Product stocked = inventory.getProduct(product.getId());
+        return stocked != null && stocked.getSku().equals(product.getSku()) ? stocked : null;
+    }
+
+    private String validateLine(Receipt receipt, Product product, Product stocked, int quantity) {
+        int line = findLine(receipt, product);
+        if (line < 0) {
+            return "product " + product.getName() + " was not sold on receipt #" + receipt.getReceiptNumber();
+        }
+        if (stocked == null) {
+            return "product " + receipt.getProduct(line).getName() + " is no longer stocked";
+        }
+        if (quantity > receipt.getQuantity(line)) {
+            return "cannot return " + quantity + " x " + receipt.getProduct(line).getName() + ", only "
+                + receipt.getQuantity(line) + " sold on receipt #" + receipt.getReceiptNumber();
+        }
+        return null;
+    }
+
+    private double apply(Receipt receipt, int line, Product stocked, int quantity) {
+        double amount = refundPerUnit(receipt, line) * quantity;
+        inventory.release(stocked, quantity);
+        analytics.addReturn(receipt.getCashier(), stocked, quantity, amount);
+        revenueAdjustment.accept(-amount);
+        lineListener.returned(receipt.getReceiptNumber(), stocked.getId(), quantity);
+        return amount;
+    }
+
+    /**
+     * Price actually paid per unit of a line, spreading any promotion discount
+     * evenly over the units sold.
+     */
+    private static double refundPerUnit(Receipt receipt, int line) {
+        return receipt.getUnitPrice(line) - receipt.getDiscount(line) / receipt.getQuantity(line);
+    }
+
+    private static boolean reserveReturn(Receipt receipt, AtomicIntegerArray returned, int line, int quantity) {
+        int sold = receipt.getQuantity(line);
+        while (true) {
+            int current = returned.get(line);
+            if (current + quantity > sold) {
+                return false;
+            }
+            if (returned.compareAndSet(line, current, current + quantity)) {
+                return true;
+            }
+        }
+    }
+
+    private static void unreserve(AtomicIntegerArray returned, int[] lines, int[] quantities, int count) {
+        for (int i = 0; i < count; i++) {
+            returned.addAndGet(lines[i], -quantities[i]);
+        }
+    }
+
+    /**
+     * Journals reserved return lines, if there is a journal. Returns an error
+     * message if that failed, in which case the return must not be applied.
+     */
+    private String journal(Receipt receipt, int[] lines, int[] quantities, int count) {
+        ReturnsJournal current = journal;
+        if (current == null) {
+            return null;
+        }
+        try {
+            current.append(receipt.getReceiptNumber(), lines, quantities, count);
+            return null;
+        } catch (IOException e) {
+            return "failed to record return against receipt #" + receipt.getReceiptNumber() + ": " + e.getMessage();
+        }
+    }
+
+    private static int remaining(Receipt receipt, AtomicIntegerArray returned, int line) {
+        return receipt.getQuantity(line) - returned.get(line);
+    }
+
+    private AtomicIntegerArray returnedFor(Receipt receipt) {
+        return returnedQuantities.computeIfAbsent(receipt.getReceiptNumber(), n -> {
+            AtomicIntegerArray returned = new AtomicIntegerArray(receipt.getLineCount());
+            Map<Integer, Integer> journaled = journaledQuantities.remove(n);
+            if (journaled != null) {
+                for (Map.Entry<Integer, Integer> entry : journaled.entrySet()) {
+                    int line = entry.getKey();
+                    if (line < receipt.getLineCount()) {
+                        returned.set(line, entry.getValue());
+                    }
+                }
+            }
+            return returned;
+        });
+    }
+
+    private Receipt requireReceipt(int receiptNumber) {
+        Receipt receipt = receiptLookup.apply(receiptNumber);
+        if (receipt == null) {
+            throw new ReceiptException("Receipt not found: #" + receiptNumber);
+        }
+        return receipt;
+    }
+
+    private static int findLine(Receipt receipt, Product product) {
+        String sku = product.getSku();
+        for (int line = 0; line < receipt.getLineCount(); line++) {
+            if (receipt.getProduct(line).getSku().equals(sku)) {
+                return line;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses three comma-separated non-negative integers without splitting the
+     * line into strings.
+     */
+    static boolean parseLine(String text, int[] fields) {
+        int field = 0;
+        long value = 0;
+        boolean digits = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ',';
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    return false;
+                }
+                digits = true;
+            } else if (c == ',') {
+                if (!digits || field == 3) {
+                    return false;
+                }
+                fields[field++] = (int) value;
+                value = 0;
+                digits = false;
+            } else if (c != ' ' && c != '\r' && c != '\t') {
+                return false;
+            }
+        }
+        return field == 3;
+    }
+}
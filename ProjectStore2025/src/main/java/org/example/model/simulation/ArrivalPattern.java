@@ -0,0 +1,59 @@
+package org.example.model.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Expected customer arrivals for each hour of a week, Monday 00:00 being hour
+ * 0. Within an hour arrivals are random at a constant rate.
+ */
+public final class ArrivalPattern {
+    public static final int HOURS_PER_WEEK = 168;
+
+    // Share of the busiest hour's traffic for each hour of an open day, 08:00 to 22:00.
+    private static final double[] TYPICAL_DAY = {
+        0.30, 0.40, 0.50, 0.70, 0.90, 0.80, 0.55, 0.55, 0.70, 0.95, 1.00, 0.80, 0.50, 0.30
+    };
+    private static final int TYPICAL_OPENING_HOUR = 8;
+    // Monday to Sunday.
+    private static final double[] TYPICAL_WEEK = {0.80, 0.80, 0.85, 0.90, 1.00, 1.00, 0.70};
+
+    private final double[] customersPerHour;
+
+    public ArrivalPattern(double[] customersPerHour) {
+        if (customersPerHour == null || customersPerHour.length != HOURS_PER_WEEK) {
+            throw new IllegalArgumentException("Arrival rates must cover the " + HOURS_PER_WEEK + " hours of a week");
+        }
+        for (double rate : customersPerHour) {
+            if (!(rate >= 0) || Double.isInfinite(rate)) {
+                throw new IllegalArgumentException("Arrival rate must be a non-negative number: " + rate);
+            }
+        }
+        this.customersPerHour = customersPerHour.clone();
+    }
+
+    /**
+     * A grocery-store week: open 08:00 to 22:00 with lunch and after-work
+     * peaks, busiest on Friday and Saturday and quieter on Sunday.
+     */
+    public static ArrivalPattern typicalWeek(double peakCustomersPerHour) {
+        if (!(peakCustomersPerHour > 0)) {
+            throw new IllegalArgumentException("Peak arrival rate must be positive");
+        }
+        double[] rates = new double[HOURS_PER_WEEK];
+        for (int day = 0; day < TYPICAL_WEEK.length; day++) {
+            for (int hour = 0; hour < TYPICAL_DAY.length; hour++) {
+                rates[day * 24 + TYPICAL_OPENING_HOUR + hour] =
+                    peakCustomersPerHour * TYPICAL_WEEK[day] * TYPICAL_DAY[hour];
+            }
+        }
+        return new ArrivalPattern(rates);
+    }
+
+    public double getCustomersPerHour(int hourOfWeek) {
+        return customersPerHour[hourOfWeek];
+    }
+
+    public double getCustomersPerWeek() {
+        return Arrays.stream(customersPerHour).sum();
+    }
+}
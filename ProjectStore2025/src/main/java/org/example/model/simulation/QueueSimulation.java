@@ -0,0 +1,389 @@
+package org.example.model.simulation;
+
+import org.example.model.product.Product;
+import org.example.model.store.Basket;
+import org.example.model.store.CashRegister;
+import org.example.model.store.Store;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Discrete-event simulation of a week of customers queueing at a store's
+ * registers. Customers arrive at the rates of an {@link ArrivalPattern}, pick
+ * an open register by a {@link RoutingPolicy}, wait in its queue and take a
+ * {@link ServiceTimeModel} time to serve that depends on their basket size.
+ * <p>
+ * Runs are deterministic for a seed, and every policy and plan sees the same
+ * customers, arriving at the same moments with the same baskets, so results
+ * of different runs differ only by the choices being compared. Given a
+ * {@link Store}, each customer also checks out a basket of that size through
+ * {@link Store#trySale} when served; otherwise only the queues are modelled,
+ * which is much faster and is what {@link StaffingAdvisor} uses.
+ */
+public final class QueueSimulation {
+    private static final int HOURS = ArrivalPattern.HOURS_PER_WEEK;
+    private static final double SECONDS_PER_HOUR = 3600;
+    // Event kinds; registers' service completions use the register index.
+    private static final int ARRIVAL = -1;
+    private static final int HOUR_START = -2;
+    // Customers always pay enough; the simulation is about time, not change.
+    private static final double PAYMENT = 1_000_000;
+
+    private final ArrivalPattern arrivals;
+    private final ServiceTimeModel service;
+    private final int registerCount;
+
+    public QueueSimulation(ArrivalPattern arrivals, ServiceTimeModel service, int registerCount) {
+        if (arrivals == null || service == null) {
+            throw new IllegalArgumentException("Arrival pattern and service model cannot be null");
+        }
+        if (registerCount <= 0) {
+            throw new IllegalArgumentException("Register count must be positive");
+        }
+        this.arrivals = arrivals;
+        this.service = service;
+        this.registerCount = registerCount;
+    }
+
+    public ArrivalPattern getArrivals() {
+        return arrivals;
+    }
+
+    public int getRegisterCount() {
+        return registerCount;
+    }
+
+    public SimulationResult run(RoutingPolicy policy, StaffingPlan plan, long seed) {
+        return run(policy, plan, seed, null);
+    }
+
+    /**
+     * Simulates a week and, if {@code store} is given, checks out every
+     * customer there. Simulated register {@code i} is the store's
+     * {@code i}-th register, which must have a cashier; baskets are made of
+     * random products the store stocks.
+     */
+    public SimulationResult run(RoutingPolicy policy, StaffingPlan plan, long seed, Store store) {
+        if (policy == null || plan == null) {
+            throw new IllegalArgumentException("Policy and plan cannot be null");
+        }
+        if (plan.getMaxOpenRegisters() > registerCount) {
+            throw new IllegalArgumentException("Plan opens " + plan.getMaxOpenRegisters() + " registers but the store has "
+                + registerCount);
+        }
+        Run run = new Run(policy, plan, seed, store);
+        run.execute();
+        return run.result;
+    }
+
+    private final class Run {
+        private final RoutingPolicy policy;
+        private final StaffingPlan plan;
+        // Customers come from one stream and store baskets from another, so
+        // driving a store does not change the queues.
+        private final SplittableRandom customers;
+        private final SplittableRandom shopping;
+        private final EventQueue events;
+        private final RegisterQueue[] queues;
+        private final SimulationResult result;
+        private final Store store;
+        private final CashRegister[] storeRegisters;
+        private final int[] productIds;
+        private final Basket basket;
+        private int open;
+
+        Run(RoutingPolicy policy, StaffingPlan plan, long seed, Store store) {
+            this.policy = policy;
+            this.plan = plan;
+            SplittableRandom root = new SplittableRandom(seed);
+            this.customers = root.split();
+            this.shopping = root.split();
+            this.events = new EventQueue(registerCount + HOURS + 1);
+            this.queues = new RegisterQueue[registerCount];
+            for (int i = 0; i < registerCount; i++) {
+                queues[i] = new RegisterQueue();
+            }
+            this.result = new SimulationResult(policy, plan);
+            this.store = store;
+            if (store == null) {
+                this.storeRegisters = null;
+                this.productIds = null;
+                this.basket = null;
+            } else {
+                List<CashRegister> registers = store.getRegisters();
+                if (registers.size() < registerCount) {
+                    throw new IllegalArgumentException("Store has " + registers.size() + " registers, "
+                        + registerCount + " needed");
+                }
+                this.storeRegisters = registers.subList(0, registerCount).toArray(new CashRegister[0]);
+                for (CashRegister register : storeRegisters) {
+                    if (!register.isAssigned()) {
+                        throw new IllegalArgumentException("Register " + register.getId() + " has no cashier");
+                    }
+                }
+                this.productIds = store.getProducts().stream().mapToInt(Product::getId).toArray();
+                if (productIds.length == 0) {
+                    throw new IllegalArgumentException("Store has no products to sell");
+                }
+                this.basket = new Basket();
+            }
+        }
+
+        void execute() {
+            open = openAt(0);
+            for (int hour = 1; hour < HOURS; hour++) {
+                events.add(hour * SECONDS_PER_HOUR, HOUR_START);
+            }
+            scheduleArrival(0);
+            while (!events.isEmpty()) {
+                double now = events.peekTime();
+                int kind = events.poll();
+                if (kind == ARRIVAL) {
+                    arrive(now);
+                } else if (kind == HOUR_START) {
+                    open = openAt(hourOf(now));
+                } else {
+                    finishService(kind, now);
+                }
+            }
+        }
+
+        private int openAt(int hour) {
+            // Someone has to serve customers who turn up in an hour planned as closed.
+            return Math.max(1, plan.getOpenRegisters(hour));
+        }
+
+        /**
+         * Schedules the next arrival after {@code from}. Rates are constant
+         * within an hour, so an exponential amount of "arrival work" is spent
+         * at each hour's rate until it runs out.
+         */
+        private void scheduleArrival(double from) {
+            double time = from;
+            double work = -Math.log(1 - customers.nextDouble());
+            for (int hour = (int) (time / SECONDS_PER_HOUR); hour < HOURS; hour++) {
+                double ratePerSecond = arrivals.getCustomersPerHour(hour) / SECONDS_PER_HOUR;
+                double hourEnd = (hour + 1) * SECONDS_PER_HOUR;
+                if (ratePerSecond > 0) {
+                    double next = time + work / ratePerSecond;
+                    if (next < hourEnd) {
+                        events.add(next, ARRIVAL);
+                        return;
+                    }
+                    work -= ratePerSecond * (hourEnd - time);
+                }
+                time = hourEnd;
+            }
+        }
+
+        private void arrive(double now) {
+            int items = service.sampleBasketSize(customers);
+            double seconds = service.sampleSeconds(items, customers);
+            int register = chooseRegister(now);
+            RegisterQueue queue = queues[register];
+            queue.add(now, items, seconds, service.expectedSeconds(items));
+            result.recordArrival(hourOf(now), queue.size);
+            if (queue.size == 1) {
+                startService(queue, register, now);
+            }
+            scheduleArrival(now);
+        }
+
+        private int chooseRegister(double now) {
+            int best = 0;
+            double bestScore = Double.MAX_VALUE;
+            for (int i = 0; i < open; i++) {
+                RegisterQueue queue = queues[i];
+                double score = policy == RoutingPolicy.SHORTEST_QUEUE ? queue.size : queue.expectedWork(now);
+                if (score < bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        private void startService(RegisterQueue queue, int register, double now) {
+            double seconds = queue.headSeconds();
+            queue.serviceStart = now;
+            result.recordWait(hourOf(queue.headArrival()), now - queue.headArrival(), seconds);
+            events.add(now + seconds, register);
+        }
+
+        private void finishService(int register, double now) {
+            RegisterQueue queue = queues[register];
+            int items = queue.headItems();
+            queue.poll();
+            if (store != null) {
+                checkout(register, items);
+            }
+            if (queue.size > 0) {
+                startService(queue, register, now);
+            }
+        }
+
+        private void checkout(int register, int items) {
+            basket.clear();
+            for (int i = 0; i < items; i++) {
+                basket.add(productIds[shopping.nextInt(productIds.length)], 1);
+            }
+            result.recordSale(store.trySale(storeRegisters[register], basket, PAYMENT).isCompleted());
+        }
+    }
+
+    private static int hourOf(double seconds) {
+        return Math.min(HOURS - 1, (int) (seconds / SECONDS_PER_HOUR));
+    }
+
+    /**
+     * Customers at one register, the first one being served. Held in ring
+     * buffers of primitives.
+     */
+    private static final class RegisterQueue {
+        private double[] arrivals = new double[16];
+        private int[] items = new int[16];
+        private double[] seconds = new double[16];
+        private double[] expected = new double[16];
+        private int head;
+        int size;
+        double serviceStart;
+        // Expected service time of the customers behind the one being served.
+        private double waitingWork;
+
+        void add(double arrival, int itemCount, double serviceSeconds, double expectedSeconds) {
+            if (size == arrivals.length) {
+                grow();
+            }
+            int slot = (head + size) % arrivals.length;
+            arrivals[slot] = arrival;
+            items[slot] = itemCount;
+            seconds[slot] = serviceSeconds;
+            expected[slot] = expectedSeconds;
+            if (size > 0) {
+                waitingWork += expectedSeconds;
+            }
+            size++;
+        }
+
+        void poll() {
+            head = (head + 1) % arrivals.length;
+            size--;
+            if (size <= 1) {
+                waitingWork = 0;
+            } else {
+                waitingWork -= expected[head];
+            }
+        }
+
+        double headArrival() {
+            return arrivals[head];
+        }
+
+        int headItems() {
+            return items[head];
+        }
+
+        double headSeconds() {
+            return seconds[head];
+        }
+
+        /**
+         * Time a customer joining now expects to wait, judging baskets by size.
+         */
+        double expectedWork(double now) {
+            if (size == 0) {
+                return 0;
+            }
+            return waitingWork + Math.max(0, serviceStart + expected[head] - now);
+        }
+
+        private void grow() {
+            int capacity = arrivals.length * 2;
+            arrivals = unwrap(arrivals, capacity);
+            seconds = unwrap(seconds, capacity);
+            expected = unwrap(expected, capacity);
+            int[] grownItems = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                grownItems[i] = items[(head + i) % items.length];
+            }
+            items = grownItems;
+            head = 0;
+        }
+
+        private double[] unwrap(double[] values, int capacity) {
+            double[] grown = new double[capacity];
+            for (int i = 0; i < size; i++) {
+                grown[i] = values[(head + i) % values.length];
+            }
+            return grown;
+        }
+    }
+
+    /**
+     * Binary min-heap of pending events by time. Kept in two primitive arrays
+     * since a week is a few hundred thousand events.
+     */
+    private static final class EventQueue {
+        private double[] times;
+        private int[] kinds;
+        private int size;
+
+        EventQueue(int capacity) {
+            this.times = new double[capacity];
+            this.kinds = new int[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekTime() {
+            return times[0];
+        }
+
+        void add(double time, int kind) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                kinds = Arrays.copyOf(kinds, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (times[parent] <= time) {
+                    break;
+                }
+                times[i] = times[parent];
+                kinds[i] = kinds[parent];
+                i = parent;
+            }
+            times[i] = time;
+            kinds[i] = kind;
+        }
+
+        int poll() {
+            int kind = kinds[0];
+            size--;
+            double lastTime = times[size];
+            int lastKind = kinds[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && times[child + 1] < times[child]) {
+                    child++;
+                }
+                if (lastTime <= times[child]) {
+                    break;
+                }
+                times[i] = times[child];
+                kinds[i] = kinds[child];
+                i = child;
+            }
+            times[i] = lastTime;
+            kinds[i] = lastKind;
+            return kind;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.model.simulation;
+
+/**
+ * How an arriving customer picks one of the open registers. Customers stay in
+ * the queue they join.
+ */
+public enum RoutingPolicy {
+    /**
+     * Fewest customers waiting or being served.
+     */
+    SHORTEST_QUEUE,
+    /**
+     * Least expected time until served, judging every basket in the queue by
+     * its size, as when an attendant directs customers.
+     */
+    LEAST_WORK
+}
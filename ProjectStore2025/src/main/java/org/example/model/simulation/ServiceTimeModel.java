@@ -0,0 +1,59 @@
+package org.example.model.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * How big baskets are and how long they take at a register: a fixed time per
+ * customer for paying and bagging plus a time per item scanned.
+ */
+public final class ServiceTimeModel {
+    public static final ServiceTimeModel TYPICAL = new ServiceTimeModel(40, 3, 12);
+
+    // Actual service times vary by this much either way around the expected time.
+    private static final double SPREAD = 0.25;
+
+    private final double secondsPerCustomer;
+    private final double secondsPerItem;
+    private final double meanBasketSize;
+
+    public ServiceTimeModel(double secondsPerCustomer, double secondsPerItem, double meanBasketSize) {
+        if (!(secondsPerCustomer >= 0) || !(secondsPerItem >= 0) || secondsPerCustomer + secondsPerItem == 0) {
+            throw new IllegalArgumentException("Service times must be non-negative and not both zero");
+        }
+        if (!(meanBasketSize >= 1)) {
+            throw new IllegalArgumentException("Mean basket size must be at least 1");
+        }
+        this.secondsPerCustomer = secondsPerCustomer;
+        this.secondsPerItem = secondsPerItem;
+        this.meanBasketSize = meanBasketSize;
+    }
+
+    public double getMeanBasketSize() {
+        return meanBasketSize;
+    }
+
+    /**
+     * Service time a customer with {@code items} items is expected to take,
+     * as judged by someone looking at the basket.
+     */
+    public double expectedSeconds(int items) {
+        return secondsPerCustomer + secondsPerItem * items;
+    }
+
+    /**
+     * At least one item, geometrically distributed around the mean: many
+     * small baskets and a long tail of weekly shops.
+     */
+    int sampleBasketSize(SplittableRandom random) {
+        double extra = meanBasketSize - 1;
+        if (extra == 0) {
+            return 1;
+        }
+        double u = 1 - random.nextDouble();
+        return 1 + (int) (Math.log(u) / Math.log(extra / (extra + 1)));
+    }
+
+    double sampleSeconds(int items, SplittableRandom random) {
+        return expectedSeconds(items) * (1 - SPREAD + 2 * SPREAD * random.nextDouble());
+    }
+}
@@ -0,0 +1,213 @@
+package org.example.model.simulation;
+
+import org.example.util.ReportWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Queueing outcome of one simulated week, by the hour customers arrived in.
+ * Waits are the time from joining a queue to reaching the register and are
+ * kept in {@value #WAIT_BUCKET_SECONDS}-second buckets, so percentiles and
+ * service levels are accurate to that.
+ */
+public final class SimulationResult {
+    static final int WAIT_BUCKET_SECONDS = 10;
+    // One hour of buckets; longer waits share the last one.
+    private static final int WAIT_BUCKETS = 360;
+    private static final int HOURS = ArrivalPattern.HOURS_PER_WEEK;
+
+    private final RoutingPolicy policy;
+    private final StaffingPlan plan;
+    private final int[] customers;
+    private final double[] waitSeconds;
+    private final double[] maxWaitSeconds;
+    private final int[] maxQueueLength;
+    // Allocated for hours that had customers.
+    private final int[][] waitHistogram;
+    private double busySeconds;
+    private long completedSales;
+    private long failedSales;
+
+    SimulationResult(RoutingPolicy policy, StaffingPlan plan) {
+        this.policy = policy;
+        this.plan = plan;
+        this.customers = new int[HOURS];
+        this.waitSeconds = new double[HOURS];
+        this.maxWaitSeconds = new double[HOURS];
+        this.maxQueueLength = new int[HOURS];
+        this.waitHistogram = new int[HOURS][];
+    }
+
+    void recordArrival(int hour, int queueLength) {
+        customers[hour]++;
+        if (queueLength > maxQueueLength[hour]) {
+            maxQueueLength[hour] = queueLength;
+        }
+    }
+
+    void recordWait(int hour, double seconds, double serviceSeconds) {
+        waitSeconds[hour] += seconds;
+        if (seconds > maxWaitSeconds[hour]) {
+            maxWaitSeconds[hour] = seconds;
+        }
+        if (waitHistogram[hour] == null) {
+            waitHistogram[hour] = new int[WAIT_BUCKETS];
+        }
+        waitHistogram[hour][Math.min(WAIT_BUCKETS - 1, (int) (seconds / WAIT_BUCKET_SECONDS))]++;
+        busySeconds += serviceSeconds;
+    }
+
+    void recordSale(boolean completed) {
+        if (completed) {
+            completedSales++;
+        } else {
+            failedSales++;
+        }
+    }
+
+    public RoutingPolicy getPolicy() {
+        return policy;
+    }
+
+    public StaffingPlan getPlan() {
+        return plan;
+    }
+
+    public long getCustomers() {
+        long total = 0;
+        for (int count : customers) {
+            total += count;
+        }
+        return total;
+    }
+
+    public int getCustomers(int hourOfWeek) {
+        return customers[hourOfWeek];
+    }
+
+    public double getAverageWaitSeconds() {
+        double total = 0;
+        for (double seconds : waitSeconds) {
+            total += seconds;
+        }
+        long count = getCustomers();
+        return count == 0 ? 0 : total / count;
+    }
+
+    public double getAverageWaitSeconds(int hourOfWeek) {
+        return customers[hourOfWeek] == 0 ? 0 : waitSeconds[hourOfWeek] / customers[hourOfWeek];
+    }
+
+    public double getMaxWaitSeconds(int hourOfWeek) {
+        return maxWaitSeconds[hourOfWeek];
+    }
+
+    public int getMaxQueueLength(int hourOfWeek) {
+        return maxQueueLength[hourOfWeek];
+    }
+
+    /**
+     * Share of the hour's customers who waited less than {@code seconds}, or
+     * 1 if there were none.
+     */
+    public double getShareServedWithin(int hourOfWeek, double seconds) {
+        int[] histogram = waitHistogram[hourOfWeek];
+        if (histogram == null) {
+            return 1;
+        }
+        return (double) countWithin(histogram, seconds) / customers[hourOfWeek];
+    }
+
+    public double getShareServedWithin(double seconds) {
+        long within = 0;
+        for (int[] histogram : waitHistogram) {
+            if (histogram != null) {
+                within += countWithin(histogram, seconds);
+            }
+        }
+        long count = getCustomers();
+        return count == 0 ? 1 : (double) within / count;
+    }
+
+    /**
+     * Wait that {@code percentile} percent of the hour's customers did not
+     * exceed, rounded up to the bucket size.
+     */
+    public double getWaitPercentile(int hourOfWeek, double percentile) {
+        int[] histogram = waitHistogram[hourOfWeek];
+        if (histogram == null) {
+            return 0;
+        }
+        long needed = (long) Math.ceil(customers[hourOfWeek] * percentile / 100);
+        long seen = 0;
+        for (int bucket = 0; bucket < WAIT_BUCKETS; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= needed) {
+                return (bucket + 1) * (double) WAIT_BUCKET_SECONDS;
+            }
+        }
+        return maxWaitSeconds[hourOfWeek];
+    }
+
+    /**
+     * Share of open register time spent serving customers.
+     */
+    public double getUtilization() {
+        long registerHours = plan.getRegisterHours();
+        return registerHours == 0 ? 0 : busySeconds / (registerHours * 3600.0);
+    }
+
+    /**
+     * Sales completed through the store, when the simulation drove one.
+     */
+    public long getCompletedSales() {
+        return completedSales;
+    }
+
+    /**
+     * Checkouts the store turned down, e.g. for lack of stock.
+     */
+    public long getFailedSales() {
+        return failedSales;
+    }
+
+    /**
+     * Writes one CSV line per hour that had customers: registers open,
+     * customers, average and 90th percentile wait, and the share served
+     * within {@code targetWaitSeconds}.
+     */
+    public void writeReport(Writer out, double targetWaitSeconds) throws IOException {
+        ReportWriter report = new ReportWriter(out);
+        report.text("hour,open_registers,customers,avg_wait_seconds,p90_wait_seconds,served_within_target,max_queue\n");
+        for (int hour = 0; hour < HOURS; hour++) {
+            if (customers[hour] == 0) {
+                continue;
+            }
+            report.text(StaffingPlan.hourLabel(hour)).character(',')
+                .number(plan.getOpenRegisters(hour)).character(',')
+                .number(customers[hour]).character(',')
+                .decimal(getAverageWaitSeconds(hour)).character(',')
+                .decimal(getWaitPercentile(hour, 90)).character(',')
+                .decimal(getShareServedWithin(hour, targetWaitSeconds)).character(',')
+                .number(maxQueueLength[hour]).newline();
+        }
+        report.flush();
+    }
+
+    private static long countWithin(int[] histogram, double seconds) {
+        int buckets = Math.min(WAIT_BUCKETS, (int) Math.ceil(seconds / WAIT_BUCKET_SECONDS));
+        long within = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            within += histogram[bucket];
+        }
+        return within;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SimulationResult{policy=%s, customers=%d, avgWait=%.1f s, registerHours=%d,"
+                + " utilization=%.2f}", policy, getCustomers(), getAverageWaitSeconds(), plan.getRegisterHours(),
+            getUtilization());
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.model.simulation;
+
+/**
+ * Finds the fewest registers to open in each hour of the week for customers
+ * to reach a register within a target wait.
+ * <p>
+ * It first simulates the week with every register count from one up, each
+ * hour taking the first count that met the target. Since a queue left over
+ * from a busy hour can spill into the next, the resulting plan is then
+ * simulated as a whole and hours that still miss the target get another
+ * register until none do or every register is open.
+ */
+public final class StaffingAdvisor {
+    private static final int HOURS = ArrivalPattern.HOURS_PER_WEEK;
+    private static final int MAX_REFINEMENTS = 10;
+
+    private final QueueSimulation simulation;
+    private final RoutingPolicy policy;
+    private final long seed;
+
+    public StaffingAdvisor(QueueSimulation simulation, RoutingPolicy policy, long seed) {
+        if (simulation == null || policy == null) {
+            throw new IllegalArgumentException("Simulation and policy cannot be null");
+        }
+        this.simulation = simulation;
+        this.policy = policy;
+        this.seed = seed;
+    }
+
+    /**
+     * Recommends registers per hour so that at least {@code serviceLevel} of
+     * each hour's customers wait less than {@code targetWaitSeconds}. Hours
+     * without customers get none; hours that miss the target even with every
+     * register open get all of them.
+     *
+     * @return the simulated week under the recommended plan
+     */
+    public SimulationResult recommend(double targetWaitSeconds, double serviceLevel) {
+        if (targetWaitSeconds <= 0) {
+            throw new IllegalArgumentException("Target wait must be positive");
+        }
+        if (serviceLevel <= 0 || serviceLevel > 1) {
+            throw new IllegalArgumentException("Service level must be in (0, 1]");
+        }
+        int registerCount = simulation.getRegisterCount();
+        ArrivalPattern arrivals = simulation.getArrivals();
+        int[] open = new int[HOURS];
+        int undecided = 0;
+        for (int hour = 0; hour < HOURS; hour++) {
+            if (arrivals.getCustomersPerHour(hour) > 0) {
+                open[hour] = registerCount;
+                undecided++;
+            }
+        }
+        boolean[] decided = new boolean[HOURS];
+        for (int registers = 1; registers <= registerCount && undecided > 0; registers++) {
+            SimulationResult result = simulation.run(policy, StaffingPlan.uniform(registers), seed);
+            for (int hour = 0; hour < HOURS; hour++) {
+                if (open[hour] > 0 && !decided[hour]
+                        && result.getShareServedWithin(hour, targetWaitSeconds) >= serviceLevel) {
+                    open[hour] = registers;
+                    decided[hour] = true;
+                    undecided--;
+                }
+            }
+        }
+
+        SimulationResult result = simulation.run(policy, new StaffingPlan(open), seed);
+        for (int round = 0; round < MAX_REFINEMENTS; round++) {
+            boolean changed = false;
+            for (int hour = 0; hour < HOURS; hour++) {
+                if (open[hour] > 0 && open[hour] < registerCount
+                        && result.getShareServedWithin(hour, targetWaitSeconds) < serviceLevel) {
+                    open[hour]++;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+            result = simulation.run(policy, new StaffingPlan(open), seed);
+        }
+        return result;
+    }
+}
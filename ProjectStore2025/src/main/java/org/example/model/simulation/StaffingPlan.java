@@ -0,0 +1,65 @@
+package org.example.model.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Registers open in each hour of a week. Registers closing at the end of an
+ * hour stop taking customers but still serve the ones queued at them.
+ */
+public final class StaffingPlan {
+    private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+
+    private final int[] openRegisters;
+
+    public StaffingPlan(int[] openRegistersPerHour) {
+        if (openRegistersPerHour == null || openRegistersPerHour.length != ArrivalPattern.HOURS_PER_WEEK) {
+            throw new IllegalArgumentException("Plan must cover the " + ArrivalPattern.HOURS_PER_WEEK
+                + " hours of a week");
+        }
+        for (int open : openRegistersPerHour) {
+            if (open < 0) {
+                throw new IllegalArgumentException("Open registers cannot be negative: " + open);
+            }
+        }
+        this.openRegisters = openRegistersPerHour.clone();
+    }
+
+    public static StaffingPlan uniform(int registers) {
+        int[] open = new int[ArrivalPattern.HOURS_PER_WEEK];
+        Arrays.fill(open, registers);
+        return new StaffingPlan(open);
+    }
+
+    public int getOpenRegisters(int hourOfWeek) {
+        return openRegisters[hourOfWeek];
+    }
+
+    public int getMaxOpenRegisters() {
+        return Arrays.stream(openRegisters).max().orElse(0);
+    }
+
+    /**
+     * Register-hours a week, i.e. the cashier time the plan costs.
+     */
+    public long getRegisterHours() {
+        return Arrays.stream(openRegisters).asLongStream().sum();
+    }
+
+    public int[] toArray() {
+        return openRegisters.clone();
+    }
+
+    static String hourLabel(int hourOfWeek) {
+        return String.format("%s %02d:00", DAYS[hourOfWeek / 24], hourOfWeek % 24);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("StaffingPlan{registerHours=").append(getRegisterHours());
+        for (int day = 0; day < DAYS.length; day++) {
+            text.append(", ").append(DAYS[day]).append('=');
+            text.append(Arrays.toString(Arrays.copyOfRange(openRegisters, day * 24, day * 24 + 24)));
+        }
+        return text.append('}').toString();
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.model.store;
+
+import org.example.model.product.Product;
+
+import java.util.Arrays;
+
+/**
+ * A reusable checkout basket of product ids and quantities kept in parallel
+ * primitive arrays. Adding the same product twice merges the lines. Call
+ * {@link #clear()} between sales to reuse the basket without allocating.
+ * Not thread-safe; use one basket per register or thread.
+ */
+public class Basket {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] productIds;
+    private int[] quantities;
+    private int size;
+
+    // Scratch space filled by Store during checkout so it can price lines without allocating.
+    Product[] resolvedProducts;
+    double[] unitPrices;
+    double[] discounts;
+    String[] promotionIds;
+    // Prices quoted when lines were scanned at a register, kept so removals can be subtracted exactly.
+    private double[] scanPrices;
+    private double scanTotal;
+
+    public Basket() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public Basket(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.productIds = new int[capacity];
+        this.quantities = new int[capacity];
+        this.resolvedProducts = new Product[capacity];
+        this.unitPrices = new double[capacity];
+        this.discounts = new double[capacity];
+        this.promotionIds = new String[capacity];
+        this.scanPrices = new double[capacity];
+    }
+
+    public Basket add(Product product, int quantity) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        return add(product.getId(), quantity);
+    }
+
+    public Basket add(int productId, int quantity) {
+        addLine(productId, quantity, 0.0);
+        return this;
+    }
+
+    /**
+     * Adds a scanned product and its quoted unit price to the running
+     * {@link #scannedTotal()}. A product already in the basket keeps the price
+     * it was first scanned at.
+     */
+    void addScanned(Product product, int quantity, double unitPrice) {
+        int line = addLine(product.getId(), quantity, unitPrice);
+        resolvedProducts[line] = product;
+    }
+
+    private int addLine(int productId, int quantity, double unitPrice) {
+        if (productId <= 0) {
+            throw new IllegalArgumentException("Invalid product id: " + productId);
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        int line = indexOf(productId);
+        if (line < 0) {
+            if (size == productIds.length) {
+                grow();
+            }
+            line = size++;
+            productIds[line] = productId;
+            quantities[line] = quantity;
+            scanPrices[line] = unitPrice;
+        } else {
+            try {
+                quantities[line] = Math.addExact(quantities[line], quantity);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Quantity of product " + productId + " in the basket is too large");
+            }
+        }
+        scanTotal += scanPrices[line] * quantity;
+        return line;
+    }
+
+    /**
+     * Removes up to {@code quantity} units of a product, dropping the line once
+     * it reaches zero. Returns {@code false} if the product is not in the basket.
+     */
+    public boolean remove(int productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        int line = indexOf(productId);
+        if (line < 0) {
+            return false;
+        }
+        if (quantities[line] > quantity) {
+            quantities[line] -= quantity;
+            scanTotal -= scanPrices[line] * quantity;
+            return true;
+        }
+        scanTotal -= scanPrices[line] * quantities[line];
+        size--;
+        productIds[line] = productIds[size];
+        quantities[line] = quantities[size];
+        scanPrices[line] = scanPrices[size];
+        resolvedProducts[line] = resolvedProducts[size];
+        resolvedProducts[size] = null;
+        if (size == 0) {
+            // Drop accumulated rounding error once the basket is empty.
+            scanTotal = 0.0;
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(resolvedProducts, 0, size, null);
+        Arrays.fill(promotionIds, 0, size, null);
+        size = 0;
+        scanTotal = 0.0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getProductId(int line) {
+        checkLine(line);
+        return productIds[line];
+    }
+
+    public int getQuantity(int line) {
+        checkLine(line);
+        return quantities[line];
+    }
+
+    public int getQuantityOf(int productId) {
+        int line = indexOf(productId);
+        return line < 0 ? 0 : quantities[line];
+    }
+
+    private int indexOf(int productId) {
+        for (int i = 0; i < size; i++) {
+            if (productIds[i] == productId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void checkLine(int line) {
+        if (line < 0 || line >= size) {
+            throw new IndexOutOfBoundsException("Line " + line + " out of range for basket of size " + size);
+        }
+    }
+
+    private void grow() {
+        int capacity = productIds.length * 2;
+        productIds = Arrays.copyOf(productIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        resolvedProducts = Arrays.copyOf(resolvedProducts, capacity);
+        unitPrices = Arrays.copyOf(unitPrices, capacity);
+        discounts = Arrays.copyOf(discounts, capacity);
+        promotionIds = Arrays.copyOf(promotionIds, capacity);
+        scanPrices = Arrays.copyOf(scanPrices, capacity);
+    }
+
+    int[] quantities() {
+        return quantities;
+    }
+
+    /**
+     * Sum of quantity times quoted price over lines added with
+     * {@link #addScanned}; lines added by id alone count as zero.
+     */
+    double scannedTotal() {
+        return scanTotal;
+    }
+
+    Product scannedProduct(int line) {
+        checkLine(line);
+        return resolvedProducts[line];
+    }
+}
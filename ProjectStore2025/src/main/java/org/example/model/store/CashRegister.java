@@ -1,27 +1,29 @@
 package org.example.model.store;
 
 import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
-import java.text.NumberFormat;
-import java.util.Locale;
 
 public class CashRegister implements Serializable {
     private static final long serialVersionUID = 1L;
     private final int id;
-    private final AtomicReference<Cashier> assignedCashier;
-    private final Map<Product, Integer> currentTransaction;
-    private static final NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.US);
+    private final AtomicReference<Pairing> pairing;
+    // Transaction state is per session and not part of the serialized form.
+    private transient Basket basket;
+    private transient volatile double runningTotal;
+    private transient volatile Store store;
+    // When the first item of the current basket was scanned, or 0 if it is empty.
+    private transient long basketStartedNanos;
 
     public CashRegister(int id) {
         if (id <= 0) {
             throw new IllegalArgumentException("Register ID must be positive");
         }
         this.id = id;
-        this.currentTransaction = new ConcurrentHashMap<>();
-        this.assignedCashier = new AtomicReference<>(null);
+        this.pairing = new AtomicReference<>(null);
     }
 
     public int getId() {
@@ -29,83 +31,237 @@ public class CashRegister implements Serializable {
     }
 
     public Cashier getAssignedCashier() {
-        return assignedCashier.get();
+        Pairing current = pairing.get();
+        return current != null && current.isActive() ? current.cashier : null;
     }
 
     public void setAssignedCashier(Cashier cashier) {
         if (cashier == null) {
             throw new IllegalArgumentException("Cashier cannot be null");
         }
-        Cashier currentCashier = assignedCashier.get();
-        if (currentCashier != null) {
-            throw new IllegalStateException("Register already has an assigned cashier");
-        }
-        if (!assignedCashier.compareAndSet(null, cashier)) {
+        Pairing started = startPairing(cashier);
+        if (started == null) {
             throw new IllegalStateException("Register already has an assigned cashier");
         }
+        activatePairing(started);
     }
 
+    /**
+     * Unassigns the cashier and closes their shift. A sale completing at the
+     * same moment may miss the closed shift's totals. A pairing made through
+     * a {@link RegisterPool} ends on the cashier's side too.
+     */
     public void removeAssignedCashier() {
-        Cashier currentCashier = assignedCashier.get();
-        if (currentCashier != null) {
-            if (!assignedCashier.compareAndSet(currentCashier, null)) {
+        Pairing current = pairing.get();
+        if (current != null && current.isActive()) {
+            if (!endPairing(current)) {
                 throw new IllegalStateException("Cashier assignment changed during removal");
             }
         }
     }
 
+    /**
+     * Links a pending pairing with {@code cashier}, and their shift, to this
+     * register.
+     *
+     * @return the pairing, or {@code null} if the register is in another one
+     */
+    Pairing startPairing(Cashier cashier) {
+        Pairing started = new Pairing(cashier, this, new Shift(cashier, id, System.currentTimeMillis()));
+        while (true) {
+            Pairing current = pairing.get();
+            if (current != null && !current.isEnded()) {
+                return null;
+            }
+            if (pairing.compareAndSet(current, started)) {
+                return started;
+            }
+        }
+    }
+
+    void activatePairing(Pairing started) {
+        started.activate();
+        Store owner = store;
+        if (owner != null) {
+            owner.cashierAssigned(started.cashier, this);
+        }
+    }
+
+    void abandonPairing(Pairing started) {
+        started.abandon();
+        pairing.compareAndSet(started, null);
+    }
+
+    /**
+     * Ends {@code active} on both sides, closes its shift and hands the
+     * register back to its store.
+     *
+     * @return whether this call ended it
+     */
+    boolean endPairing(Pairing active) {
+        if (!active.end()) {
+            return false;
+        }
+        Store owner = store;
+        if (active.shift != null && owner != null) {
+            owner.shiftClosed(active.shift.toRecord(System.currentTimeMillis()));
+        }
+        active.cashier.unlink(active);
+        pairing.compareAndSet(active, null);
+        if (owner != null) {
+            owner.registerFreed(this);
+        }
+        return true;
+    }
+
+    /**
+     * Ends the pairing with {@code cashier} if they are the one assigned.
+     */
+    boolean tryRemoveCashier(Cashier cashier) {
+        Pairing current = pairing.get();
+        return current != null && current.cashier == cashier && endPairing(current);
+    }
+
     public boolean isAssigned() {
-        return assignedCashier.get() != null;
+        return getAssignedCashier() != null;
+    }
+
+    /**
+     * Totals of the shift in progress, or {@code null} if no cashier is
+     * assigned.
+     */
+    public ShiftRecord getCurrentShift() {
+        Shift current = currentShift();
+        return current == null ? null : current.toRecord(0);
+    }
+
+    Shift currentShift() {
+        Pairing current = pairing.get();
+        return current != null && current.isActive() ? current.shift : null;
     }
 
-    public void addToTransaction(Product product, int quantity) {
+    /**
+     * Scans {@code quantity} units into the current transaction. When the
+     * register belongs to a store the line is priced at the store's selling
+     * price and checked against its inventory; otherwise the product's own
+     * price and quantity are used.
+     */
+    public synchronized void addToTransaction(Product product, int quantity) {
         if (product == null) {
             throw new IllegalArgumentException("Product cannot be null");
         }
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be positive");
         }
-        if (product.getQuantity() < quantity) {
+        Basket basket = basket();
+        int wanted = basket.getQuantityOf(product.getId()) + quantity;
+        Store owner = store;
+        int available = owner != null ? owner.getStockLevel(product) : product.getQuantity();
+        if (available < wanted) {
             throw new IllegalStateException("Not enough quantity available for product: " + product.getName());
         }
-        currentTransaction.merge(product, quantity, Integer::sum);
+        double unitPrice = owner != null ? owner.getSellingPrice(product) : product.calculateSellingPrice();
+        if (basket.isEmpty()) {
+            basketStartedNanos = System.nanoTime();
+        }
+        basket.addScanned(product, quantity, unitPrice);
+        updateRunningTotal(basket);
     }
 
-    public void removeFromTransaction(Product product, int quantity) {
+    public synchronized void removeFromTransaction(Product product, int quantity) {
         if (product == null) {
             throw new IllegalArgumentException("Product cannot be null");
         }
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be positive");
         }
-        Integer currentQuantity = currentTransaction.get(product);
-        if (currentQuantity == null || currentQuantity < quantity) {
+        Basket basket = basket();
+        if (basket.getQuantityOf(product.getId()) < quantity) {
             throw new IllegalStateException("Not enough quantity in transaction for product: " + product.getName());
         }
-        if (currentQuantity == quantity) {
-            currentTransaction.remove(product);
+        basket.remove(product.getId(), quantity);
+        updateRunningTotal(basket);
+    }
+
+    public synchronized void clearTransaction() {
+        basket().clear();
+        runningTotal = 0.0;
+        basketStartedNanos = 0;
+    }
+
+    public synchronized Map<Product, Integer> getCurrentTransaction() {
+        Basket basket = basket();
+        Map<Product, Integer> items = new HashMap<>();
+        for (int line = 0; line < basket.size(); line++) {
+            items.put(basket.scannedProduct(line), basket.getQuantity(line));
+        }
+        return items;
+    }
+
+    /**
+     * Returns the running total of the current transaction. For a register in
+     * a store it is what checkout would charge, priced and discounted by the
+     * store's promotions the same way as the sale; otherwise it is the sum of
+     * the product prices quoted when each item was scanned. Brought up to date
+     * on every add and remove, so polling it is a single field read.
+     */
+    public double getCurrentTransactionTotal() {
+        return runningTotal;
+    }
+
+    /**
+     * Checks out the current transaction through {@code store} and clears it
+     * once the sale completes. Out-of-stock and underpaid outcomes leave the
+     * transaction in place so it can be corrected and retried.
+     */
+    public synchronized SaleResult tryCheckout(Store store, double payment) {
+        if (store == null) {
+            throw new IllegalArgumentException("Store cannot be null");
+        }
+        SaleResult result = store.trySale(this, basket(), payment);
+        if (result.isCompleted()) {
+            Shift current = currentShift();
+            if (current != null && basketStartedNanos != 0) {
+                current.recordBasketTime(System.nanoTime() - basketStartedNanos);
+            }
+            clearTransaction();
+        }
+        return result;
+    }
+
+    public Receipt checkout(Store store, double payment) {
+        return tryCheckout(store, payment).getReceiptOrThrow();
+    }
+
+    private void updateRunningTotal(Basket basket) {
+        Store owner = store;
+        if (basket.isEmpty()) {
+            runningTotal = 0.0;
         } else {
-            currentTransaction.put(product, currentQuantity - quantity);
+            runningTotal = owner != null ? owner.quote(basket) : basket.scannedTotal();
         }
     }
 
-    public void clearTransaction() {
-        currentTransaction.clear();
+    void attachTo(Store owner) {
+        this.store = owner;
     }
 
-    public Map<Product, Integer> getCurrentTransaction() {
-        return new ConcurrentHashMap<>(currentTransaction);
+    void detachFrom(Store owner) {
+        if (this.store == owner) {
+            this.store = null;
+        }
     }
 
-    public double getCurrentTransactionTotal() {
-        return currentTransaction.entrySet().stream()
-                .mapToDouble(entry -> entry.getKey().getDeliveryPrice() * entry.getValue())
-                .sum();
+    private Basket basket() {
+        if (basket == null) {
+            basket = new Basket();
+        }
+        return basket;
     }
 
     @Override
     public String toString() {
         return String.format("CashRegister{id=%d, assignedCashier=%s, transactionSize=%d}",
-            id, assignedCashier.get(), currentTransaction.size());
+            id, getAssignedCashier(), basket == null ? 0 : basket.size());
     }
 } 
\ No newline at end of file
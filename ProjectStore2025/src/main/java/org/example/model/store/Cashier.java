@@ -11,7 +11,7 @@ public class Cashier implements Serializable {
     private final int id;
     private String name;
     private double monthlySalary;
-    private final AtomicReference<CashRegister> assignedRegister;
+    private final AtomicReference<Pairing> pairing;
 
     public Cashier(String name, double monthlySalary) {
         if (name == null || name.trim().isEmpty()) {
@@ -24,7 +24,7 @@ public class Cashier implements Serializable {
         this.id = nextId.getAndIncrement();
         this.name = name;
         this.monthlySalary = monthlySalary;
-        this.assignedRegister = new AtomicReference<>(null);
+        this.pairing = new AtomicReference<>(null);
     }
 
     public int getId() {
@@ -54,38 +54,71 @@ public class Cashier implements Serializable {
     }
 
     public CashRegister getAssignedRegister() {
-        return assignedRegister.get();
+        Pairing current = pairing.get();
+        return current != null && current.isActive() ? current.register : null;
     }
 
     public void setAssignedRegister(CashRegister register) {
         if (register == null) {
             throw new IllegalArgumentException("Register cannot be null");
         }
-        CashRegister currentRegister = assignedRegister.get();
-        if (currentRegister != null) {
-            throw new IllegalStateException("Cashier is already assigned to a register");
-        }
-        if (!assignedRegister.compareAndSet(null, register)) {
+        Pairing assigned = new Pairing(this, register, null);
+        assigned.activate();
+        if (!link(assigned)) {
             throw new IllegalStateException("Cashier is already assigned to a register");
         }
     }
 
     public void removeAssignedRegister() {
-        CashRegister currentRegister = assignedRegister.get();
-        if (currentRegister != null) {
-            if (!assignedRegister.compareAndSet(currentRegister, null)) {
+        Pairing current = pairing.get();
+        if (current != null && current.isActive()) {
+            if (!current.register.endPairing(current)) {
                 throw new IllegalStateException("Register assignment changed during removal");
             }
         }
     }
 
+    /**
+     * Points this cashier at {@code assigned} unless they are in another
+     * pairing, pending or active; one left over from an ended pairing is
+     * replaced.
+     */
+    boolean link(Pairing assigned) {
+        while (true) {
+            Pairing current = pairing.get();
+            if (current != null && !current.isEnded()) {
+                return false;
+            }
+            if (pairing.compareAndSet(current, assigned)) {
+                return true;
+            }
+        }
+    }
+
+    void unlink(Pairing ended) {
+        pairing.compareAndSet(ended, null);
+    }
+
+    /**
+     * Whether this cashier is in a pairing, including one still being made.
+     */
+    boolean isPaired() {
+        Pairing current = pairing.get();
+        return current != null && !current.isEnded();
+    }
+
+    boolean releaseRegister(CashRegister register) {
+        Pairing current = pairing.get();
+        return current != null && current.register == register && register.endPairing(current);
+    }
+
     public boolean isAssignedToRegister() {
-        return assignedRegister.get() != null;
+        return getAssignedRegister() != null;
     }
 
     @Override
     public String toString() {
         return String.format("Cashier{id=%d, name='%s', monthlySalary=%.2f, assignedRegister=%s}",
-            id, name, monthlySalary, assignedRegister.get());
+            id, name, monthlySalary, getAssignedRegister());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,87 @@
+package org.example.model.store;
+
+import org.example.model.analytics.AnalyticsSummary;
+import org.example.model.product.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of {@link StoreGroup#summarize}: the chain-wide totals and each
+ * store's own summary, all taken in the same pass.
+ */
+public final class ChainSummary {
+    private final Store[] stores;
+    private final AnalyticsSummary[] perStore;
+    private final AnalyticsSummary totals;
+
+    ChainSummary(Store[] stores, AnalyticsSummary[] perStore, AnalyticsSummary totals) {
+        this.stores = stores;
+        this.perStore = perStore;
+        this.totals = totals;
+    }
+
+    public AnalyticsSummary getTotals() {
+        return totals;
+    }
+
+    public int getStoreCount() {
+        return stores.length;
+    }
+
+    public double getTotalRevenue() {
+        return totals.getTotalRevenue();
+    }
+
+    public double getProfit() {
+        return totals.getProfit();
+    }
+
+    public Map<Product, Long> getTopSellingProducts(int limit) {
+        return totals.getTopSellingProducts(limit);
+    }
+
+    /**
+     * The summary of one store, or {@code null} if it was not in the group.
+     */
+    public AnalyticsSummary getStoreSummary(Store store) {
+        for (int i = 0; i < stores.length; i++) {
+            if (stores[i] == store) {
+                return perStore[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Up to {@code limit} stores with the highest revenue, highest first.
+     */
+    public List<Store> getStoresByRevenue(int limit) {
+        return rank(Comparator.comparingDouble(AnalyticsSummary::getTotalRevenue), limit);
+    }
+
+    /**
+     * Up to {@code limit} stores with the highest profit, highest first.
+     */
+    public List<Store> getStoresByProfit(int limit) {
+        return rank(Comparator.comparingDouble(AnalyticsSummary::getProfit), limit);
+    }
+
+    private List<Store> rank(Comparator<AnalyticsSummary> order, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        List<Integer> indexes = new ArrayList<>(stores.length);
+        for (int i = 0; i < stores.length; i++) {
+            indexes.add(i);
+        }
+        indexes.sort(Comparator.comparing((Integer i) -> perStore[i], order.reversed()));
+        List<Store> ranked = new ArrayList<>(Math.min(limit, stores.length));
+        for (int i = 0; i < indexes.size() && i < limit; i++) {
+            ranked.add(stores[indexes.get(i)]);
+        }
+        return ranked;
+    }
+}
@@ -0,0 +1,293 @@
+package org.example.model.store;
+
+import org.example.exception.StoreException;
+import org.example.model.receipt.Receipt;
+import org.example.util.StoreLogger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the receipts of sales submitted with a client transaction id so a
+ * retried submission returns the original receipt instead of charging and
+ * decrementing stock again.
+ * <p>
+ * Entries live in lock stripes, each an insertion-ordered hash map, giving
+ * O(1) lookups and cheap expiry and eviction from the oldest end. Each stripe
+ * holds at most its share of {@code maxEntries} plus the sales it has in
+ * progress, which are never evicted. Completed sales are appended
+ * to a {@link TransactionJournal} when one is configured and reloaded on open,
+ * so deduplication survives a restart within the retention window.
+ */
+public class IdempotencyCache implements Closeable {
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    public static final Duration DEFAULT_RETENTION = Duration.ofHours(24);
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeCapacity;
+    private final long retentionMillis;
+    private final LongSupplier clock;
+    private final TransactionJournal journal;
+
+    /**
+     * Creates an in-memory cache that does not survive a restart.
+     */
+    public IdempotencyCache(int maxEntries, Duration retention) {
+        this(null, maxEntries, retention, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a cache backed by {@code journalFile}, loading the unexpired
+     * transactions recorded there.
+     */
+    public IdempotencyCache(File journalFile, int maxEntries, Duration retention) {
+        this(journalFile, maxEntries, retention, System::currentTimeMillis);
+    }
+
+    IdempotencyCache(File journalFile, int maxEntries, Duration retention, LongSupplier clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        if (retention == null || retention.isNegative() || retention.isZero()) {
+            throw new IllegalArgumentException("Retention must be positive");
+        }
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeCapacity = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+
+        if (journalFile == null) {
+            this.journal = null;
+            return;
+        }
+        try {
+            this.journal = new TransactionJournal(journalFile);
+            journal.load(clock.getAsLong() - retentionMillis, this::restore);
+        } catch (IOException e) {
+            throw new StoreException("Failed to open transaction journal " + journalFile + ": " + e.getMessage(), e);
+        }
+        StoreLogger.info("Transaction journal " + journalFile + " loaded with " + size() + " transactions");
+    }
+
+    /**
+     * Returns the receipt recorded for {@code transactionId}, or {@code null}
+     * if there is none or the sale is still in progress.
+     */
+    public Receipt get(String transactionId) {
+        if (transactionId == null) {
+            throw new IllegalArgumentException("Transaction id cannot be null");
+        }
+        Stripe stripe = stripeFor(transactionId);
+        Entry entry;
+        synchronized (stripe) {
+            stripe.expire(clock.getAsLong() - retentionMillis);
+            entry = stripe.entries.get(transactionId);
+        }
+        return entry == null ? null : entry.receipt.getNow(null);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Runs {@code sale} at most once per transaction id. A retry of a completed
+     * transaction returns the original receipt; a retry that arrives while the
+     * first attempt is still running waits for it. Outcomes other than
+     * {@link SaleResult.Completed} and exceptions are not remembered, so the
+     * transaction may be submitted again.
+     */
+    SaleResult execute(String transactionId, Supplier<SaleResult> sale) {
+        if (transactionId == null || transactionId.isEmpty()) {
+            throw new StoreException("Transaction id cannot be null or empty");
+        }
+        Stripe stripe = stripeFor(transactionId);
+        while (true) {
+            long now = clock.getAsLong();
+            Entry entry;
+            boolean owner = false;
+            synchronized (stripe) {
+                stripe.expire(now - retentionMillis);
+                entry = stripe.entries.get(transactionId);
+                if (entry == null) {
+                    entry = new Entry(now);
+                    stripe.entries.put(transactionId, entry);
+                    stripe.evictOverflow(stripeCapacity);
+                    owner = true;
+                }
+            }
+
+            if (!owner) {
+                Receipt original = entry.receipt.join();
+                if (original != null) {
+                    StoreLogger.info("Duplicate submission of transaction " + transactionId
+                        + " answered with receipt #" + original.getReceiptNumber());
+                    return new SaleResult.Completed(original);
+                }
+                // The earlier attempt did not complete; try again as a fresh submission.
+                continue;
+            }
+
+            SaleResult result;
+            try {
+                result = sale.get();
+            } catch (RuntimeException e) {
+                forget(stripe, transactionId, entry);
+                throw e;
+            }
+            if (!result.isCompleted()) {
+                forget(stripe, transactionId, entry);
+                return result;
+            }
+            Receipt receipt = result.getReceiptOrThrow();
+            // Completed before it is journaled, so a compaction that runs in
+            // between still writes it out.
+            entry.receipt.complete(receipt);
+            record(transactionId, entry.createdMillis, receipt);
+            return result;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            StoreLogger.warning("Failed to close transaction journal: " + e.getMessage());
+        }
+    }
+
+    private void forget(Stripe stripe, String transactionId, Entry entry) {
+        synchronized (stripe) {
+            stripe.entries.remove(transactionId, entry);
+        }
+        entry.receipt.complete(null);
+    }
+
+    private void record(String transactionId, long createdMillis, Receipt receipt) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(transactionId, createdMillis, receipt);
+            if (journal.getFrameCount() > compactionThreshold()) {
+                compact();
+            }
+        } catch (IOException e) {
+            // The sale already happened; deduplication still works until the next restart.
+            StoreLogger.error("Failed to journal transaction " + transactionId, e);
+        }
+    }
+
+    private int compactionThreshold() {
+        return 2 * stripeCapacity * STRIPES;
+    }
+
+    /**
+     * Rewrites the journal with the completed entries still in the cache.
+     * Holding the journal's lock from the snapshot to the rewrite keeps other
+     * threads' appends out of the file being replaced: a sale completed before
+     * the snapshot is in it, and one completed after appends to the new file.
+     */
+    private void compact() throws IOException {
+        synchronized (journal) {
+            if (journal.getFrameCount() <= compactionThreshold()) {
+                // Another thread compacted first.
+                return;
+            }
+            List<TransactionJournal.Entry> live = new ArrayList<>();
+            long expiresBefore = clock.getAsLong() - retentionMillis;
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.expire(expiresBefore);
+                    for (Map.Entry<String, Entry> e : stripe.entries.entrySet()) {
+                        Receipt receipt = e.getValue().receipt.getNow(null);
+                        if (receipt != null) {
+                            live.add(new TransactionJournal.Entry(e.getKey(), e.getValue().createdMillis, receipt));
+                        }
+                    }
+                }
+            }
+            journal.rewrite(live);
+        }
+    }
+
+    private void restore(String transactionId, long createdMillis, Receipt receipt) {
+        Stripe stripe = stripeFor(transactionId);
+        Entry entry = new Entry(createdMillis);
+        entry.receipt.complete(receipt);
+        synchronized (stripe) {
+            stripe.entries.put(transactionId, entry);
+            stripe.evictOverflow(stripeCapacity);
+        }
+    }
+
+    private Stripe stripeFor(String transactionId) {
+        int h = transactionId.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (STRIPES - 1)];
+    }
+
+    private static final class Entry {
+        final long createdMillis;
+        // Completed with the receipt, or with null if the attempt did not produce a sale.
+        final CompletableFuture<Receipt> receipt = new CompletableFuture<>();
+
+        Entry(long createdMillis) {
+            this.createdMillis = createdMillis;
+        }
+    }
+
+    private static final class Stripe {
+        // Insertion order is creation order, so the oldest entries are always first.
+        final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        void expire(long expiresBeforeMillis) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.createdMillis >= expiresBeforeMillis) {
+                    return;
+                }
+                it.remove();
+            }
+        }
+
+        /**
+         * Drops the oldest completed entries until at most {@code capacity}
+         * remain. Sales still in progress are kept, like in compaction: a
+         * retry arriving after their entry was gone would charge again.
+         */
+        void evictOverflow(int capacity) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (entries.size() > capacity && it.hasNext()) {
+                if (it.next().receipt.isDone()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.model.store;
+
+import java.util.Arrays;
+
+/**
+ * A store's own selling prices for some products, overriding the price
+ * worked out from the catalog and markup. Held by product id in pages of
+ * doubles, {@code NaN} meaning no override, so a store with a few local
+ * prices costs a few pages rather than an object per product. Writes copy
+ * the page they touch; lookups during sales take no lock.
+ */
+final class LocalPrices {
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private volatile double[][] pages = new double[0][];
+
+    /**
+     * The local price of the product, or {@code NaN} if it has none.
+     */
+    double get(int productId) {
+        double[][] current = pages;
+        int page = productId >>> PAGE_SHIFT;
+        if (productId <= 0 || page >= current.length || current[page] == null) {
+            return Double.NaN;
+        }
+        return current[page][productId & PAGE_MASK];
+    }
+
+    synchronized void set(int productId, double price) {
+        int page = productId >>> PAGE_SHIFT;
+        double[][] next = Arrays.copyOf(pages, Math.max(pages.length, page + 1));
+        double[] values;
+        if (next[page] == null) {
+            values = new double[PAGE_SIZE];
+            Arrays.fill(values, Double.NaN);
+        } else {
+            values = next[page].clone();
+        }
+        values[productId & PAGE_MASK] = price;
+        next[page] = values;
+        pages = next;
+    }
+
+    synchronized void clear(int productId) {
+        if (!Double.isNaN(get(productId))) {
+            set(productId, Double.NaN);
+        }
+    }
+}
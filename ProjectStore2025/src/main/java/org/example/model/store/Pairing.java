@@ -0,0 +1,54 @@
+package org.example.model.store;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A cashier working a register. The cashier and the register both point at
+ * the same pairing while it is being made, and it only counts once a single
+ * compare-and-set on its state makes it active, so it appears, and later
+ * ends, on both sides at the same moment. Pairings made from one side only,
+ * e.g. with {@link CashRegister#setAssignedCashier}, are linked to that side
+ * alone.
+ */
+final class Pairing implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final AtomicIntegerFieldUpdater<Pairing> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Pairing.class, "state");
+    private static final int PENDING = 0;
+    private static final int ACTIVE = 1;
+    // Ended, or abandoned before it became active.
+    private static final int ENDED = 2;
+
+    final Cashier cashier;
+    final CashRegister register;
+    // Opened with the pairing; like the register's basket it is per session.
+    final transient Shift shift;
+    private volatile int state;
+
+    Pairing(Cashier cashier, CashRegister register, Shift shift) {
+        this.cashier = cashier;
+        this.register = register;
+        this.shift = shift;
+    }
+
+    boolean isActive() {
+        return state == ACTIVE;
+    }
+
+    boolean isEnded() {
+        return state == ENDED;
+    }
+
+    boolean activate() {
+        return STATE.compareAndSet(this, PENDING, ACTIVE);
+    }
+
+    boolean abandon() {
+        return STATE.compareAndSet(this, PENDING, ENDED);
+    }
+
+    boolean end() {
+        return STATE.compareAndSet(this, ACTIVE, ENDED);
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.model.store;
+
+import org.example.exception.StoreException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A store's registers, handing out free ones and pairing them with cashiers
+ * without locks.
+ * <p>
+ * A pairing is one shared object that both sides point at. It is linked to
+ * the register, then to the cashier, and only then made active with a
+ * single compare-and-set on the pairing itself, so nobody ever sees one
+ * side paired and the other not: until then both sides read as free. If the
+ * cashier turns out to be taken the pending pairing is abandoned. Ending a
+ * pairing is likewise one compare-and-set, after which both sides drop it.
+ * <p>
+ * Free registers wait in a lock-free queue, at most once each, and are
+ * handed out oldest-freed first. A register that was taken some other way
+ * while queued, e.g. with {@link CashRegister#setAssignedCashier}, is
+ * skipped and comes back when it is freed.
+ */
+public class RegisterPool {
+    // Members and whether each is in the free queue.
+    private final Map<CashRegister, AtomicBoolean> registers;
+    private final ConcurrentLinkedQueue<CashRegister> free;
+
+    public RegisterPool() {
+        this.registers = new ConcurrentHashMap<>();
+        this.free = new ConcurrentLinkedQueue<>();
+    }
+
+    public void add(CashRegister register) {
+        if (register == null) {
+            throw new StoreException("Register cannot be null");
+        }
+        if (registers.putIfAbsent(register, new AtomicBoolean()) == null) {
+            offer(register);
+        }
+    }
+
+    /**
+     * Takes {@code register} out of the pool. Its current pairing, if any, is
+     * left alone.
+     */
+    public void remove(CashRegister register) {
+        if (register == null) {
+            throw new StoreException("Register cannot be null");
+        }
+        registers.remove(register);
+    }
+
+    public boolean contains(CashRegister register) {
+        return register != null && registers.containsKey(register);
+    }
+
+    public int size() {
+        return registers.size();
+    }
+
+    /**
+     * Pairs {@code cashier} with any free register.
+     *
+     * @return the register, or {@code null} if none is free
+     * @throws StoreException if the cashier already has a register
+     */
+    public CashRegister assignAny(Cashier cashier) {
+        if (cashier == null) {
+            throw new StoreException("Cashier cannot be null");
+        }
+        if (cashier.isPaired()) {
+            throw new StoreException("Cashier '" + cashier.getName() + "' is already assigned to a register");
+        }
+        CashRegister register;
+        while ((register = free.poll()) != null) {
+            AtomicBoolean queued = registers.get(register);
+            if (queued == null) {
+                // Removed from the pool while waiting.
+                continue;
+            }
+            queued.set(false);
+            Pairing started = register.startPairing(cashier);
+            if (started == null) {
+                // Taken by someone else since it was queued; whoever frees it queues it again.
+                continue;
+            }
+            if (!cashier.link(started)) {
+                register.abandonPairing(started);
+                offer(register);
+                throw new StoreException("Cashier '" + cashier.getName() + "' is already assigned to a register");
+            }
+            register.activatePairing(started);
+            return register;
+        }
+        return null;
+    }
+
+    /**
+     * Pairs {@code cashier} with {@code register} if both are free.
+     *
+     * @return whether the pairing was made
+     */
+    public boolean assign(Cashier cashier, CashRegister register) {
+        if (cashier == null || register == null) {
+            throw new StoreException("Cashier and register cannot be null");
+        }
+        if (!contains(register)) {
+            throw new StoreException("Register " + register.getId() + " is not in the pool");
+        }
+        Pairing started = register.startPairing(cashier);
+        if (started == null) {
+            return false;
+        }
+        if (!cashier.link(started)) {
+            register.abandonPairing(started);
+            // A taker that found it pending has dropped it from the queue.
+            offer(register);
+            return false;
+        }
+        register.activatePairing(started);
+        return true;
+    }
+
+    /**
+     * Ends the pairing of {@code cashier} and returns their register to the
+     * free queue.
+     *
+     * @return the register released, or {@code null} if the cashier had no
+     *         active pairing
+     */
+    public CashRegister release(Cashier cashier) {
+        if (cashier == null) {
+            throw new StoreException("Cashier cannot be null");
+        }
+        CashRegister register = cashier.getAssignedRegister();
+        if (register == null || !register.tryRemoveCashier(cashier)) {
+            return null;
+        }
+        offer(register);
+        return register;
+    }
+
+    /**
+     * Ends the pairing at {@code register}, if any, and returns it to the
+     * free queue.
+     *
+     * @return the cashier released, or {@code null} if the register was free
+     */
+    public Cashier release(CashRegister register) {
+        if (register == null) {
+            throw new StoreException("Register cannot be null");
+        }
+        Cashier cashier = register.getAssignedCashier();
+        if (cashier == null || !register.tryRemoveCashier(cashier)) {
+            return null;
+        }
+        offer(register);
+        return cashier;
+    }
+
+    /**
+     * Queues {@code register} as free unless it is already queued, taken or
+     * no longer in the pool.
+     */
+    void offer(CashRegister register) {
+        AtomicBoolean queued = registers.get(register);
+        if (queued != null && !register.isAssigned() && queued.compareAndSet(false, true)) {
+            free.add(register);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.model.store;
+
+/**
+ * When a mutation on the primary counts as done with respect to its standby.
+ */
+public enum ReplicationAckMode {
+    /** As soon as it is queued for sending; the standby may lag behind. */
+    ASYNC,
+    /** Once the standby has applied it, or the acknowledgement timeout passes. */
+    STANDBY_ACK
+}
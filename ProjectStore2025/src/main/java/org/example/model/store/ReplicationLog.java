@@ -0,0 +1,85 @@
+package org.example.model.store;
+
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Records of the mutation log a {@link ReplicationPrimary} streams to its
+ * {@link ReplicationStandby}. Each frame is
+ * {@code [int length][long sequence][byte type][payload]}, where the length
+ * counts the bytes after itself and sequences increase by one per mutation:
+ * <ul>
+ *   <li>{@link #PRODUCT_ADDED}: initial stock, reorder point and reorder
+ *       quantity as ints, then the serialized product</li>
+ *   <li>{@link #SALE}: the serialized receipt</li>
+ *   <li>{@link #RETURN}: receipt number, product id and quantity as ints</li>
+ *   <li>{@link #HEARTBEAT} and {@link #CLOSE}: no payload; they carry the
+ *       last sequence sent</li>
+ * </ul>
+ * The standby answers with the sequence of the last frame it applied, as a
+ * bare long, after each batch of frames.
+ */
+final class ReplicationLog {
+    static final byte PRODUCT_ADDED = 1;
+    static final byte SALE = 2;
+    static final byte RETURN = 3;
+    static final byte HEARTBEAT = 4;
+    static final byte CLOSE = 5;
+
+    static final int FRAME_HEADER_SIZE = Long.BYTES + 1;
+    static final int MAX_FRAME_SIZE = 16 << 20;
+    static final byte[] EMPTY = new byte[0];
+
+    private ReplicationLog() {
+    }
+
+    static byte[] productAdded(Product product, int initialStock, int reorderPoint, int reorderQuantity) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(initialStock);
+            out.writeInt(reorderPoint);
+            out.writeInt(reorderQuantity);
+            try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+                oos.writeObject(product);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] sale(Receipt receipt) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(receipt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] returned(int receiptNumber, int productId, int quantity) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(3 * Integer.BYTES);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(receiptNumber);
+            out.writeInt(productId);
+            out.writeInt(quantity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static void writeFrame(DataOutputStream out, long sequence, byte type, byte[] payload) throws IOException {
+        out.writeInt(FRAME_HEADER_SIZE + payload.length);
+        out.writeLong(sequence);
+        out.writeByte(type);
+        out.write(payload);
+    }
+}
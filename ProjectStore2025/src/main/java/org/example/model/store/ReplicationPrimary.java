@@ -0,0 +1,307 @@
+package org.example.model.store;
+
+import org.example.exception.StoreException;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+import org.example.util.StoreLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams a store's mutation log (products added, sales and returns) to a
+ * {@link ReplicationStandby} over a socket, so a second process holds the
+ * same stock, revenue and analytics and can take over if this one dies.
+ * <p>
+ * Mutations are numbered and queued by the thread that made them and sent by
+ * a background thread, which also sends a heartbeat whenever the log has been
+ * idle for {@link #HEARTBEAT_INTERVAL_MILLIS}. A second thread reads the
+ * standby's acknowledgements. With {@link ReplicationAckMode#STANDBY_ACK}
+ * the mutating thread then waits until the standby has applied its record,
+ * but never longer than the acknowledgement timeout: a slow or lost standby
+ * delays sales, it does not stop them.
+ * <p>
+ * If the link breaks, replication stops for good and the standby, seeing the
+ * heartbeats stop, promotes itself. Attach before the store is stocked; the
+ * standby starts from an empty store and is not sent a snapshot.
+ */
+public class ReplicationPrimary implements Closeable {
+    public static final Duration DEFAULT_ACK_TIMEOUT = Duration.ofSeconds(1);
+    static final long HEARTBEAT_INTERVAL_MILLIS = 100;
+    private static final int QUEUE_CAPACITY = 1 << 14;
+    // Enqueue times of recent sequences, for measuring how far the standby lags.
+    private static final int LAG_WINDOW = 1 << 16;
+
+    private final Store store;
+    private final ReplicationAckMode mode;
+    private final long ackTimeoutNanos;
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final BlockingQueue<Frame> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final long[] enqueuedAt = new long[LAG_WINDOW];
+    private final Object ackLock = new Object();
+    private final Thread sender;
+    private final Thread ackReader;
+    private long publishedSequence;
+    private volatile long acknowledgedSequence;
+    private volatile long lastLagNanos;
+    private volatile long maxLagNanos;
+    private volatile boolean connected = true;
+    private volatile boolean closing;
+
+    public ReplicationPrimary(Store store, InetSocketAddress standby, ReplicationAckMode mode) throws IOException {
+        this(store, standby, mode, DEFAULT_ACK_TIMEOUT);
+    }
+
+    public ReplicationPrimary(Store store, InetSocketAddress standby, ReplicationAckMode mode, Duration ackTimeout)
+            throws IOException {
+        if (store == null || standby == null || mode == null || ackTimeout == null) {
+            throw new IllegalArgumentException("Replication arguments cannot be null");
+        }
+        if (ackTimeout.isNegative() || ackTimeout.isZero()) {
+            throw new IllegalArgumentException("Acknowledgement timeout must be positive");
+        }
+        this.store = store;
+        this.mode = mode;
+        this.ackTimeoutNanos = ackTimeout.toNanos();
+        this.socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(standby, (int) Math.min(Integer.MAX_VALUE, ackTimeout.toMillis() * 5));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        try {
+            store.attachReplication(this);
+        } catch (StoreException e) {
+            socket.close();
+            throw e;
+        }
+        this.sender = new Thread(this::sendLoop, "replication-sender");
+        this.ackReader = new Thread(this::ackLoop, "replication-acks");
+        sender.setDaemon(true);
+        ackReader.setDaemon(true);
+        sender.start();
+        ackReader.start();
+        StoreLogger.info("Store '" + store.getName() + "' replicating to " + standby + " (" + mode + ")");
+    }
+
+    void productAdded(Product product, int initialStock, int reorderPoint, int reorderQuantity) {
+        publish(ReplicationLog.PRODUCT_ADDED,
+            ReplicationLog.productAdded(product, initialStock, reorderPoint, reorderQuantity));
+    }
+
+    void saleCompleted(Receipt receipt) {
+        publish(ReplicationLog.SALE, ReplicationLog.sale(receipt));
+    }
+
+    void returned(int receiptNumber, int productId, int quantity) {
+        publish(ReplicationLog.RETURN, ReplicationLog.returned(receiptNumber, productId, quantity));
+    }
+
+    public ReplicationAckMode getMode() {
+        return mode;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Sequence number of the latest mutation logged.
+     */
+    public synchronized long getPublishedSequence() {
+        return publishedSequence;
+    }
+
+    /**
+     * Sequence number of the latest mutation the standby has applied.
+     */
+    public long getAcknowledgedSequence() {
+        return acknowledgedSequence;
+    }
+
+    /**
+     * Time from logging a mutation to the standby acknowledging it, for the
+     * most recent acknowledgement.
+     */
+    public long getLastLagNanos() {
+        return lastLagNanos;
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    /**
+     * Waits until the standby has applied every mutation logged so far.
+     *
+     * @return whether it caught up before the timeout
+     */
+    public boolean awaitCaughtUp(long timeout, TimeUnit unit) throws InterruptedException {
+        return awaitAcknowledged(getPublishedSequence(), unit.toNanos(timeout));
+    }
+
+    /**
+     * Stops replicating. Mutations already logged are sent first, followed by
+     * a close record so the standby does not mistake the shutdown for a
+     * failure.
+     */
+    @Override
+    public void close() {
+        store.detachReplication(this);
+        if (!closing && connected) {
+            closing = true;
+            try {
+                queue.put(new Frame(0, ReplicationLog.CLOSE, ReplicationLog.EMPTY));
+                sender.join(TimeUnit.NANOSECONDS.toMillis(ackTimeoutNanos) * 5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        disconnect(null);
+    }
+
+    /**
+     * Drops the connection without a close record, as a crash would.
+     */
+    void abort() {
+        store.detachReplication(this);
+        closing = true;
+        disconnect(null);
+    }
+
+    private void publish(byte type, byte[] payload) {
+        if (!connected || closing) {
+            return;
+        }
+        long sequence;
+        try {
+            synchronized (this) {
+                sequence = ++publishedSequence;
+                enqueuedAt[(int) (sequence & (LAG_WINDOW - 1))] = System.nanoTime();
+                // Queued under the lock so the log order matches the numbering.
+                queue.put(new Frame(sequence, type, payload));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (mode == ReplicationAckMode.STANDBY_ACK) {
+            try {
+                if (!awaitAcknowledged(sequence, ackTimeoutNanos) && connected) {
+                    StoreLogger.warning("Standby did not acknowledge record " + sequence + " in time");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean awaitAcknowledged(long sequence, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        synchronized (ackLock) {
+            while (acknowledgedSequence < sequence && connected) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(ackLock, remaining);
+            }
+        }
+        return acknowledgedSequence >= sequence;
+    }
+
+    private void sendLoop() {
+        long sent = 0;
+        try {
+            while (connected) {
+                Frame frame = queue.poll(HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (frame == null) {
+                    ReplicationLog.writeFrame(out, sent, ReplicationLog.HEARTBEAT, ReplicationLog.EMPTY);
+                    out.flush();
+                    continue;
+                }
+                // Drain whatever else is queued before flushing, so bursts share a write.
+                do {
+                    if (frame.type == ReplicationLog.CLOSE) {
+                        ReplicationLog.writeFrame(out, sent, ReplicationLog.CLOSE, ReplicationLog.EMPTY);
+                        out.flush();
+                        return;
+                    }
+                    ReplicationLog.writeFrame(out, frame.sequence, frame.type, frame.payload);
+                    sent = frame.sequence;
+                    frame = queue.poll();
+                } while (frame != null);
+                out.flush();
+            }
+        } catch (IOException e) {
+            disconnect(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ackLoop() {
+        try {
+            while (connected) {
+                long sequence = in.readLong();
+                long now = System.nanoTime();
+                synchronized (this) {
+                    if (publishedSequence - sequence < LAG_WINDOW) {
+                        long lag = now - enqueuedAt[(int) (sequence & (LAG_WINDOW - 1))];
+                        lastLagNanos = lag;
+                        maxLagNanos = Math.max(maxLagNanos, lag);
+                    }
+                }
+                synchronized (ackLock) {
+                    acknowledgedSequence = sequence;
+                    ackLock.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            disconnect(closing ? null : e);
+        }
+    }
+
+    private void disconnect(IOException cause) {
+        synchronized (ackLock) {
+            if (!connected) {
+                return;
+            }
+            connected = false;
+            ackLock.notifyAll();
+        }
+        store.detachReplication(this);
+        if (cause != null) {
+            StoreLogger.error("Replication link to standby lost; replication stopped", cause);
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            StoreLogger.warning("Failed to close replication socket: " + e.getMessage());
+        }
+        queue.clear();
+    }
+
+    private static final class Frame {
+        final long sequence;
+        final byte type;
+        final byte[] payload;
+
+        Frame(long sequence, byte type, byte[] payload) {
+            this.sequence = sequence;
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+}
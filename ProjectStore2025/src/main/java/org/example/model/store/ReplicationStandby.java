@@ -0,0 +1,283 @@
+package org.example.model.store;
+
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+import org.example.util.StoreLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receiving end of a {@link ReplicationPrimary}: listens for the primary,
+ * applies its mutation log to a local store as it arrives and acknowledges
+ * what it has applied.
+ * <p>
+ * The standby store should be set up like the primary's, with the same
+ * cashiers and registers, but take no sales and add no products of its own
+ * until it is promoted. Products and cashiers in replicated receipts are
+ * matched to the local ones by id, so analytics and inventory see the same
+ * objects as for local sales.
+ * <p>
+ * The standby promotes itself when the primary's connection drops or goes
+ * silent for longer than the failover timeout without a close record. After
+ * promotion it stops listening and new receipt numbers and product ids carry
+ * on from the highest replicated ones, so the store can take over.
+ */
+public class ReplicationStandby implements Closeable {
+    public static final Duration DEFAULT_FAILOVER_TIMEOUT = Duration.ofSeconds(2);
+
+    private final Store store;
+    private final ServerSocket serverSocket;
+    private final int failoverTimeoutMillis;
+    private final CountDownLatch promotion = new CountDownLatch(1);
+    private Thread receiver;
+    private volatile Socket connection;
+    private volatile long appliedSequence;
+    private volatile boolean promoted;
+    private volatile boolean closed;
+    private int maxReceiptNumber;
+    private int maxProductId;
+
+    public ReplicationStandby(Store store, InetSocketAddress address) throws IOException {
+        this(store, address, DEFAULT_FAILOVER_TIMEOUT);
+    }
+
+    public ReplicationStandby(Store store, InetSocketAddress address, Duration failoverTimeout) throws IOException {
+        if (store == null || address == null || failoverTimeout == null) {
+            throw new IllegalArgumentException("Standby arguments cannot be null");
+        }
+        if (failoverTimeout.toMillis() <= ReplicationPrimary.HEARTBEAT_INTERVAL_MILLIS) {
+            throw new IllegalArgumentException("Failover timeout must be longer than the heartbeat interval");
+        }
+        this.store = store;
+        this.failoverTimeoutMillis = (int) Math.min(Integer.MAX_VALUE, failoverTimeout.toMillis());
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+    }
+
+    public synchronized void start() {
+        if (receiver != null) {
+            throw new IllegalStateException("Standby already started");
+        }
+        receiver = new Thread(this::receiveLoop, "replication-standby");
+        receiver.setDaemon(true);
+        receiver.start();
+        StoreLogger.info("Store '" + store.getName() + "' standing by on port " + getPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Sequence number of the last mutation applied to the local store.
+     */
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public boolean isPromoted() {
+        return promoted;
+    }
+
+    /**
+     * Waits for this standby to be promoted.
+     *
+     * @return whether it was promoted before the timeout
+     */
+    public boolean awaitPromotion(long timeout, TimeUnit unit) throws InterruptedException {
+        return promotion.await(timeout, unit);
+    }
+
+    /**
+     * Stops following the primary and makes the local store the one to use.
+     * Called automatically on failure; call it directly for a planned switch.
+     */
+    public void promote() {
+        synchronized (this) {
+            if (promoted || closed) {
+                return;
+            }
+            promoted = true;
+            Receipt.continueNumberingAfter(maxReceiptNumber);
+            Product.continueIdsAfter(maxProductId);
+        }
+        closeSockets();
+        StoreLogger.warning("Standby store '" + store.getName() + "' promoted after applying record "
+            + appliedSequence);
+        promotion.countDown();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        closeSockets();
+    }
+
+    private void receiveLoop() {
+        while (!promoted && !closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!promoted && !closed) {
+                    StoreLogger.error("Standby stopped accepting connections", e);
+                }
+                return;
+            }
+            connection = socket;
+            boolean failed;
+            try {
+                failed = follow(socket);
+            } catch (IOException e) {
+                failed = true;
+                if (!promoted && !closed) {
+                    StoreLogger.warning("Lost the primary: " + e.getMessage());
+                }
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    StoreLogger.warning("Failed to close replication connection: " + e.getMessage());
+                }
+                connection = null;
+            }
+            if (failed) {
+                promote();
+            }
+        }
+    }
+
+    /**
+     * Applies frames from one primary until it closes cleanly (returns
+     * {@code false}) or disappears (returns {@code true}).
+     */
+    private boolean follow(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(failoverTimeoutMillis);
+        InputStream raw = new BufferedInputStream(socket.getInputStream(), 1 << 16);
+        DataInputStream in = new DataInputStream(raw);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        long acknowledged = appliedSequence;
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (SocketTimeoutException e) {
+                StoreLogger.warning("No heartbeat from the primary for " + failoverTimeoutMillis + " ms");
+                return true;
+            } catch (EOFException e) {
+                return !closed;
+            }
+            if (length < ReplicationLog.FRAME_HEADER_SIZE || length > ReplicationLog.MAX_FRAME_SIZE) {
+                throw new IOException("Invalid replication frame length " + length);
+            }
+            long sequence = in.readLong();
+            byte type = in.readByte();
+            byte[] payload = new byte[length - ReplicationLog.FRAME_HEADER_SIZE];
+            in.readFully(payload);
+            if (type == ReplicationLog.CLOSE) {
+                StoreLogger.info("Primary closed replication after record " + appliedSequence);
+                return false;
+            }
+            if (type != ReplicationLog.HEARTBEAT) {
+                apply(sequence, type, payload);
+            }
+            // Acknowledge once per batch of frames that arrived together.
+            if (raw.available() == 0 && appliedSequence != acknowledged) {
+                acknowledged = appliedSequence;
+                out.writeLong(acknowledged);
+                out.flush();
+            }
+        }
+    }
+
+    private void apply(long sequence, byte type, byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            switch (type) {
+                case ReplicationLog.PRODUCT_ADDED: {
+                    int initialStock = in.readInt();
+                    int reorderPoint = in.readInt();
+                    int reorderQuantity = in.readInt();
+                    Product product = (Product) new ResolvingInputStream(in).readObject();
+                    store.addProduct(product, initialStock, reorderPoint, reorderQuantity);
+                    synchronized (this) {
+                        maxProductId = Math.max(maxProductId, product.getId());
+                    }
+                    break;
+                }
+                case ReplicationLog.SALE: {
+                    Receipt receipt = (Receipt) new ResolvingInputStream(in).readObject();
+                    store.applyReplicatedSale(receipt);
+                    synchronized (this) {
+                        maxReceiptNumber = Math.max(maxReceiptNumber, receipt.getReceiptNumber());
+                    }
+                    break;
+                }
+                case ReplicationLog.RETURN:
+                    store.applyReplicatedReturn(in.readInt(), in.readInt(), in.readInt());
+                    break;
+                default:
+                    StoreLogger.warning("Skipping replication record " + sequence + " of unknown type " + type);
+                    break;
+            }
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            // The standby has diverged from the primary for this record; keep following the rest.
+            StoreLogger.error("Failed to apply replication record " + sequence, e);
+        }
+        appliedSequence = sequence;
+    }
+
+    private void closeSockets() {
+        try {
+            serverSocket.close();
+            Socket current = connection;
+            if (current != null) {
+                current.close();
+            }
+        } catch (IOException e) {
+            StoreLogger.warning("Failed to close standby sockets: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deserializes with products and cashiers swapped for the local objects
+     * of the same id.
+     */
+    private final class ResolvingInputStream extends ObjectInputStream {
+        ResolvingInputStream(InputStream in) throws IOException {
+            super(in);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object object) {
+            if (object instanceof Product) {
+                Product local = store.getProduct(((Product) object).getId());
+                return local != null ? local : object;
+            }
+            if (object instanceof Cashier) {
+                Cashier local = store.getCashier(((Cashier) object).getId());
+                return local != null ? local : object;
+            }
+            return object;
+        }
+    }
+}
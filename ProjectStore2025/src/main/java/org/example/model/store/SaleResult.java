@@ -0,0 +1,117 @@
+package org.example.model.store;
+
+import org.example.exception.StoreException;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+
+/**
+ * Outcome of {@link Store#trySale}. Running out of stock and being underpaid
+ * are ordinary results rather than exceptions, so callers can branch on them
+ * without paying for a stack trace.
+ */
+public abstract sealed class SaleResult {
+
+    private SaleResult() {
+    }
+
+    public boolean isCompleted() {
+        return false;
+    }
+
+    /**
+     * Returns the receipt of a completed sale, or throws the
+     * {@link StoreException} that {@link Store#processSale} reports for the
+     * failed outcome.
+     */
+    public abstract Receipt getReceiptOrThrow();
+
+    public static final class Completed extends SaleResult {
+        private final Receipt receipt;
+
+        Completed(Receipt receipt) {
+            this.receipt = receipt;
+        }
+
+        public Receipt getReceipt() {
+            return receipt;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return true;
+        }
+
+        @Override
+        public Receipt getReceiptOrThrow() {
+            return receipt;
+        }
+
+        @Override
+        public String toString() {
+            return "Completed{receipt=#" + receipt.getReceiptNumber() + "}";
+        }
+    }
+
+    public static final class OutOfStock extends SaleResult {
+        private final Product product;
+        private final int requested;
+        private final int available;
+
+        OutOfStock(Product product, int requested, int available) {
+            this.product = product;
+            this.requested = requested;
+            this.available = available;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public int getRequested() {
+            return requested;
+        }
+
+        public int getAvailable() {
+            return available;
+        }
+
+        @Override
+        public Receipt getReceiptOrThrow() {
+            throw new StoreException("Failed to process sale: Insufficient stock for product: " + product.getName());
+        }
+
+        @Override
+        public String toString() {
+            return "OutOfStock{product='" + product.getName() + "', requested=" + requested
+                + ", available=" + available + "}";
+        }
+    }
+
+    public static final class Underpaid extends SaleResult {
+        private final double required;
+        private final double provided;
+
+        Underpaid(double required, double provided) {
+            this.required = required;
+            this.provided = provided;
+        }
+
+        public double getRequired() {
+            return required;
+        }
+
+        public double getProvided() {
+            return provided;
+        }
+
+        @Override
+        public Receipt getReceiptOrThrow() {
+            throw new StoreException("Insufficient payment. Required: " + required + ", Provided: " + provided);
+        }
+
+        @Override
+        public String toString() {
+            return "Underpaid{required=" + required + ", provided=" + provided + "}";
+        }
+    }
+}
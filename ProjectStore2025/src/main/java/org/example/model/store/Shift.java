@@ -0,0 +1,61 @@
+package org.example.model.store;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A cashier's open shift at one register, from assignment to unassignment.
+ * Sales on the register bump its counters without locking; closing the
+ * shift seals them into a {@link ShiftRecord}.
+ */
+final class Shift {
+    private static final AtomicIntegerFieldUpdater<Shift> TRANSACTIONS =
+        AtomicIntegerFieldUpdater.newUpdater(Shift.class, "transactions");
+    private static final AtomicLongFieldUpdater<Shift> ITEMS =
+        AtomicLongFieldUpdater.newUpdater(Shift.class, "items");
+    private static final AtomicIntegerFieldUpdater<Shift> TIMED_BASKETS =
+        AtomicIntegerFieldUpdater.newUpdater(Shift.class, "timedBaskets");
+    private static final AtomicLongFieldUpdater<Shift> BASKET_NANOS =
+        AtomicLongFieldUpdater.newUpdater(Shift.class, "basketNanos");
+
+    final Cashier cashier;
+    private final int registerId;
+    private final long openedAt;
+    private final DoubleAdder revenue;
+    private volatile int transactions;
+    private volatile long items;
+    private volatile int timedBaskets;
+    private volatile long basketNanos;
+
+    Shift(Cashier cashier, int registerId, long openedAt) {
+        this.cashier = cashier;
+        this.registerId = registerId;
+        this.openedAt = openedAt;
+        this.revenue = new DoubleAdder();
+    }
+
+    void recordSale(double amount, int units) {
+        TRANSACTIONS.incrementAndGet(this);
+        ITEMS.addAndGet(this, units);
+        revenue.add(amount);
+    }
+
+    /**
+     * Time from the first scan of a basket to its checkout. Only baskets
+     * scanned at the register are timed; direct sales have no scan time.
+     */
+    void recordBasketTime(long nanos) {
+        TIMED_BASKETS.incrementAndGet(this);
+        BASKET_NANOS.addAndGet(this, nanos);
+    }
+
+    /**
+     * The counters so far, as a closed record if {@code closedAt} is
+     * positive or as an open one if it is zero.
+     */
+    ShiftRecord toRecord(long closedAt) {
+        return new ShiftRecord(cashier.getId(), cashier.getName(), registerId, openedAt, closedAt,
+            transactions, items, revenue.sum(), timedBaskets, basketNanos);
+    }
+}
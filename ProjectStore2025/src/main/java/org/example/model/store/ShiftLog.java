@@ -0,0 +1,160 @@
+package org.example.model.store;
+
+import org.example.exception.StoreException;
+import org.example.util.ReportFormat;
+import org.example.util.ReportWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Closed shifts of a store, filed under the day they opened. End-of-day
+ * reports read one day's records and nothing else.
+ */
+public class ShiftLog {
+    private final Map<LocalDate, ConcurrentLinkedQueue<ShiftRecord>> shiftsByDay;
+    private final ZoneId zone;
+
+    public ShiftLog() {
+        this(ZoneId.systemDefault());
+    }
+
+    public ShiftLog(ZoneId zone) {
+        if (zone == null) {
+            throw new StoreException("Zone cannot be null");
+        }
+        this.shiftsByDay = new ConcurrentHashMap<>();
+        this.zone = zone;
+    }
+
+    void add(ShiftRecord shift) {
+        shiftsByDay.computeIfAbsent(dayOf(shift), day -> new ConcurrentLinkedQueue<>()).add(shift);
+    }
+
+    LocalDate dayOf(ShiftRecord shift) {
+        return Instant.ofEpochMilli(shift.getOpenedAt()).atZone(zone).toLocalDate();
+    }
+
+    /**
+     * Closed shifts opened on {@code day}, in the order they closed.
+     */
+    public List<ShiftRecord> getShifts(LocalDate day) {
+        if (day == null) {
+            throw new StoreException("Day cannot be null");
+        }
+        ConcurrentLinkedQueue<ShiftRecord> shifts = shiftsByDay.get(day);
+        return shifts == null ? Collections.emptyList() : new ArrayList<>(shifts);
+    }
+
+    /**
+     * Drops the records of days before {@code day}, once they have been
+     * reported.
+     */
+    public void discardBefore(LocalDate day) {
+        shiftsByDay.keySet().removeIf(recorded -> recorded.isBefore(day));
+    }
+
+    /**
+     * Writes one line per cashier with their shifts, hours, sales and average
+     * basket time, followed by totals.
+     */
+    static void writeReport(List<ShiftRecord> shifts, Writer out, ReportFormat format) throws IOException {
+        Map<Integer, Totals> byCashier = new LinkedHashMap<>();
+        Totals all = new Totals("All cashiers");
+        for (ShiftRecord shift : shifts) {
+            byCashier.computeIfAbsent(shift.getCashierId(), id -> new Totals(shift.getCashierName())).add(shift);
+            all.add(shift);
+        }
+        ReportWriter report = new ReportWriter(out);
+        if (format == ReportFormat.TEXT) {
+            report.text("Shift Report\n");
+            report.text("============\n");
+            for (Totals totals : byCashier.values()) {
+                totals.writeText(report);
+            }
+            all.writeText(report);
+        } else {
+            if (format == ReportFormat.CSV) {
+                report.text("cashier,shifts,hours,transactions,items,revenue,revenue_per_hour,avg_basket_seconds\n");
+            }
+            for (Totals totals : byCashier.values()) {
+                totals.writeRow(report, format);
+            }
+            all.writeRow(report, format);
+        }
+        report.flush();
+    }
+
+    private static final class Totals {
+        private final String name;
+        private int shifts;
+        private long millis;
+        private long transactions;
+        private long items;
+        private double revenue;
+        private long timedBaskets;
+        private long basketNanos;
+
+        Totals(String name) {
+            this.name = name;
+        }
+
+        void add(ShiftRecord shift) {
+            shifts++;
+            millis += shift.getDurationMillis();
+            transactions += shift.getTransactions();
+            items += shift.getItems();
+            revenue += shift.getRevenue();
+            timedBaskets += shift.getTimedBaskets();
+            basketNanos += shift.getBasketNanos();
+        }
+
+        double hours() {
+            return millis / 3_600_000.0;
+        }
+
+        double revenuePerHour() {
+            return millis == 0 ? 0 : revenue / hours();
+        }
+
+        double averageBasketSeconds() {
+            return timedBaskets == 0 ? 0 : basketNanos / 1e9 / timedBaskets;
+        }
+
+        void writeText(ReportWriter report) throws IOException {
+            report.text(name).text(": ").number(shifts).text(" shifts, ").decimal(hours()).text(" h, ")
+                .number(transactions).text(" transactions, ").number(items).text(" items, ")
+                .currency(revenue).text(" (").currency(revenuePerHour()).text("/h), avg basket ")
+                .decimal(averageBasketSeconds()).text(" s\n");
+        }
+
+        void writeRow(ReportWriter report, ReportFormat format) throws IOException {
+            if (format == ReportFormat.CSV) {
+                report.csvField(name).character(',').number(shifts).character(',').decimal(hours()).character(',')
+                    .number(transactions).character(',').number(items).character(',').decimal(revenue)
+                    .character(',').decimal(revenuePerHour()).character(',').decimal(averageBasketSeconds())
+                    .newline();
+            } else {
+                report.text("{\"cashier\":").jsonString(name)
+                    .text(",\"shifts\":").number(shifts)
+                    .text(",\"hours\":").decimal(hours())
+                    .text(",\"transactions\":").number(transactions)
+                    .text(",\"items\":").number(items)
+                    .text(",\"revenue\":").decimal(revenue)
+                    .text(",\"revenuePerHour\":").decimal(revenuePerHour())
+                    .text(",\"avgBasketSeconds\":").decimal(averageBasketSeconds())
+                    .text("}\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.model.store;
+
+import java.io.Serializable;
+
+/**
+ * Totals of one cashier shift at one register. Holds ids and numbers only,
+ * so a day of shifts for thousands of registers stays small and reports on
+ * it never look at receipts. Revenue is gross sales; returns are not taken
+ * off, as they are not made at a register.
+ */
+public final class ShiftRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int cashierId;
+    private final String cashierName;
+    private final int registerId;
+    private final long openedAt;
+    private final long closedAt;
+    private final int transactions;
+    private final long items;
+    private final double revenue;
+    private final int timedBaskets;
+    private final long basketNanos;
+
+    ShiftRecord(int cashierId, String cashierName, int registerId, long openedAt, long closedAt,
+                int transactions, long items, double revenue, int timedBaskets, long basketNanos) {
+        this.cashierId = cashierId;
+        this.cashierName = cashierName;
+        this.registerId = registerId;
+        this.openedAt = openedAt;
+        this.closedAt = closedAt;
+        this.transactions = transactions;
+        this.items = items;
+        this.revenue = revenue;
+        this.timedBaskets = timedBaskets;
+        this.basketNanos = basketNanos;
+    }
+
+    public int getCashierId() {
+        return cashierId;
+    }
+
+    public String getCashierName() {
+        return cashierName;
+    }
+
+    public int getRegisterId() {
+        return registerId;
+    }
+
+    /**
+     * When the cashier was assigned, in milliseconds since the epoch.
+     */
+    public long getOpenedAt() {
+        return openedAt;
+    }
+
+    /**
+     * When the cashier was unassigned, or 0 while the shift is open.
+     */
+    public long getClosedAt() {
+        return closedAt;
+    }
+
+    public boolean isOpen() {
+        return closedAt == 0;
+    }
+
+    public long getDurationMillis() {
+        return (isOpen() ? System.currentTimeMillis() : closedAt) - openedAt;
+    }
+
+    public int getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Units sold during the shift.
+     */
+    public long getItems() {
+        return items;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public double getAverageTransactionValue() {
+        return transactions == 0 ? 0 : revenue / transactions;
+    }
+
+    /**
+     * Baskets scanned at the register and checked out, which are the ones
+     * {@link #getAverageBasketMillis()} is taken over.
+     */
+    public int getTimedBaskets() {
+        return timedBaskets;
+    }
+
+    long getBasketNanos() {
+        return basketNanos;
+    }
+
+    /**
+     * Average time from first scan to checkout of a basket, or 0 if none
+     * was scanned at the register.
+     */
+    public double getAverageBasketMillis() {
+        return timedBaskets == 0 ? 0 : basketNanos / 1e6 / timedBaskets;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ShiftRecord{cashier=%s, register=%d, %s, transactions=%d, items=%d, revenue=%.2f}",
+            cashierName, registerId, isOpen() ? "open" : getDurationMillis() + " ms", transactions, items, revenue);
+    }
+}
@@ -1,15 +1,29 @@
 package org.example.model.store;
 
+import org.example.model.product.FoodProduct;
 import org.example.model.product.Product;
+import org.example.model.product.ProductCatalog;
 import org.example.model.product.ProductCategory;
 import org.example.model.receipt.Receipt;
+import org.example.model.receipt.ReceiptArchive;
+import org.example.model.receipt.ReceiptRenderer;
+import org.example.model.analytics.AnalyticsSummary;
+import org.example.model.analytics.ReceiptLineStore;
 import org.example.model.analytics.StoreAnalytics;
+import org.example.model.promotion.PromotionEngine;
+import org.example.model.returns.Refund;
+import org.example.model.returns.ReturnBatchResult;
+import org.example.model.returns.ReturnsJournal;
+import org.example.model.returns.ReturnsProcessor;
 import org.example.model.inventory.InventoryManager;
+import org.example.model.inventory.InventoryReportQuery;
+import org.example.model.inventory.InventorySummary;
 import org.example.exception.StoreException;
 import org.example.exception.ReceiptException;
 import org.example.exception.ProductException;
 import org.example.util.StoreLogger;
 import org.example.config.StoreConfig;
+import org.example.util.ReportFormat;
 
 import java.io.*;
 import java.nio.channels.Channels;
@@ -17,51 +31,161 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.file.StandardOpenOption;
 import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
 
 public class Store {
+    private static final String TRANSACTION_JOURNAL_FILE_FORMAT = "transactions-%s.journal";
+    private static final String RETURNS_JOURNAL_FILE = "returns.csv";
+
     private final String name;
-    private final double foodMarkup;
-    private final double nonFoodMarkup;
-    private final int expirationWarningDays;
-    private final double expirationDiscount;
+    private volatile Pricing pricing;
+    private volatile PromotionEngine promotions = PromotionEngine.EMPTY;
     private final List<Cashier> cashiers;
     private final List<CashRegister> registers;
-    private final List<Product> products;
-    private final List<Receipt> receipts;
-    private final AtomicReference<Double> totalRevenue;
-    private final AtomicReference<Double> totalExpenses;
+    // Products taken off the shelf list; their stock stays in the inventory.
+    private final Set<Product> delisted;
+    private final LocalPrices localPrices;
+    private final Queue<Receipt> receipts;
+    private final Map<Integer, Receipt> receiptsByNumber;
+    private final DoubleAdder totalRevenue;
+    private final DoubleAdder totalExpenses;
     private final StoreAnalytics analytics;
     private final InventoryManager inventory;
+    private final ReturnsProcessor returns;
+    private volatile ReceiptArchive receiptArchive;
+    private volatile IdempotencyCache idempotencyCache;
+    private volatile File preparedReceiptsDir;
+    private volatile ReplicationPrimary replication;
+    private final StoreEventPublisher events;
+    private final ShiftLog shifts;
+    private final RegisterPool registerPool;
 
     public Store(String name, double foodMarkup, double nonFoodMarkup, 
                 int expirationWarningDays, double expirationDiscount) {
         this.name = name;
-        this.foodMarkup = foodMarkup;
-        this.nonFoodMarkup = nonFoodMarkup;
-        this.expirationWarningDays = expirationWarningDays;
-        this.expirationDiscount = expirationDiscount;
+        this.pricing = new Pricing(foodMarkup, nonFoodMarkup, expirationWarningDays, expirationDiscount);
         this.cashiers = new CopyOnWriteArrayList<>();
         this.registers = new CopyOnWriteArrayList<>();
-        this.products = new CopyOnWriteArrayList<>();
-        this.receipts = new CopyOnWriteArrayList<>();
-        this.totalRevenue = new AtomicReference<>(0.0);
-        this.totalExpenses = new AtomicReference<>(0.0);
+        this.delisted = ConcurrentHashMap.newKeySet();
+        this.localPrices = new LocalPrices();
+        this.receipts = new ConcurrentLinkedQueue<>();
+        this.receiptsByNumber = new ConcurrentHashMap<>();
+        this.totalRevenue = new DoubleAdder();
+        this.totalExpenses = new DoubleAdder();
         this.analytics = new StoreAnalytics();
         this.inventory = new InventoryManager();
+        this.returns = new ReturnsProcessor(inventory, analytics, this::getReceipt, totalRevenue::add,
+            this::replicateReturn);
+        this.events = new StoreEventPublisher();
+        this.shifts = new ShiftLog();
+        this.registerPool = new RegisterPool();
+        inventory.setStockListener(new StockEvents());
         
         StoreLogger.info("Store '" + name + "' created with food markup: " + foodMarkup + 
             ", non-food markup: " + nonFoodMarkup);
     }
 
+    /**
+     * Applies the pricing values of a configuration snapshot. Sales started
+     * after this call are priced with the new values; suitable as a
+     * {@link StoreConfig#addChangeListener} callback.
+     */
+    public void applyConfig(StoreConfig.Snapshot config) {
+        if (config == null) {
+            throw new StoreException("Configuration cannot be null");
+        }
+        pricing = new Pricing(config.getFoodMarkup(), config.getNonFoodMarkup(),
+            config.getExpirationWarningDays(), config.getExpirationDiscount());
+        StoreLogger.info("Store '" + name + "' re-priced with food markup: " + config.getFoodMarkup() +
+            ", non-food markup: " + config.getNonFoodMarkup());
+    }
+
+    public int getStockLevel(Product product) {
+        if (product == null) {
+            throw new StoreException("Product cannot be null");
+        }
+        return inventory.containsProduct(product) ? inventory.getStockLevel(product) : 0;
+    }
+
+    /**
+     * Looks up a stocked product by id, or returns {@code null}.
+     */
+    public Product getProduct(int productId) {
+        return inventory.getProduct(productId);
+    }
+
+    public double getSellingPrice(Product product) {
+        if (product == null) {
+            throw new StoreException("Product cannot be null");
+        }
+        return pricing.sellingPrice(product, ProductCatalog.current(), localPrices.get(product.getId()));
+    }
+
+    /**
+     * Sells {@code product} at this store for {@code sellingPrice} instead of
+     * the catalog delivery price plus markup. The expiration discount still
+     * applies on top.
+     */
+    public void setLocalPrice(Product product, double sellingPrice) {
+        if (product == null) {
+            throw new StoreException("Product cannot be null");
+        }
+        if (!(sellingPrice > 0)) {
+            throw new StoreException("Selling price must be positive");
+        }
+        localPrices.set(product.getId(), sellingPrice);
+    }
+
+    public void clearLocalPrice(Product product) {
+        if (product == null) {
+            throw new StoreException("Product cannot be null");
+        }
+        localPrices.clear(product.getId());
+    }
+
+    /**
+     * Replaces the active promotions. Sales started after this call are
+     * discounted by the new rules.
+     */
+    public void setPromotions(PromotionEngine promotions) {
+        if (promotions == null) {
+            throw new StoreException("Promotions cannot be null");
+        }
+        this.promotions = promotions;
+        StoreLogger.info("Store '" + name + "' now has " + promotions.getRuleCount() + " active promotions");
+    }
+
+    public PromotionEngine getPromotions() {
+        return promotions;
+    }
+
+    /**
+     * Compiles the promotion rule file and makes it active; see
+     * {@link PromotionEngine} for the file format.
+     */
+    public void loadPromotions(File file) {
+        try {
+            setPromotions(PromotionEngine.load(file));
+        } catch (IOException e) {
+            throw new StoreException("Failed to read promotions from " + file + ": " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new StoreException("Invalid promotions in " + file + ": " + e.getMessage(), e);
+        }
+    }
+
     public void addCashier(Cashier cashier) {
         if (cashier == null) {
             throw new StoreException("Cannot add null cashier");
         }
         cashiers.add(cashier);
-        totalExpenses.updateAndGet(current -> current + cashier.getMonthlySalary());
+        totalExpenses.add(cashier.getMonthlySalary());
         analytics.addExpense(cashier.getMonthlySalary());
         StoreLogger.info("Cashier '" + cashier.getName() + "' added to store");
     }
@@ -74,8 +198,8 @@ public class Store {
             cashier.getAssignedRegister().removeAssignedCashier();
         }
         cashiers.remove(cashier);
-        totalExpenses.updateAndGet(current -> current - cashier.getMonthlySalary());
-        analytics.addExpense(-cashier.getMonthlySalary());
+        totalExpenses.add(-cashier.getMonthlySalary());
+        analytics.reverseExpense(cashier.getMonthlySalary());
         StoreLogger.info("Cashier '" + cashier.getName() + "' removed from store");
     }
 
@@ -84,6 +208,8 @@ public class Store {
             throw new StoreException("Cannot add null register");
         }
         registers.add(register);
+        register.attachTo(this);
+        registerPool.add(register);
         StoreLogger.info("Register '" + register.getId() + "' added to store");
     }
 
@@ -94,7 +220,9 @@ public class Store {
         if (register.isAssigned()) {
             register.getAssignedCashier().removeAssignedRegister();
         }
+        registerPool.remove(register);
         registers.remove(register);
+        register.detachFrom(this);
         StoreLogger.info("Register '" + register.getId() + "' removed from store");
     }
 
@@ -102,9 +230,14 @@ public class Store {
         if (product == null) {
             throw new StoreException("Cannot add null product");
         }
-        products.add(product);
-        double expense = product.getDeliveryPrice() * initialStock;
-        totalExpenses.updateAndGet(current -> current + expense);
+        ReplicationPrimary primary = replication;
+        if (primary != null) {
+            // Logged first so no sale of the product can reach the standby before it.
+            primary.productAdded(product, initialStock, reorderPoint, reorderQuantity);
+        }
+        delisted.remove(product);
+        double expense = ProductCatalog.current().getDeliveryPrice(product) * initialStock;
+        totalExpenses.add(expense);
         analytics.addExpense(expense);
         inventory.addProduct(product, initialStock, reorderPoint, reorderQuantity);
         StoreLogger.info("Product '" + product.getName() + "' added to store with " + initialStock + " units");
@@ -114,17 +247,29 @@ public class Store {
         if (product == null) {
             throw new StoreException("Cannot remove null product");
         }
-        products.remove(product);
+        delisted.add(product);
         StoreLogger.info("Product '" + product.getName() + "' removed from store");
     }
 
     public Receipt processSale(CashRegister register, Map<Product, Integer> items, double payment) {
+        return trySale(register, items, payment).getReceiptOrThrow();
+    }
+
+    /**
+     * Checks out {@code items} and reports insufficient stock or payment as a
+     * {@link SaleResult} instead of throwing. Invalid arguments and failures to
+     * record the sale still throw {@link StoreException}.
+     */
+    public SaleResult trySale(CashRegister register, Map<Product, Integer> items, double payment) {
         if (register == null) {
             throw new StoreException("Register cannot be null");
         }
         if (items == null || items.isEmpty()) {
             throw new StoreException("Items cannot be null or empty");
         }
+        if (!Double.isFinite(payment)) {
+            throw new StoreException("Payment must be a finite amount");
+        }
         if (payment < 0) {
             throw new StoreException("Payment cannot be negative");
         }
@@ -133,65 +278,434 @@ public class Store {
             throw new StoreException("No cashier assigned to register");
         }
 
-        double totalAmount = calculateTotalAmount(items);
+        int lineCount = items.size();
+        Product[] lineProducts = new Product[lineCount];
+        int[] lineQuantities = new int[lineCount];
+        int line = 0;
+        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
+            lineProducts[line] = entry.getKey();
+            lineQuantities[line] = entry.getValue();
+            line++;
+        }
+        return completeSale(register, lineProducts, lineQuantities, new double[lineCount], new double[lineCount],
+            new String[lineCount], lineCount, payment);
+    }
+
+    /**
+     * Checks out a {@link Basket} of product ids. Pricing, stock reservation and
+     * accounting work on the basket's primitive arrays, so apart from the
+     * receipt itself a sale allocates no per-line objects. The basket is left
+     * untouched and can be cleared and reused for the next sale.
+     */
+    public Receipt processSale(CashRegister register, Basket basket, double payment) {
+        return trySale(register, basket, payment).getReceiptOrThrow();
+    }
+
+    /**
+     * Basket variant of {@link #trySale(CashRegister, Map, double)}.
+     */
+    public SaleResult trySale(CashRegister register, Basket basket, double payment) {
+        if (register == null) {
+            throw new StoreException("Register cannot be null");
+        }
+        if (basket == null || basket.isEmpty()) {
+            throw new StoreException("Items cannot be null or empty");
+        }
+        if (!Double.isFinite(payment)) {
+            throw new StoreException("Payment must be a finite amount");
+        }
+        if (payment < 0) {
+            throw new StoreException("Payment cannot be negative");
+        }
+
+        if (!register.isAssigned()) {
+            throw new StoreException("No cashier assigned to register");
+        }
+
+        int lineCount = basket.size();
+        Product[] lineProducts = basket.resolvedProducts;
+        for (int line = 0; line < lineCount; line++) {
+            int productId = basket.getProductId(line);
+            Product product = inventory.getProduct(productId);
+            if (product == null) {
+                throw new StoreException("Product not found in inventory: " + productId);
+            }
+            lineProducts[line] = product;
+        }
+        return completeSale(register, lineProducts, basket.quantities(), basket.unitPrices, basket.discounts,
+            basket.promotionIds, lineCount, payment);
+    }
+
+    /**
+     * Idempotent form of {@link #processSale(CashRegister, Map, double)}: a
+     * retry with the same client transaction id returns the original receipt
+     * without charging or taking stock again.
+     */
+    public Receipt processSale(String transactionId, CashRegister register, Map<Product, Integer> items,
+                               double payment) {
+        return trySale(transactionId, register, items, payment).getReceiptOrThrow();
+    }
+
+    public SaleResult trySale(String transactionId, CashRegister register, Map<Product, Integer> items,
+                              double payment) {
+        return idempotencyCache().execute(transactionId, () -> trySale(register, items, payment));
+    }
+
+    public Receipt processSale(String transactionId, CashRegister register, Basket basket, double payment) {
+        return trySale(transactionId, register, basket, payment).getReceiptOrThrow();
+    }
+
+    public SaleResult trySale(String transactionId, CashRegister register, Basket basket, double payment) {
+        return idempotencyCache().execute(transactionId, () -> trySale(register, basket, payment));
+    }
+
+    /**
+     * What {@code basket} would cost if it were checked out now, priced and
+     * discounted exactly like a sale but without touching stock. Fills the
+     * basket's line arrays the way a sale does.
+     */
+    double quote(Basket basket) {
+        int lineCount = basket.size();
+        Product[] lineProducts = basket.resolvedProducts;
+        for (int line = 0; line < lineCount; line++) {
+            Product product = inventory.getProduct(basket.getProductId(line));
+            if (product != null) {
+                lineProducts[line] = product;
+            } else if (lineProducts[line] == null) {
+                throw new StoreException("Product not found in inventory: " + basket.getProductId(line));
+            }
+        }
+        PromotionEngine currentPromotions = promotions;
+        return price(lineProducts, basket.quantities(), basket.unitPrices, basket.discounts, basket.promotionIds,
+            lineCount, currentPromotions);
+    }
+
+    /**
+     * Fills in the selling price of each line and, if there are promotions,
+     * their discounts, and returns the amount to charge.
+     */
+    private double price(Product[] lineProducts, int[] lineQuantities, double[] unitPrices, double[] discounts,
+                         String[] promotionIds, int lineCount, PromotionEngine currentPromotions) {
+        Pricing currentPricing = pricing;
+        ProductCatalog catalog = ProductCatalog.current();
+        double totalAmount = 0;
+        for (int line = 0; line < lineCount; line++) {
+            Product product = lineProducts[line];
+            unitPrices[line] = currentPricing.sellingPrice(product, catalog, localPrices.get(product.getId()));
+            totalAmount += unitPrices[line] * lineQuantities[line];
+        }
+        if (!currentPromotions.isEmpty()) {
+            totalAmount -= currentPromotions.apply(lineProducts, lineQuantities, unitPrices, lineCount,
+                System.currentTimeMillis(), discounts, promotionIds);
+        }
+        return totalAmount;
+    }
+
+    private SaleResult completeSale(CashRegister register, Product[] lineProducts, int[] lineQuantities,
+                                    double[] unitPrices, double[] discounts, String[] promotionIds, int lineCount,
+                                    double payment) {
+        PromotionEngine currentPromotions = promotions;
+        boolean discounted = !currentPromotions.isEmpty();
+        double totalAmount = price(lineProducts, lineQuantities, unitPrices, discounts, promotionIds, lineCount,
+            currentPromotions);
 
         if (payment < totalAmount) {
-            throw new StoreException("Insufficient payment. Required: " + totalAmount + ", Provided: " + payment);
+            return new SaleResult.Underpaid(totalAmount, payment);
         }
 
-        Map<Product, Integer> transactionItems = new HashMap<>(items);
-        
+        int reserved = 0;
         try {
-            for (Map.Entry<Product, Integer> entry : transactionItems.entrySet()) {
-                Product product = entry.getKey();
-                int quantity = entry.getValue();
-                if (inventory.getStockLevel(product) < quantity) {
-                    throw new StoreException("Insufficient stock for product: " + product.getName());
+            for (; reserved < lineCount; reserved++) {
+                Product product = lineProducts[reserved];
+                if (!inventory.tryReserve(product, lineQuantities[reserved])) {
+                    releaseReserved(lineProducts, lineQuantities, reserved);
+                    return new SaleResult.OutOfStock(product, lineQuantities[reserved],
+                        inventory.getStockLevel(product));
                 }
             }
 
-            for (Map.Entry<Product, Integer> entry : transactionItems.entrySet()) {
-                Product product = entry.getKey();
-                int quantity = entry.getValue();
-                inventory.updateStock(product, -quantity);
+            Receipt receipt = new Receipt(register.getAssignedCashier(), lineProducts, lineQuantities, unitPrices,
+                discounted ? discounts : null, discounted ? promotionIds : null, lineCount, totalAmount);
+            saveReceiptToFile(receipt);
+            ReplicationPrimary primary = replication;
+            if (primary != null) {
+                // Before the receipt is visible, so a return of it is always logged after the sale.
+                primary.saleCompleted(receipt);
             }
 
-            Receipt receipt = new Receipt(register.getAssignedCashier(), transactionItems, totalAmount);
             receipts.add(receipt);
-            totalRevenue.updateAndGet(current -> current + totalAmount);
+            receiptsByNumber.put(receipt.getReceiptNumber(), receipt);
+            totalRevenue.add(totalAmount);
+            long soldAt = System.currentTimeMillis();
+            int units = 0;
+            for (int line = 0; line < lineCount; line++) {
+                inventory.recordSale(lineProducts[line], lineQuantities[line], soldAt);
+                units += lineQuantities[line];
+            }
+            Shift shift = register.currentShift();
+            if (shift != null && shift.cashier == receipt.getCashier()) {
+                shift.recordSale(totalAmount, units);
+            }
             analytics.addReceipt(receipt);
-
-            saveReceiptToFile(receipt);
+            ReceiptArchive archive = receiptArchive;
+            if (archive != null) {
+                archive.appendAsync(receipt);
+            }
+            if (events.hasSubscribers()) {
+                events.publish(new StoreEvent.SaleCompleted(name, receipt));
+            }
             StoreLogger.info("Sale processed successfully. Receipt #" + receipt.getReceiptNumber());
-            
-            return receipt;
+
+            return new SaleResult.Completed(receipt);
         } catch (Exception e) {
+            releaseReserved(lineProducts, lineQuantities, reserved);
+            StoreLogger.error("Failed to process sale", e);
+            throw new StoreException("Failed to process sale: " + e.getMessage(), e);
+        }
+    }
+
+    private void releaseReserved(Product[] lineProducts, int[] lineQuantities, int reserved) {
+        // Only lines that were actually reserved go back to stock.
+        for (int line = 0; line < reserved; line++) {
             try {
-                for (Map.Entry<Product, Integer> entry : transactionItems.entrySet()) {
-                    Product product = entry.getKey();
-                    int quantity = entry.getValue();
-                    inventory.updateStock(product, quantity);
-                }
+                inventory.release(lineProducts[line], lineQuantities[line]);
             } catch (ProductException pe) {
                 StoreLogger.error("Failed to rollback inventory changes", pe);
             }
-            StoreLogger.error("Failed to process sale", e);
-            throw new StoreException("Failed to process sale: " + e.getMessage(), e);
         }
     }
 
-    private double calculateTotalAmount(Map<Product, Integer> items) {
-        return items.entrySet().stream()
-                .mapToDouble(entry -> entry.getKey().calculateSellingPrice() * entry.getValue())
-                .sum();
+    /**
+     * Returns items sold on receipt {@code receiptNumber}, restocking them and
+     * reversing their revenue. Fails without side effects if any line was not
+     * sold on the receipt or has already been returned.
+     */
+    public Refund processReturn(int receiptNumber, Map<Product, Integer> items) {
+        Refund refund = returns.processReturn(receiptNumber, items);
+        StoreLogger.info("Return processed for receipt #" + receiptNumber + ": " + refund);
+        return refund;
+    }
+
+    public Refund processReturn(int receiptNumber, Product product, int quantity) {
+        return processReturn(receiptNumber, Collections.singletonMap(product, quantity));
+    }
+
+    /**
+     * Processes an end-of-day return file of {@code receiptNumber,productId,quantity}
+     * lines; see {@link ReturnsProcessor#processBatch}.
+     */
+    public ReturnBatchResult processReturns(File file) {
+        if (file == null) {
+            throw new StoreException("Return file cannot be null");
+        }
+        try (Reader reader = new FileReader(file)) {
+            ReturnBatchResult result = returns.processBatch(reader);
+            StoreLogger.info("Return file " + file + " processed: " + result);
+            return result;
+        } catch (IOException e) {
+            throw new StoreException("Failed to read return file " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void replicateReturn(int receiptNumber, int productId, int quantity) {
+        ReplicationPrimary primary = replication;
+        if (primary != null) {
+            primary.returned(receiptNumber, productId, quantity);
+        }
+    }
+
+    /**
+     * Starts logging mutations to {@code primary}. Must happen before any
+     * product is added, since the standby starts from an empty store.
+     */
+    synchronized void attachReplication(ReplicationPrimary primary) {
+        if (replication != null) {
+            throw new StoreException("Store '" + name + "' is already replicating");
+        }
+        if (inventory.getProductCount() > 0) {
+            throw new StoreException("Replication must be attached before products are added");
+        }
+        replication = primary;
+    }
+
+    synchronized void detachReplication(ReplicationPrimary primary) {
+        if (replication == primary) {
+            replication = null;
+        }
+    }
+
+    /**
+     * Applies a sale completed on the primary: stock, revenue, velocity and
+     * analytics change exactly as they did there, but the receipt is neither
+     * re-priced nor written to disk again.
+     */
+    void applyReplicatedSale(Receipt receipt) {
+        int lineCount = receipt.getLineCount();
+        for (int line = 0; line < lineCount; line++) {
+            inventory.updateStock(receipt.getProduct(line), -receipt.getQuantity(line));
+        }
+        receipts.add(receipt);
+        receiptsByNumber.put(receipt.getReceiptNumber(), receipt);
+        totalRevenue.add(receipt.getTotalAmount());
+        long soldAt = receipt.getDateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (int line = 0; line < lineCount; line++) {
+            inventory.recordSale(receipt.getProduct(line), receipt.getQuantity(line), soldAt);
+        }
+        analytics.addReceipt(receipt);
+        if (events.hasSubscribers()) {
+            events.publish(new StoreEvent.SaleCompleted(name, receipt));
+        }
+    }
+
+    void applyReplicatedReturn(int receiptNumber, int productId, int quantity) {
+        Product product = inventory.getProduct(productId);
+        if (product == null) {
+            throw new StoreException("Product not found in inventory: " + productId);
+        }
+        returns.processReturn(receiptNumber, product, quantity);
+    }
+
+    void shiftClosed(ShiftRecord shift) {
+        shifts.add(shift);
+        StoreLogger.info("Shift of cashier '" + shift.getCashierName() + "' at register " + shift.getRegisterId()
+            + " closed: " + shift.getTransactions() + " transactions");
+    }
+
+    public ShiftLog getShiftLog() {
+        return shifts;
+    }
+
+    /**
+     * Shifts opened on {@code day}: the closed ones followed by those still
+     * open at this store's registers.
+     */
+    public List<ShiftRecord> getShifts(LocalDate day) {
+        List<ShiftRecord> result = shifts.getShifts(day);
+        for (CashRegister register : registers) {
+            ShiftRecord open = register.getCurrentShift();
+            if (open != null && shifts.dayOf(open).equals(day)) {
+                result.add(open);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * End-of-day report of {@code day}'s shifts per cashier, worked out from
+     * the shift totals alone.
+     */
+    public void writeShiftReport(Writer out, LocalDate day, ReportFormat format) throws IOException {
+        if (out == null || format == null) {
+            throw new StoreException("Writer and format cannot be null");
+        }
+        ShiftLog.writeReport(getShifts(day), out, format);
+    }
+
+    /**
+     * Registers of this store, for handing free ones to cashiers at shift
+     * changes without scanning {@link #getRegisters()}.
+     */
+    public RegisterPool getRegisterPool() {
+        return registerPool;
+    }
+
+    void registerFreed(CashRegister register) {
+        registerPool.offer(register);
+    }
+
+    void cashierAssigned(Cashier cashier, CashRegister register) {
+        if (events.hasSubscribers()) {
+            events.publish(new StoreEvent.CashierAssigned(name, cashier, register));
+        }
+    }
+
+    /**
+     * Change stream of this store: sales, stock movements, low-stock
+     * crossings, expired products and cashier assignments. Subscribing is an
+     * alternative to polling {@link #getReceipts()} and the inventory's
+     * low-stock list; checkout never waits for subscribers.
+     */
+    public StoreEventPublisher getEvents() {
+        return events;
+    }
+
+    /**
+     * Looks for products that have expired since the last check and publishes
+     * a {@link StoreEvent.ProductExpired} for each; meant to run once a day.
+     */
+    public void checkExpirations() {
+        inventory.checkExpirations(LocalDate.now());
+    }
+
+    /**
+     * Looks up a cashier by id, or returns {@code null}.
+     */
+    public Cashier getCashier(int cashierId) {
+        for (Cashier cashier : cashiers) {
+            if (cashier.getId() == cashierId) {
+                return cashier;
+            }
+        }
+        return null;
+    }
+
+    public int getReturnedQuantity(int receiptNumber, Product product) {
+        return returns.getReturnedQuantity(receiptNumber, product);
+    }
+
+    /**
+     * Looks up a receipt issued by this store, falling back to the receipt
+     * archive for receipts from earlier runs. Returns {@code null} if unknown.
+     */
+    public Receipt getReceipt(int receiptNumber) {
+        Receipt receipt = receiptsByNumber.get(receiptNumber);
+        if (receipt != null) {
+            return receipt;
+        }
+        ReceiptArchive archive = receiptArchive;
+        return archive != null && archive.contains(receiptNumber) ? archive.getReceipt(receiptNumber) : null;
+    }
+
+    /**
+     * Receipts that sold {@code product} between {@code from} and {@code to}
+     * inclusive, ordered by receipt number. With a receipt archive the archive's
+     * product index answers the query, so receipts still queued for archiving
+     * are not included; without one, the receipts of this run are scanned.
+     */
+    public List<Receipt> getReceiptsContaining(Product product, LocalDateTime from, LocalDateTime to) {
+        if (product == null) {
+            throw new StoreException("Product cannot be null");
+        }
+        ReceiptArchive archive = receiptArchive;
+        if (archive != null) {
+            return archive.getReceiptsContaining(product, from, to);
+        }
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new ReceiptException("Invalid date range: " + from + " to " + to);
+        }
+        List<Receipt> result = new ArrayList<>();
+        for (Receipt receipt : receipts) {
+            LocalDateTime soldAt = receipt.getDateTime();
+            if (soldAt.isBefore(from) || soldAt.isAfter(to)) {
+                continue;
+            }
+            for (int line = 0; line < receipt.getLineCount(); line++) {
+                if (receipt.getProduct(line).getId() == product.getId()) {
+                    result.add(receipt);
+                    break;
+                }
+            }
+        }
+        result.sort(Comparator.comparingInt(Receipt::getReceiptNumber));
+        return result;
     }
 
     public double getTotalRevenue() {
-        return Math.round(totalRevenue.get() * 100.0) / 100.0;
+        return Math.round(totalRevenue.sum() * 100.0) / 100.0;
     }
 
     public double getTotalExpenses() {
-        return Math.round(totalExpenses.get() * 100.0) / 100.0;
+        return Math.round(totalExpenses.sum() * 100.0) / 100.0;
     }
 
     public double getProfit() {
@@ -210,27 +724,130 @@ public class Store {
         return new ArrayList<>(registers);
     }
 
+    /**
+     * Looks up a register by id, or returns {@code null}.
+     */
+    public CashRegister getRegister(int registerId) {
+        for (CashRegister register : registers) {
+            if (register.getId() == registerId) {
+                return register;
+            }
+        }
+        return null;
+    }
+
     public List<Product> getProducts() {
-        return new ArrayList<>(products);
+        List<Product> listed = inventory.getProducts();
+        if (!delisted.isEmpty()) {
+            listed.removeIf(delisted::contains);
+        }
+        return listed;
     }
 
     public List<Receipt> getReceipts() {
         return new ArrayList<>(receipts);
     }
 
+    public ReceiptArchive getReceiptArchive() {
+        return receiptArchive;
+    }
+
+    /**
+     * Replaces the cache used to deduplicate sales submitted with a transaction
+     * id. By default a journaled cache is opened in the receipts directory on
+     * first use, with a journal file of its own per store: stores sharing one
+     * would load each other's transactions, and one store compacting the file
+     * would leave the others appending to the replaced copy.
+     */
+    public synchronized void setIdempotencyCache(IdempotencyCache cache) {
+        this.idempotencyCache = cache;
+    }
+
+    private IdempotencyCache idempotencyCache() {
+        IdempotencyCache cache = idempotencyCache;
+        if (cache != null) {
+            return cache;
+        }
+        synchronized (this) {
+            if (idempotencyCache == null) {
+                String fileName = String.format(TRANSACTION_JOURNAL_FILE_FORMAT, name.replaceAll("[^A-Za-z0-9._-]", "_"));
+                File journal = new File(StoreConfig.current().getReceiptsDir(), fileName);
+                idempotencyCache = new IdempotencyCache(journal, IdempotencyCache.DEFAULT_MAX_ENTRIES,
+                    IdempotencyCache.DEFAULT_RETENTION);
+            }
+            return idempotencyCache;
+        }
+    }
+
+    /**
+     * Archives every sale from now on in {@code receiptArchive}. Receipt
+     * numbering continues after the highest number already archived, so new
+     * sales never collide with receipts from earlier runs, and returns are
+     * journaled in the archive's directory, so archived receipts cannot be
+     * refunded again after a restart.
+     */
+    public void setReceiptArchive(ReceiptArchive receiptArchive) {
+        if (receiptArchive != null) {
+            Receipt.continueNumberingAfter(receiptArchive.getHighestReceiptNumber());
+            returns.setJournal(new ReturnsJournal(new File(receiptArchive.getDirectory(), RETURNS_JOURNAL_FILE)));
+        } else {
+            returns.setJournal(null);
+        }
+        this.receiptArchive = receiptArchive;
+        StoreLogger.info("Receipt archive " + (receiptArchive == null ? "disabled" : "enabled") + " for store '" + name + "'");
+    }
+
+    public Map<Product, Long> getFrequentlyBoughtTogether(Product product, int limit) {
+        return analytics.getFrequentlyBoughtTogether(product, limit);
+    }
+
+    public ReceiptLineStore getReceiptLines() {
+        return analytics.getReceiptLines();
+    }
+
+    /**
+     * Mergeable snapshot of this store's sales aggregates; see {@link StoreGroup}.
+     */
+    public AnalyticsSummary getAnalyticsSummary() {
+        return analytics.summarize();
+    }
+
     public String getAnalyticsReport() {
         return analytics.generateReport();
     }
 
+    public double getHoursToStockout(Product product) {
+        return inventory.getHoursToStockout(product);
+    }
+
+    public List<Product> getProductsRunningOutWithin(double hours) {
+        return inventory.getProductsRunningOutWithin(hours);
+    }
+
     public String getInventoryReport() {
         return inventory.generateReport();
     }
 
+    public void writeAnalyticsReport(Writer out, ReportFormat format) throws IOException {
+        analytics.writeReport(out, format);
+    }
+
+    public void writeInventoryReport(Writer out, InventoryReportQuery query) throws IOException {
+        inventory.writeReport(out, query);
+    }
+
+    public InventorySummary getInventorySummary() {
+        return inventory.summarize(pricing.expirationWarningDays);
+    }
+
     private void saveReceiptToFile(Receipt receipt) throws ReceiptException {
-        String receiptsDir = StoreConfig.getReceiptsDirectory();
-        File dir = new File(receiptsDir);
-        if (!dir.exists() && !dir.mkdirs()) {
-            throw new ReceiptException("Failed to create receipts directory: " + receiptsDir);
+        StoreConfig.Snapshot config = StoreConfig.current();
+        File dir = config.getReceiptsDir();
+        if (dir != preparedReceiptsDir) {
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new ReceiptException("Failed to create receipts directory: " + dir);
+            }
+            preparedReceiptsDir = dir;
         }
 
         String fileName = String.format("receipt_%d.ser", receipt.getReceiptNumber());
@@ -242,5 +859,71 @@ public class Store {
         } catch (IOException e) {
             throw new ReceiptException("Failed to save receipt: " + e.getMessage(), e);
         }
+
+        if (!config.isReceiptTextEnabled()) {
+            return;
+        }
+        File textFile = new File(dir, String.format("receipt_%d.txt", receipt.getReceiptNumber()));
+        try (FileChannel channel = FileChannel.open(textFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ReceiptRenderer.writeTo(receipt, channel);
+        } catch (IOException e) {
+            throw new ReceiptException("Failed to save receipt text: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Immutable pricing parameters, swapped as a whole when configuration
+     * changes so a sale never mixes old and new values.
+     */
+    private static final class Pricing {
+        private final double foodMarkup;
+        private final double nonFoodMarkup;
+        private final int expirationWarningDays;
+        private final double expirationDiscount;
+
+        Pricing(double foodMarkup, double nonFoodMarkup, int expirationWarningDays, double expirationDiscount) {
+            this.foodMarkup = foodMarkup;
+            this.nonFoodMarkup = nonFoodMarkup;
+            this.expirationWarningDays = expirationWarningDays;
+            this.expirationDiscount = expirationDiscount;
+        }
+
+        /**
+         * @param localPrice the store's own price for the product, or
+         *                   {@code NaN} to mark up the catalog price
+         */
+        double sellingPrice(Product product, ProductCatalog catalog, double localPrice) {
+            double price = localPrice;
+            if (Double.isNaN(price)) {
+                double markup = product instanceof FoodProduct ? foodMarkup : nonFoodMarkup;
+                price = catalog.getDeliveryPrice(product) * (1 + markup);
+            }
+            return product.applyExpirationDiscount(price, expirationWarningDays, expirationDiscount);
+        }
+    }
+
+    /**
+     * Turns inventory stock changes into events. Runs on the thread that
+     * changed the stock, so it only builds events when someone subscribes.
+     */
+    private final class StockEvents implements InventoryManager.StockListener {
+        @Override
+        public void stockChanged(Product product, int previousStock, int newStock, int reorderPoint) {
+            if (!events.hasSubscribers()) {
+                return;
+            }
+            events.publish(new StoreEvent.StockChanged(name, product, previousStock, newStock));
+            if (previousStock > reorderPoint && newStock <= reorderPoint) {
+                events.publish(new StoreEvent.LowStockCrossed(name, product, newStock, reorderPoint));
+            }
+        }
+
+        @Override
+        public void productExpired(Product product, int stock) {
+            if (events.hasSubscribers()) {
+                events.publish(new StoreEvent.ProductExpired(name, product, stock));
+            }
+        }
     }
-} 
\ No newline at end of file
+}
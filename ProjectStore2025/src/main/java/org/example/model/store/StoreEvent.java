@@ -0,0 +1,171 @@
+package org.example.model.store;
+
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+
+/**
+ * Change published by a store through {@link Store#getEvents()}. Events are
+ * immutable and carry the store's name and the time they happened, so one
+ * subscriber can follow several stores.
+ */
+public abstract sealed class StoreEvent {
+    private final String storeName;
+    private final long timestamp;
+
+    private StoreEvent(String storeName) {
+        this.storeName = storeName;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    /**
+     * When the event happened, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public static final class SaleCompleted extends StoreEvent {
+        private final Receipt receipt;
+
+        SaleCompleted(String storeName, Receipt receipt) {
+            super(storeName);
+            this.receipt = receipt;
+        }
+
+        public Receipt getReceipt() {
+            return receipt;
+        }
+
+        @Override
+        public String toString() {
+            return "SaleCompleted{store=" + getStoreName() + ", receipt=#" + receipt.getReceiptNumber() + "}";
+        }
+    }
+
+    /**
+     * A product's stock level moved, by a sale, a return, a restock or a sale
+     * that reserved stock and then failed and gave it back.
+     */
+    public static final class StockChanged extends StoreEvent {
+        private final Product product;
+        private final int previousStock;
+        private final int newStock;
+
+        StockChanged(String storeName, Product product, int previousStock, int newStock) {
+            super(storeName);
+            this.product = product;
+            this.previousStock = previousStock;
+            this.newStock = newStock;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public int getPreviousStock() {
+            return previousStock;
+        }
+
+        public int getNewStock() {
+            return newStock;
+        }
+
+        @Override
+        public String toString() {
+            return "StockChanged{store=" + getStoreName() + ", product=" + product.getName()
+                + ", " + previousStock + " -> " + newStock + "}";
+        }
+    }
+
+    /**
+     * A product's stock fell from above its reorder point to at or below it.
+     * Published once per crossing, not for every sale while it stays low.
+     */
+    public static final class LowStockCrossed extends StoreEvent {
+        private final Product product;
+        private final int stock;
+        private final int reorderPoint;
+
+        LowStockCrossed(String storeName, Product product, int stock, int reorderPoint) {
+            super(storeName);
+            this.product = product;
+            this.stock = stock;
+            this.reorderPoint = reorderPoint;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public int getStock() {
+            return stock;
+        }
+
+        public int getReorderPoint() {
+            return reorderPoint;
+        }
+
+        @Override
+        public String toString() {
+            return "LowStockCrossed{store=" + getStoreName() + ", product=" + product.getName()
+                + ", stock=" + stock + ", reorderPoint=" + reorderPoint + "}";
+        }
+    }
+
+    public static final class ProductExpired extends StoreEvent {
+        private final Product product;
+        private final int stock;
+
+        ProductExpired(String storeName, Product product, int stock) {
+            super(storeName);
+            this.product = product;
+            this.stock = stock;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        /**
+         * Units on the shelf when the product was found expired.
+         */
+        public int getStock() {
+            return stock;
+        }
+
+        @Override
+        public String toString() {
+            return "ProductExpired{store=" + getStoreName() + ", product=" + product.getName()
+                + ", stock=" + stock + "}";
+        }
+    }
+
+    public static final class CashierAssigned extends StoreEvent {
+        private final Cashier cashier;
+        private final CashRegister register;
+
+        CashierAssigned(String storeName, Cashier cashier, CashRegister register) {
+            super(storeName);
+            this.cashier = cashier;
+            this.register = register;
+        }
+
+        public Cashier getCashier() {
+            return cashier;
+        }
+
+        public CashRegister getRegister() {
+            return register;
+        }
+
+        @Override
+        public String toString() {
+            return "CashierAssigned{store=" + getStoreName() + ", cashier=" + cashier.getName()
+                + ", register=" + register.getId() + "}";
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package org.example.model.store;
+
+import org.example.exception.StoreException;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes a store's {@link StoreEvent}s to any number of subscribers. Each
+ * subscriber has its own bounded buffer, drained on a delivery thread and
+ * paced by the demand it signals through its {@link Flow.Subscription}.
+ * <p>
+ * Publishing never waits for a subscriber and takes no lock: an event is
+ * handed to each subscriber's lock-free queue, and a delivery task is
+ * scheduled only if none is pending for that subscriber. An event that does
+ * not fit in a full buffer is dropped for that subscriber only and counted in
+ * {@link #getDroppedCount()}, so a slow consumer falls behind instead of
+ * holding up checkout. Subscribers that need every event should request
+ * eagerly and keep up, or rebuild their view from the store after a gap.
+ */
+public final class StoreEventPublisher implements Flow.Publisher<StoreEvent>, AutoCloseable {
+    public static final int DEFAULT_BUFFER_CAPACITY = Flow.defaultBufferSize();
+    // Handed to a rejected duplicate subscriber ahead of its onError.
+    private static final Flow.Subscription NO_SUBSCRIPTION = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final Executor executor;
+    private final int bufferCapacity;
+    private final CopyOnWriteArrayList<Delivery> deliveries;
+    private final LongAdder published;
+    private final LongAdder dropped;
+    private volatile boolean closed;
+
+    public StoreEventPublisher() {
+        this(DeliveryThreads.EXECUTOR, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    /**
+     * @param executor       runs delivery to subscribers
+     * @param bufferCapacity events buffered per subscriber, rounded up to a
+     *                       power of two
+     */
+    public StoreEventPublisher(Executor executor, int bufferCapacity) {
+        if (executor == null) {
+            throw new StoreException("Executor cannot be null");
+        }
+        if (bufferCapacity <= 0) {
+            throw new StoreException("Buffer capacity must be positive");
+        }
+        int rounded = Integer.highestOneBit(bufferCapacity);
+        this.executor = executor;
+        this.bufferCapacity = rounded < bufferCapacity ? rounded << 1 : rounded;
+        this.deliveries = new CopyOnWriteArrayList<>();
+        this.published = new LongAdder();
+        this.dropped = new LongAdder();
+    }
+
+    /**
+     * Adds {@code subscriber}, which sees events published from now on. A
+     * subscriber already subscribed gets a subscription that does nothing
+     * followed by an {@link IllegalStateException} through {@code onError};
+     * one subscribing after {@link #close()} is completed straight away.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super StoreEvent> subscriber) {
+        if (subscriber == null) {
+            throw new StoreException("Subscriber cannot be null");
+        }
+        Delivery delivery = new Delivery(subscriber);
+        for (Delivery existing : deliveries) {
+            if (existing.subscriber.equals(subscriber)) {
+                delivery.failed = new IllegalStateException("Duplicate subscribe");
+                delivery.signal();
+                return;
+            }
+        }
+        deliveries.add(delivery);
+        delivery.signal();
+    }
+
+    /**
+     * Whether anyone is listening; lets the store skip building events that
+     * nobody would receive.
+     */
+    public boolean hasSubscribers() {
+        return !deliveries.isEmpty();
+    }
+
+    public int getSubscriberCount() {
+        return deliveries.size();
+    }
+
+    /**
+     * Offers {@code event} to every subscriber without blocking.
+     */
+    void publish(StoreEvent event) {
+        if (closed) {
+            return;
+        }
+        for (Delivery delivery : deliveries) {
+            if (delivery.offer(event)) {
+                delivery.signal();
+            } else {
+                dropped.increment();
+            }
+        }
+        published.increment();
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    /**
+     * Deliveries skipped because a subscriber's buffer was full, summed over
+     * subscribers.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Most events waiting in any one subscriber's buffer.
+     */
+    public int getMaxBuffered() {
+        int max = 0;
+        for (Delivery delivery : deliveries) {
+            max = Math.max(max, delivery.buffered.get());
+        }
+        return max;
+    }
+
+    /**
+     * Completes every subscriber once it has taken the events already
+     * buffered for it. Later events are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Delivery delivery : deliveries) {
+            delivery.signal();
+        }
+    }
+
+    /**
+     * One subscriber's buffer and demand. Publishers add to the queue from
+     * any thread; a single delivery task at a time drains it, so the
+     * subscriber is only ever called from one thread at a time.
+     */
+    private final class Delivery implements Flow.Subscription {
+        final Flow.Subscriber<? super StoreEvent> subscriber;
+        private final Queue<StoreEvent> buffer;
+        // Events in the buffer; publishers reserve a place before adding.
+        final AtomicInteger buffered;
+        private final AtomicLong requested;
+        // Signals since the delivery task last looked; a task runs while it is non-zero.
+        private final AtomicInteger pending;
+        private boolean subscribed;
+        private volatile boolean cancelled;
+        private volatile Throwable failed;
+
+        Delivery(Flow.Subscriber<? super StoreEvent> subscriber) {
+            this.subscriber = subscriber;
+            this.buffer = new ConcurrentLinkedQueue<>();
+            this.buffered = new AtomicInteger();
+            this.requested = new AtomicLong();
+            this.pending = new AtomicInteger();
+        }
+
+        boolean offer(StoreEvent event) {
+            if (buffered.incrementAndGet() > bufferCapacity) {
+                buffered.decrementAndGet();
+                return false;
+            }
+            buffer.add(event);
+            return true;
+        }
+
+        /**
+         * Schedules a delivery task unless one is already pending.
+         */
+        void signal() {
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    pending.set(0);
+                    cancel();
+                }
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                failed = new IllegalArgumentException("Requested " + n + " events; must be positive");
+            } else {
+                requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            deliveries.remove(this);
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                if (!subscribed) {
+                    subscribed = true;
+                    if (!cancelled) {
+                        // Failed already only if this is a duplicate, which must still
+                        // see onSubscribe before onError.
+                        boolean duplicate = failed != null;
+                        try {
+                            subscriber.onSubscribe(duplicate ? NO_SUBSCRIPTION : this);
+                        } catch (Throwable t) {
+                            if (!duplicate) {
+                                failed = t;
+                            }
+                        }
+                    }
+                }
+                if (!deliver()) {
+                    buffer.clear();
+                    return;
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Hands buffered events over while there is demand.
+         *
+         * @return whether the subscription is still open
+         */
+        private boolean deliver() {
+            while (!cancelled) {
+                Throwable error = failed;
+                if (error != null) {
+                    cancel();
+                    subscriber.onError(error);
+                    return false;
+                }
+                long demand = requested.get();
+                StoreEvent event = demand > 0 ? buffer.poll() : null;
+                if (event == null) {
+                    if (closed && buffer.isEmpty()) {
+                        cancel();
+                        subscriber.onComplete();
+                        return false;
+                    }
+                    return true;
+                }
+                buffered.decrementAndGet();
+                if (demand != Long.MAX_VALUE) {
+                    requested.decrementAndGet();
+                }
+                try {
+                    subscriber.onNext(event);
+                } catch (Throwable t) {
+                    failed = t;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Delivery threads shared by all stores' publishers. Created on first use
+     * rather than with the common pool, which on a single-CPU machine would
+     * start a new thread for every delivery.
+     */
+    private static final class DeliveryThreads {
+        static final ExecutorService EXECUTOR;
+
+        static {
+            AtomicInteger count = new AtomicInteger();
+            EXECUTOR = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread thread = new Thread(r, "store-events-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.model.store;
+
+import org.example.exception.StoreException;
+import org.example.model.analytics.AnalyticsSummary;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The stores of a chain, for chain-wide figures. {@link #summarize} takes
+ * each store's {@link AnalyticsSummary} and merges them on a fork/join pool,
+ * so the cost grows with the number of stores and products, not receipts.
+ */
+public class StoreGroup {
+    private static final int PARALLEL_LEAF_SIZE = 8;
+
+    private final String name;
+    private final CopyOnWriteArrayList<Store> stores = new CopyOnWriteArrayList<>();
+
+    public StoreGroup(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Group name cannot be empty");
+        }
+        this.name = name;
+    }
+
+    public void addStore(Store store) {
+        if (store == null) {
+            throw new IllegalArgumentException("Store cannot be null");
+        }
+        if (!stores.addIfAbsent(store)) {
+            throw new StoreException("Store '" + store.getName() + "' is already in group '" + name + "'");
+        }
+    }
+
+    public boolean removeStore(Store store) {
+        return stores.remove(store);
+    }
+
+    public List<Store> getStores() {
+        return Collections.unmodifiableList(stores);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Summarizes every store on the common fork/join pool.
+     */
+    public ChainSummary summarize() {
+        return summarize(ForkJoinPool.commonPool());
+    }
+
+    public ChainSummary summarize(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Fork/join pool cannot be null");
+        }
+        Store[] snapshot = stores.toArray(new Store[0]);
+        AnalyticsSummary[] perStore = new AnalyticsSummary[snapshot.length];
+        AnalyticsSummary totals = pool.invoke(new SummaryTask(snapshot, perStore, 0, snapshot.length));
+        return new ChainSummary(snapshot, perStore, totals);
+    }
+
+    /**
+     * Summarizes the stores in {@code [from, to)} into {@code perStore} and
+     * returns their merged total. Splits in halves down to
+     * {@link #PARALLEL_LEAF_SIZE} stores.
+     */
+    private static final class SummaryTask extends RecursiveTask<AnalyticsSummary> {
+        private static final long serialVersionUID = 1L;
+        private final Store[] stores;
+        private final AnalyticsSummary[] perStore;
+        private final int from;
+        private final int to;
+
+        SummaryTask(Store[] stores, AnalyticsSummary[] perStore, int from, int to) {
+            this.stores = stores;
+            this.perStore = perStore;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected AnalyticsSummary compute() {
+            if (to - from > PARALLEL_LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                SummaryTask left = new SummaryTask(stores, perStore, from, mid);
+                left.fork();
+                AnalyticsSummary right = new SummaryTask(stores, perStore, mid, to).compute();
+                return left.join().merge(right);
+            }
+            AnalyticsSummary total = AnalyticsSummary.EMPTY;
+            for (int i = from; i < to; i++) {
+                perStore[i] = stores[i].getAnalyticsSummary();
+                total = total.merge(perStore[i]);
+            }
+            return total;
+        }
+    }
+}
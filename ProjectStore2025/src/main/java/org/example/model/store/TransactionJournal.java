@@ -0,0 +1,153 @@
+package org.example.model.store;
+
+import org.example.model.receipt.Receipt;
+import org.example.util.StoreLogger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only file of completed idempotent sales. Each record is a frame of
+ * {@code [int length][long createdMillis][UTF transactionId][serialized receipt]}
+ * written with a single channel write, so a crash can only leave a torn frame
+ * at the end of the file, which is dropped when the journal is read back.
+ */
+class TransactionJournal implements Closeable {
+    private final File file;
+    private FileChannel channel;
+    private int frameCount;
+
+    TransactionJournal(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create journal directory: " + dir);
+        }
+        this.file = file;
+    }
+
+    /**
+     * Reads every intact record, passing unexpired ones to {@code consumer},
+     * then rewrites the file with just those records and opens it for appends.
+     */
+    synchronized void load(long expiresBeforeMillis, Sink consumer) throws IOException {
+        List<Entry> live = new ArrayList<>();
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    if (length <= 0 || length > file.length()) {
+                        StoreLogger.warning("Dropping corrupt record at the end of " + file);
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    try {
+                        in.readFully(payload);
+                    } catch (EOFException e) {
+                        StoreLogger.warning("Dropping torn record at the end of " + file);
+                        break;
+                    }
+                    Entry entry = decode(payload);
+                    if (entry != null && entry.createdMillis >= expiresBeforeMillis) {
+                        live.add(entry);
+                    }
+                }
+            }
+        }
+        for (Entry entry : live) {
+            consumer.accept(entry.transactionId, entry.createdMillis, entry.receipt);
+        }
+        rewrite(live);
+    }
+
+    synchronized void append(String transactionId, long createdMillis, Receipt receipt) throws IOException {
+        channel.write(encode(transactionId, createdMillis, receipt));
+        frameCount++;
+    }
+
+    synchronized int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Replaces the journal contents with {@code entries}, dropping records
+     * that have expired or been evicted since they were appended.
+     */
+    synchronized void rewrite(List<Entry> entries) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Entry entry : entries) {
+                out.write(encode(entry.transactionId, entry.createdMillis, entry.receipt));
+            }
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        frameCount = entries.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static ByteBuffer encode(String transactionId, long createdMillis, Receipt receipt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeLong(createdMillis);
+        out.writeUTF(transactionId);
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(receipt);
+        }
+        ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+        frame.putInt(0, frame.capacity() - Integer.BYTES);
+        return frame;
+    }
+
+    private Entry decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            long createdMillis = in.readLong();
+            String transactionId = in.readUTF();
+            try (ObjectInputStream ois = new ObjectInputStream(in)) {
+                return new Entry(transactionId, createdMillis, (Receipt) ois.readObject());
+            }
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            StoreLogger.warning("Skipping unreadable record in " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    static final class Entry {
+        final String transactionId;
+        final long createdMillis;
+        final Receipt receipt;
+
+        Entry(String transactionId, long createdMillis, Receipt receipt) {
+            this.transactionId = transactionId;
+            this.createdMillis = createdMillis;
+            this.receipt = receipt;
+        }
+    }
+
+    interface Sink {
+        void accept(String transactionId, long createdMillis, Receipt receipt);
+    }
+}
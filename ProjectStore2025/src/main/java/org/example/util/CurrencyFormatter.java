@@ -0,0 +1,89 @@
+package org.example.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Thread-safe US dollar formatting on whole cents, producing the same text as
+ * {@code NumberFormat.getCurrencyInstance(Locale.US)} (for example
+ * {@code $1,234.50} and {@code -$0.75}) without any shared mutable state and
+ * without building intermediate strings.
+ */
+public final class CurrencyFormatter {
+    private CurrencyFormatter() {
+    }
+
+    /**
+     * Rounds {@code amount} to whole cents half-even on its exact binary
+     * value, as {@code NumberFormat} does, so {@code 0.125} is 12 cents.
+     * Only amounts that land near a half cent take the exact path.
+     */
+    public static long toCents(double amount) {
+        double scaled = amount * 100.0;
+        double nearest = Math.rint(scaled);
+        if (Math.abs(nearest - scaled) < 0.49 && Math.abs(scaled) < 1e15) {
+            return (long) nearest;
+        }
+        return new BigDecimal(amount).setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    public static String format(double amount) {
+        StringBuilder sb = new StringBuilder(16);
+        appendCents(sb, toCents(amount));
+        return sb.toString();
+    }
+
+    public static void appendAmount(StringBuilder sb, double amount) {
+        appendCents(sb, toCents(amount));
+    }
+
+    public static void appendCents(StringBuilder sb, long cents) {
+        try {
+            appendCents((Appendable) sb, cents);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends {@code cents} formatted as dollars to {@code out}, one character
+     * at a time.
+     */
+    public static void appendCents(Appendable out, long cents) throws IOException {
+        if (cents == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Amount out of range: " + cents);
+        }
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+        out.append('$');
+        appendGroupedDollars(out, cents / 100);
+        long fraction = cents % 100;
+        out.append('.');
+        out.append((char) ('0' + fraction / 10));
+        out.append((char) ('0' + fraction % 10));
+    }
+
+    private static void appendGroupedDollars(Appendable out, long dollars) throws IOException {
+        if (dollars < 1000) {
+            appendDigits(out, (int) dollars, false);
+            return;
+        }
+        appendGroupedDollars(out, dollars / 1000);
+        out.append(',');
+        appendDigits(out, (int) (dollars % 1000), true);
+    }
+
+    private static void appendDigits(Appendable out, int value, boolean padToThree) throws IOException {
+        if (padToThree || value >= 100) {
+            out.append((char) ('0' + value / 100));
+        }
+        if (padToThree || value >= 10) {
+            out.append((char) ('0' + value / 10 % 10));
+        }
+        out.append((char) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.util;
+
+public enum ReportFormat {
+    TEXT,
+    CSV,
+    JSON_LINES
+}
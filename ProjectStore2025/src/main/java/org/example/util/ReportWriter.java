@@ -0,0 +1,159 @@
+package org.example.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Small row-oriented writer used by the streaming reports. Characters are
+ * collected in a fixed buffer that is handed to the underlying {@link Writer}
+ * whenever it fills up, so memory stays bounded regardless of report size and
+ * numbers are written without going through {@code String.format}.
+ */
+public final class ReportWriter implements Appendable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Writer out;
+    private final char[] buffer;
+    private int length;
+
+    public ReportWriter(Writer out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        this.out = out;
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    public ReportWriter text(CharSequence text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            character(text.charAt(i));
+        }
+        return this;
+    }
+
+    public ReportWriter character(char c) throws IOException {
+        if (length == buffer.length) {
+            flushBuffer();
+        }
+        buffer[length++] = c;
+        return this;
+    }
+
+    public ReportWriter newline() throws IOException {
+        return character('\n');
+    }
+
+    public ReportWriter number(long value) throws IOException {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return text(Long.toString(value));
+            }
+            character('-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            character((char) ('0' + value / divisor % 10));
+            divisor /= 10;
+        }
+        return this;
+    }
+
+    public ReportWriter currency(double amount) throws IOException {
+        CurrencyFormatter.appendCents(this, CurrencyFormatter.toCents(amount));
+        return this;
+    }
+
+    /**
+     * Writes {@code amount} with exactly two decimals and no grouping, e.g.
+     * {@code -1234.50}, as used by the CSV and JSON outputs.
+     */
+    public ReportWriter decimal(double amount) throws IOException {
+        long cents = Math.round(amount * 100.0);
+        if (cents < 0) {
+            character('-');
+            cents = -cents;
+        }
+        number(cents / 100);
+        character('.');
+        character((char) ('0' + cents % 100 / 10));
+        character((char) ('0' + cents % 10));
+        return this;
+    }
+
+    public ReportWriter csvField(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return text(value);
+        }
+        character('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                character('"');
+            }
+            character(c);
+        }
+        return character('"');
+    }
+
+    public ReportWriter jsonString(String value) throws IOException {
+        character('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': text("\\\""); break;
+                case '\\': text("\\\\"); break;
+                case '\n': text("\\n"); break;
+                case '\r': text("\\r"); break;
+                case '\t': text("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        text("\\u00");
+                        character(Character.forDigit(c >> 4, 16));
+                        character(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        character(c);
+                    }
+            }
+        }
+        return character('"');
+    }
+
+    /**
+     * Hands buffered characters to the underlying writer and flushes it.
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (length > 0) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+    }
+
+    @Override
+    public ReportWriter append(CharSequence csq) throws IOException {
+        return text(csq == null ? "null" : csq);
+    }
+
+    @Override
+    public ReportWriter append(CharSequence csq, int start, int end) throws IOException {
+        return text((csq == null ? "null" : csq).subSequence(start, end));
+    }
+
+    @Override
+    public ReportWriter append(char c) throws IOException {
+        return character(c);
+    }
+}
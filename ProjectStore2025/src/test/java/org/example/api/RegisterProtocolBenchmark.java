@@ -0,0 +1,135 @@
+package org.example.api;
+
+import org.example.config.StoreConfig;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.store.CashRegister;
+import org.example.model.store.Cashier;
+import org.example.model.store.Store;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Compares the binary register protocol with the HTTP API on loopback. Not a
+ * unit test: run it by hand with an optional request count. For each
+ * transport it measures a lone lookup-sized request (a scan against
+ * {@code GET /stock}) and a one-item checkout (scan plus checkout, pipelined,
+ * against {@code POST /checkout}), one request at a time, then the binary
+ * protocol's throughput with pipelined batches.
+ */
+public final class RegisterProtocolBenchmark {
+    private static final int PIPELINE_DEPTH = 256;
+
+    private RegisterProtocolBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        // As Main does; without it every HTTP response waits on a delayed ACK.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        // Keep the receipts of the run out of the working directory.
+        File workDir = Files.createTempDirectory("store-protocol").toFile();
+        File configFile = new File(workDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(workDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        Store store = new Store("Benchmark Store", 0.10, 0.20, 7, 0.20);
+        for (int i = 1; i <= 2; i++) {
+            Cashier cashier = new Cashier("Cashier " + i, 2000.0);
+            CashRegister register = new CashRegister(i);
+            store.addCashier(cashier);
+            store.addRegister(register);
+            register.setAssignedCashier(cashier);
+        }
+        Product product = new NonFoodProduct("Item", 1.0, 100);
+        store.addProduct(product, Integer.MAX_VALUE / 2, 10, 100);
+        int id = product.getId();
+
+        try (RegisterProtocolServer binary = new RegisterProtocolServer(store, new InetSocketAddress("127.0.0.1", 0));
+             StoreHttpServer http = new StoreHttpServer(store, new InetSocketAddress("127.0.0.1", 0));
+             RegisterProtocolClient client = new RegisterProtocolClient(
+                 new InetSocketAddress("127.0.0.1", startBinary(binary)), 1)) {
+            http.start();
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            URI stock = URI.create("http://127.0.0.1:" + http.getPort() + "/stock?ids=" + id);
+            URI checkout = URI.create("http://127.0.0.1:" + http.getPort() + "/checkout");
+            String checkoutBody = "register=2&payment=10&items=" + id + ":1";
+
+            // Each scan is undone by a remove so the transaction stays small.
+            report("binary scan", requests, () -> {
+                client.scan(id, 1);
+                client.remove(id, 1);
+            }, 2);
+            report("http stock lookup", requests, () ->
+                httpClient.send(HttpRequest.newBuilder(stock).build(), HttpResponse.BodyHandlers.discarding()), 1);
+            report("binary checkout", requests / 10, () -> {
+                client.sendScan(id, 1);
+                client.sendCheckout(10.0);
+                client.receive();
+                client.receive();
+            }, 1);
+            report("http checkout", requests / 10, () ->
+                httpClient.send(HttpRequest.newBuilder(checkout)
+                    .POST(HttpRequest.BodyPublishers.ofString(checkoutBody)).build(),
+                    HttpResponse.BodyHandlers.discarding()), 1);
+
+            long start = System.nanoTime();
+            for (int done = 0; done < requests; done += PIPELINE_DEPTH) {
+                for (int i = 0; i < PIPELINE_DEPTH; i += 2) {
+                    client.sendScan(id, 1);
+                    client.sendRemove(id, 1);
+                }
+                for (int i = 0; i < PIPELINE_DEPTH; i++) {
+                    client.receive();
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-20s %10.0f requests/s (pipeline depth %d)%n",
+                "binary pipelined", requests / seconds, PIPELINE_DEPTH);
+        }
+    }
+
+    private static int startBinary(RegisterProtocolServer server) {
+        server.start();
+        return server.getPort();
+    }
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    /**
+     * Times {@code iterations} runs of {@code operation}, each worth
+     * {@code requestsPerRun} requests, after a warm-up of the same length.
+     */
+    private static void report(String name, int iterations, Operation operation, int requestsPerRun) throws Exception {
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long[] latencies = new long[iterations];
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long began = System.nanoTime();
+            operation.run();
+            latencies[i] = System.nanoTime() - began;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        System.out.printf("%-20s %10.0f requests/s  p50 %7.1f us  p99 %7.1f us%n", name,
+            iterations * requestsPerRun / seconds,
+            latencies[iterations / 2] / 1e3, latencies[Math.min(iterations - 1, iterations * 99 / 100)] / 1e3);
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.api;
+
+import org.example.config.StoreConfig;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.store.CashRegister;
+import org.example.model.store.Cashier;
+import org.example.model.store.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegisterProtocolServerTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store store;
+    private FoodProduct milk;
+    private NonFoodProduct soap;
+    private RegisterProtocolServer server;
+    private InetSocketAddress address;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        store = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("John Doe", 2000.0);
+        CashRegister register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        store.addProduct(milk, 100, 20, 50);
+        store.addProduct(soap, 200, 30, 100);
+
+        server = new RegisterProtocolServer(store, new InetSocketAddress("127.0.0.1", 0), 2);
+        server.start();
+        address = new InetSocketAddress("127.0.0.1", server.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testScanRemoveCheckoutAndAck() throws IOException {
+        try (RegisterProtocolClient client = new RegisterProtocolClient(address, 1)) {
+            assertEquals(4.40, client.scan(milk.getId(), 2).getRunningTotal(), 0.001);
+            assertEquals(8.00, client.scan(soap.getId(), 3).getRunningTotal(), 0.001);
+            assertEquals(6.80, client.remove(soap.getId(), 1).getRunningTotal(), 0.001);
+
+            RegisterProtocolClient.Response sale = client.checkout(10.0);
+            assertTrue(sale.isOk());
+            assertEquals(6.80, sale.getTotal(), 0.001);
+            assertEquals(3.20, sale.getChange(), 0.001);
+            assertEquals(98, store.getStockLevel(milk));
+            assertEquals(198, store.getStockLevel(soap));
+            assertEquals(0.0, store.getRegister(1).getCurrentTransactionTotal());
+
+            assertTrue(client.acknowledgeReceipt(sale.getReceiptNumber()).isOk());
+            assertEquals(RegisterProtocolClient.Status.NOT_FOUND, client.acknowledgeReceipt(999_999).getStatus());
+        }
+    }
+
+    @Test
+    void testRejectedRequestsKeepConnectionOpen() throws IOException {
+        try (RegisterProtocolClient client = new RegisterProtocolClient(address, 1)) {
+            client.scan(milk.getId(), 2);
+            RegisterProtocolClient.Response underpaid = client.checkout(1.0);
+            assertEquals(RegisterProtocolClient.Status.UNDERPAID, underpaid.getStatus());
+            assertEquals(4.40, underpaid.getRequired(), 0.001);
+            assertEquals(1.0, underpaid.getProvided(), 0.001);
+
+            // The transaction survives an underpaid checkout; another lane then sells the milk.
+            CashRegister otherLane = new CashRegister(2);
+            store.addRegister(otherLane);
+            otherLane.setAssignedCashier(new Cashier("Jane Doe", 2000.0));
+            store.processSale(otherLane, Map.of(milk, 99), 1000.0);
+            RegisterProtocolClient.Response outOfStock = client.checkout(10.0);
+            assertEquals(RegisterProtocolClient.Status.OUT_OF_STOCK, outOfStock.getStatus());
+            assertEquals(milk.getId(), outOfStock.getProductId());
+            assertEquals(2, outOfStock.getRequested());
+            assertEquals(1, outOfStock.getAvailable());
+
+            assertEquals(RegisterProtocolClient.Status.REJECTED, client.scan(milk.getId(), 5).getStatus());
+            assertEquals(RegisterProtocolClient.Status.REJECTED, client.scan(soap.getId(), 0).getStatus());
+            assertEquals(RegisterProtocolClient.Status.NOT_FOUND, client.scan(999_999, 1).getStatus());
+            assertTrue(client.remove(milk.getId(), 2).isOk());
+            assertTrue(client.scan(soap.getId(), 1).isOk());
+        }
+        try (RegisterProtocolClient stranger = new RegisterProtocolClient(address, 42)) {
+            RegisterProtocolClient.Response response = stranger.scan(milk.getId(), 1);
+            assertEquals(RegisterProtocolClient.Status.NOT_FOUND, response.getStatus());
+            assertEquals("Unknown register: 42", response.getMessage());
+        }
+    }
+
+    @Test
+    void testPipelinedRequestsAnsweredInOrder() throws IOException {
+        int requests = 3000;
+        try (RegisterProtocolClient client = new RegisterProtocolClient(address, 1)) {
+            int[] ids = new int[requests];
+            for (int i = 0; i < requests; i++) {
+                ids[i] = i % 2 == 0 ? client.sendScan(soap.getId(), 1) : client.sendRemove(soap.getId(), 1);
+            }
+            int checkoutId = client.sendCheckout(5.0);
+            client.flush();
+            for (int i = 0; i < requests; i++) {
+                RegisterProtocolClient.Response response = client.receive();
+                assertEquals(ids[i], response.getRequestId());
+                assertTrue(response.isOk(), response.toString());
+            }
+            // Every scan was removed again, so the checkout has nothing to sell.
+            RegisterProtocolClient.Response checkout = client.receive();
+            assertEquals(checkoutId, checkout.getRequestId());
+            assertEquals(RegisterProtocolClient.Status.REJECTED, checkout.getStatus());
+        }
+        assertEquals(200, store.getStockLevel(soap));
+    }
+
+    @Test
+    void testMalformedFramesAreRejected() throws IOException {
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            ByteBuffer frame = ByteBuffer.allocate(64);
+            // Valid length, unknown opcode.
+            frame.putInt(RegisterProtocol.REQUEST_HEADER_SIZE).put((byte) 99).putInt(7).putInt(1).flip();
+            channel.write(frame);
+            ByteBuffer response = ByteBuffer.allocate(64);
+            while (response.position() < Integer.BYTES + RegisterProtocol.RESPONSE_HEADER_SIZE) {
+                assertTrue(channel.read(response) > 0);
+            }
+            response.flip();
+            int length = response.getInt();
+            assertTrue(length > RegisterProtocol.RESPONSE_HEADER_SIZE);
+            assertEquals(RegisterProtocol.ERROR, response.get());
+            assertEquals(7, response.getInt());
+
+            // An oversized frame closes the connection.
+            frame.clear();
+            frame.putInt(RegisterProtocol.MAX_FRAME_SIZE + 1).flip();
+            channel.write(frame);
+            response.clear();
+            int read;
+            do {
+                read = channel.read(response);
+                response.clear();
+            } while (read > 0);
+            assertEquals(-1, read);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.api;
+
+import org.example.config.StoreConfig;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.store.CashRegister;
+import org.example.model.store.Cashier;
+import org.example.model.store.Store;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local load test for {@link StoreHttpServer}. Not a unit test: run it by hand
+ * with {@code [clients] [seconds]} and it prints throughput and latency
+ * percentiles. Nine in ten requests are stock lookups and the rest checkouts,
+ * spread over a few registers.
+ */
+public final class StoreHttpLoadGenerator {
+    private static final int PRODUCTS = 1000;
+    private static final int REGISTERS = 8;
+    private static final int SAMPLES_PER_CLIENT = 1 << 16;
+
+    private StoreHttpLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        // As Main does; without it every HTTP response waits on a delayed ACK.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        // Keep the receipts of the run out of the working directory.
+        File workDir = Files.createTempDirectory("store-load").toFile();
+        File configFile = new File(workDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(workDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        Store store = new Store("Load Test Store", 0.10, 0.20, 7, 0.20);
+        for (int i = 1; i <= REGISTERS; i++) {
+            Cashier cashier = new Cashier("Cashier " + i, 2000.0);
+            CashRegister register = new CashRegister(i);
+            store.addCashier(cashier);
+            store.addRegister(register);
+            register.setAssignedCashier(cashier);
+        }
+        Product[] products = new Product[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            products[i] = new NonFoodProduct("Item " + i, 1.0 + i % 10, 100);
+            store.addProduct(products[i], Integer.MAX_VALUE / 2, 10, 100);
+        }
+
+        try (StoreHttpServer server = new StoreHttpServer(store, new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            String base = "http://127.0.0.1:" + server.getPort();
+            ExecutorService clientThreads = StoreHttpServer.newRequestExecutor();
+            HttpClient client = HttpClient.newBuilder().executor(clientThreads).build();
+
+            long[][] latencies = new long[clients][SAMPLES_PER_CLIENT];
+            int[] counts = new int[clients];
+            AtomicLong errors = new AtomicLong();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            Thread[] workers = new Thread[clients];
+            for (int c = 0; c < clients; c++) {
+                int slot = c;
+                workers[c] = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline && counts[slot] < SAMPLES_PER_CLIENT) {
+                        HttpRequest request = random.nextInt(10) == 0
+                            ? checkout(base, products, random)
+                            : HttpRequest.newBuilder(URI.create(base + "/stock?ids="
+                                + products[random.nextInt(PRODUCTS)].getId())).GET().build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[slot][counts[slot]++] = System.nanoTime() - start;
+                    }
+                });
+                workers[c].start();
+            }
+            long started = System.nanoTime();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double elapsed = (System.nanoTime() - started) / 1e9;
+            clientThreads.shutdownNow();
+
+            int total = Arrays.stream(counts).sum();
+            long[] all = new long[total];
+            int position = 0;
+            for (int c = 0; c < clients; c++) {
+                System.arraycopy(latencies[c], 0, all, position, counts[c]);
+                position += counts[c];
+            }
+            Arrays.sort(all);
+            System.out.printf("%d requests from %d clients in %.1f s: %.0f requests/s, %d errors%n",
+                total, clients, elapsed, total / elapsed, errors.get());
+            for (double percentile : new double[]{50, 90, 99, 99.9}) {
+                System.out.printf("  p%-5s %8.3f ms%n", percentile == 99.9 ? "99.9" : String.valueOf((int) percentile),
+                    percentile(all, percentile) / 1e6);
+            }
+        }
+    }
+
+    private static HttpRequest checkout(String base, Product[] products, ThreadLocalRandom random) {
+        String body = "register=" + (1 + random.nextInt(REGISTERS)) + "&payment=1000&items="
+            + products[random.nextInt(PRODUCTS)].getId() + ":" + (1 + random.nextInt(3)) + ","
+            + products[random.nextInt(PRODUCTS)].getId() + ":1";
+        return HttpRequest.newBuilder(URI.create(base + "/checkout"))
+            .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
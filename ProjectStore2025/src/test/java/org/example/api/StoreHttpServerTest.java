@@ -0,0 +1,182 @@
+package org.example.api;
+
+import org.example.config.StoreConfig;
+import org.example.exception.StoreException;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.store.CashRegister;
+import org.example.model.store.Cashier;
+import org.example.model.store.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoreHttpServerTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store store;
+    private FoodProduct milk;
+    private NonFoodProduct soap;
+    private StoreHttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        store = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("John Doe", 2000.0);
+        CashRegister register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        store.addProduct(milk, 100, 20, 50);
+        store.addProduct(soap, 200, 30, 100);
+
+        server = new StoreHttpServer(store, new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testCheckoutAndReceiptLookup() throws Exception {
+        HttpResponse<String> response = post("/checkout",
+            "register=1&payment=20&items=" + milk.getId() + ":2," + soap.getId() + ":1");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("{\"status\":\"COMPLETED\",\"receipt\":"));
+        assertTrue(response.body().contains("\"total\":5.60"));
+        assertEquals(98, store.getStockLevel(milk));
+
+        int receiptNumber = store.getReceipts().get(0).getReceiptNumber();
+        HttpResponse<String> receipt = get("/receipts/" + receiptNumber);
+        assertEquals(200, receipt.statusCode());
+        assertTrue(receipt.body().contains("Milk"));
+        assertEquals(404, get("/receipts/999999").statusCode());
+    }
+
+    @Test
+    void testCheckoutReportsRejectedSales() throws Exception {
+        HttpResponse<String> outOfStock = post("/checkout", "register=1&payment=5000&items=" + milk.getId() + ":500");
+        assertEquals(409, outOfStock.statusCode());
+        assertTrue(outOfStock.body().contains("\"available\":100"));
+
+        HttpResponse<String> underpaid = post("/checkout", "register=1&payment=1&items=" + milk.getId() + ":2");
+        assertEquals(402, underpaid.statusCode());
+        assertTrue(underpaid.body().contains("\"status\":\"UNDERPAID\""));
+
+        assertEquals(400, post("/checkout", "register=1&payment=abc&items=1:1").statusCode());
+        assertEquals(400, post("/checkout", "register=1&payment=NaN&items=" + milk.getId() + ":2").statusCode());
+        assertEquals(400, post("/checkout", "register=1&payment=Infinity&items=" + milk.getId() + ":2").statusCode());
+        assertThrows(StoreException.class, () -> store.trySale(store.getRegister(1), Map.of(milk, 2), Double.NaN));
+        assertTrue(store.getReceipts().isEmpty());
+        assertEquals(404, post("/checkout", "register=9&payment=5&items=1:1").statusCode());
+        assertEquals(422, post("/checkout", "register=1&payment=5&items=999999:1").statusCode());
+        assertEquals(405, get("/checkout").statusCode());
+        assertEquals(100, store.getStockLevel(milk));
+    }
+
+    @Test
+    void testIdempotencyKeyMakesRetriesSafe() throws Exception {
+        String body = "register=1&payment=20&items=" + milk.getId() + ":1";
+        HttpRequest request = HttpRequest.newBuilder(uri("/checkout"))
+            .header("Idempotency-Key", "terminal-1-0001")
+            .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        String first = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        String retry = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        assertEquals(first, retry);
+        assertEquals(99, store.getStockLevel(milk));
+    }
+
+    @Test
+    void testBatchStockQuery() throws Exception {
+        HttpResponse<String> single = get("/stock?ids=" + milk.getId());
+        assertEquals(200, single.statusCode());
+        assertTrue(single.body().contains("\"stock\":100"));
+
+        HttpResponse<String> batch = post("/stock", milk.getId() + "\n" + soap.getId() + ", 999999");
+        assertEquals("[{\"id\":" + milk.getId() + ",\"name\":\"Milk\",\"stock\":100,\"price\":2.20},"
+            + "{\"id\":" + soap.getId() + ",\"name\":\"Soap\",\"stock\":200,\"price\":1.20},"
+            + "{\"id\":999999,\"stock\":null}]", batch.body());
+
+        StringBuilder tooMany = new StringBuilder();
+        for (int i = 0; i <= StoreHttpServer.MAX_BATCH_SIZE; i++) {
+            tooMany.append(milk.getId()).append(',');
+        }
+        assertEquals(400, post("/stock", tooMany.toString()).statusCode());
+        assertEquals(400, get("/stock").statusCode());
+    }
+
+    @Test
+    void testReportsAreStreamed() throws Exception {
+        HttpResponse<String> inventory = get("/reports/inventory?format=csv");
+        assertEquals(200, inventory.statusCode());
+        assertTrue(inventory.body().startsWith("id,name,stock,"));
+        assertEquals("text/csv; charset=utf-8", inventory.headers().firstValue("Content-Type").orElse(""));
+
+        assertEquals(200, get("/reports/analytics").statusCode());
+        assertEquals(400, get("/reports/inventory?format=xml").statusCode());
+        assertEquals(404, get("/reports/payroll").statusCode());
+    }
+
+    @Test
+    void testReportFailureIsAnErrorStatus() throws Exception {
+        boolean[] broken = {false};
+        store.addProduct(new NonFoodProduct("Broken", 1.0, 10) {
+            @Override
+            public String getName() {
+                if (broken[0]) {
+                    throw new IllegalStateException("Name unavailable");
+                }
+                return super.getName();
+            }
+        }, 10, 1, 5);
+        broken[0] = true;
+
+        HttpResponse<String> response = get("/reports/inventory");
+        assertEquals(500, response.statusCode());
+        assertEquals("{\"error\":\"Internal error\"}", response.body());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoreConfigTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private File configFile;
+    private List<StoreConfig.Snapshot> changes;
+    private Consumer<StoreConfig.Snapshot> listener;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        configFile = new File(tempDir, "store.properties");
+        writeConfig("0.10", "0.25", "5", "0.30");
+        changes = new CopyOnWriteArrayList<>();
+        listener = changes::add;
+        StoreConfig.setConfigFile(configFile);
+        StoreConfig.addChangeListener(listener);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.removeChangeListener(listener);
+        StoreConfig.stopWatching();
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    private void writeConfig(String food, String nonFood, String warningDays, String discount) throws IOException {
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("store.name=Test Store\n");
+            writer.write("markup.food=" + food + "\n");
+            writer.write("markup.nonfood=" + nonFood + "\n");
+            writer.write("expiration.warning.days=" + warningDays + "\n");
+            writer.write("expiration.discount=" + discount + "\n");
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getPath() + "\n");
+        }
+    }
+
+    @Test
+    void testTypedValues() {
+        StoreConfig.Snapshot snapshot = StoreConfig.current();
+        assertEquals("Test Store", snapshot.getStoreName());
+        assertEquals(0.10, StoreConfig.getFoodMarkup());
+        assertEquals(0.25, StoreConfig.getNonFoodMarkup());
+        assertEquals(5, StoreConfig.getExpirationWarningDays());
+        assertEquals(0.30, StoreConfig.getExpirationDiscount());
+        assertTrue(new File(StoreConfig.getReceiptsDirectory()).isAbsolute());
+        assertSame(snapshot.getReceiptsDir(), StoreConfig.current().getReceiptsDir());
+    }
+
+    @Test
+    void testReloadPublishesChanges() throws IOException {
+        assertFalse(StoreConfig.reload());
+        assertTrue(changes.isEmpty());
+
+        writeConfig("0.12", "0.25", "5", "0.30");
+        assertTrue(StoreConfig.reload());
+        assertEquals(0.12, StoreConfig.getFoodMarkup());
+        assertEquals(1, changes.size());
+        assertEquals(0.12, changes.get(0).getFoodMarkup());
+    }
+
+    @Test
+    void testInvalidChangesAreIgnored() throws IOException {
+        StoreConfig.Snapshot before = StoreConfig.current();
+
+        writeConfig("abc", "0.25", "5", "0.30");
+        assertFalse(StoreConfig.reload());
+        writeConfig("0.10", "0.25", "5", "1.5");
+        assertFalse(StoreConfig.reload());
+        writeConfig("-0.10", "0.25", "5", "0.30");
+        assertFalse(StoreConfig.reload());
+        writeConfig("NaN", "0.25", "5", "0.30");
+        assertFalse(StoreConfig.reload());
+        writeConfig("0.10", "Infinity", "5", "0.30");
+        assertFalse(StoreConfig.reload());
+        writeConfig("0.10", "0.25", "5", "NaN");
+        assertFalse(StoreConfig.reload());
+
+        assertSame(before, StoreConfig.current());
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    void testWatcherReloadsOnFileChange() throws Exception {
+        StoreConfig.startWatching();
+        writeConfig("0.40", "0.25", "5", "0.30");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (StoreConfig.getFoodMarkup() != 0.40 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0.40, StoreConfig.getFoodMarkup());
+        assertFalse(changes.isEmpty());
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.model.analytics;
+
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+import org.example.model.store.Cashier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoOccurrenceTrackerTest {
+    private static final int CATALOG_SIZE = 500;
+    private static final int BASKETS = 5000;
+
+    private Cashier cashier;
+    private Product[] catalog;
+    private double[] zipf;
+
+    @BeforeEach
+    void setUp() {
+        cashier = new Cashier("John Doe", 2000.0);
+        catalog = new Product[CATALOG_SIZE];
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            catalog[i] = new NonFoodProduct("Item " + i, 1.0, 1000);
+        }
+        // Cumulative Zipf(1) weights: product i is bought roughly 1/(i+1) as often as product 0.
+        zipf = new double[CATALOG_SIZE];
+        double sum = 0;
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            sum += 1.0 / (i + 1);
+            zipf[i] = sum;
+        }
+    }
+
+    @Test
+    void testEstimatesNeverUndercount() {
+        CoOccurrenceTracker tracker = new CoOccurrenceTracker(1024, 4, 256);
+        Map<Long, Long> exact = feed(tracker, new Random(42));
+
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            Product first = catalog[(int) (entry.getKey() >>> 32)];
+            Product second = catalog[(int) (long) entry.getKey()];
+            assertTrue(tracker.estimatePairCount(first, second) >= entry.getValue());
+        }
+        long pairs = exact.values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(pairs, tracker.getTotalPairs());
+    }
+
+    @Test
+    void testTopCompanionsMatchExactCounts() {
+        CoOccurrenceTracker tracker = new CoOccurrenceTracker();
+        Map<Long, Long> exact = feed(tracker, new Random(7));
+
+        List<CoOccurrenceTracker.Companion> top = tracker.getTopCompanions(catalog[0], 5);
+        assertEquals(5, top.size());
+        List<Integer> expected = exactTopCompanions(exact, 0, 5);
+        for (int rank = 0; rank < 5; rank++) {
+            assertEquals(catalog[expected.get(rank)], top.get(rank).getProduct(), "rank " + rank);
+        }
+        for (int rank = 1; rank < top.size(); rank++) {
+            assertTrue(top.get(rank - 1).getCount() >= top.get(rank).getCount());
+        }
+    }
+
+    @Test
+    void testSmallerSketchTradesAccuracyForMemory() {
+        CoOccurrenceTracker small = new CoOccurrenceTracker(64, 2, 64);
+        CoOccurrenceTracker large = new CoOccurrenceTracker(4096, 4, 64);
+        Map<Long, Long> exact = feed(small, new Random(3));
+        feed(large, new Random(3));
+
+        assertTrue(small.getMemoryBytes() < large.getMemoryBytes());
+        assertTrue(averageError(small, exact) > averageError(large, exact));
+        // Count-min bound: overestimate at most e * totalPairs / width with high probability.
+        assertTrue(averageError(large, exact) < Math.E * large.getTotalPairs() / large.getWidth());
+    }
+
+    @Test
+    void testIgnoresRepeatedProductAndSingleLineReceipts() {
+        CoOccurrenceTracker tracker = new CoOccurrenceTracker();
+        tracker.addReceipt(receipt(catalog[1]));
+        tracker.addReceipt(receipt(catalog[1], catalog[1]));
+        assertEquals(0, tracker.getTotalPairs());
+        assertTrue(tracker.getTopCompanions(catalog[1], 3).isEmpty());
+
+        tracker.addReceipt(receipt(catalog[1], catalog[2]));
+        assertEquals(1, tracker.estimatePairCount(catalog[2], catalog[1]));
+    }
+
+    @Test
+    void testProductOnSeveralLinesCountsOncePerReceipt() {
+        CoOccurrenceTracker tracker = new CoOccurrenceTracker();
+        tracker.addReceipt(receipt(catalog[1], catalog[2], catalog[1]));
+        tracker.addReceipt(receipt(catalog[2], catalog[3], catalog[2], catalog[3]));
+
+        assertEquals(1, tracker.estimatePairCount(catalog[1], catalog[2]));
+        assertEquals(1, tracker.estimatePairCount(catalog[2], catalog[3]));
+        assertEquals(2, tracker.getTotalPairs());
+        assertEquals(1, tracker.getTopCompanions(catalog[1], 3).get(0).getCount());
+    }
+
+    @Test
+    void testWidthRoundsUpToPowerOfTwo() {
+        assertEquals(128, new CoOccurrenceTracker(100, 2, 8).getWidth());
+        assertEquals(64, new CoOccurrenceTracker(64, 2, 8).getWidth());
+        assertThrows(IllegalArgumentException.class, () -> new CoOccurrenceTracker(64, 9, 8));
+    }
+
+    @Test
+    void testStoreAnalyticsReportsFrequentlyBoughtTogether() {
+        StoreAnalytics analytics = new StoreAnalytics();
+        for (int i = 0; i < 3; i++) {
+            analytics.addReceipt(receipt(catalog[0], catalog[1]));
+        }
+        analytics.addReceipt(receipt(catalog[0], catalog[2]));
+
+        Map<Product, Long> together = analytics.getFrequentlyBoughtTogether(catalog[0], 2);
+        assertEquals(List.of(catalog[1], catalog[2]), new ArrayList<>(together.keySet()));
+        assertEquals(3L, together.get(catalog[1]));
+    }
+
+    @Test
+    void testReceiptsBeyondTheTrackingBacklogAreSkipped() {
+        StoreAnalytics analytics = new StoreAnalytics(0);
+        for (int i = 0; i < 4; i++) {
+            analytics.addReceipt(receipt(catalog[0], catalog[1]));
+        }
+
+        assertEquals(4, analytics.getSkippedTrackingCount());
+        assertTrue(analytics.getFrequentlyBoughtTogether(catalog[0], 2).isEmpty());
+        // Only pair tracking is skipped; the sales themselves are recorded.
+        assertEquals(4, analytics.getProductSales(catalog[0]));
+    }
+
+    private Map<Long, Long> feed(CoOccurrenceTracker tracker, Random random) {
+        Map<Long, Long> exact = new HashMap<>();
+        for (int b = 0; b < BASKETS; b++) {
+            int size = 2 + random.nextInt(5);
+            List<Product> basket = new ArrayList<>();
+            while (basket.size() < size) {
+                Product product = catalog[sampleZipf(random)];
+                if (!basket.contains(product)) {
+                    basket.add(product);
+                }
+            }
+            tracker.addReceipt(receipt(basket.toArray(new Product[0])));
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    exact.merge(key(index(basket.get(i)), index(basket.get(j))), 1L, Long::sum);
+                }
+            }
+        }
+        return exact;
+    }
+
+    private List<Integer> exactTopCompanions(Map<Long, Long> exact, int product, int limit) {
+        List<long[]> companions = new ArrayList<>();
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            int first = (int) (entry.getKey() >>> 32);
+            int second = (int) (long) entry.getKey();
+            if (first == product || second == product) {
+                companions.add(new long[]{first == product ? second : first, entry.getValue()});
+            }
+        }
+        companions.sort((a, b) -> Long.compare(b[1], a[1]));
+        List<Integer> top = new ArrayList<>();
+        for (int i = 0; i < limit; i++) {
+            top.add((int) companions.get(i)[0]);
+        }
+        return top;
+    }
+
+    private double averageError(CoOccurrenceTracker tracker, Map<Long, Long> exact) {
+        double error = 0;
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            Product first = catalog[(int) (entry.getKey() >>> 32)];
+            Product second = catalog[(int) (long) entry.getKey()];
+            error += tracker.estimatePairCount(first, second) - entry.getValue();
+        }
+        return error / exact.size();
+    }
+
+    private int sampleZipf(Random random) {
+        double target = random.nextDouble() * zipf[CATALOG_SIZE - 1];
+        int low = 0;
+        int high = CATALOG_SIZE - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (zipf[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int index(Product product) {
+        return product.getId() - catalog[0].getId();
+    }
+
+    private static long key(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    private Receipt receipt(Product... products) {
+        int[] quantities = new int[products.length];
+        double[] prices = new double[products.length];
+        for (int i = 0; i < products.length; i++) {
+            quantities[i] = 1;
+            prices[i] = 1.0;
+        }
+        return new Receipt(cashier, products, quantities, prices, products.length, products.length);
+    }
+}
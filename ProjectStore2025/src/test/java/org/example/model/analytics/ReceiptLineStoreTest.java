@@ -0,0 +1,165 @@
+package org.example.model.analytics;
+
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+import org.example.model.store.Cashier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptLineStoreTest {
+    private static final long HOUR = 3_600_000L;
+    private static final long START = 1_700_000_000_000L - Math.floorMod(1_700_000_000_000L, HOUR);
+    private static final int LINES = 10_000;
+
+    private ReceiptLineStore store;
+    private long[] timestamps;
+    private int[] cashiers;
+    private int[] products;
+    private int[] quantities;
+    private long[] prices;
+
+    @BeforeEach
+    void setUp() {
+        // Small chunks so the data spans many of them; one line per minute.
+        store = new ReceiptLineStore(1000);
+        timestamps = new long[LINES];
+        cashiers = new int[LINES];
+        products = new int[LINES];
+        quantities = new int[LINES];
+        prices = new long[LINES];
+        Random random = new Random(11);
+        for (int i = 0; i < LINES; i++) {
+            timestamps[i] = START + i * 60_000L;
+            cashiers[i] = 1 + random.nextInt(4);
+            products[i] = 1 + random.nextInt(50);
+            quantities[i] = 1 + random.nextInt(5);
+            prices[i] = 100 + random.nextInt(900);
+            store.addLine(timestamps[i], i / 3 + 1, cashiers[i], products[i], quantities[i], prices[i], 0);
+        }
+    }
+
+    @Test
+    void testSumMatchesObjectWalk() {
+        long from = START + 10 * HOUR;
+        long until = START + 12 * HOUR;
+        ReceiptLineQuery query = ReceiptLineQuery.all().withProducts(7).withCashiers(2).withTimeRange(from, until);
+
+        long units = 0;
+        long lines = 0;
+        for (int i = 0; i < LINES; i++) {
+            if (products[i] == 7 && cashiers[i] == 2 && timestamps[i] >= from && timestamps[i] < until) {
+                units += quantities[i];
+                lines++;
+            }
+        }
+        assertEquals(units, store.sum(query, LineMeasure.QUANTITY));
+        assertEquals(lines, store.count(query));
+        assertEquals(LINES, store.count(ReceiptLineQuery.all()));
+        assertEquals(LINES, store.size());
+    }
+
+    @Test
+    void testGroupByMatchesObjectWalk() {
+        ReceiptLineQuery query = ReceiptLineQuery.all().withProducts(1, 2, 3);
+        Map<Long, Long> byCashier = new TreeMap<>();
+        Map<Long, Long> byHour = new TreeMap<>();
+        for (int i = 0; i < LINES; i++) {
+            if (products[i] <= 3) {
+                byCashier.merge((long) cashiers[i], quantities[i] * prices[i], Long::sum);
+                byHour.merge(timestamps[i] - Math.floorMod(timestamps[i], HOUR), (long) quantities[i], Long::sum);
+            }
+        }
+        assertEquals(byCashier, store.sumBy(query, LineDimension.CASHIER, LineMeasure.AMOUNT_CENTS));
+        assertEquals(byHour, store.sumBy(query, LineDimension.HOUR, LineMeasure.QUANTITY));
+    }
+
+    @Test
+    void testParallelScanMatchesSingleThreaded() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        ReceiptLineQuery query = ReceiptLineQuery.all().withCashiers(1, 3);
+        assertEquals(store.sumBy(query, LineDimension.PRODUCT, LineMeasure.QUANTITY, single),
+            store.sumBy(query, LineDimension.PRODUCT, LineMeasure.QUANTITY, parallel));
+        assertEquals(store.sum(query, LineMeasure.AMOUNT_CENTS, single),
+            store.sum(query, LineMeasure.AMOUNT_CENTS, parallel));
+    }
+
+    @Test
+    void testChunkStatisticsSkipChunks() {
+        assertEquals(10, store.getChunkCount());
+        // Chunk 3 holds lines 3000-3999, i.e. minutes 3000-3999 after START.
+        ReceiptLineQuery query = ReceiptLineQuery.all()
+            .withTimeRange(START + 3100 * 60_000L, START + 3200 * 60_000L);
+        assertEquals(1, store.countCandidateChunks(query));
+        assertEquals(100, store.count(query));
+
+        assertEquals(0, store.countCandidateChunks(ReceiptLineQuery.all().withProducts(51)));
+        assertEquals(0, store.count(ReceiptLineQuery.all().withProducts(51)));
+    }
+
+    @Test
+    void testAppendsReceiptLinesWithDiscounts() {
+        ReceiptLineStore lines = new ReceiptLineStore();
+        Cashier cashier = new Cashier("John Doe", 2000.0);
+        Product milk = new NonFoodProduct("Milk", 2.0, 10);
+        Product soap = new NonFoodProduct("Soap", 1.0, 10);
+        Receipt receipt = new Receipt(cashier, new Product[]{milk, soap}, new int[]{3, 2},
+            new double[]{2.2, 1.15}, new double[]{2.2, 0}, new String[]{"milk-3for2", null}, 2, 6.7);
+        lines.append(receipt);
+
+        assertEquals(670, lines.sum(ReceiptLineQuery.all(), LineMeasure.AMOUNT_CENTS));
+        assertEquals(Map.of((long) receipt.getReceiptNumber(), 5L),
+            lines.sumBy(ReceiptLineQuery.all(), LineDimension.RECEIPT, LineMeasure.QUANTITY));
+        LocalDateTime sold = receipt.getDateTime();
+        assertEquals(2, lines.count(ReceiptLineQuery.all().withCashiers(cashier.getId())
+            .withTimeRange(sold.minusMinutes(1), sold.plusMinutes(1))));
+        assertEquals(0, lines.count(ReceiptLineQuery.all().withTimeRange(
+            sold.plusMinutes(1).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), Long.MAX_VALUE)));
+    }
+
+    @Test
+    void testKeepsOnlyTheMostRecentLines() {
+        ReceiptLineStore recent = new ReceiptLineStore(1000, 2500);
+        for (int i = 0; i < LINES; i++) {
+            recent.addLine(timestamps[i], i / 3 + 1, cashiers[i], products[i], quantities[i], prices[i], 0);
+        }
+
+        assertTrue(recent.size() <= 2500);
+        assertEquals(LINES, recent.size() + recent.getDroppedLineCount());
+        long oldestKept = START + (LINES - recent.size()) * 60_000L;
+        assertEquals(recent.size(), recent.count(ReceiptLineQuery.all().withTimeRange(oldestKept, Long.MAX_VALUE)));
+        assertEquals(0, recent.count(ReceiptLineQuery.all().withTimeRange(START, oldestKept)));
+    }
+
+    @Test
+    void testChunksGrowWithTheStore() {
+        ReceiptLineStore lines = new ReceiptLineStore();
+        lines.addLine(START, 1, 1, 1, 1, 100, 0);
+        assertEquals(ReceiptLineStore.INITIAL_CHUNK_SIZE, lines.capacity());
+
+        for (int i = 1; i < 3 * ReceiptLineStore.INITIAL_CHUNK_SIZE + 1; i++) {
+            lines.addLine(START + i, 1, 1, 1, 1, 100, 0);
+        }
+        assertEquals(3, lines.getChunkCount());
+        assertEquals(7L * ReceiptLineStore.INITIAL_CHUNK_SIZE, lines.capacity());
+    }
+
+    @Test
+    void testRejectsInvalidQueries() {
+        assertThrows(IllegalArgumentException.class, () -> ReceiptLineQuery.all().withProducts());
+        assertThrows(IllegalArgumentException.class, () -> ReceiptLineQuery.all().withTimeRange(10, 5));
+        assertThrows(IllegalArgumentException.class, () -> store.sum(ReceiptLineQuery.all(), null));
+        assertThrows(IllegalArgumentException.class, () -> new ReceiptLineStore(0));
+        assertThrows(IllegalArgumentException.class, () -> new ReceiptLineStore(1000, 0));
+    }
+}
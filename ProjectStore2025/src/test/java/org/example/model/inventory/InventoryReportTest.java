@@ -0,0 +1,190 @@
+package org.example.model.inventory;
+
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.exception.ProductException;
+import org.example.util.ReportFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryReportTest {
+    private InventoryManager inventoryManager;
+    private FoodProduct milk;
+    private FoodProduct bread;
+    private NonFoodProduct soap;
+    private NonFoodProduct paper;
+
+    @BeforeEach
+    void setUp() {
+        inventoryManager = new InventoryManager();
+
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        bread = new FoodProduct("Bread", 1.5, 50, LocalDate.now().plusDays(3));
+        soap = new NonFoodProduct("Soap, large", 1.0, 200);
+        paper = new NonFoodProduct("Paper", 3.0, 150);
+
+        inventoryManager.addProduct(milk, 100, 20, 50);
+        inventoryManager.addProduct(bread, 50, 10, 30);
+        inventoryManager.addProduct(soap, 10, 30, 100);
+        inventoryManager.addProduct(paper, 150, 25, 75);
+    }
+
+    private String report(InventoryReportQuery query) throws Exception {
+        StringWriter out = new StringWriter();
+        inventoryManager.writeReport(out, query);
+        return out.toString();
+    }
+
+    @Test
+    void testTextReportMatchesGenerateReport() throws Exception {
+        String report = report(InventoryReportQuery.all());
+        assertEquals(inventoryManager.generateReport(), report);
+        assertTrue(report.startsWith("Inventory Report\n================\n\nCurrent Stock Levels:\n"));
+        assertTrue(report.contains("Milk:\n  Current Stock: 100 units\n  Reorder Point: 20 units\n"));
+        assertTrue(report.contains("  STATUS: LOW STOCK - Reorder needed!\n"));
+        assertTrue(report.contains("  STATUS: NEAR EXPIRATION - Consider discounting!\n"));
+    }
+
+    @Test
+    void testRowsFollowProductIdOrder() throws Exception {
+        String report = report(InventoryReportQuery.all());
+        assertTrue(report.indexOf("Milk:") < report.indexOf("Bread:"));
+        assertTrue(report.indexOf("Bread:") < report.indexOf("Soap, large:"));
+        assertTrue(report.indexOf("Soap, large:") < report.indexOf("Paper:"));
+    }
+
+    @Test
+    void testStatusFilter() throws Exception {
+        String low = report(InventoryReportQuery.all().withStatus(StockStatus.LOW));
+        assertTrue(low.contains("Soap, large:"));
+        assertFalse(low.contains("Milk:"));
+        assertFalse(low.contains("Bread:"));
+
+        String nearExpiry = report(InventoryReportQuery.all().withStatus(StockStatus.NEAR_EXPIRY));
+        assertTrue(nearExpiry.contains("Bread:"));
+        assertFalse(nearExpiry.contains("Soap, large:"));
+
+        String either = report(InventoryReportQuery.all().withStatus(StockStatus.LOW, StockStatus.NEAR_EXPIRY));
+        assertTrue(either.contains("Bread:"));
+        assertTrue(either.contains("Soap, large:"));
+        assertFalse(either.contains("Paper:"));
+    }
+
+    @Test
+    void testPagination() throws Exception {
+        InventoryReportQuery csv = InventoryReportQuery.all().withFormat(ReportFormat.CSV);
+        String firstPage = report(csv.withPage(0, 2));
+        String secondPage = report(csv.withPage(2, 2));
+        String lastPage = report(csv.withPage(4, 2));
+
+        assertEquals(3, firstPage.split("\n").length);
+        assertTrue(firstPage.contains("Milk"));
+        assertTrue(firstPage.contains("Bread"));
+        assertTrue(secondPage.contains("\"Soap, large\""));
+        assertTrue(secondPage.contains("Paper"));
+        assertEquals(1, lastPage.split("\n").length);
+    }
+
+    @Test
+    void testCsvFormat() throws Exception {
+        String csv = report(InventoryReportQuery.all().withFormat(ReportFormat.CSV).withStatus(StockStatus.LOW));
+        String[] lines = csv.split("\n");
+        assertEquals("id,name,stock,reorder_point,reorder_quantity,low_stock,near_expiry,expired,expiration_date", lines[0]);
+        assertEquals(soap.getId() + ",\"Soap, large\",10,30,100,true,false,false,", lines[1]);
+    }
+
+    @Test
+    void testJsonLinesFormat() throws Exception {
+        String json = report(InventoryReportQuery.all().withFormat(ReportFormat.JSON_LINES)
+            .withStatus(StockStatus.NEAR_EXPIRY));
+        assertEquals("{\"id\":" + bread.getId() + ",\"name\":\"Bread\",\"stock\":50,\"reorderPoint\":10,"
+            + "\"reorderQuantity\":30,\"statuses\":[\"NEAR_EXPIRY\"],\"expirationDate\":\""
+            + bread.getExpirationDate() + "\"}\n", json);
+    }
+
+    @Test
+    void testOutputStreamReport() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        inventoryManager.writeReport(out, InventoryReportQuery.all());
+        assertEquals(inventoryManager.generateReport(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testInventoryReportStreamsTheSameText() throws Exception {
+        StringWriter out = new StringWriter();
+        inventoryManager.writeInventoryReport(out);
+        assertEquals(inventoryManager.generateInventoryReport(), out.toString());
+        assertTrue(out.toString().startsWith("Inventory Report:\n----------------\nMilk:\n  Current Stock: 100\n"));
+        assertTrue(out.toString().contains("Low Stock Products:\n------------------\n- Soap, large: 10 units"));
+    }
+
+    @Test
+    void testInvalidQuery() {
+        assertThrows(ProductException.class, () -> InventoryReportQuery.all().withPage(-1, 10));
+        assertThrows(ProductException.class, () -> InventoryReportQuery.all().withFormat(null));
+        assertThrows(ProductException.class, () -> inventoryManager.writeReport(new StringWriter(), null));
+    }
+
+    @Test
+    void testParallelReportMatchesSequential() throws Exception {
+        for (int i = 0; i < 20000; i++) {
+            inventoryManager.addProduct(new NonFoodProduct("Item " + i, 1.0, 10), i % 50, 10, 20);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            InventoryReportQuery query = InventoryReportQuery.all().withFormat(ReportFormat.CSV)
+                .withStatus(StockStatus.LOW).withPage(100, 5000);
+            StringWriter parallel = new StringWriter();
+            InventorySummary summary = inventoryManager.writeReportParallel(parallel, query, pool);
+
+            assertEquals(report(query), parallel.toString());
+            assertEquals(20004, summary.getProductCount());
+            assertEquals(20000 / 50 * 11 + 1, summary.getLowStockCount());
+            assertEquals(1, summary.getNearExpiryCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testSummarizeWhileStockChanges() throws Exception {
+        List<NonFoodProduct> products = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            NonFoodProduct product = new NonFoodProduct("Item " + i, 1.0, 10);
+            products.add(product);
+            inventoryManager.addProduct(product, 100, 10, 20);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread seller = new Thread(() -> {
+            int i = 0;
+            while (running.get()) {
+                NonFoodProduct product = products.get(i++ % products.size());
+                inventoryManager.updateStock(product, -1);
+                inventoryManager.updateStock(product, 1);
+            }
+        });
+        seller.start();
+        try {
+            for (int round = 0; round < 5; round++) {
+                InventorySummary summary = inventoryManager.summarize(7);
+                assertEquals(10004, summary.getProductCount());
+                assertTrue(summary.getTotalUnits() >= 10000L * 99 + 310);
+            }
+        } finally {
+            running.set(false);
+            seller.join();
+        }
+        assertEquals(10000L * 100 + 310, inventoryManager.summarize(7).getTotalUnits());
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.model.inventory;
+
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of a {@link PartitionedInventory} as it grows from one to four
+ * nodes, each in its own JVM on loopback. Not a unit test: run it by hand
+ * with optional client thread count and seconds per step. Every client
+ * thread reserves and releases random products as fast as it can.
+ */
+public final class PartitionedInventoryBenchmark {
+    private static final int PRODUCTS = 10_000;
+    private static final int MAX_NODES = 4;
+
+    private PartitionedInventoryBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("node")) {
+            runNode();
+            return;
+        }
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Process> children = new ArrayList<>();
+        try {
+            List<InetSocketAddress> first = new ArrayList<>();
+            first.add(startNode(children));
+            PartitionedInventory inventory = new PartitionedInventory(first);
+            Product[] products = new Product[PRODUCTS];
+            for (int i = 0; i < PRODUCTS; i++) {
+                products[i] = new NonFoodProduct("Item " + i, 1.0, 100);
+                inventory.addProduct(products[i], 1_000_000, 10, 100);
+            }
+            for (int nodes = 1; nodes <= MAX_NODES; nodes++) {
+                if (nodes > 1) {
+                    long started = System.nanoTime();
+                    int moved = inventory.addNode(startNode(children));
+                    System.out.printf("added node %d: moved %d products in %.1f ms%n", nodes, moved,
+                        (System.nanoTime() - started) / 1e6);
+                }
+                double rate = measure(inventory, products, clients, seconds);
+                System.out.printf("%d node(s): %10.0f ops/s with %d clients%n", nodes, rate, clients);
+            }
+            inventory.close();
+        } finally {
+            for (Process child : children) {
+                child.destroy();
+            }
+        }
+    }
+
+    private static double measure(PartitionedInventory inventory, Product[] products, int clients, int seconds)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong operations = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            long seed = 0x9e3779b97f4a7c15L * (c + 1);
+            Thread thread = new Thread(() -> {
+                long state = seed;
+                long done = 0;
+                while (running.get()) {
+                    state ^= state << 13;
+                    state ^= state >>> 7;
+                    state ^= state << 17;
+                    Product product = products[(int) Math.floorMod(state, (long) products.length)];
+                    if (inventory.tryReserve(product, 1)) {
+                        inventory.release(product, 1);
+                    }
+                    done += 2;
+                }
+                operations.addAndGet(done);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return operations.get() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static InetSocketAddress startNode(List<Process> children) throws IOException {
+        Process child = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+            "-cp", System.getProperty("java.class.path"), PartitionedInventoryBenchmark.class.getName(), "node")
+            .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        children.add(child);
+        BufferedReader out = new BufferedReader(new InputStreamReader(child.getInputStream()));
+        String line;
+        while ((line = out.readLine()) != null && !line.startsWith("port=")) {
+            // Skip the node's log output.
+        }
+        if (line == null) {
+            throw new IOException("Inventory node process exited before listening");
+        }
+        return new InetSocketAddress("127.0.0.1", Integer.parseInt(line.substring("port=".length())));
+    }
+
+    private static void runNode() throws Exception {
+        try (InventoryNode node = new InventoryNode(new InetSocketAddress("127.0.0.1", 0))) {
+            node.start();
+            System.out.println("port=" + node.getPort());
+            System.out.flush();
+            // Runs until the parent destroys it.
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.model.inventory;
+
+import org.example.exception.ProductException;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedInventoryTest {
+    private final List<InventoryNode> nodes = new ArrayList<>();
+    private final List<Product> products = new ArrayList<>();
+    private PartitionedInventory inventory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            addresses.add(startNode());
+        }
+        inventory = new PartitionedInventory(addresses);
+        for (int i = 0; i < 300; i++) {
+            Product product = new NonFoodProduct("Item " + i, 1.0, 100);
+            products.add(product);
+            inventory.addProduct(product, 100, 10, 50);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventory.close();
+        for (InventoryNode node : nodes) {
+            node.close();
+        }
+    }
+
+    @Test
+    void testProductsAreSpreadAcrossNodes() {
+        int total = 0;
+        for (InventoryNode node : nodes) {
+            assertTrue(node.getProductCount() > 50, "each node should own a share of the products");
+            total += node.getProductCount();
+        }
+        assertEquals(300, total);
+    }
+
+    @Test
+    void testStockOperationsReachTheOwner() {
+        Product product = products.get(7);
+        inventory.updateStock(product, 20);
+        assertEquals(120, inventory.getStockLevel(product));
+        assertTrue(inventory.tryReserve(product, 100));
+        assertFalse(inventory.tryReserve(product, 21));
+        inventory.release(product, 5);
+        assertEquals(25, inventory.getStockLevel(product));
+
+        assertThrows(ProductException.class, () -> inventory.updateStock(product, -26));
+        assertEquals(25, inventory.getStockLevel(product));
+        Product unknown = new NonFoodProduct("Unknown", 1.0, 100);
+        assertThrows(ProductException.class, () -> inventory.getStockLevel(unknown));
+    }
+
+    @Test
+    void testAddingNodeMovesOnlyItsShare() throws IOException {
+        Map<Product, String> before = new HashMap<>();
+        for (Product product : products) {
+            before.put(product, inventory.getOwner(product));
+            inventory.updateStock(product, product.getId() % 7);
+        }
+        InetSocketAddress added = startNode();
+        int moved = inventory.addNode(added);
+
+        String addedName = "127.0.0.1:" + added.getPort();
+        int expected = 0;
+        for (Product product : products) {
+            String owner = inventory.getOwner(product);
+            if (owner.equals(addedName)) {
+                expected++;
+            } else {
+                assertEquals(before.get(product), owner, "products not taken by the new node stay put");
+            }
+            assertEquals(100 + product.getId() % 7, inventory.getStockLevel(product));
+        }
+        assertEquals(expected, moved);
+        assertEquals(expected, nodes.get(3).getProductCount());
+        assertTrue(moved > 30 && moved < 130, "the new node should take roughly a quarter: " + moved);
+        assertEquals(0, inventory.getRedirectCount());
+    }
+
+    @Test
+    void testStaleRouterIsRedirected() throws IOException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (InventoryNode node : nodes) {
+            addresses.add(new InetSocketAddress("127.0.0.1", node.getPort()));
+        }
+        try (PartitionedInventory stale = new PartitionedInventory(addresses)) {
+            inventory.addNode(startNode());
+            for (Product product : products) {
+                assertEquals(100, stale.getStockLevel(product));
+            }
+            assertEquals(nodes.get(3).getProductCount(), stale.getRedirectCount());
+
+            // New products land on the owner under the new ring either way.
+            Product late = new NonFoodProduct("Late", 1.0, 100);
+            stale.addProduct(late, 5, 1, 5);
+            assertEquals(5, inventory.getStockLevel(late));
+        }
+    }
+
+    @Test
+    void testNoUpdatesLostWhileRebalancing() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger reserved = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                for (int i = offset; running.get(); i += 4) {
+                    if (inventory.tryReserve(products.get(i % products.size()), 1)) {
+                        reserved.incrementAndGet();
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        Thread.sleep(50);
+        inventory.addNode(startNode());
+        Thread.sleep(50);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        int remaining = 0;
+        for (Product product : products) {
+            remaining += inventory.getStockLevel(product);
+        }
+        assertTrue(reserved.get() > 0);
+        assertEquals(300 * 100 - reserved.get(), remaining);
+    }
+
+    private InetSocketAddress startNode() throws IOException {
+        InventoryNode node = new InventoryNode(new InetSocketAddress("127.0.0.1", 0));
+        node.start();
+        nodes.add(node);
+        return new InetSocketAddress("127.0.0.1", node.getPort());
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.model.inventory;
+
+import org.example.exception.ProductException;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesVelocityTest {
+    private static final long HOUR = 3_600_000L;
+    private static final long START = 1_700_000_000_000L;
+
+    private InventoryManager inventoryManager;
+    private NonFoodProduct soap;
+    private NonFoodProduct paper;
+    private NonFoodProduct candles;
+
+    @BeforeEach
+    void setUp() {
+        inventoryManager = new InventoryManager(Duration.ofHours(6));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        paper = new NonFoodProduct("Paper", 3.0, 150);
+        candles = new NonFoodProduct("Candles", 2.0, 40);
+        inventoryManager.addProduct(soap, 200, 30, 100);
+        inventoryManager.addProduct(paper, 150, 25, 75);
+        inventoryManager.addProduct(candles, 40, 5, 20);
+    }
+
+    @Test
+    void testSteadySalesConvergeToRate() {
+        // 10 units every hour for five days.
+        for (int hour = 0; hour < 120; hour++) {
+            inventoryManager.recordSale(soap, 10, START + hour * HOUR);
+        }
+        assertEquals(10.0, inventoryManager.getSalesVelocity(soap, START + 119 * HOUR), 1.0);
+        assertEquals(0.0, inventoryManager.getSalesVelocity(paper, START), 0.0);
+    }
+
+    @Test
+    void testVelocityDecaysWithHalfLife() {
+        for (int hour = 0; hour < 120; hour++) {
+            inventoryManager.recordSale(soap, 10, START + hour * HOUR);
+        }
+        double velocity = inventoryManager.getSalesVelocity(soap, START + 119 * HOUR);
+        assertEquals(velocity / 2, inventoryManager.getSalesVelocity(soap, START + 125 * HOUR), 0.0001);
+    }
+
+    @Test
+    void testHoursToStockout() {
+        for (int hour = 0; hour < 120; hour++) {
+            inventoryManager.recordSale(soap, 10, START + hour * HOUR);
+        }
+        long now = START + 119 * HOUR;
+        double expected = 200 / inventoryManager.getSalesVelocity(soap, now);
+        assertEquals(expected, inventoryManager.getHoursToStockout(soap, now), 0.0001);
+        assertEquals(Double.POSITIVE_INFINITY, inventoryManager.getHoursToStockout(paper, now));
+
+        inventoryManager.updateStock(candles, -40);
+        assertEquals(0.0, inventoryManager.getHoursToStockout(candles, now));
+    }
+
+    @Test
+    void testProductsRunningOutWithinAreSoonestFirst() {
+        for (int hour = 0; hour < 48; hour++) {
+            inventoryManager.recordSale(soap, 10, START + hour * HOUR);
+            inventoryManager.recordSale(candles, 4, START + hour * HOUR);
+            inventoryManager.recordSale(paper, 1, START + hour * HOUR);
+        }
+        long now = START + 47 * HOUR;
+        // Candles: 40 units at ~4/hour, soap: 200 at ~10/hour, paper: 150 at ~1/hour.
+        List<Product> soon = inventoryManager.getProductsRunningOutWithin(25, now, ForkJoinPool.commonPool());
+        assertEquals(List.of(candles, soap), soon);
+        assertEquals(List.of(candles, soap, paper),
+            inventoryManager.getProductsRunningOutWithin(1000, now, ForkJoinPool.commonPool()));
+        assertTrue(inventoryManager.getProductsRunningOutWithin(1, now, ForkJoinPool.commonPool()).isEmpty());
+    }
+
+    @Test
+    void testParallelScanOverManySkus() {
+        InventoryManager large = new InventoryManager(Duration.ofHours(6));
+        List<Product> fastMovers = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Product product = new NonFoodProduct("Item " + i, 1.0, 100);
+            large.addProduct(product, 100, 10, 50);
+            if (i % 1000 == 0) {
+                large.recordSale(product, 50, START);
+                fastMovers.add(product);
+            }
+        }
+        List<Product> soon = large.getProductsRunningOutWithin(24, START, new ForkJoinPool(4));
+        assertEquals(fastMovers.size(), soon.size());
+        assertTrue(soon.containsAll(fastMovers));
+    }
+
+    @Test
+    void testReportsShowVelocityAndStockoutRisk() throws Exception {
+        long now = System.currentTimeMillis();
+        inventoryManager.recordSale(candles, 30, now);
+
+        String report = inventoryManager.generateReport();
+        assertTrue(report.contains("Candles:\n  Current Stock: 40 units\n  Reorder Point: 5 units\n"
+            + "  Reorder Quantity: 20 units\n  Sales Velocity: "));
+        assertTrue(report.contains("  STATUS: STOCKOUT RISK - Sells out in "));
+        assertFalse(report.contains("Paper:\n  Current Stock: 150 units\n  Reorder Point: 25 units\n"
+            + "  Reorder Quantity: 75 units\n  Sales Velocity"));
+
+        StringWriter parallel = new StringWriter();
+        inventoryManager.writeReportParallel(parallel, InventoryReportQuery.all(), ForkJoinPool.commonPool());
+        assertTrue(parallel.toString().contains("  STATUS: STOCKOUT RISK - Sells out in "));
+
+        String summary = inventoryManager.generateInventoryReport();
+        assertTrue(summary.contains("Predicted Stockouts:\n-------------------\n- Candles: "));
+    }
+
+    @Test
+    void testConcurrentSalesAreAllCounted() throws Exception {
+        int threads = 4;
+        int salesPerThread = 5_000;
+        Thread[] sellers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            sellers[t] = new Thread(() -> {
+                for (int i = 0; i < salesPerThread; i++) {
+                    inventoryManager.recordSale(soap, 1, START);
+                }
+            });
+            sellers[t].start();
+        }
+        for (Thread seller : sellers) {
+            seller.join();
+        }
+        inventoryManager.recordSale(paper, threads * salesPerThread, START);
+
+        assertEquals(inventoryManager.getSalesVelocity(paper, START),
+            inventoryManager.getSalesVelocity(soap, START), 0.0001);
+    }
+
+    @Test
+    void testRejectsInvalidArguments() {
+        assertThrows(ProductException.class, () -> inventoryManager.recordSale(soap, 0));
+        assertThrows(ProductException.class, () -> inventoryManager.getProductsRunningOutWithin(-1));
+        assertThrows(ProductException.class, () -> new InventoryManager(Duration.ZERO));
+    }
+}
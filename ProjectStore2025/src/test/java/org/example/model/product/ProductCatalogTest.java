@@ -0,0 +1,75 @@
+package org.example.model.product;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCatalogTest {
+    @Test
+    void testProductsAreFoundById() {
+        FoodProduct milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        NonFoodProduct soap = new NonFoodProduct("Soap", 1.0, 200);
+        ProductCatalog catalog = ProductCatalog.EMPTY.withProducts(List.of(milk, soap));
+
+        assertEquals(2, catalog.size());
+        assertSame(milk, catalog.getProduct(milk.getId()));
+        assertSame(soap, catalog.getProduct(soap.getId()));
+        assertNull(catalog.getProduct(Integer.MAX_VALUE));
+        assertTrue(catalog.contains(milk));
+        assertFalse(ProductCatalog.EMPTY.contains(milk));
+        assertSame(catalog, catalog.withProduct(milk));
+    }
+
+    @Test
+    void testRepricingMakesNewVersionAndLeavesOldAlone() {
+        NonFoodProduct soap = new NonFoodProduct("Soap", 1.0, 200);
+        NonFoodProduct paper = new NonFoodProduct("Paper", 3.0, 150);
+        ProductCatalog before = ProductCatalog.EMPTY.withProducts(List.of(soap, paper));
+        ProductCatalog after = before.withDeliveryPrices(Map.of(soap, 1.5));
+
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(1.0, before.getDeliveryPrice(soap), 0.0);
+        assertEquals(1.5, after.getDeliveryPrice(soap), 0.0);
+        assertEquals(3.0, after.getDeliveryPrice(paper), 0.0);
+        // Products themselves are shared, not copied.
+        assertSame(soap, after.getProduct(soap.getId()));
+        assertEquals(1.0, soap.getDeliveryPrice(), 0.0);
+    }
+
+    @Test
+    void testManyProductsAcrossPages() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 3 * ProductCatalog.PAGE_SIZE; i++) {
+            products.add(new NonFoodProduct("Item " + i, 1.0 + i, 10));
+        }
+        ProductCatalog catalog = ProductCatalog.EMPTY.withProducts(products);
+        assertEquals(products.size(), catalog.size());
+        Product last = products.get(products.size() - 1);
+        ProductCatalog repriced = catalog.withDeliveryPrice(last, 0.5);
+        for (Product product : products) {
+            assertSame(product, repriced.getProduct(product.getId()));
+            double expected = product == last ? 0.5 : product.getDeliveryPrice();
+            assertEquals(expected, repriced.getDeliveryPrice(product), 0.0);
+        }
+    }
+
+    @Test
+    void testInvalidChangesAreRejected() {
+        NonFoodProduct soap = new NonFoodProduct("Soap", 1.0, 200);
+        NonFoodProduct stranger = new NonFoodProduct("Stranger", 1.0, 200);
+        ProductCatalog catalog = ProductCatalog.EMPTY.withProduct(soap);
+
+        assertThrows(IllegalArgumentException.class, () -> catalog.withDeliveryPrice(stranger, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> catalog.withDeliveryPrice(soap, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> catalog.withDeliveryPrice(soap, Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> catalog.withDeliveryPrice(soap, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> ProductCatalog.update(c -> null));
+        // Products outside the catalog keep their own price.
+        assertEquals(1.0, catalog.getDeliveryPrice(stranger), 0.0);
+    }
+}
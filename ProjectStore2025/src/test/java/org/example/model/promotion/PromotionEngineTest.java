@@ -0,0 +1,130 @@
+package org.example.model.promotion;
+
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.product.ProductCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromotionEngineTest {
+    private FoodProduct milk;
+    private FoodProduct bread;
+    private NonFoodProduct soap;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        bread = new FoodProduct("Bread", 1.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 100);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void testParseAndApplyBestDiscount() throws IOException {
+        String rules = "# id | target | discount | from | until\n"
+            + "milk-10 | product:" + milk.getId() + " | percent:10 | |\n"
+            + "milk-3for2 | product:" + milk.getId() + " | multibuy:3:2\n"
+            + "food-5 | category:FOOD | percent:5\n";
+        PromotionEngine engine = PromotionEngine.parse(new StringReader(rules));
+        assertEquals(3, engine.getRuleCount());
+
+        Product[] products = {milk, bread, soap};
+        int[] quantities = {3, 2, 1};
+        double[] prices = {2.0, 1.0, 1.0};
+        double[] discounts = new double[3];
+        String[] ids = new String[3];
+
+        double total = engine.apply(products, quantities, prices, 3, now, discounts, ids);
+
+        assertEquals(2.0, discounts[0], 0.0001);
+        assertEquals("milk-3for2", ids[0]);
+        assertEquals(0.1, discounts[1], 0.0001);
+        assertEquals("food-5", ids[1]);
+        assertEquals(0.0, discounts[2]);
+        assertNull(ids[2]);
+        assertEquals(2.1, total, 0.0001);
+    }
+
+    @Test
+    void testTimeWindow() {
+        LocalDateTime start = LocalDateTime.of(2025, 6, 1, 0, 0);
+        List<PromotionRule> rules = new ArrayList<>();
+        rules.add(PromotionRule.percentOff("june", 0, ProductCategory.NON_FOOD, 50, start, start.plusDays(30)));
+        PromotionEngine engine = PromotionEngine.compile(rules);
+
+        Product[] products = {soap};
+        int[] quantities = {2};
+        double[] prices = {1.0};
+        double[] discounts = new double[1];
+        String[] ids = new String[1];
+        long inside = start.plusDays(3).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long after = start.plusDays(31).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        assertEquals(1.0, engine.apply(products, quantities, prices, 1, inside, discounts, ids), 0.0001);
+        assertEquals(0.0, engine.apply(products, quantities, prices, 1, after, discounts, ids));
+    }
+
+    @Test
+    void testInvalidRuleNamesLine() {
+        String rules = "ok | category:FOOD | percent:5\n"
+            + "bad | product:1 | percent:150\n";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> PromotionEngine.parse(new StringReader(rules)));
+        assertTrue(e.getMessage().contains("line 2"));
+        assertThrows(IllegalArgumentException.class,
+            () -> PromotionEngine.parse(new StringReader("x | shelf:3 | percent:5\n")));
+        assertThrows(IllegalArgumentException.class,
+            () -> PromotionRule.multiBuy("m", 1, null, 2, 2, null, null));
+    }
+
+    @Test
+    void testLargeRuleSetOnlyVisitsApplicableRules() {
+        int basketSize = 50;
+        Product[] products = new Product[basketSize];
+        for (int i = 0; i < basketSize; i++) {
+            products[i] = new NonFoodProduct("Item " + i, 1.0 + i, 100);
+        }
+        List<PromotionRule> rules = new ArrayList<>();
+        int firstId = products[0].getId();
+        for (int i = 0; i < 10_000; i++) {
+            // Most rules target products that are not in the basket.
+            rules.add(PromotionRule.percentOff("p" + i, firstId + 100 + i, null, 1 + i % 30, null, null));
+        }
+        for (int i = 0; i < basketSize; i++) {
+            rules.add(PromotionRule.percentOff("basket" + i, products[i].getId(), null, 10, null, null));
+        }
+        PromotionEngine engine = PromotionEngine.compile(rules);
+
+        int[] quantities = new int[basketSize];
+        double[] prices = new double[basketSize];
+        for (int i = 0; i < basketSize; i++) {
+            quantities[i] = 1;
+            prices[i] = 1.0 + i;
+        }
+        double[] discounts = new double[basketSize];
+        String[] ids = new String[basketSize];
+
+        double total = 0;
+        for (int round = 0; round < 10_000; round++) {
+            total = engine.apply(products, quantities, prices, basketSize, now, discounts, ids);
+        }
+        double expected = 0;
+        for (double price : prices) {
+            expected += price * 0.10;
+        }
+        assertEquals(expected, total, 0.0001);
+        assertEquals("basket49", ids[49]);
+    }
+}
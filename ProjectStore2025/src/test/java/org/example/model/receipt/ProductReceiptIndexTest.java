@@ -0,0 +1,207 @@
+package org.example.model.receipt;
+
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.store.Cashier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductReceiptIndexTest {
+    @TempDir
+    File tempDir;
+
+    private Cashier cashier;
+    private long position;
+    private Product milk;
+    private Product soap;
+    private Product bread;
+
+    @BeforeEach
+    void setUp() {
+        cashier = new Cashier("John Doe", 2000.0);
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(7));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        bread = new FoodProduct("Bread", 1.5, 50, LocalDate.now().plusDays(3));
+    }
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        int[] numbers = {1, 2, 3, 130, 16_500, 2_000_000, Integer.MAX_VALUE};
+        byte[] encoded = ProductReceiptIndex.encode(numbers);
+        // Small gaps take one byte each.
+        assertTrue(encoded.length < numbers.length * 3);
+        assertArrayEquals(numbers, ProductReceiptIndex.decode(ByteBuffer.wrap(encoded), 0, numbers.length));
+    }
+
+    @Test
+    void testLookupMergesUnsealedAndSealedPostings() throws Exception {
+        ProductReceiptIndex index = new ProductReceiptIndex(tempDir, 1000);
+        Receipt first = receipt(milk, soap);
+        Receipt second = receipt(soap);
+        add(index, first);
+        index.seal();
+        add(index, second);
+        add(index, receipt(bread, bread));
+
+        assertArrayEquals(new int[]{first.getReceiptNumber()}, index.receiptNumbers(milk));
+        assertArrayEquals(new int[]{first.getReceiptNumber(), second.getReceiptNumber()},
+            index.receiptNumbers(soap));
+        assertEquals(1, index.receiptNumbers(bread).length);
+        assertEquals(0, index.receiptNumbers(new NonFoodProduct("Unsold", 1.0, 1)).length);
+        assertEquals(1, index.getSegmentCount());
+    }
+
+    @Test
+    void testSegmentsSurviveReopenAndCompact() throws Exception {
+        ProductReceiptIndex index = new ProductReceiptIndex(tempDir, 1000);
+        int[] expected = new int[5];
+        for (int i = 0; i < 5; i++) {
+            Receipt receipt = receipt(milk);
+            expected[i] = receipt.getReceiptNumber();
+            add(index, receipt);
+            index.seal();
+        }
+        assertEquals(5, index.getSegmentCount());
+
+        ProductReceiptIndex reopened = new ProductReceiptIndex(tempDir, 1000);
+        assertArrayEquals(expected, reopened.receiptNumbers(milk));
+
+        reopened.compact();
+        assertEquals(1, reopened.getSegmentCount());
+        assertEquals(1, tempDir.listFiles((dir, name) -> name.endsWith(".pidx")).length);
+        assertArrayEquals(expected, reopened.receiptNumbers(milk));
+        assertArrayEquals(expected, new ProductReceiptIndex(tempDir, 1000).receiptNumbers(milk));
+    }
+
+    @Test
+    void testProductsAreMatchedBySkuAcrossRuns() throws Exception {
+        ProductReceiptIndex index = new ProductReceiptIndex(tempDir, 1000);
+        Receipt receipt = receipt(milk, soap);
+        add(index, receipt);
+        index.seal();
+
+        // A later run creates its products in another order, so they get other ids.
+        Product laterSoap = new NonFoodProduct("Soap", 1.0, 200);
+        Product laterMilk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(7));
+        ProductReceiptIndex reopened = new ProductReceiptIndex(tempDir, 1000);
+        assertArrayEquals(new int[]{receipt.getReceiptNumber()}, reopened.receiptNumbers(laterMilk));
+        assertArrayEquals(new int[]{receipt.getReceiptNumber()}, reopened.receiptNumbers(laterSoap));
+        assertEquals(0, reopened.receiptNumbers(new FoodProduct("Soap", 1.0, 200, LocalDate.now())).length);
+    }
+
+    @Test
+    void testSealsAtThresholdAndCompactsManySegments() throws Exception {
+        ProductReceiptIndex index = new ProductReceiptIndex(tempDir, 2);
+        for (int i = 0; i < 40; i++) {
+            add(index, receipt(milk, soap));
+        }
+        assertTrue(index.getSegmentCount() <= ProductReceiptIndex.MAX_SEGMENTS);
+        assertEquals(40, index.receiptNumbers(milk).length);
+        assertEquals(40, index.receiptNumbers(soap).length);
+    }
+
+    @Test
+    void testArchiveFindsReceiptsByProductAndDate() {
+        File directory = new File(tempDir, "archive");
+        Receipt withMilk;
+        Receipt withSoap;
+        try (ReceiptArchive archive = new ReceiptArchive(directory)) {
+            withMilk = receipt(milk, bread);
+            withSoap = receipt(soap);
+            archive.append(withMilk);
+            archive.append(withSoap);
+
+            LocalDateTime now = LocalDateTime.now();
+            List<Receipt> found = archive.getReceiptsContaining(milk, now.minusHours(1), now.plusHours(1));
+            assertEquals(1, found.size());
+            assertEquals(withMilk.getReceiptNumber(), found.get(0).getReceiptNumber());
+            assertEquals(0, archive.getReceiptNumbers(milk, now.plusHours(1), now.plusHours(2)).length);
+        }
+
+        try (ReceiptArchive reopened = new ReceiptArchive(directory)) {
+            assertArrayEquals(new int[]{withSoap.getReceiptNumber()}, reopened.getReceiptNumbers(soap));
+        }
+    }
+
+    @Test
+    void testArchiveRebuildsMissingProductIndex() {
+        File directory = new File(tempDir, "archive");
+        Receipt receipt = receipt(bread);
+        try (ReceiptArchive archive = new ReceiptArchive(directory)) {
+            archive.append(receipt);
+        }
+        for (File file : directory.listFiles((dir, name) -> name.endsWith(".pidx"))) {
+            assertTrue(file.delete());
+        }
+
+        try (ReceiptArchive reopened = new ReceiptArchive(directory)) {
+            assertArrayEquals(new int[]{receipt.getReceiptNumber()}, reopened.getReceiptNumbers(bread));
+        }
+    }
+
+    @Test
+    void testArchiveIndexesReceiptsLeftUnsealedByACrash() {
+        File directory = new File(tempDir, "archive");
+        Receipt sealed = receipt(milk);
+        Receipt unsealed = receipt(milk, soap);
+        try (ReceiptArchive crashed = new ReceiptArchive(directory)) {
+            crashed.append(sealed);
+            crashed.flush();
+            crashed.append(unsealed);
+
+            // Opened while the first archive still holds its postings in memory.
+            try (ReceiptArchive reopened = new ReceiptArchive(directory)) {
+                assertArrayEquals(new int[]{sealed.getReceiptNumber(), unsealed.getReceiptNumber()},
+                    reopened.getReceiptNumbers(milk));
+                assertArrayEquals(new int[]{unsealed.getReceiptNumber()}, reopened.getReceiptNumbers(soap));
+            }
+        }
+    }
+
+    @Test
+    void testLargeIndexLookup() throws Exception {
+        ProductReceiptIndex index = new ProductReceiptIndex(tempDir, 1 << 16);
+        Product[] catalog = new Product[100];
+        for (int i = 0; i < catalog.length; i++) {
+            catalog[i] = new NonFoodProduct("Item " + i, 1.0, 10);
+        }
+        int expected = 0;
+        for (int i = 0; i < 200_000; i++) {
+            Product product = catalog[i % catalog.length];
+            add(index, receipt(product));
+            if (product == catalog[7]) {
+                expected++;
+            }
+        }
+        index.compact();
+        int[] numbers = index.receiptNumbers(catalog[7]);
+        assertEquals(expected, numbers.length);
+        for (int i = 1; i < numbers.length; i++) {
+            assertTrue(numbers[i - 1] < numbers[i]);
+        }
+    }
+
+    private void add(ProductReceiptIndex index, Receipt receipt) throws Exception {
+        index.add(receipt, ++position);
+    }
+
+    private Receipt receipt(Product... products) {
+        int[] quantities = new int[products.length];
+        double[] prices = new double[products.length];
+        for (int i = 0; i < products.length; i++) {
+            quantities[i] = 1;
+            prices[i] = 1.0;
+        }
+        return new Receipt(cashier, products, quantities, prices, products.length, products.length);
+    }
+}
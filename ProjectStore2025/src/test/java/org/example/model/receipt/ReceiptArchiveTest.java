@@ -0,0 +1,166 @@
+package org.example.model.receipt;
+
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.store.Cashier;
+import org.example.exception.ReceiptException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptArchiveTest {
+    @TempDir
+    File tempDir;
+
+    private Cashier cashier;
+    private Map<Product, Integer> items;
+
+    @BeforeEach
+    void setUp() {
+        cashier = new Cashier("John Doe", 2000.0);
+        items = new HashMap<>();
+        items.put(new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(7)), 2);
+        items.put(new NonFoodProduct("Soap", 1.0, 200), 3);
+    }
+
+    @Test
+    void testAppendAndGetReceipt() {
+        try (ReceiptArchive archive = new ReceiptArchive(new File(tempDir, "archive"))) {
+            Receipt receipt = new Receipt(cashier, items, 20.0);
+            archive.append(receipt);
+
+            Receipt loaded = archive.getReceipt(receipt.getReceiptNumber());
+            assertNotNull(loaded);
+            assertEquals(receipt.getReceiptNumber(), loaded.getReceiptNumber());
+            assertEquals(20.0, loaded.getTotalAmount());
+            assertEquals(cashier.getName(), loaded.getCashier().getName());
+            assertEquals(2, loaded.getItems().size());
+        }
+    }
+
+    @Test
+    void testReceiptDataIsReadOnlyView() {
+        try (ReceiptArchive archive = new ReceiptArchive(new File(tempDir, "archive"))) {
+            Receipt receipt = new Receipt(cashier, items, 20.0);
+            archive.append(receipt);
+
+            ByteBuffer data = archive.getReceiptData(receipt.getReceiptNumber());
+            assertNotNull(data);
+            assertTrue(data.isReadOnly());
+            assertTrue(data.remaining() > 0);
+        }
+    }
+
+    @Test
+    void testMissingReceiptReturnsNull() {
+        try (ReceiptArchive archive = new ReceiptArchive(new File(tempDir, "archive"))) {
+            assertNull(archive.getReceipt(1));
+            assertNull(archive.getReceipt(-1));
+            assertFalse(archive.contains(42));
+        }
+    }
+
+    @Test
+    void testGetReceiptsByDateRange() {
+        try (ReceiptArchive archive = new ReceiptArchive(new File(tempDir, "archive"))) {
+            Receipt first = new Receipt(cashier, items, 10.0);
+            Receipt second = new Receipt(cashier, items, 20.0);
+            archive.append(first);
+            archive.append(second);
+
+            LocalDateTime now = LocalDateTime.now();
+            List<Receipt> all = archive.getReceipts(now.minusMinutes(1), now.plusMinutes(1));
+            assertEquals(2, all.size());
+            assertEquals(first.getReceiptNumber(), all.get(0).getReceiptNumber());
+            assertEquals(second.getReceiptNumber(), all.get(1).getReceiptNumber());
+
+            assertTrue(archive.getReceipts(now.minusDays(2), now.minusDays(1)).isEmpty());
+            assertThrows(ReceiptException.class, () -> archive.getReceipts(now, now.minusDays(1)));
+        }
+    }
+
+    @Test
+    void testArchiveSurvivesReopen() {
+        File directory = new File(tempDir, "archive");
+        Receipt receipt = new Receipt(cashier, items, 15.0);
+        try (ReceiptArchive archive = new ReceiptArchive(directory)) {
+            archive.append(receipt);
+        }
+
+        try (ReceiptArchive reopened = new ReceiptArchive(directory)) {
+            assertEquals(receipt.getReceiptNumber(), reopened.getHighestReceiptNumber());
+            assertEquals(15.0, reopened.getReceipt(receipt.getReceiptNumber()).getTotalAmount());
+
+            Receipt next = new Receipt(cashier, items, 5.0);
+            reopened.append(next);
+            assertEquals(5.0, reopened.getReceipt(next.getReceiptNumber()).getTotalAmount());
+        }
+    }
+
+    @Test
+    void testArchivedReceiptNumberIsNotReplaced() throws Exception {
+        File journal = new File(tempDir, "journal");
+        assertTrue(journal.mkdirs());
+        Receipt original = new Receipt(cashier, items, 15.0);
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new FileOutputStream(new File(journal, "receipt_" + original.getReceiptNumber() + ".ser")))) {
+            out.writeObject(original);
+        }
+
+        try (ReceiptArchive archive = new ReceiptArchive(new File(tempDir, "archive"))) {
+            archive.append(original);
+            assertThrows(ReceiptException.class, () -> archive.append(original));
+            // Importing the store's journal again only adds what is missing.
+            assertEquals(0, archive.importDirectory(journal));
+            assertEquals(15.0, archive.getReceipt(original.getReceiptNumber()).getTotalAmount());
+            assertEquals(1, archive.getReceipts(LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)).size());
+        }
+    }
+
+    @Test
+    void testSegmentRollover() {
+        try (ReceiptArchive archive = new ReceiptArchive(new File(tempDir, "archive"), 4096)) {
+            Receipt[] receipts = new Receipt[10];
+            for (int i = 0; i < receipts.length; i++) {
+                receipts[i] = new Receipt(cashier, items, i + 1);
+                archive.append(receipts[i]);
+            }
+            for (Receipt receipt : receipts) {
+                assertEquals(receipt.getTotalAmount(), archive.getReceipt(receipt.getReceiptNumber()).getTotalAmount());
+            }
+        }
+    }
+
+    @Test
+    void testAppendAsyncAndImportDirectory() throws Exception {
+        File journal = new File(tempDir, "journal");
+        assertTrue(journal.mkdirs());
+        Receipt journaled = new Receipt(cashier, items, 12.0);
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new FileOutputStream(new File(journal, "receipt_" + journaled.getReceiptNumber() + ".ser")))) {
+            out.writeObject(journaled);
+        }
+
+        try (ReceiptArchive archive = new ReceiptArchive(new File(tempDir, "archive"))) {
+            assertEquals(1, archive.importDirectory(journal));
+            assertTrue(archive.contains(journaled.getReceiptNumber()));
+
+            Receipt live = new Receipt(cashier, items, 8.0);
+            archive.appendAsync(live).get();
+            assertEquals(8.0, archive.getReceipt(live.getReceiptNumber()).getTotalAmount());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.model.receipt;
+
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.store.Cashier;
+import org.example.util.CurrencyFormatter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptRendererTest {
+    private Receipt receipt;
+
+    @BeforeEach
+    void setUp() {
+        Cashier cashier = new Cashier("\u0418\u0432\u0430\u043d \u0413\u0435\u043e\u0440\u0433\u0438\u0435\u0432", 2000.0);
+        Map<Product, Integer> items = new HashMap<>();
+        items.put(new FoodProduct("\u041c\u043b\u044f\u043a\u043e", 2.0, 100, LocalDate.now().plusDays(7)), 2);
+        items.put(new NonFoodProduct("Soap", 1.0, 200), 3);
+        items.put(new NonFoodProduct("TV", 999.99, 5), 2);
+        receipt = new Receipt(cashier, items, 2312.43);
+    }
+
+    @Test
+    void testRenderMatchesToString() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        ReceiptRenderer.render(receipt, sb);
+        assertEquals(receipt.toString(), sb.toString());
+        assertTrue(sb.toString().startsWith("Receipt #" + receipt.getReceiptNumber() + "\nDate: "));
+        assertTrue(sb.toString().endsWith("Total Amount: $2,312.43"));
+    }
+
+    @Test
+    void testRenderToByteBufferIsUtf8() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        int written = ReceiptRenderer.render(receipt, buffer);
+        assertEquals(buffer.position(), written);
+        String decoded = new String(buffer.array(), 0, written, StandardCharsets.UTF_8);
+        assertEquals(receipt.toString(), decoded);
+    }
+
+    @Test
+    void testRenderToSmallBufferOverflows() {
+        assertThrows(BufferOverflowException.class, () -> ReceiptRenderer.render(receipt, ByteBuffer.allocate(16)));
+    }
+
+    @Test
+    void testWriteToChannel() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReceiptRenderer.writeTo(receipt, Channels.newChannel(out));
+        assertEquals(receipt.toString(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRenderShowsPromotionDiscounts() {
+        Product[] products = {new NonFoodProduct("Soap", 1.0, 200), new NonFoodProduct("Paper", 2.0, 200)};
+        int[] quantities = {3, 1};
+        double[] prices = {1.2, 2.4};
+        double[] discounts = {1.2, 0};
+        String[] promotions = {"soap-3for2", null};
+        Receipt discounted = new Receipt(new Cashier("John Doe", 2000.0), products, quantities, prices, discounts,
+            promotions, 2, 4.8);
+
+        String text = discounted.toString();
+        assertTrue(text.contains("- Soap x3 ($1.20 each) = $3.60\n  Promotion soap-3for2 -$1.20\n- Paper"));
+        assertTrue(text.endsWith("Total Discount: -$1.20\nTotal Amount: $4.80"));
+        assertEquals(1.2, discounted.getTotalDiscount(), 0.0001);
+        assertFalse(receipt.toString().contains("Promotion"));
+    }
+
+    @Test
+    void testCurrencyFormatterMatchesNumberFormat() {
+        NumberFormat reference = NumberFormat.getCurrencyInstance(Locale.US);
+        double[] amounts = {0, 0.05, 1.5, 9.26, 999.99, 1000, 1234567.89, -0.75, -1234.5};
+        for (double amount : amounts) {
+            assertEquals(reference.format(amount), CurrencyFormatter.format(amount));
+        }
+    }
+
+    @Test
+    void testCurrencyFormatterRoundsHalfCentsLikeNumberFormat() {
+        NumberFormat reference = NumberFormat.getCurrencyInstance(Locale.US);
+        // Exact half cents go to the even cent; 2.675 and 1.005 are just below a half in binary.
+        double[] amounts = {0.125, 0.375, 2.5, 0.005, 0.015, 2.675, 1.005, 0.135, -0.125, 1234.565};
+        for (double amount : amounts) {
+            assertEquals(reference.format(amount), CurrencyFormatter.format(amount), String.valueOf(amount));
+        }
+        assertEquals("$0.12", CurrencyFormatter.format(0.125));
+        assertEquals("$0.38", CurrencyFormatter.format(0.375));
+        assertEquals(12, CurrencyFormatter.toCents(0.125));
+    }
+}
@@ -0,0 +1,219 @@
+package org.example.model.returns;
+
+import org.example.config.StoreConfig;
+import org.example.exception.ReceiptException;
+import org.example.exception.StoreException;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.analytics.StoreAnalytics;
+import org.example.model.receipt.Receipt;
+import org.example.model.receipt.ReceiptArchive;
+import org.example.model.store.Basket;
+import org.example.model.store.CashRegister;
+import org.example.model.store.Cashier;
+import org.example.model.store.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReturnsProcessorTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store store;
+    private FoodProduct milk;
+    private NonFoodProduct soap;
+    private CashRegister register;
+    private Cashier cashier;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        store = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        cashier = new Cashier("John Doe", 2000.0);
+        register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        store.addProduct(milk, 100, 20, 50);
+        store.addProduct(soap, 200, 30, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testPartialAndFullReturn() {
+        Receipt receipt = store.processSale(register, new Basket().add(milk, 3).add(soap, 2), 100.0);
+        double revenue = store.getTotalRevenue();
+
+        Refund refund = store.processReturn(receipt.getReceiptNumber(), milk, 1);
+        assertEquals(2.2, refund.getAmount(), 0.0001);
+        assertEquals(98, store.getStockLevel(milk));
+        assertEquals(revenue - 2.2, store.getTotalRevenue(), 0.0001);
+
+        Map<Product, Integer> rest = new HashMap<>();
+        rest.put(milk, 2);
+        rest.put(soap, 2);
+        store.processReturn(receipt.getReceiptNumber(), rest);
+
+        assertEquals(100, store.getStockLevel(milk));
+        assertEquals(200, store.getStockLevel(soap));
+        assertEquals(0.0, store.getTotalRevenue(), 0.0001);
+        assertEquals(3, store.getReturnedQuantity(receipt.getReceiptNumber(), milk));
+    }
+
+    @Test
+    void testReturnCannotExceedWhatWasSold() {
+        Receipt receipt = store.processSale(register, new Basket().add(milk, 2), 100.0);
+        store.processReturn(receipt.getReceiptNumber(), milk, 1);
+
+        Map<Product, Integer> items = new HashMap<>();
+        items.put(milk, 2);
+        assertThrows(StoreException.class, () -> store.processReturn(receipt.getReceiptNumber(), items));
+        assertThrows(StoreException.class, () -> store.processReturn(receipt.getReceiptNumber(), soap, 1));
+        assertThrows(ReceiptException.class, () -> store.processReturn(999_999, milk, 1));
+        assertEquals(99, store.getStockLevel(milk));
+        assertEquals(1, store.getReturnedQuantity(receipt.getReceiptNumber(), milk));
+    }
+
+    @Test
+    void testRefundedReceiptCannotBeRefundedAgainAfterRestart() throws IOException {
+        File archiveDir = new File(tempDir, "archive");
+        ReceiptArchive archive = new ReceiptArchive(archiveDir);
+        store.setReceiptArchive(archive);
+        Receipt receipt = store.processSale(register, new Basket().add(milk, 2).add(soap, 3), 100.0);
+        store.processReturn(receipt.getReceiptNumber(), milk, 2);
+        store.processReturn(receipt.getReceiptNumber(), soap, 1);
+        archive.close();
+        // A crash in the middle of journaling a return leaves a torn last line.
+        try (FileWriter writer = new FileWriter(new File(archiveDir, "returns.csv"), true)) {
+            writer.write(receipt.getReceiptNumber() + "," + soap.getId());
+        }
+
+        Store restarted = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        restarted.addProduct(milk, 100, 20, 50);
+        restarted.addProduct(soap, 200, 30, 100);
+        try (ReceiptArchive reopened = new ReceiptArchive(archiveDir)) {
+            restarted.setReceiptArchive(reopened);
+
+            assertEquals(2, restarted.getReturnedQuantity(receipt.getReceiptNumber(), milk));
+            assertEquals(1, restarted.getReturnedQuantity(receipt.getReceiptNumber(), soap));
+            assertThrows(StoreException.class, () -> restarted.processReturn(receipt.getReceiptNumber(), milk, 1));
+            assertThrows(StoreException.class, () -> restarted.processReturn(receipt.getReceiptNumber(), soap, 3));
+            restarted.processReturn(receipt.getReceiptNumber(), soap, 2);
+            assertEquals(3, restarted.getReturnedQuantity(receipt.getReceiptNumber(), soap));
+            assertEquals(100, restarted.getStockLevel(milk));
+            assertEquals(202, restarted.getStockLevel(soap));
+            restarted.setReceiptArchive(null);
+        }
+    }
+
+    @Test
+    void testReturnsAgainstEarlierRunMatchProductsBySku() {
+        File archiveDir = new File(tempDir, "archive");
+        ReceiptArchive archive = new ReceiptArchive(archiveDir);
+        store.setReceiptArchive(archive);
+        Receipt receipt = store.processSale(register, new Basket().add(milk, 2).add(soap, 3), 100.0);
+        store.processReturn(receipt.getReceiptNumber(), milk, 1);
+        store.setReceiptArchive(null);
+        archive.close();
+
+        // The next run creates the same products in another order, so their ids differ.
+        NonFoodProduct laterSoap = new NonFoodProduct("Soap", 1.0, 200);
+        FoodProduct laterMilk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        Store restarted = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        restarted.addProduct(laterSoap, 200, 30, 100);
+        restarted.addProduct(laterMilk, 100, 20, 50);
+        try (ReceiptArchive reopened = new ReceiptArchive(archiveDir)) {
+            restarted.setReceiptArchive(reopened);
+
+            assertEquals(1, restarted.getReturnedQuantity(receipt.getReceiptNumber(), laterMilk));
+            assertThrows(StoreException.class, () -> restarted.processReturn(receipt.getReceiptNumber(), laterMilk, 2));
+            restarted.processReturn(receipt.getReceiptNumber(), laterSoap, 3);
+            assertEquals(203, restarted.getStockLevel(laterSoap));
+            assertEquals(100, restarted.getStockLevel(laterMilk));
+            assertEquals(1, restarted.getReceiptsContaining(laterSoap, receipt.getDateTime().minusMinutes(1),
+                receipt.getDateTime().plusMinutes(1)).size());
+            restarted.setReceiptArchive(null);
+        }
+    }
+
+    @Test
+    void testAnalyticsAreReversed() {
+        StoreAnalytics analytics = new StoreAnalytics();
+        analytics.addReturn(cashier, milk, 2, 4.4);
+        assertEquals(-2, analytics.getProductSales(milk));
+        assertEquals(-4.4, analytics.getCashierRevenue(cashier), 0.0001);
+        assertEquals(4.4, analytics.getTotalRefunds(), 0.0001);
+        assertEquals(2, analytics.getReturnedUnits());
+    }
+
+    @Test
+    void testRemovingCashierReversesSalary() {
+        double expenses = store.getTotalExpenses();
+        Cashier temp = new Cashier("Temp", 1500.0);
+        store.addCashier(temp);
+        store.removeCashier(temp);
+        assertEquals(expenses, store.getTotalExpenses(), 0.0001);
+    }
+
+    @Test
+    void testBulkReturnFile() throws IOException {
+        int sales = 2000;
+        NonFoodProduct paper = new NonFoodProduct("Paper", 1.0, 10_000);
+        store.addProduct(paper, 10_000, 10, 100);
+        int[] receiptNumbers = new int[sales];
+        Basket basket = new Basket();
+        for (int i = 0; i < sales; i++) {
+            basket.clear();
+            receiptNumbers[i] = store.processSale(register, basket.add(paper, 5), 100.0).getReceiptNumber();
+        }
+        assertEquals(0, store.getStockLevel(paper));
+
+        StringBuilder file = new StringBuilder("receipt_number,product_id,quantity\n");
+        for (int i = 0; i < sales; i++) {
+            for (int unit = 0; unit < 5; unit++) {
+                file.append(receiptNumbers[i]).append(',').append(paper.getId()).append(",1\n");
+            }
+        }
+        file.append(receiptNumbers[0]).append(',').append(paper.getId()).append(",1\n");
+        file.append("not,a,line\n");
+        File returnsFile = new File(tempDir, "returns.csv");
+        try (FileWriter writer = new FileWriter(returnsFile)) {
+            writer.write(file.toString());
+        }
+
+        ReturnBatchResult result = store.processReturns(returnsFile);
+
+        assertEquals(sales * 5, result.getAcceptedLines());
+        assertEquals(2, result.getRejectedLines());
+        assertEquals(2, result.getErrors().size());
+        assertEquals(sales * 5 * 1.2, result.getRefundTotal(), 0.001);
+        assertEquals(10_000, store.getStockLevel(paper));
+        assertEquals(0.0, store.getTotalRevenue(), 0.001);
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.model.simulation;
+
+import org.example.config.StoreConfig;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.store.CashRegister;
+import org.example.model.store.Cashier;
+import org.example.model.store.Store;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Times a week of a 40-register store. Not a unit test: run it by hand with
+ * an optional peak arrival rate. Recommends a plan with each routing policy
+ * from queue-only runs, then replays the week under the better plan with
+ * every customer checking out through a real store, and prints how long each
+ * step took.
+ */
+public final class QueueSimulationBenchmark {
+    private static final int REGISTERS = 40;
+    private static final int PRODUCTS = 500;
+    private static final double TARGET_WAIT_SECONDS = 120;
+    private static final double SERVICE_LEVEL = 0.9;
+    private static final long SEED = 2025;
+
+    private QueueSimulationBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        configureReceipts();
+        double peak = args.length > 0 ? Double.parseDouble(args[0]) : 1000;
+        ArrivalPattern arrivals = ArrivalPattern.typicalWeek(peak);
+        QueueSimulation simulation = new QueueSimulation(arrivals, ServiceTimeModel.TYPICAL, REGISTERS);
+        System.out.printf("%,.0f customers expected, peak %.0f per hour, %d registers%n",
+            arrivals.getCustomersPerWeek(), peak, REGISTERS);
+        long totalStart = System.nanoTime();
+
+        SimulationResult best = null;
+        for (RoutingPolicy policy : RoutingPolicy.values()) {
+            long start = System.nanoTime();
+            SimulationResult result = new StaffingAdvisor(simulation, policy, SEED)
+                .recommend(TARGET_WAIT_SECONDS, SERVICE_LEVEL);
+            System.out.printf("%-15s advice in %6.2f s  register-hours %,5d  avg wait %5.1f s  within target %.3f"
+                    + "  utilization %.2f%n",
+                policy, (System.nanoTime() - start) / 1e9, result.getPlan().getRegisterHours(),
+                result.getAverageWaitSeconds(), result.getShareServedWithin(TARGET_WAIT_SECONDS),
+                result.getUtilization());
+            if (best == null || result.getPlan().getRegisterHours() < best.getPlan().getRegisterHours()) {
+                best = result;
+            }
+        }
+
+        Store store = newStore();
+        long start = System.nanoTime();
+        SimulationResult replay = simulation.run(best.getPolicy(), best.getPlan(), SEED, store);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("store replay    %,d customers in %6.2f s (%,.0f sales/s)  completed %,d  failed %,d%n",
+            replay.getCustomers(), seconds, replay.getCustomers() / seconds, replay.getCompletedSales(),
+            replay.getFailedSales());
+        System.out.printf("total           %6.2f s%n", (System.nanoTime() - totalStart) / 1e9);
+    }
+
+    private static Store newStore() {
+        Store store = new Store("Simulated", 0.10, 0.20, 7, 0.20);
+        for (int i = 1; i <= REGISTERS; i++) {
+            CashRegister register = new CashRegister(i);
+            Cashier cashier = new Cashier("Cashier " + i, 2000.0);
+            store.addRegister(register);
+            store.addCashier(cashier);
+            register.setAssignedCashier(cashier);
+        }
+        for (int i = 0; i < PRODUCTS; i++) {
+            store.addProduct(new NonFoodProduct("Item " + i, 1.0 + i % 20, 100), Integer.MAX_VALUE / 2, 10, 100);
+        }
+        return store;
+    }
+
+    /**
+     * Keeps the receipts of the run out of the working directory.
+     */
+    private static void configureReceipts() throws IOException {
+        File workDir = Files.createTempDirectory("queue-simulation").toFile();
+        File configFile = new File(workDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(workDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.model.simulation;
+
+import org.example.config.StoreConfig;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.store.CashRegister;
+import org.example.model.store.Cashier;
+import org.example.model.store.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueSimulationTest {
+    private static final int HOURS = ArrivalPattern.HOURS_PER_WEEK;
+    // Monday 10:00 to 11:00.
+    private static final int RUSH_HOUR = 10;
+
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testMoreRegistersShortenWaitsForTheSameCustomers() {
+        QueueSimulation simulation = new QueueSimulation(ArrivalPattern.typicalWeek(300), ServiceTimeModel.TYPICAL, 6);
+
+        SimulationResult three = simulation.run(RoutingPolicy.SHORTEST_QUEUE, StaffingPlan.uniform(3), 42);
+        SimulationResult six = simulation.run(RoutingPolicy.SHORTEST_QUEUE, StaffingPlan.uniform(6), 42);
+
+        assertEquals(three.getCustomers(), six.getCustomers());
+        assertTrue(three.getCustomers() > 0.9 * ArrivalPattern.typicalWeek(300).getCustomersPerWeek());
+        assertTrue(six.getAverageWaitSeconds() < three.getAverageWaitSeconds());
+        assertTrue(six.getUtilization() < three.getUtilization());
+        assertTrue(three.getUtilization() > 0 && three.getUtilization() < 1);
+        // Closed hours have nobody.
+        assertEquals(0, three.getCustomers(3));
+        assertEquals(0, three.getAverageWaitSeconds(3));
+    }
+
+    @Test
+    void testRunsAreRepeatableForASeed() {
+        QueueSimulation simulation = new QueueSimulation(ArrivalPattern.typicalWeek(200), ServiceTimeModel.TYPICAL, 4);
+
+        SimulationResult first = simulation.run(RoutingPolicy.LEAST_WORK, StaffingPlan.uniform(3), 7);
+        SimulationResult second = simulation.run(RoutingPolicy.LEAST_WORK, StaffingPlan.uniform(3), 7);
+        SimulationResult other = simulation.run(RoutingPolicy.LEAST_WORK, StaffingPlan.uniform(3), 8);
+
+        assertEquals(first.getCustomers(), second.getCustomers());
+        assertEquals(first.getAverageWaitSeconds(), second.getAverageWaitSeconds());
+        for (int hour = 0; hour < HOURS; hour++) {
+            assertEquals(first.getMaxQueueLength(hour), second.getMaxQueueLength(hour));
+        }
+        assertNotEquals(first.getAverageWaitSeconds(), other.getAverageWaitSeconds());
+    }
+
+    @Test
+    void testLeastWorkRoutingBeatsShortestQueueOnMixedBaskets() {
+        // Few customers with very varied baskets: queue length says little
+        // about how long a queue will take.
+        ServiceTimeModel mixed = new ServiceTimeModel(10, 6, 25);
+        QueueSimulation simulation = new QueueSimulation(ArrivalPattern.typicalWeek(40), mixed, 4);
+
+        SimulationResult shortestQueue = simulation.run(RoutingPolicy.SHORTEST_QUEUE, StaffingPlan.uniform(4), 3);
+        SimulationResult leastWork = simulation.run(RoutingPolicy.LEAST_WORK, StaffingPlan.uniform(4), 3);
+
+        assertEquals(shortestQueue.getCustomers(), leastWork.getCustomers());
+        assertTrue(leastWork.getAverageWaitSeconds() < shortestQueue.getAverageWaitSeconds(),
+            leastWork + " vs " + shortestQueue);
+    }
+
+    @Test
+    void testDrivesRealSalesWithoutChangingTheQueues() {
+        Store store = new Store("Simulated", 0.10, 0.20, 7, 0.20);
+        for (int i = 1; i <= 2; i++) {
+            CashRegister register = new CashRegister(i);
+            Cashier cashier = new Cashier("Cashier " + i, 2000.0);
+            store.addRegister(register);
+            store.addCashier(cashier);
+            register.setAssignedCashier(cashier);
+        }
+        NonFoodProduct soap = new NonFoodProduct("Soap", 1.0, 10_000);
+        NonFoodProduct towel = new NonFoodProduct("Towel", 5.0, 10_000);
+        store.addProduct(soap, 10_000, 10, 50);
+        store.addProduct(towel, 10_000, 10, 50);
+        QueueSimulation simulation = new QueueSimulation(rushHour(60), ServiceTimeModel.TYPICAL, 2);
+
+        SimulationResult modelOnly = simulation.run(RoutingPolicy.LEAST_WORK, StaffingPlan.uniform(2), 11);
+        SimulationResult withStore = simulation.run(RoutingPolicy.LEAST_WORK, StaffingPlan.uniform(2), 11, store);
+
+        assertEquals(modelOnly.getCustomers(), withStore.getCustomers());
+        assertEquals(modelOnly.getAverageWaitSeconds(), withStore.getAverageWaitSeconds());
+        assertEquals(0, modelOnly.getCompletedSales());
+        assertEquals(withStore.getCustomers(), withStore.getCompletedSales());
+        assertEquals(0, withStore.getFailedSales());
+        assertEquals(withStore.getCustomers(), store.getReceipts().size());
+        int unitsSold = 20_000 - store.getStockLevel(soap) - store.getStockLevel(towel);
+        assertTrue(unitsSold >= withStore.getCustomers());
+        assertTrue(store.getTotalRevenue() > 0);
+    }
+
+    @Test
+    void testSalesThatRunOutOfStockAreCounted() {
+        Store store = new Store("Sold out", 0.10, 0.20, 7, 0.20);
+        CashRegister register = new CashRegister(1);
+        Cashier cashier = new Cashier("Cashier", 2000.0);
+        store.addRegister(register);
+        store.addCashier(cashier);
+        register.setAssignedCashier(cashier);
+        NonFoodProduct soap = new NonFoodProduct("Soap", 1.0, 20);
+        store.addProduct(soap, 20, 0, 1);
+        QueueSimulation simulation = new QueueSimulation(rushHour(30), ServiceTimeModel.TYPICAL, 1);
+
+        SimulationResult result = simulation.run(RoutingPolicy.SHORTEST_QUEUE, StaffingPlan.uniform(1), 5, store);
+
+        assertTrue(result.getFailedSales() > 0);
+        assertEquals(result.getCustomers(), result.getCompletedSales() + result.getFailedSales());
+        assertEquals(result.getCompletedSales(), store.getReceipts().size());
+    }
+
+    @Test
+    void testRecommendationMeetsTheTargetWithFewerRegisters() throws IOException {
+        ArrivalPattern arrivals = ArrivalPattern.typicalWeek(250);
+        QueueSimulation simulation = new QueueSimulation(arrivals, ServiceTimeModel.TYPICAL, 8);
+        StaffingAdvisor advisor = new StaffingAdvisor(simulation, RoutingPolicy.LEAST_WORK, 1);
+
+        SimulationResult result = advisor.recommend(120, 0.9);
+
+        StaffingPlan plan = result.getPlan();
+        for (int hour = 0; hour < HOURS; hour++) {
+            if (arrivals.getCustomersPerHour(hour) == 0) {
+                assertEquals(0, plan.getOpenRegisters(hour), StaffingPlan.hourLabel(hour));
+            } else {
+                assertTrue(plan.getOpenRegisters(hour) > 0);
+                assertTrue(result.getShareServedWithin(hour, 120) >= 0.9, StaffingPlan.hourLabel(hour));
+            }
+        }
+        assertTrue(plan.getRegisterHours() < StaffingPlan.uniform(8).getRegisterHours());
+        // Busy evenings need more registers than quiet mornings.
+        assertTrue(plan.getOpenRegisters(18) > plan.getOpenRegisters(8));
+
+        StringWriter report = new StringWriter();
+        result.writeReport(report, 120);
+        String[] lines = report.toString().split("\n");
+        assertEquals("hour,open_registers,customers,avg_wait_seconds,p90_wait_seconds,served_within_target,max_queue",
+            lines[0]);
+        assertTrue(lines[1].startsWith("Mon 08:00,"));
+    }
+
+    @Test
+    void testRejectsPlansForMoreRegistersThanTheStoreHas() {
+        QueueSimulation simulation = new QueueSimulation(rushHour(10), ServiceTimeModel.TYPICAL, 2);
+        assertThrows(IllegalArgumentException.class,
+            () -> simulation.run(RoutingPolicy.SHORTEST_QUEUE, StaffingPlan.uniform(3), 1));
+        assertThrows(IllegalArgumentException.class, () -> new QueueSimulation(rushHour(10), ServiceTimeModel.TYPICAL, 0));
+    }
+
+    private static ArrivalPattern rushHour(double customers) {
+        double[] perHour = new double[HOURS];
+        perHour[RUSH_HOUR] = customers;
+        return new ArrivalPattern(perHour);
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.exception.StoreException;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BasketCheckoutTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store store;
+    private FoodProduct milk;
+    private NonFoodProduct soap;
+    private CashRegister register;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        store = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("John Doe", 2000.0);
+        register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        store.addProduct(milk, 100, 20, 50);
+        store.addProduct(soap, 200, 30, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testBasketMergesDuplicateProducts() {
+        Basket basket = new Basket(1);
+        basket.add(milk, 2).add(soap, 1).add(milk, 3);
+
+        assertEquals(2, basket.size());
+        assertEquals(5, basket.getQuantityOf(milk.getId()));
+        assertTrue(basket.remove(milk.getId(), 5));
+        assertEquals(1, basket.size());
+        assertEquals(soap.getId(), basket.getProductId(0));
+        assertFalse(basket.remove(milk.getId(), 1));
+    }
+
+    @Test
+    void testQuantityOverflowIsRejected() {
+        Basket basket = new Basket().add(milk, Integer.MAX_VALUE);
+
+        assertThrows(IllegalArgumentException.class, () -> basket.add(milk, 1));
+        assertEquals(Integer.MAX_VALUE, basket.getQuantityOf(milk.getId()));
+        assertEquals(1, basket.size());
+    }
+
+    @Test
+    void testBasketCheckoutMatchesMapCheckout() {
+        Basket basket = new Basket();
+        basket.add(milk, 2).add(soap, 3);
+        Receipt fromBasket = store.processSale(register, basket, 100.0);
+
+        Map<Product, Integer> items = new HashMap<>();
+        items.put(milk, 2);
+        items.put(soap, 3);
+        Receipt fromMap = store.processSale(register, items, 100.0);
+
+        assertEquals(fromMap.getTotalAmount(), fromBasket.getTotalAmount(), 0.0001);
+        assertEquals(2 * 2.2 + 3 * 1.2, fromBasket.getTotalAmount(), 0.0001);
+        assertEquals(fromMap.getItems(), fromBasket.getItems());
+        assertEquals(2.2, fromBasket.getUnitPrice(milk), 0.0001);
+        assertEquals(290, store.getInventorySummary().getTotalUnits());
+        assertEquals(2, store.getReceipts().size());
+    }
+
+    @Test
+    void testBasketCanBeReusedAfterClear() {
+        Basket basket = new Basket();
+        for (int i = 0; i < 5; i++) {
+            basket.clear();
+            basket.add(milk.getId(), 1);
+            store.processSale(register, basket, 10.0);
+        }
+        assertEquals(5, store.getReceipts().size());
+        assertEquals(11.0, store.getTotalRevenue(), 0.0001);
+    }
+
+    @Test
+    void testInsufficientStockLeavesInventoryUnchanged() {
+        Basket basket = new Basket();
+        basket.add(soap, 5).add(milk, 101);
+
+        assertThrows(StoreException.class, () -> store.processSale(register, basket, 10000.0));
+        assertTrue(store.getReceipts().isEmpty());
+        assertEquals(300, store.getInventorySummary().getTotalUnits());
+    }
+
+    @Test
+    void testUnknownProductIdIsRejected() {
+        Basket basket = new Basket();
+        basket.add(Integer.MAX_VALUE - 1, 1);
+
+        assertThrows(StoreException.class, () -> store.processSale(register, basket, 100.0));
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.exception.StoreException;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.promotion.PromotionEngine;
+import org.example.model.promotion.PromotionRule;
+import org.example.model.receipt.Receipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CashRegisterCheckoutTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store store;
+    private FoodProduct milk;
+    private NonFoodProduct soap;
+    private CashRegister register;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        store = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("John Doe", 2000.0);
+        register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        store.addProduct(milk, 100, 20, 50);
+        store.addProduct(soap, 200, 30, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testRunningTotalUsesSellingPrices() {
+        register.addToTransaction(milk, 2);
+        assertEquals(4.4, register.getCurrentTransactionTotal(), 0.0001);
+
+        register.addToTransaction(soap, 3);
+        register.addToTransaction(milk, 1);
+        assertEquals(3 * 2.2 + 3 * 1.2, register.getCurrentTransactionTotal(), 0.0001);
+
+        register.removeFromTransaction(milk, 3);
+        assertEquals(3.6, register.getCurrentTransactionTotal(), 0.0001);
+        Map<Product, Integer> items = register.getCurrentTransaction();
+        assertEquals(1, items.size());
+        assertEquals(3, items.get(soap));
+
+        register.clearTransaction();
+        assertEquals(0.0, register.getCurrentTransactionTotal());
+    }
+
+    @Test
+    void testRunningTotalMatchesTheAmountCharged() {
+        List<PromotionRule> rules = new ArrayList<>();
+        rules.add(PromotionRule.multiBuy("milk-3for2", milk.getId(), null, 3, 2, null, null));
+        store.setPromotions(PromotionEngine.compile(rules));
+        store.setLocalPrice(soap, 1.5);
+
+        register.addToTransaction(milk, 3);
+        register.addToTransaction(soap, 2);
+        double shown = register.getCurrentTransactionTotal();
+        assertEquals(2 * 2.2 + 2 * 1.5, shown, 0.0001);
+
+        Receipt receipt = register.checkout(store, 20.0);
+        assertEquals(receipt.getTotalAmount(), shown, 0.0001);
+    }
+
+    @Test
+    void testScanIsValidatedAgainstStoreInventory() {
+        register.addToTransaction(milk, 60);
+        assertThrows(IllegalStateException.class, () -> register.addToTransaction(milk, 41));
+        assertThrows(IllegalStateException.class, () -> register.removeFromTransaction(soap, 1));
+        assertEquals(132.0, register.getCurrentTransactionTotal(), 0.0001);
+    }
+
+    @Test
+    void testCheckoutCreatesSaleAndClearsTransaction() {
+        register.addToTransaction(milk, 2);
+        register.addToTransaction(soap, 1);
+
+        Receipt receipt = register.checkout(store, 10.0);
+
+        assertEquals(5.6, receipt.getTotalAmount(), 0.0001);
+        assertEquals(98, store.getStockLevel(milk));
+        assertEquals(199, store.getStockLevel(soap));
+        assertTrue(register.getCurrentTransaction().isEmpty());
+        assertEquals(0.0, register.getCurrentTransactionTotal());
+    }
+
+    @Test
+    void testFailedCheckoutKeepsTransaction() {
+        register.addToTransaction(milk, 2);
+
+        SaleResult result = register.tryCheckout(store, 1.0);
+
+        assertInstanceOf(SaleResult.Underpaid.class, result);
+        assertEquals(4.4, register.getCurrentTransactionTotal(), 0.0001);
+        assertEquals(2, register.getCurrentTransaction().get(milk));
+        assertEquals(100, store.getStockLevel(milk));
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.model.store;
+
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.product.ProductCatalog;
+
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap used by many stores carrying the same SKUs, with each store creating
+ * its own product objects ({@code copies}) or all of them stocking from the
+ * shared {@link ProductCatalog} ({@code shared}). Not a unit test: run it by
+ * hand, one mode per JVM, with optional store and SKU counts, e.g.
+ * {@code shared 100 10000}.
+ */
+public final class CatalogMemoryBenchmark {
+    private CatalogMemoryBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "shared";
+        int storeCount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int skus = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+        boolean shared = mode.equals("shared");
+        long baseline = usedHeap();
+
+        List<Product> catalogProducts = new ArrayList<>(skus);
+        if (shared) {
+            for (int i = 0; i < skus; i++) {
+                catalogProducts.add(newProduct(i));
+            }
+            ProductCatalog.update(catalog -> catalog.withProducts(catalogProducts));
+        }
+        long catalogBytes = usedHeap() - baseline;
+
+        List<Store> stores = new ArrayList<>(storeCount);
+        for (int s = 0; s < storeCount; s++) {
+            stores.add(new Store("Store " + s, 0.10, 0.20, 7, 0.20));
+        }
+        long emptyStoresBytes = usedHeap() - baseline - catalogBytes;
+
+        long start = System.nanoTime();
+        for (Store store : stores) {
+            for (int i = 0; i < skus; i++) {
+                store.addProduct(shared ? catalogProducts.get(i) : newProduct(i), 1000, 10, 100);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = usedHeap() - baseline;
+        long stockedBytes = total - catalogBytes - emptyStoresBytes;
+        System.out.printf("%s: %d stores x %d SKUs stocked in %.1f s%n", mode, storeCount, skus, seconds);
+        System.out.printf("  heap %,d MB: catalog %,d MB, empty stores %,d MB, stocking %,d MB"
+                + " (%.1f bytes per store per SKU)%n",
+            total >> 20, catalogBytes >> 20, emptyStoresBytes >> 20, stockedBytes >> 20,
+            (double) stockedBytes / storeCount / skus);
+        Reference.reachabilityFence(stores);
+    }
+
+    private static Product newProduct(int i) {
+        return i % 3 == 0
+            ? new FoodProduct("Food item " + i, 1.0 + i % 50, 100, LocalDate.now().plusDays(30 + i % 60))
+            : new NonFoodProduct("Item " + i, 1.0 + i % 50, 100);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
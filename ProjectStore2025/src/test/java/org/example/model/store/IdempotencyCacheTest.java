@@ -0,0 +1,260 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.exception.StoreException;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store store;
+    private FoodProduct milk;
+    private NonFoodProduct soap;
+    private CashRegister register;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        store = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("John Doe", 2000.0);
+        register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        store.addProduct(milk, 100, 20, 50);
+        store.addProduct(soap, 200, 30, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testRetryReturnsOriginalReceipt() {
+        Map<Product, Integer> items = new HashMap<>();
+        items.put(milk, 2);
+
+        Receipt first = store.processSale("tx-1", register, items, 10.0);
+        Receipt retry = store.processSale("tx-1", register, items, 10.0);
+
+        assertSame(first, retry);
+        assertEquals(98, store.getStockLevel(milk));
+        assertEquals(1, store.getReceipts().size());
+        assertEquals(4.4, store.getTotalRevenue(), 0.0001);
+    }
+
+    @Test
+    void testFailedOutcomeIsNotRemembered() {
+        Basket basket = new Basket().add(milk, 2);
+
+        assertInstanceOf(SaleResult.Underpaid.class, store.trySale("tx-2", register, basket, 1.0));
+        SaleResult paid = store.trySale("tx-2", register, basket, 10.0);
+
+        assertTrue(paid.isCompleted());
+        assertEquals(98, store.getStockLevel(milk));
+    }
+
+    @Test
+    void testDeduplicationSurvivesRestart() {
+        Basket basket = new Basket().add(soap, 4);
+        Receipt original = store.processSale("tx-3", register, basket, 10.0);
+
+        Store restarted = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        restarted.addRegister(register);
+        restarted.addProduct(soap, 200, 30, 100);
+        Receipt retry = restarted.processSale("tx-3", register, new Basket().add(soap, 4), 10.0);
+
+        assertEquals(original.getReceiptNumber(), retry.getReceiptNumber());
+        assertEquals(original.getTotalAmount(), retry.getTotalAmount());
+        assertEquals(200, restarted.getStockLevel(soap));
+    }
+
+    @Test
+    void testEntriesExpireAfterRetention() {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        File journal = new File(tempDir, "expiring.journal");
+        IdempotencyCache cache = new IdempotencyCache(journal, 100, Duration.ofMinutes(1), now::get);
+        store.setIdempotencyCache(cache);
+
+        Receipt first = store.processSale("tx-4", register, new Basket().add(milk, 1), 10.0);
+        now.addAndGet(30_000L);
+        assertSame(first, cache.get("tx-4"));
+
+        now.addAndGet(31_000L);
+        assertNull(cache.get("tx-4"));
+        Receipt second = store.processSale("tx-4", register, new Basket().add(milk, 1), 10.0);
+        assertNotSame(first, second);
+        cache.close();
+
+        IdempotencyCache reopened = new IdempotencyCache(journal, 100, Duration.ofMinutes(1), now::get);
+        assertEquals(second.getReceiptNumber(), reopened.get("tx-4").getReceiptNumber());
+        now.addAndGet(61_000L);
+        reopened.close();
+        assertEquals(0, new IdempotencyCache(journal, 100, Duration.ofMinutes(1), now::get).size());
+    }
+
+    @Test
+    void testCompactionKeepsTheTransactionThatTriggeredIt() {
+        File journal = new File(tempDir, "compacting.journal");
+        IdempotencyCache cache = new IdempotencyCache(journal, 1, Duration.ofHours(1));
+        store.setIdempotencyCache(cache);
+        // One entry per stripe, so the journal is compacted every 32 frames.
+        Map<String, Integer> receiptNumbers = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            Receipt receipt = store.processSale("tx-" + i, register, new Basket().add(soap, 1), 10.0);
+            receiptNumbers.put("tx-" + i, receipt.getReceiptNumber());
+        }
+        Map<String, Receipt> cached = new HashMap<>();
+        for (String transactionId : receiptNumbers.keySet()) {
+            Receipt receipt = cache.get(transactionId);
+            if (receipt != null) {
+                cached.put(transactionId, receipt);
+            }
+        }
+        assertNotNull(cached.get("tx-32"));
+        cache.close();
+
+        IdempotencyCache reopened = new IdempotencyCache(journal, 1, Duration.ofHours(1));
+        for (Map.Entry<String, Receipt> entry : cached.entrySet()) {
+            Receipt restored = reopened.get(entry.getKey());
+            assertNotNull(restored, entry.getKey() + " lost across the restart");
+            assertEquals(receiptNumbers.get(entry.getKey()), restored.getReceiptNumber());
+        }
+        reopened.close();
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        IdempotencyCache cache = new IdempotencyCache(32, Duration.ofHours(1));
+        store.setIdempotencyCache(cache);
+        for (int i = 0; i < 200; i++) {
+            store.trySale("bulk-" + i, register, new Basket().add(soap, 1), 10.0);
+        }
+        assertTrue(cache.size() <= 32);
+        assertNotNull(cache.get("bulk-199"));
+    }
+
+    @Test
+    void testSaleInProgressIsNotEvicted() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1, Duration.ofHours(1));
+        Receipt receipt = store.processSale(register, new Basket().add(soap, 1), 10.0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger charges = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<SaleResult> first = executor.submit(() -> cache.execute("tx-slow", () -> {
+                charges.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new SaleResult.Completed(receipt);
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // Enough completed transactions to overflow every stripe many times.
+            for (int i = 0; i < 200; i++) {
+                cache.execute("other-" + i, () -> new SaleResult.Completed(receipt));
+            }
+            Future<SaleResult> retry = executor.submit(() -> cache.execute("tx-slow", () -> {
+                charges.incrementAndGet();
+                return new SaleResult.Completed(receipt);
+            }));
+            release.countDown();
+
+            assertSame(receipt, first.get(10, TimeUnit.SECONDS).getReceiptOrThrow());
+            assertSame(receipt, retry.get(10, TimeUnit.SECONDS).getReceiptOrThrow());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, charges.get());
+    }
+
+    @Test
+    void testStoresKeepSeparateTransactionJournals() {
+        Store other = new Store("Other Store", 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("Jane Doe", 2000.0);
+        CashRegister otherRegister = new CashRegister(2);
+        other.addCashier(cashier);
+        other.addRegister(otherRegister);
+        otherRegister.setAssignedCashier(cashier);
+        other.addProduct(soap, 200, 30, 100);
+
+        Receipt here = store.processSale("tx-shared", register, new Basket().add(soap, 1), 10.0);
+        Receipt there = other.processSale("tx-shared", otherRegister, new Basket().add(soap, 2), 10.0);
+
+        assertNotEquals(here.getReceiptNumber(), there.getReceiptNumber());
+        assertEquals(198, other.getStockLevel(soap));
+        File receiptsDir = new File(tempDir, "receipts");
+        assertTrue(new File(receiptsDir, "transactions-Test_Store.journal").isFile());
+        assertTrue(new File(receiptsDir, "transactions-Other_Store.journal").isFile());
+    }
+
+    @Test
+    void testConcurrentDuplicatesSellOnce() throws Exception {
+        store.setIdempotencyCache(new IdempotencyCache(100, Duration.ofHours(1)));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    if (store.trySale("tx-5", register, new Basket().add(milk, 3), 10.0).isCompleted()) {
+                        completed.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads, completed.get());
+        assertEquals(97, store.getStockLevel(milk));
+        assertEquals(1, store.getReceipts().size());
+    }
+}
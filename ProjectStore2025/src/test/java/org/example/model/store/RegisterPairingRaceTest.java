@@ -0,0 +1,196 @@
+package org.example.model.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pairing invariants under races, in the style of a jcstress suite: each case
+ * builds fresh state, runs two actors against it at the same moment many
+ * times over, and checks every outcome against the allowed ones. An arbiter
+ * then checks that the state left behind is consistent on both sides.
+ */
+class RegisterPairingRaceTest {
+    private static final int ROUNDS = 5_000;
+
+    @Test
+    void twoCashiersRaceForOneRegister() throws Exception {
+        Map<String, Integer> outcomes = race(() -> {
+            RegisterPool pool = new RegisterPool();
+            CashRegister register = register(pool, 1);
+            Cashier first = new Cashier("First", 2000.0);
+            Cashier second = new Cashier("Second", 2000.0);
+            return new Actors(
+                () -> pool.assign(first, register) ? "paired" : "lost",
+                () -> pool.assign(second, register) ? "paired" : "lost",
+                () -> assertConsistent(Set.of(register), first, second));
+        });
+        assertAllowed(outcomes, "paired,lost", "lost,paired");
+    }
+
+    @Test
+    void oneCashierRacesForTwoRegisters() throws Exception {
+        Map<String, Integer> outcomes = race(() -> {
+            RegisterPool pool = new RegisterPool();
+            CashRegister left = register(pool, 1);
+            CashRegister right = register(pool, 2);
+            Cashier cashier = new Cashier("Cashier", 2000.0);
+            return new Actors(
+                () -> pool.assign(cashier, left) ? "paired" : "lost",
+                () -> pool.assign(cashier, right) ? "paired" : "lost",
+                () -> assertConsistent(Set.of(left, right), cashier));
+        });
+        assertAllowed(outcomes, "paired,lost", "lost,paired");
+    }
+
+    @Test
+    void twoCashiersRaceForTheLastFreeRegister() throws Exception {
+        Map<String, Integer> outcomes = race(() -> {
+            RegisterPool pool = new RegisterPool();
+            CashRegister register = register(pool, 1);
+            Cashier first = new Cashier("First", 2000.0);
+            Cashier second = new Cashier("Second", 2000.0);
+            return new Actors(
+                () -> pool.assignAny(first) != null ? "paired" : "none",
+                () -> pool.assignAny(second) != null ? "paired" : "none",
+                () -> assertConsistent(Set.of(register), first, second));
+        });
+        assertAllowed(outcomes, "paired,none", "none,paired");
+    }
+
+    @Test
+    void releaseRacesWithTakeover() throws Exception {
+        Map<String, Integer> outcomes = race(() -> {
+            RegisterPool pool = new RegisterPool();
+            CashRegister register = register(pool, 1);
+            Cashier leaving = new Cashier("Leaving", 2000.0);
+            Cashier arriving = new Cashier("Arriving", 2000.0);
+            assertTrue(pool.assign(leaving, register));
+            return new Actors(
+                () -> pool.release(leaving) == register ? "released" : "not released",
+                () -> pool.assign(arriving, register) ? "paired" : "lost",
+                () -> {
+                    assertConsistent(Set.of(register), leaving, arriving);
+                    assertNull(leaving.getAssignedRegister());
+                });
+        });
+        // Taking over only works once the register is free.
+        assertAllowed(outcomes, "released,paired", "released,lost");
+    }
+
+    @Test
+    void takeoverOfAnyRegisterRacesWithRelease() throws Exception {
+        Map<String, Integer> outcomes = race(() -> {
+            RegisterPool pool = new RegisterPool();
+            CashRegister register = register(pool, 1);
+            Cashier leaving = new Cashier("Leaving", 2000.0);
+            Cashier arriving = new Cashier("Arriving", 2000.0);
+            assertSame(register, pool.assignAny(leaving));
+            return new Actors(
+                () -> pool.release(register) == leaving ? "released" : "not released",
+                () -> pool.assignAny(arriving) != null ? "paired" : "none",
+                () -> {
+                    assertConsistent(Set.of(register), leaving, arriving);
+                    // Whoever lost, the register is either held or queued again.
+                    if (!register.isAssigned()) {
+                        assertSame(register, pool.assignAny(leaving));
+                    }
+                });
+        });
+        assertAllowed(outcomes, "released,paired", "released,none");
+    }
+
+    /**
+     * Every register's cashier has that register, and every cashier's register
+     * has that cashier.
+     */
+    private static void assertConsistent(Set<CashRegister> registers, Cashier... cashiers) {
+        for (CashRegister register : registers) {
+            Cashier cashier = register.getAssignedCashier();
+            if (cashier != null) {
+                assertSame(register, cashier.getAssignedRegister());
+            }
+        }
+        for (Cashier cashier : cashiers) {
+            CashRegister register = cashier.getAssignedRegister();
+            if (register != null) {
+                assertSame(cashier, register.getAssignedCashier());
+            }
+        }
+    }
+
+    private static void assertAllowed(Map<String, Integer> outcomes, String... allowed) {
+        Set<String> allowedSet = Set.of(allowed);
+        for (String outcome : outcomes.keySet()) {
+            assertTrue(allowedSet.contains(outcome), "forbidden outcome " + outcome + " in " + outcomes);
+        }
+    }
+
+    private static CashRegister register(RegisterPool pool, int id) {
+        CashRegister register = new CashRegister(id);
+        pool.add(register);
+        return register;
+    }
+
+    /**
+     * Runs {@link #ROUNDS} rounds, each on fresh actors, with the two actors
+     * released together by a barrier, and tallies their joint outcomes.
+     */
+    private static Map<String, Integer> race(Supplier<Actors> setup) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(2);
+        CyclicBarrier done = new CyclicBarrier(2);
+        Actors[] current = new Actors[1];
+        String[] secondResult = new String[1];
+        Throwable[] secondFailure = new Throwable[1];
+        Thread second = new Thread(() -> {
+            try {
+                for (int round = 0; round < ROUNDS; round++) {
+                    start.await();
+                    try {
+                        secondResult[0] = current[0].second.get();
+                    } catch (Throwable t) {
+                        secondFailure[0] = t;
+                    }
+                    done.await();
+                }
+            } catch (Exception e) {
+                secondFailure[0] = e;
+            }
+        }, "race-actor-2");
+        second.setDaemon(true);
+        second.start();
+
+        Map<String, Integer> outcomes = new TreeMap<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            current[0] = setup.get();
+            start.await();
+            String firstResult = current[0].first.get();
+            done.await();
+            if (secondFailure[0] != null) {
+                fail("second actor failed", secondFailure[0]);
+            }
+            current[0].arbiter.run();
+            outcomes.merge(firstResult + "," + secondResult[0], 1, Integer::sum);
+        }
+        second.join();
+        return outcomes;
+    }
+
+    private static final class Actors {
+        final Supplier<String> first;
+        final Supplier<String> second;
+        final Runnable arbiter;
+
+        Actors(Supplier<String> first, Supplier<String> second, Runnable arbiter) {
+            this.first = first;
+            this.second = second;
+            this.arbiter = arbiter;
+        }
+    }
+}
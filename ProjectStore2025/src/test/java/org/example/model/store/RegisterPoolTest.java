@@ -0,0 +1,204 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.exception.StoreException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegisterPoolTest {
+    @TempDir
+    File tempDir;
+
+    @Test
+    void testFreeRegistersAreHandedOutOnceAndComeBack() {
+        RegisterPool pool = new RegisterPool();
+        List<CashRegister> registers = registers(pool, 3);
+        Cashier[] cashiers = cashiers(4);
+
+        assertSame(registers.get(0), pool.assignAny(cashiers[0]));
+        assertSame(registers.get(1), pool.assignAny(cashiers[1]));
+        assertSame(registers.get(2), pool.assignAny(cashiers[2]));
+        assertNull(pool.assignAny(cashiers[3]));
+        for (int i = 0; i < 3; i++) {
+            assertSame(cashiers[i], registers.get(i).getAssignedCashier());
+            assertSame(registers.get(i), cashiers[i].getAssignedRegister());
+        }
+        assertThrows(StoreException.class, () -> pool.assignAny(cashiers[0]));
+
+        assertSame(registers.get(1), pool.release(cashiers[1]));
+        assertNull(cashiers[1].getAssignedRegister());
+        assertFalse(registers.get(1).isAssigned());
+        assertNull(pool.release(cashiers[1]));
+        assertSame(registers.get(1), pool.assignAny(cashiers[3]));
+        assertSame(cashiers[0], pool.release(registers.get(0)));
+        assertNull(pool.release(registers.get(0)));
+    }
+
+    @Test
+    void testSpecificPairingNeedsBothSidesFree() {
+        RegisterPool pool = new RegisterPool();
+        List<CashRegister> registers = registers(pool, 2);
+        Cashier[] cashiers = cashiers(2);
+
+        assertTrue(pool.assign(cashiers[0], registers.get(0)));
+        assertFalse(pool.assign(cashiers[1], registers.get(0)));
+        assertNull(cashiers[1].getAssignedRegister());
+        assertFalse(pool.assign(cashiers[0], registers.get(1)));
+        assertFalse(registers.get(1).isAssigned());
+        assertThrows(StoreException.class, () -> pool.assign(cashiers[1], new CashRegister(99)));
+        // The register paired by name is not handed out again.
+        assertSame(registers.get(1), pool.assignAny(cashiers[1]));
+    }
+
+    @Test
+    void testRegisterTakenOutsideThePoolIsSkippedUntilFreed() {
+        RegisterPool pool = new RegisterPool();
+        List<CashRegister> registers = registers(pool, 2);
+        Cashier[] cashiers = cashiers(3);
+
+        registers.get(0).setAssignedCashier(cashiers[0]);
+        assertSame(registers.get(1), pool.assignAny(cashiers[1]));
+        assertNull(pool.assignAny(cashiers[2]));
+        assertNull(cashiers[2].getAssignedRegister());
+
+        registers.get(0).removeAssignedCashier();
+        pool.offer(registers.get(0));
+        assertSame(registers.get(0), pool.assignAny(cashiers[2]));
+    }
+
+    @Test
+    void testStoreReturnsRegistersOfRemovedCashiers() throws Exception {
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        File originalConfigFile = StoreConfig.getConfigFile();
+        StoreConfig.setConfigFile(configFile);
+        try {
+            Store store = new Store("Pool", 0.10, 0.20, 7, 0.20);
+            CashRegister register = new CashRegister(1);
+            store.addRegister(register);
+            Cashier first = new Cashier("First", 2000.0);
+            Cashier second = new Cashier("Second", 2000.0);
+            store.addCashier(first);
+            store.addCashier(second);
+
+            assertSame(register, store.getRegisterPool().assignAny(first));
+            assertNull(store.getRegisterPool().assignAny(second));
+            store.removeCashier(first);
+            assertNull(first.getAssignedRegister());
+            assertSame(register, store.getRegisterPool().assignAny(second));
+            assertEquals(1, store.getShiftLog().getShifts(LocalDate.now()).size());
+
+            // Freed the old way, it still goes back to the pool.
+            register.removeAssignedCashier();
+            second.releaseRegister(register);
+            assertSame(register, store.getRegisterPool().assignAny(first));
+        } finally {
+            StoreConfig.setConfigFile(originalConfigFile);
+        }
+    }
+
+    @Test
+    void testShiftChangeChurnNeverSharesARegister() throws Exception {
+        RegisterPool pool = new RegisterPool();
+        int registerCount = 8;
+        List<CashRegister> registers = registers(pool, registerCount);
+        int threads = 6;
+        int cashiersPerThread = 4;
+        int rounds = 20_000;
+        Map<CashRegister, Cashier> holders = new ConcurrentHashMap<>();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger assignments = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Cashier[] mine = cashiers(cashiersPerThread);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < rounds; i++) {
+                        Cashier cashier = mine[i % cashiersPerThread];
+                        if (cashier.isAssignedToRegister()) {
+                            CashRegister held = cashier.getAssignedRegister();
+                            if (!holders.remove(held, cashier)) {
+                                conflicts.incrementAndGet();
+                            }
+                            assertSame(held, pool.release(cashier));
+                        } else {
+                            CashRegister register = i % 3 == 0
+                                ? (pool.assign(cashier, registers.get(i % registerCount))
+                                    ? registers.get(i % registerCount) : null)
+                                : pool.assignAny(cashier);
+                            if (register != null) {
+                                assignments.incrementAndGet();
+                                if (holders.putIfAbsent(register, cashier) != null
+                                        || register.getAssignedCashier() != cashier) {
+                                    conflicts.incrementAndGet();
+                                }
+                            }
+                        }
+                    }
+                    for (Cashier cashier : mine) {
+                        CashRegister held = cashier.getAssignedRegister();
+                        if (held != null) {
+                            holders.remove(held, cashier);
+                            pool.release(cashier);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, conflicts.get());
+        assertTrue(assignments.get() > 0);
+        assertTrue(holders.isEmpty());
+        // Every register is free again and queued exactly once.
+        Set<CashRegister> handedOut = new HashSet<>();
+        Cashier[] finalCashiers = cashiers(registerCount + 1);
+        for (int i = 0; i < registerCount; i++) {
+            assertTrue(handedOut.add(pool.assignAny(finalCashiers[i])));
+        }
+        assertNull(pool.assignAny(finalCashiers[registerCount]));
+        assertEquals(new HashSet<>(registers), handedOut);
+    }
+
+    private static List<CashRegister> registers(RegisterPool pool, int count) {
+        List<CashRegister> registers = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            CashRegister register = new CashRegister(i);
+            pool.add(register);
+            registers.add(register);
+        }
+        return registers;
+    }
+
+    private static Cashier[] cashiers(int count) {
+        Cashier[] cashiers = new Cashier[count];
+        for (int i = 0; i < count; i++) {
+            cashiers[i] = new Cashier("Cashier " + i, 2000.0);
+        }
+        return cashiers;
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what replication costs on loopback. Not a unit test: run it by
+ * hand with an optional sale count. For each mode it starts a standby in a
+ * child JVM, runs the same single-threaded sales on a fresh primary and
+ * prints throughput, sale latency and how far the standby lagged.
+ */
+public final class ReplicationBenchmark {
+    private static final int PRODUCTS = 100;
+
+    private ReplicationBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        configureReceipts();
+        if (args.length > 0 && args[0].equals("standby")) {
+            runStandby();
+            return;
+        }
+        int sales = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        run(null, sales);
+        run(ReplicationAckMode.ASYNC, sales);
+        run(ReplicationAckMode.STANDBY_ACK, sales);
+    }
+
+    private static void run(ReplicationAckMode mode, int sales) throws Exception {
+        Process child = null;
+        ReplicationPrimary replication = null;
+        Store store = newStore("Primary");
+        CashRegister register = store.getRegister(1);
+        if (mode != null) {
+            child = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-cp", System.getProperty("java.class.path"), ReplicationBenchmark.class.getName(), "standby")
+                .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+            BufferedReader childOut = new BufferedReader(new InputStreamReader(child.getInputStream()));
+            String line;
+            while ((line = childOut.readLine()) != null && !line.startsWith("port=")) {
+                // Skip the child's log output.
+            }
+            if (line == null) {
+                throw new IOException("Standby process exited before listening");
+            }
+            int port = Integer.parseInt(line.substring("port=".length()));
+            replication = new ReplicationPrimary(store, new InetSocketAddress("127.0.0.1", port), mode);
+        }
+        Product[] products = new Product[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            products[i] = new NonFoodProduct("Item " + i, 1.0, 100);
+            store.addProduct(products[i], Integer.MAX_VALUE / 2, 10, 100);
+        }
+
+        long[] latencies = new long[sales];
+        long start = System.nanoTime();
+        for (int i = 0; i < sales; i++) {
+            long began = System.nanoTime();
+            store.processSale(register, Map.of(products[i % PRODUCTS], 1, products[(i * 7 + 3) % PRODUCTS], 2), 100.0);
+            latencies[i] = System.nanoTime() - began;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        String lag = "";
+        if (replication != null) {
+            long drainStart = System.nanoTime();
+            boolean caughtUp = replication.awaitCaughtUp(60, TimeUnit.SECONDS);
+            lag = String.format("  max lag %7.2f ms  catch-up %7.2f ms%s", replication.getMaxLagNanos() / 1e6,
+                (System.nanoTime() - drainStart) / 1e6, caughtUp ? "" : " (timed out)");
+            replication.close();
+            child.destroy();
+            child.waitFor();
+        }
+        System.out.printf("%-12s %8.0f sales/s  p50 %7.1f us  p99 %7.1f us%s%n",
+            mode == null ? "none" : mode.toString(), sales / seconds,
+            latencies[sales / 2] / 1e3, latencies[sales * 99 / 100] / 1e3, lag);
+    }
+
+    private static void runStandby() throws Exception {
+        Store store = newStore("Standby");
+        try (ReplicationStandby standby = new ReplicationStandby(store, new InetSocketAddress("127.0.0.1", 0))) {
+            standby.start();
+            System.out.println("port=" + standby.getPort());
+            System.out.flush();
+            // Runs until the parent destroys it.
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+
+    private static Store newStore(String name) {
+        Store store = new Store(name, 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("Cashier", 2000.0);
+        CashRegister register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+        return store;
+    }
+
+    /**
+     * Keeps the receipts of the run out of the working directory.
+     */
+    private static void configureReceipts() throws IOException {
+        File workDir = Files.createTempDirectory("store-replication").toFile();
+        File configFile = new File(workDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(workDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+    }
+}
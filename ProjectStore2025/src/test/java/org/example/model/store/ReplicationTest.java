@@ -0,0 +1,149 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.exception.StoreException;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store primary;
+    private Store standby;
+    private CashRegister register;
+    private ReplicationStandby follower;
+    private ReplicationPrimary leader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        primary = new Store("Primary", 0.10, 0.20, 7, 0.20);
+        standby = new Store("Standby", 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("John Doe", 2000.0);
+        register = new CashRegister(1);
+        primary.addCashier(cashier);
+        primary.addRegister(register);
+        register.setAssignedCashier(cashier);
+        standby.addCashier(cashier);
+
+        follower = new ReplicationStandby(standby, new InetSocketAddress("127.0.0.1", 0), Duration.ofMillis(500));
+        follower.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (leader != null) {
+            leader.close();
+        }
+        follower.close();
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testStandbyAckKeepsStandbyInStep() throws IOException {
+        leader = connect(ReplicationAckMode.STANDBY_ACK);
+        FoodProduct milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        NonFoodProduct soap = new NonFoodProduct("Soap", 1.0, 200);
+        primary.addProduct(milk, 100, 20, 50);
+        primary.addProduct(soap, 200, 30, 100);
+
+        Receipt receipt = primary.processSale(register, Map.of(milk, 3, soap, 2), 50.0);
+        Product standbyMilk = standby.getProduct(milk.getId());
+        assertNotNull(standbyMilk);
+        assertEquals(97, standby.getStockLevel(standbyMilk));
+        assertEquals(primary.getTotalRevenue(), standby.getTotalRevenue(), 0.001);
+        Receipt replicated = standby.getReceipt(receipt.getReceiptNumber());
+        assertNotNull(replicated);
+        // Replicated lines refer to the standby's own product objects.
+        assertSame(standbyMilk, replicated.getProduct(receipt.getProduct(0) == milk ? 0 : 1));
+
+        primary.processReturn(receipt.getReceiptNumber(), soap, 1);
+        assertEquals(199, standby.getStockLevel(standby.getProduct(soap.getId())));
+        assertEquals(1, standby.getReturnedQuantity(receipt.getReceiptNumber(), standby.getProduct(soap.getId())));
+        assertEquals(primary.getTotalRevenue(), standby.getTotalRevenue(), 0.001);
+        assertEquals(leader.getPublishedSequence(), leader.getAcknowledgedSequence());
+        assertEquals(4, follower.getAppliedSequence());
+    }
+
+    @Test
+    void testAsyncStandbyCatchesUp() throws Exception {
+        leader = connect(ReplicationAckMode.ASYNC);
+        NonFoodProduct soap = new NonFoodProduct("Soap", 1.0, 200);
+        primary.addProduct(soap, 1000, 30, 100);
+        for (int i = 0; i < 200; i++) {
+            primary.processSale(register, Map.of(soap, 1 + i % 3), 10.0);
+        }
+        assertTrue(leader.awaitCaughtUp(5, TimeUnit.SECONDS));
+        assertEquals(201, follower.getAppliedSequence());
+        assertEquals(primary.getStockLevel(soap), standby.getStockLevel(standby.getProduct(soap.getId())));
+        assertEquals(primary.getTotalRevenue(), standby.getTotalRevenue(), 0.001);
+        assertEquals(200, standby.getReceipts().size());
+        assertTrue(leader.getMaxLagNanos() > 0);
+    }
+
+    @Test
+    void testStandbyPromotesWhenPrimaryDies() throws Exception {
+        leader = connect(ReplicationAckMode.STANDBY_ACK);
+        NonFoodProduct soap = new NonFoodProduct("Soap", 1.0, 200);
+        primary.addProduct(soap, 100, 30, 100);
+        Receipt last = primary.processSale(register, Map.of(soap, 5), 10.0);
+
+        leader.abort();
+        assertTrue(follower.awaitPromotion(5, TimeUnit.SECONDS));
+        assertTrue(follower.isPromoted());
+
+        // The promoted store takes sales, numbering receipts after the primary's.
+        CashRegister lane = new CashRegister(1);
+        standby.addRegister(lane);
+        lane.setAssignedCashier(standby.getCashiers().get(0));
+        Receipt next = standby.processSale(lane, Map.of(standby.getProduct(soap.getId()), 1), 10.0);
+        assertTrue(next.getReceiptNumber() > last.getReceiptNumber());
+        assertEquals(94, standby.getStockLevel(standby.getProduct(soap.getId())));
+    }
+
+    @Test
+    void testCleanShutdownDoesNotPromote() throws Exception {
+        leader = connect(ReplicationAckMode.ASYNC);
+        primary.addProduct(new NonFoodProduct("Soap", 1.0, 200), 100, 30, 100);
+        leader.close();
+        leader = null;
+        assertFalse(follower.awaitPromotion(1, TimeUnit.SECONDS));
+        assertEquals(1, follower.getAppliedSequence());
+    }
+
+    @Test
+    void testReplicationMustStartWithEmptyStore() throws IOException {
+        primary.addProduct(new NonFoodProduct("Soap", 1.0, 200), 100, 30, 100);
+        assertThrows(StoreException.class, () -> connect(ReplicationAckMode.ASYNC));
+    }
+
+    private ReplicationPrimary connect(ReplicationAckMode mode) throws IOException {
+        return new ReplicationPrimary(primary, new InetSocketAddress("127.0.0.1", follower.getPort()), mode,
+            Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.exception.StoreException;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaleResultTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store store;
+    private FoodProduct milk;
+    private NonFoodProduct soap;
+    private CashRegister register;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        store = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("John Doe", 2000.0);
+        register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        store.addProduct(milk, 100, 20, 50);
+        store.addProduct(soap, 200, 30, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testCompletedSale() {
+        SaleResult result = store.trySale(register, new Basket().add(milk, 2), 10.0);
+
+        assertTrue(result.isCompleted());
+        assertInstanceOf(SaleResult.Completed.class, result);
+        Receipt receipt = ((SaleResult.Completed) result).getReceipt();
+        assertSame(receipt, result.getReceiptOrThrow());
+        assertEquals(4.4, receipt.getTotalAmount(), 0.0001);
+    }
+
+    @Test
+    void testReceiptTextCopyIsOptIn() throws IOException {
+        File receipts = new File(tempDir, "receipts");
+        Receipt plain = store.trySale(register, new Basket().add(milk, 1), 10.0).getReceiptOrThrow();
+        assertTrue(new File(receipts, "receipt_" + plain.getReceiptNumber() + ".ser").exists());
+        assertFalse(new File(receipts, "receipt_" + plain.getReceiptNumber() + ".txt").exists());
+
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile, true)) {
+            writer.write("receipts.text=true\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+        Receipt withText = store.trySale(register, new Basket().add(milk, 1), 10.0).getReceiptOrThrow();
+        File text = new File(receipts, "receipt_" + withText.getReceiptNumber() + ".txt");
+        assertEquals(withText.toString(), new String(Files.readAllBytes(text.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSoldOutProductReportsAvailableStock() {
+        Map<Product, Integer> items = new HashMap<>();
+        items.put(soap, 5);
+        items.put(milk, 101);
+
+        SaleResult result = store.trySale(register, items, 10000.0);
+
+        assertFalse(result.isCompleted());
+        SaleResult.OutOfStock outOfStock = assertInstanceOf(SaleResult.OutOfStock.class, result);
+        assertSame(milk, outOfStock.getProduct());
+        assertEquals(101, outOfStock.getRequested());
+        assertEquals(100, outOfStock.getAvailable());
+        assertEquals(300, store.getInventorySummary().getTotalUnits());
+        assertTrue(store.getReceipts().isEmpty());
+    }
+
+    @Test
+    void testUnderpaidSaleReportsRequiredAmount() {
+        SaleResult result = store.trySale(register, new Basket().add(soap, 3), 1.0);
+
+        SaleResult.Underpaid underpaid = assertInstanceOf(SaleResult.Underpaid.class, result);
+        assertEquals(3.6, underpaid.getRequired(), 0.0001);
+        assertEquals(1.0, underpaid.getProvided());
+        assertEquals(300, store.getInventorySummary().getTotalUnits());
+    }
+
+    @Test
+    void testProcessSaleStillThrowsForFailedOutcomes() {
+        Basket soldOut = new Basket().add(milk, 500);
+        StoreException stock = assertThrows(StoreException.class, () -> store.processSale(register, soldOut, 10000.0));
+        assertTrue(stock.getMessage().contains("Insufficient stock for product: Milk"));
+
+        Basket basket = new Basket().add(milk, 1);
+        StoreException payment = assertThrows(StoreException.class, () -> store.processSale(register, basket, 0.5));
+        assertTrue(payment.getMessage().startsWith("Insufficient payment"));
+    }
+
+    @Test
+    void testSellingOutStopsAtZeroStock() {
+        Basket basket = new Basket().add(milk, 30);
+        int completed = 0;
+        int soldOut = 0;
+        for (int i = 0; i < 10; i++) {
+            if (store.trySale(register, basket, 1000.0).isCompleted()) {
+                completed++;
+            } else {
+                soldOut++;
+            }
+        }
+        assertEquals(3, completed);
+        assertEquals(7, soldOut);
+        assertEquals(200 + 10, store.getInventorySummary().getTotalUnits());
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.model.product.NonFoodProduct;
+import org.example.util.ReportFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShiftTrackingTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store store;
+    private Cashier alice;
+    private Cashier bob;
+    private CashRegister register;
+    private NonFoodProduct soap;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        store = new Store("Shifts", 0.10, 0.20, 7, 0.20);
+        alice = new Cashier("Alice", 2000.0);
+        bob = new Cashier("Bob", 2000.0);
+        register = new CashRegister(1);
+        store.addCashier(alice);
+        store.addCashier(bob);
+        store.addRegister(register);
+        soap = new NonFoodProduct("Soap", 1.0, 10_000);
+        store.addProduct(soap, 10_000, 10, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testAssignmentOpensAndUnassignmentClosesShift() {
+        assertNull(register.getCurrentShift());
+        register.setAssignedCashier(alice);
+        ShiftRecord open = register.getCurrentShift();
+        assertTrue(open.isOpen());
+        assertEquals(alice.getId(), open.getCashierId());
+
+        store.processSale(register, Map.of(soap, 2), 10.0);
+        register.addToTransaction(soap, 3);
+        register.checkout(store, 10.0);
+        register.removeAssignedCashier();
+
+        assertNull(register.getCurrentShift());
+        List<ShiftRecord> shifts = store.getShiftLog().getShifts(LocalDate.now());
+        assertEquals(1, shifts.size());
+        ShiftRecord closed = shifts.get(0);
+        assertFalse(closed.isOpen());
+        assertEquals("Alice", closed.getCashierName());
+        assertEquals(1, closed.getRegisterId());
+        assertEquals(2, closed.getTransactions());
+        assertEquals(5, closed.getItems());
+        assertEquals(6.00, closed.getRevenue(), 0.001);
+        assertEquals(3.00, closed.getAverageTransactionValue(), 0.001);
+        // Only the scanned basket is timed.
+        assertEquals(1, closed.getTimedBaskets());
+        assertTrue(closed.getClosedAt() >= closed.getOpenedAt());
+    }
+
+    @Test
+    void testReportCoversClosedAndOpenShifts() throws IOException {
+        register.setAssignedCashier(alice);
+        store.processSale(register, Map.of(soap, 1), 10.0);
+        register.removeAssignedCashier();
+        register.setAssignedCashier(bob);
+        store.processSale(register, Map.of(soap, 4), 10.0);
+
+        List<ShiftRecord> today = store.getShifts(LocalDate.now());
+        assertEquals(2, today.size());
+        assertTrue(today.get(1).isOpen());
+        assertTrue(store.getShifts(LocalDate.now().minusDays(1)).isEmpty());
+
+        StringWriter out = new StringWriter();
+        store.writeShiftReport(out, LocalDate.now(), ReportFormat.CSV);
+        String[] lines = out.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[1].startsWith("Alice,1,"));
+        assertTrue(lines[1].contains(",1,1,1.20,"), lines[1]);
+        assertTrue(lines[2].startsWith("Bob,1,"));
+        assertTrue(lines[2].contains(",1,4,4.80,"), lines[2]);
+        assertTrue(lines[3].startsWith("All cashiers,2,"));
+        assertTrue(lines[3].contains(",2,5,6.00,"), lines[3]);
+    }
+
+    @Test
+    void testConcurrentSalesAllCount() throws Exception {
+        register.setAssignedCashier(alice);
+        int threads = 4;
+        int salesPerThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < salesPerThread; i++) {
+                        store.processSale(register, Map.of(soap, 1), 10.0);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        ShiftRecord shift = register.getCurrentShift();
+        assertEquals(threads * salesPerThread, shift.getTransactions());
+        assertEquals(threads * salesPerThread, shift.getItems());
+        assertEquals(threads * salesPerThread * 1.20, shift.getRevenue(), 0.001);
+    }
+}
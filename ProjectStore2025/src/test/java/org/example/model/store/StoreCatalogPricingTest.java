@@ -0,0 +1,115 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.exception.StoreException;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.ProductCatalog;
+import org.example.model.receipt.Receipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoreCatalogPricingTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private FoodProduct milk;
+    private NonFoodProduct soap;
+    private Store north;
+    private Store south;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        ProductCatalog.update(catalog -> catalog.withProducts(List.of(milk, soap)));
+        north = newStore("North");
+        south = newStore("South");
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testCatalogRepricingReachesEveryStore() {
+        Receipt before = north.processSale(north.getRegister(1), Map.of(soap, 2), 10.0);
+        assertEquals(2.40, before.getTotalAmount(), 0.001);
+
+        ProductCatalog.update(catalog -> catalog.withDeliveryPrice(soap, 2.0));
+        assertEquals(2.40, north.getSellingPrice(soap), 0.001);
+        assertEquals(2.40, south.getSellingPrice(soap), 0.001);
+        Receipt after = south.processSale(south.getRegister(1), Map.of(soap, 2), 10.0);
+        assertEquals(4.80, after.getTotalAmount(), 0.001);
+        // Receipts already issued keep the price they were sold at.
+        assertEquals(2.40, before.getTotalAmount(), 0.001);
+        assertEquals(2.20, north.getSellingPrice(milk), 0.001);
+    }
+
+    @Test
+    void testLocalPriceOverridesOneStoreOnly() {
+        north.setLocalPrice(soap, 0.99);
+        assertEquals(0.99, north.getSellingPrice(soap), 0.001);
+        assertEquals(1.20, south.getSellingPrice(soap), 0.001);
+        Receipt receipt = north.processSale(north.getRegister(1), Map.of(soap, 3), 10.0);
+        assertEquals(2.97, receipt.getTotalAmount(), 0.001);
+
+        north.clearLocalPrice(soap);
+        assertEquals(1.20, north.getSellingPrice(soap), 0.001);
+        assertThrows(StoreException.class, () -> north.setLocalPrice(soap, 0));
+    }
+
+    @Test
+    void testLocalPriceStillGetsExpirationDiscount() {
+        FoodProduct yogurt = new FoodProduct("Yogurt", 1.0, 50, LocalDate.now().plusDays(2));
+        ProductCatalog.update(catalog -> catalog.withProduct(yogurt));
+        north.addProduct(yogurt, 50, 5, 20);
+        north.setLocalPrice(yogurt, 2.0);
+        // Within the 7-day warning window: 20% off.
+        assertEquals(1.60, north.getSellingPrice(yogurt), 0.001);
+    }
+
+    @Test
+    void testRemovedProductsLeaveTheListing() {
+        assertEquals(List.of(milk, soap), north.getProducts());
+        north.removeProduct(milk);
+        assertEquals(List.of(soap), north.getProducts());
+        assertEquals(List.of(milk, soap), south.getProducts());
+        north.addProduct(milk, 10, 1, 5);
+        assertEquals(List.of(milk, soap), north.getProducts());
+    }
+
+    private Store newStore(String name) {
+        Store store = new Store(name, 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("Cashier " + name, 2000.0);
+        CashRegister register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+        // Stocked from the shared catalog rather than with per-store copies.
+        ProductCatalog catalog = ProductCatalog.current();
+        store.addProduct(catalog.getProduct(milk.getId()), 100, 10, 50);
+        store.addProduct(catalog.getProduct(soap.getId()), 100, 10, 50);
+        return store;
+    }
+}
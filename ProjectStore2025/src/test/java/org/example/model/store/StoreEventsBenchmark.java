@@ -0,0 +1,157 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures what the event stream costs checkout. Not a unit test: run it by
+ * hand with an optional sale count. Runs the same single-threaded sales with
+ * no subscribers, with 16 subscribers that keep up, and with 15 that keep up
+ * plus one that stops requesting, then the same sales split over 4 checkout
+ * threads at their own registers with and without one subscriber, and prints
+ * throughput, sale latency and how many deliveries were made and dropped.
+ */
+public final class StoreEventsBenchmark {
+    private static final int PRODUCTS = 100;
+    private static final int SUBSCRIBERS = 16;
+    private static final int CHECKOUT_THREADS = 4;
+
+    private StoreEventsBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        configureReceipts();
+        int sales = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        run("none", sales, 0, false, 1);
+        run("16 keeping up", sales, SUBSCRIBERS, false, 1);
+        run("15 + 1 stalled", sales, SUBSCRIBERS, true, 1);
+        run("4 threads, none", sales, 0, false, CHECKOUT_THREADS);
+        run("4 threads, 1", sales, 1, false, CHECKOUT_THREADS);
+    }
+
+    private static void run(String label, int sales, int subscribers, boolean oneStalled, int threads)
+            throws Exception {
+        Store store = newStore(threads);
+        Product[] products = new Product[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            products[i] = new NonFoodProduct("Item " + i, 1.0, 100);
+            store.addProduct(products[i], Integer.MAX_VALUE / 2, 10, 100);
+        }
+        LongAdder delivered = new LongAdder();
+        CountDownLatch completed = new CountDownLatch(subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            boolean stalled = oneStalled && i == 0;
+            store.getEvents().subscribe(new Tally(stalled ? 0 : Long.MAX_VALUE, delivered, completed));
+        }
+
+        long[] latencies = new long[sales];
+        Thread[] checkouts = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            CashRegister register = store.getRegister(t + 1);
+            int first = t;
+            // Each thread takes every threads-th sale at its own register.
+            checkouts[t] = new Thread(() -> {
+                for (int i = first; i < sales; i += threads) {
+                    long began = System.nanoTime();
+                    store.processSale(register, Map.of(products[i % PRODUCTS], 1, products[(i * 7 + 3) % PRODUCTS], 2),
+                        100.0);
+                    latencies[i] = System.nanoTime() - began;
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread checkout : checkouts) {
+            checkout.start();
+        }
+        for (Thread checkout : checkouts) {
+            checkout.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int maxBuffered = store.getEvents().getMaxBuffered();
+        store.getEvents().close();
+        // The stalled subscriber never drains its buffer, so it never completes.
+        completed.await(oneStalled ? 2 : 60, TimeUnit.SECONDS);
+        Arrays.sort(latencies);
+        System.out.printf("%-15s %7.0f sales/s  p50 %7.1f us  p99 %7.1f us  events %,9d  delivered %,10d"
+                + "  dropped %,8d  max buffered %4d%n",
+            label, sales / seconds, latencies[sales / 2] / 1e3, latencies[sales * 99 / 100] / 1e3,
+            store.getEvents().getPublishedCount(), delivered.sum(), store.getEvents().getDroppedCount(), maxBuffered);
+    }
+
+    private static Store newStore(int registers) {
+        Store store = new Store("Events", 0.10, 0.20, 7, 0.20);
+        for (int i = 1; i <= registers; i++) {
+            Cashier cashier = new Cashier("Cashier " + i, 2000.0);
+            CashRegister register = new CashRegister(i);
+            store.addCashier(cashier);
+            store.addRegister(register);
+            register.setAssignedCashier(cashier);
+        }
+        return store;
+    }
+
+    /**
+     * Keeps the receipts of the run out of the working directory.
+     */
+    private static void configureReceipts() throws IOException {
+        File workDir = Files.createTempDirectory("store-events").toFile();
+        File configFile = new File(workDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(workDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+    }
+
+    /**
+     * Counts what it receives, the way a dashboard would fold events into totals.
+     */
+    private static final class Tally implements Flow.Subscriber<StoreEvent> {
+        private final long demand;
+        private final LongAdder delivered;
+        private final CountDownLatch completed;
+        private double revenue;
+
+        Tally(long demand, LongAdder delivered, CountDownLatch completed) {
+            this.demand = demand;
+            this.delivered = delivered;
+            this.completed = completed;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (demand > 0) {
+                subscription.request(demand);
+            }
+        }
+
+        @Override
+        public void onNext(StoreEvent item) {
+            if (item instanceof StoreEvent.SaleCompleted) {
+                revenue += ((StoreEvent.SaleCompleted) item).getReceipt().getTotalAmount();
+            }
+            delivered.increment();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
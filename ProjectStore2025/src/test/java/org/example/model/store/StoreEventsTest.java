@@ -0,0 +1,172 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.receipt.Receipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoreEventsTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store store;
+    private CashRegister register;
+    private Cashier cashier;
+    private NonFoodProduct soap;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        store = new Store("Events", 0.10, 0.20, 7, 0.20);
+        cashier = new Cashier("Events Cashier", 2000.0);
+        register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        store.addProduct(soap, 12, 10, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.getEvents().close();
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testSalePublishesStockAndLowStockEvents() throws InterruptedException {
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        store.getEvents().subscribe(recorder);
+        register.setAssignedCashier(cashier);
+
+        Receipt receipt = store.processSale(register, Map.of(soap, 3), 10.0);
+        store.processSale(register, Map.of(soap, 1), 10.0);
+        List<StoreEvent> events = recorder.await(6);
+
+        StoreEvent.CashierAssigned assigned = (StoreEvent.CashierAssigned) events.get(0);
+        assertSame(cashier, assigned.getCashier());
+        assertSame(register, assigned.getRegister());
+        StoreEvent.StockChanged changed = (StoreEvent.StockChanged) events.get(1);
+        assertEquals(12, changed.getPreviousStock());
+        assertEquals(9, changed.getNewStock());
+        StoreEvent.LowStockCrossed crossed = (StoreEvent.LowStockCrossed) events.get(2);
+        assertEquals(9, crossed.getStock());
+        assertEquals(10, crossed.getReorderPoint());
+        assertSame(receipt, ((StoreEvent.SaleCompleted) events.get(3)).getReceipt());
+        // Still low after the second sale, so no second crossing.
+        assertInstanceOf(StoreEvent.StockChanged.class, events.get(4));
+        assertInstanceOf(StoreEvent.SaleCompleted.class, events.get(5));
+        assertEquals("Events", events.get(5).getStoreName());
+    }
+
+    @Test
+    void testExpiredProductsArePublishedOnce() throws InterruptedException {
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        store.getEvents().subscribe(recorder);
+        FoodProduct yogurt = new FoodProduct("Yogurt", 1.0, 50, LocalDate.now().minusDays(1));
+        store.addProduct(yogurt, 20, 5, 20);
+        store.checkExpirations();
+
+        List<StoreEvent> events = recorder.await(2);
+        assertInstanceOf(StoreEvent.StockChanged.class, events.get(0));
+        StoreEvent.ProductExpired expired = (StoreEvent.ProductExpired) events.get(1);
+        assertSame(yogurt, expired.getProduct());
+        assertEquals(20, expired.getStock());
+        Thread.sleep(100);
+        assertEquals(2, recorder.events.size());
+    }
+
+    @Test
+    void testSlowSubscriberDoesNotHoldUpCheckout() throws InterruptedException {
+        register.setAssignedCashier(cashier);
+        store.addProduct(soap, 10_000, 1, 50);
+        // Never requests anything, so its buffer fills and stays full.
+        Recorder stalled = new Recorder(0);
+        Recorder keen = new Recorder(Long.MAX_VALUE);
+        store.getEvents().subscribe(stalled);
+        store.getEvents().subscribe(keen);
+
+        int sales = 300;
+        for (int i = 0; i < sales; i++) {
+            store.processSale(register, Map.of(soap, 1), 10.0);
+        }
+        keen.await(2 * sales);
+        assertTrue(stalled.events.isEmpty());
+        assertTrue(store.getEvents().getDroppedCount() >= 2 * sales - StoreEventPublisher.DEFAULT_BUFFER_CAPACITY);
+        assertEquals(2 * sales, store.getEvents().getPublishedCount());
+    }
+
+    @Test
+    void testDuplicateSubscribeIsSubscribedBeforeItFails() {
+        StoreEventPublisher publisher = new StoreEventPublisher(Runnable::run, 16);
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(recorder);
+        publisher.subscribe(recorder);
+
+        assertEquals(List.of("subscribe", "subscribe", "error"), recorder.signals);
+        assertEquals(1, publisher.getSubscriberCount());
+    }
+
+    private static final class Recorder implements Flow.Subscriber<StoreEvent> {
+        final List<StoreEvent> events = new CopyOnWriteArrayList<>();
+        final List<String> signals = new CopyOnWriteArrayList<>();
+        private final long demand;
+
+        Recorder(long demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            signals.add("subscribe");
+            if (demand > 0) {
+                subscription.request(demand);
+            }
+        }
+
+        @Override
+        public void onNext(StoreEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            signals.add("error");
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        List<StoreEvent> await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(count, events.size(), "events: " + events);
+            return events;
+        }
+    }
+}
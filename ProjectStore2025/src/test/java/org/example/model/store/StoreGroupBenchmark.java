@@ -0,0 +1,73 @@
+package org.example.model.store;
+
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+
+import java.util.Map;
+
+/**
+ * Chain-wide aggregation over many stores: merging analytics summaries with
+ * {@link StoreGroup#summarize()} against rendering every store's analytics
+ * report, as dashboards did before. Not a unit test: run it by hand with
+ * optional store count and receipts per store.
+ * <p>
+ * Receipts are fed in through the replication path, which updates stock and
+ * analytics like a sale but writes no receipt files.
+ */
+public final class StoreGroupBenchmark {
+    private static final int CATALOG = 1000;
+    private static final int ROUNDS = 5;
+
+    private StoreGroupBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int storeCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int receiptsPerStore = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        Product[] catalog = new Product[CATALOG];
+        for (int i = 0; i < CATALOG; i++) {
+            catalog[i] = new NonFoodProduct("Item " + i, 1.0 + i % 10, 100);
+        }
+        StoreGroup group = new StoreGroup("Chain");
+        long seedStart = System.nanoTime();
+        long state = 0x9e3779b97f4a7c15L;
+        for (int s = 0; s < storeCount; s++) {
+            Store store = new Store("Store " + s, 0.10, 0.20, 7, 0.20);
+            Cashier cashier = new Cashier("Cashier " + s, 2000.0);
+            store.addCashier(cashier);
+            for (Product product : catalog) {
+                store.addProduct(product, Integer.MAX_VALUE / 2, 10, 100);
+            }
+            for (int r = 0; r < receiptsPerStore; r++) {
+                state ^= state << 13;
+                state ^= state >>> 7;
+                state ^= state << 17;
+                Product first = catalog[(int) Math.floorMod(state, (long) CATALOG)];
+                Product second = catalog[(int) Math.floorMod(state >>> 20, (long) CATALOG)];
+                Map<Product, Integer> items = first == second ? Map.of(first, 2) : Map.of(first, 1, second, 1);
+                store.applyReplicatedSale(new Receipt(cashier, items, 10.0 + r % 7));
+            }
+            group.addStore(store);
+        }
+        System.out.printf("seeded %d stores x %d receipts in %.1f s%n", storeCount, receiptsPerStore,
+            (System.nanoTime() - seedStart) / 1e9);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            ChainSummary summary = group.summarize();
+            double merged = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            long reportChars = 0;
+            for (Store store : group.getStores()) {
+                reportChars += store.getAnalyticsReport().length();
+            }
+            double reports = (System.nanoTime() - start) / 1e6;
+            System.out.printf("round %d: summarize %8.2f ms (revenue %.2f, top %s)  reports %8.2f ms (%d chars)%n",
+                round, merged, summary.getTotalRevenue(),
+                summary.getTopSellingProducts(1).keySet().iterator().next().getName(), reports, reportChars);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.exception.StoreException;
+import org.example.model.analytics.AnalyticsSummary;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoreGroupTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private StoreGroup group;
+    private FoodProduct milk;
+    private NonFoodProduct soap;
+    private NonFoodProduct paper;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        group = new StoreGroup("Chain");
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        paper = new NonFoodProduct("Paper", 3.0, 150);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testTotalsMatchTheStores() {
+        Store north = newStore("North");
+        Store south = newStore("South");
+        sell(north, Map.of(milk, 3, soap, 2));
+        sell(north, Map.of(paper, 1));
+        sell(south, Map.of(soap, 5));
+        south.processReturn(south.getReceipts().get(0).getReceiptNumber(), soap, 1);
+
+        ChainSummary summary = group.summarize();
+        AnalyticsSummary totals = summary.getTotals();
+        assertEquals(2, summary.getStoreCount());
+        assertEquals(north.getTotalRevenue() + south.getTotalRevenue(), totals.getTotalRevenue(), 0.001);
+        assertEquals(north.getProfit() + south.getProfit(), totals.getProfit(), 0.001);
+        assertEquals(3, totals.getTotalTransactions());
+        assertEquals(1, totals.getReturnedUnits());
+        assertEquals(1.20, totals.getTotalRefunds(), 0.001);
+        assertEquals(6, totals.getProductSales(soap));
+        assertEquals(north.getTotalRevenue(), summary.getStoreSummary(north).getTotalRevenue(), 0.001);
+        assertNull(summary.getStoreSummary(new Store("Elsewhere", 0.10, 0.20, 7, 0.20)));
+    }
+
+    @Test
+    void testTopProductsAndRankingsAcrossStores() {
+        Store north = newStore("North");
+        Store south = newStore("South");
+        Store east = newStore("East");
+        sell(north, Map.of(milk, 4));
+        sell(south, Map.of(soap, 3, paper, 1));
+        sell(east, Map.of(soap, 3, milk, 1));
+
+        ChainSummary summary = group.summarize();
+        Map<Product, Long> top = summary.getTopSellingProducts(2);
+        assertEquals(List.of(soap, milk), new ArrayList<>(top.keySet()));
+        assertEquals(6L, top.get(soap));
+        assertEquals(5L, top.get(milk));
+
+        // Revenue: North 8.80, South 6.60, East 5.80.
+        assertEquals(List.of(north, south, east), summary.getStoresByRevenue(5));
+        assertEquals(List.of(north), summary.getStoresByProfit(1));
+    }
+
+    @Test
+    void testParallelSummaryMatchesSequentialMerge() {
+        List<Store> stores = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Store store = newStore("Store " + i);
+            stores.add(store);
+            sell(store, Map.of(soap, 1 + i % 4, paper, 1));
+            if (i % 3 == 0) {
+                sell(store, Map.of(milk, 2));
+            }
+        }
+        AnalyticsSummary expected = AnalyticsSummary.EMPTY;
+        for (Store store : stores) {
+            expected = expected.merge(store.getAnalyticsSummary());
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            AnalyticsSummary totals = group.summarize(pool).getTotals();
+            assertEquals(expected.getTotalRevenue(), totals.getTotalRevenue(), 0.001);
+            assertEquals(expected.getTotalTransactions(), totals.getTotalTransactions());
+            assertEquals(3, totals.getProductCount());
+            assertEquals(expected.getProductSales(soap), totals.getProductSales(soap));
+            assertEquals(28, totals.getProductSales(milk));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testEmptyGroupAndDuplicates() {
+        ChainSummary summary = group.summarize();
+        assertEquals(0, summary.getTotals().getTotalTransactions());
+        assertTrue(summary.getStoresByRevenue(3).isEmpty());
+
+        Store store = newStore("North");
+        assertThrows(StoreException.class, () -> group.addStore(store));
+        assertTrue(group.removeStore(store));
+        assertTrue(group.getStores().isEmpty());
+    }
+
+    private Store newStore(String name) {
+        Store store = new Store(name, 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("Cashier " + name, 100.0);
+        CashRegister register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+        store.addProduct(milk, 100, 10, 50);
+        store.addProduct(soap, 100, 10, 50);
+        store.addProduct(paper, 100, 10, 50);
+        group.addStore(store);
+        return store;
+    }
+
+    private static void sell(Store store, Map<Product, Integer> items) {
+        store.processSale(store.getRegisters().get(0), items, 100.0);
+    }
+}
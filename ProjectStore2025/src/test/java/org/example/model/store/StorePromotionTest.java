@@ -0,0 +1,100 @@
+package org.example.model.store;
+
+import org.example.config.StoreConfig;
+import org.example.exception.StoreException;
+import org.example.model.product.FoodProduct;
+import org.example.model.product.NonFoodProduct;
+import org.example.model.product.Product;
+import org.example.model.receipt.Receipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorePromotionTest {
+    @TempDir
+    File tempDir;
+
+    private File originalConfigFile;
+    private Store store;
+    private FoodProduct milk;
+    private NonFoodProduct soap;
+    private CashRegister register;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalConfigFile = StoreConfig.getConfigFile();
+        File configFile = new File(tempDir, "store.properties");
+        try (FileWriter writer = new FileWriter(configFile)) {
+            writer.write("receipts.directory=" + new File(tempDir, "receipts").getAbsolutePath().replace('\\', '/') + "\n");
+        }
+        StoreConfig.setConfigFile(configFile);
+
+        store = new Store("Test Store", 0.10, 0.20, 7, 0.20);
+        Cashier cashier = new Cashier("John Doe", 2000.0);
+        register = new CashRegister(1);
+        store.addCashier(cashier);
+        store.addRegister(register);
+        register.setAssignedCashier(cashier);
+
+        milk = new FoodProduct("Milk", 2.0, 100, LocalDate.now().plusDays(30));
+        soap = new NonFoodProduct("Soap", 1.0, 200);
+        store.addProduct(milk, 100, 20, 50);
+        store.addProduct(soap, 200, 30, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StoreConfig.setConfigFile(originalConfigFile);
+    }
+
+    @Test
+    void testSaleAppliesPromotionsFromFile() throws IOException {
+        File rules = new File(tempDir, "promotions.txt");
+        try (FileWriter writer = new FileWriter(rules)) {
+            writer.write("milk-3for2 | product:" + milk.getId() + " | multibuy:3:2\n");
+            writer.write("nonfood-10 | category:NON_FOOD | percent:10\n");
+        }
+        store.loadPromotions(rules);
+
+        Receipt receipt = store.processSale(register, new Basket().add(milk, 3).add(soap, 2), 100.0);
+
+        assertEquals(3 * 2.2 - 2.2 + 2 * 1.2 * 0.9, receipt.getTotalAmount(), 0.0001);
+        assertEquals(2.2 + 0.24, receipt.getTotalDiscount(), 0.0001);
+        assertTrue(receipt.toString().contains("Promotion milk-3for2 -$2.20"));
+        assertEquals(receipt.getTotalAmount(), store.getTotalRevenue(), 0.01);
+    }
+
+    @Test
+    void testRefundUsesDiscountedPrice() throws IOException {
+        File rules = new File(tempDir, "promotions.txt");
+        try (FileWriter writer = new FileWriter(rules)) {
+            writer.write("milk-half | product:" + milk.getId() + " | percent:50\n");
+        }
+        store.loadPromotions(rules);
+        Map<Product, Integer> items = new HashMap<>();
+        items.put(milk, 2);
+        Receipt receipt = store.processSale(register, items, 100.0);
+
+        assertEquals(1.1, store.processReturn(receipt.getReceiptNumber(), milk, 1).getAmount(), 0.0001);
+    }
+
+    @Test
+    void testInvalidPromotionFileKeepsCurrentRules() throws IOException {
+        File rules = new File(tempDir, "promotions.txt");
+        try (FileWriter writer = new FileWriter(rules)) {
+            writer.write("broken | product:x | percent:5\n");
+        }
+        assertThrows(StoreException.class, () -> store.loadPromotions(rules));
+        assertTrue(store.getPromotions().isEmpty());
+    }
+}